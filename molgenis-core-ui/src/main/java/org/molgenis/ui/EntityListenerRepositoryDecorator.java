@@ -9,6 +9,7 @@ import java.util.stream.Stream;
 
 import org.molgenis.data.AggregateQuery;
 import org.molgenis.data.AggregateResult;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.EntityMetaData;
@@ -18,12 +19,14 @@ import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.SetMultimap;
 
 public class EntityListenerRepositoryDecorator implements Repository
 {
 	private final Repository decoratedRepository;
-	private SetMultimap<Object, EntityListener> entityListeners;
+	/** entity id --> listeners, replaced instead of modified so that listeners can be notified without locking */
+	private volatile SetMultimap<Object, EntityListener> entityListeners;
 
 	public EntityListenerRepositoryDecorator(Repository decoratedRepository)
 	{
@@ -90,6 +93,12 @@ public class EntityListenerRepositoryDecorator implements Repository
 		return decoratedRepository.findAll(q);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		return decoratedRepository.findAllWithTotal(q);
+	}
+
 	@Override
 	public Entity findOne(Query q)
 	{
@@ -120,6 +129,12 @@ public class EntityListenerRepositoryDecorator implements Repository
 		return decoratedRepository.findAll(ids, fetch);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		return decoratedRepository.existingIds(ids);
+	}
+
 	@Override
 	public AggregateResult aggregate(AggregateQuery aggregateQuery)
 	{
@@ -133,8 +148,7 @@ public class EntityListenerRepositoryDecorator implements Repository
 
 		if (entityListeners != null)
 		{
-			Set<EntityListener> entityEntityListeners = entityListeners.get(entity.getIdValue());
-			entityEntityListeners.forEach(entityListener -> {
+			getEntityListeners(entity.getIdValue()).forEach(entityListener -> {
 				entityListener.postUpdate(entity);
 			});
 		}
@@ -146,8 +160,7 @@ public class EntityListenerRepositoryDecorator implements Repository
 		if (entityListeners != null)
 		{
 			entities = entities.filter(entity -> {
-				Set<EntityListener> entityEntityListeners = entityListeners.get(entity.getIdValue());
-				entityEntityListeners.forEach(entityListener -> {
+				getEntityListeners(entity.getIdValue()).forEach(entityListener -> {
 					entityListener.postUpdate(entity);
 				});
 				return true;
@@ -160,11 +173,23 @@ public class EntityListenerRepositoryDecorator implements Repository
 	public void delete(Entity entity)
 	{
 		decoratedRepository.delete(entity);
+
+		if (entityListeners != null)
+		{
+			postDelete(entity.getIdValue());
+		}
 	}
 
 	@Override
 	public void delete(Stream<? extends Entity> entities)
 	{
+		if (entityListeners != null)
+		{
+			entities = entities.filter(entity -> {
+				postDelete(entity.getIdValue());
+				return true;
+			});
+		}
 		decoratedRepository.delete(entities);
 	}
 
@@ -172,11 +197,23 @@ public class EntityListenerRepositoryDecorator implements Repository
 	public void deleteById(Object id)
 	{
 		decoratedRepository.deleteById(id);
+
+		if (entityListeners != null)
+		{
+			postDelete(id);
+		}
 	}
 
 	@Override
 	public void deleteById(Stream<Object> ids)
 	{
+		if (entityListeners != null)
+		{
+			ids = ids.filter(id -> {
+				postDelete(id);
+				return true;
+			});
+		}
 		decoratedRepository.deleteById(ids);
 	}
 
@@ -184,20 +221,58 @@ public class EntityListenerRepositoryDecorator implements Repository
 	public void deleteAll()
 	{
 		decoratedRepository.deleteAll();
+
+		if (entityListeners != null)
+		{
+			entityListeners.values().forEach(entityListener -> {
+				entityListener.postDelete(null);
+			});
+		}
 	}
 
 	@Override
 	public void add(Entity entity)
 	{
 		decoratedRepository.add(entity);
+
+		if (entityListeners != null)
+		{
+			entityListeners.get(null).forEach(entityListener -> {
+				entityListener.postAdd(entity);
+			});
+		}
 	}
 
 	@Override
 	public Integer add(Stream<? extends Entity> entities)
 	{
+		if (entityListeners != null)
+		{
+			entities = entities.filter(entity -> {
+				entityListeners.get(null).forEach(entityListener -> {
+					entityListener.postAdd(entity);
+				});
+				return true;
+			});
+		}
 		return decoratedRepository.add(entities);
 	}
 
+	/**
+	 * Returns the listeners of the entity with the given id and the listeners of all entities
+	 */
+	private Iterable<EntityListener> getEntityListeners(Object entityId)
+	{
+		return Iterables.concat(entityListeners.get(entityId), entityListeners.get(null));
+	}
+
+	private void postDelete(Object entityId)
+	{
+		getEntityListeners(entityId).forEach(entityListener -> {
+			entityListener.postDelete(entityId);
+		});
+	}
+
 	@Override
 	public void flush()
 	{
@@ -229,21 +304,25 @@ public class EntityListenerRepositoryDecorator implements Repository
 	}
 
 	@Override
-	public void addEntityListener(EntityListener entityListener)
+	public synchronized void addEntityListener(EntityListener entityListener)
 	{
-		if (entityListeners == null)
+		SetMultimap<Object, EntityListener> newEntityListeners = HashMultimap.<Object, EntityListener> create();
+		if (entityListeners != null)
 		{
-			entityListeners = HashMultimap.<Object, EntityListener> create();
+			newEntityListeners.putAll(entityListeners);
 		}
-		entityListeners.put(entityListener.getEntityId(), entityListener);
+		newEntityListeners.put(entityListener.getEntityId(), entityListener);
+		entityListeners = newEntityListeners;
 	}
 
 	@Override
-	public void removeEntityListener(EntityListener entityListener)
+	public synchronized void removeEntityListener(EntityListener entityListener)
 	{
 		if (entityListeners != null)
 		{
-			entityListeners.remove(entityListener.getEntityId(), entityListener);
+			SetMultimap<Object, EntityListener> newEntityListeners = HashMultimap.create(entityListeners);
+			newEntityListeners.remove(entityListener.getEntityId(), entityListener);
+			entityListeners = newEntityListeners;
 		}
 	}
 }
@@ -242,6 +242,56 @@ public class EntityListenerRepositoryDecoratorTest
 		assertEquals(expectedEntities.collect(Collectors.toList()), Arrays.asList(entity0, entity1));
 	}
 
+	@Test
+	public void addEntityWithListenerOfAllEntities()
+	{
+		EntityListener entityListener = mock(EntityListener.class);
+		entityListenerRepositoryDecorator.addEntityListener(entityListener);
+
+		Entity entity = when(mock(Entity.class).getIdValue()).thenReturn(Integer.valueOf(1)).getMock();
+		entityListenerRepositoryDecorator.add(entity);
+
+		verify(decoratedRepository).add(entity);
+		verify(entityListener, times(1)).postAdd(entity);
+	}
+
+	@Test
+	public void deleteEntityWithListeners()
+	{
+		EntityListener entityListener0 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(1))
+				.getMock();
+		EntityListener entityListener1 = mock(EntityListener.class);
+		EntityListener entityListener2 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(2))
+				.getMock();
+		entityListenerRepositoryDecorator.addEntityListener(entityListener0);
+		entityListenerRepositoryDecorator.addEntityListener(entityListener1);
+		entityListenerRepositoryDecorator.addEntityListener(entityListener2);
+
+		Entity entity = when(mock(Entity.class).getIdValue()).thenReturn(Integer.valueOf(1)).getMock();
+		entityListenerRepositoryDecorator.delete(entity);
+
+		verify(decoratedRepository).delete(entity);
+		verify(entityListener0, times(1)).postDelete(Integer.valueOf(1));
+		verify(entityListener1, times(1)).postDelete(Integer.valueOf(1));
+		verify(entityListener2, times(0)).postDelete(Integer.valueOf(1));
+	}
+
+	@Test
+	public void deleteAllWithListeners()
+	{
+		EntityListener entityListener0 = when(mock(EntityListener.class).getEntityId()).thenReturn(Integer.valueOf(1))
+				.getMock();
+		EntityListener entityListener1 = mock(EntityListener.class);
+		entityListenerRepositoryDecorator.addEntityListener(entityListener0);
+		entityListenerRepositoryDecorator.addEntityListener(entityListener1);
+
+		entityListenerRepositoryDecorator.deleteAll();
+
+		verify(decoratedRepository).deleteAll();
+		verify(entityListener0, times(1)).postDelete(null);
+		verify(entityListener1, times(1)).postDelete(null);
+	}
+
 	@Test
 	public void findAllAsStream()
 	{
@@ -17,9 +17,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.molgenis.das.RangeHandlingDataSource;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Query;
 import org.molgenis.data.support.GenomicDataSettings;
-import org.molgenis.data.support.QueryImpl;
 
 import com.google.common.collect.Iterables;
 
@@ -36,6 +36,11 @@ import uk.ac.ebi.mydas.model.DasType;
 public class RepositoryRangeHandlingDataSource extends RangeHandlingDataSource
 		implements RangeHandlingAnnotationDataSource
 {
+	/**
+	 * Maximum number of entities retrieved for a window that is wider than the number of bins
+	 */
+	private static final int MAX_BINNED_QUERY_SIZE = 10000;
+
 	private final DataService dataService;
 	private final GenomicDataSettings config;
 	private DasType mutationType;
@@ -88,7 +93,7 @@ public class RepositoryRangeHandlingDataSource extends RangeHandlingDataSource
 		{
 			maxbins = 1000;
 		}
-		Stream<Entity> entityIterable = queryDataSet(segmentId, dataSet, maxbins);
+		Stream<Entity> entityIterable = queryDataSet(segmentId, dataSet, start, stop, maxbins);
 		List<DasFeature> features = new ArrayList<DasFeature>();
 
 		Integer score = 0;
@@ -129,7 +134,11 @@ public class RepositoryRangeHandlingDataSource extends RangeHandlingDataSource
 			// no end position? assume mutation of 1 position, so stop == start
 			Iterable<String> attributes = entity.getAttributeNames();
 
-			valueStop = Iterables.contains(attributes, stopAttribute) ? entity.getInt(stopAttribute) : valueStart;
+			valueStop = Iterables.contains(attributes, stopAttribute) ? entity.getInt(stopAttribute) : null;
+			if (valueStop == null)
+			{
+				valueStop = valueStart;
+			}
 			valueDescription = Iterables.contains(attributes, descriptionAttribute)
 					? entity.getString(descriptionAttribute) : "";
 			valueLink = Iterables.contains(attributes, linkAttribute) ? entity.getString(linkAttribute) : "";
@@ -144,8 +153,7 @@ public class RepositoryRangeHandlingDataSource extends RangeHandlingDataSource
 			if (StringUtils.isNotEmpty(valueRef)) notes.add(refAttribute + "~" + valueRef);
 			if (StringUtils.isNotEmpty(valueAlt)) notes.add(altAttribute + "~" + valueAlt);
 
-			if (valueStart != null
-					&& ((valueStart >= start && valueStart <= stop) || (valueStop >= start && valueStop <= stop)))
+			if (valueStart != null && valueStart <= stop && valueStop >= start)
 			{
 				DasType type;// used for label colours in Dalliance
 				if (!StringUtils.isEmpty(valueRef) && !StringUtils.isEmpty(valueAlt))
@@ -195,14 +203,44 @@ public class RepositoryRangeHandlingDataSource extends RangeHandlingDataSource
 		return attribute;
 	}
 
-	protected Stream<Entity> queryDataSet(String segmentId, String dataSet, int maxbins)
+	/**
+	 * Returns the entities of which the genomic interval overlaps with the window from start to stop, sorted on start
+	 * position. At most maxbins entities are returned: a window wider than the number of bins is queried once for at
+	 * most MAX_BINNED_QUERY_SIZE entities of which the first entity of each bin is returned.
+	 */
+	protected Stream<Entity> queryDataSet(String segmentId, String dataSet, int start, int stop, int maxbins)
 	{
+		EntityMetaData entityMetaData = dataService.getEntityMetaData(dataSet);
+		Query q = config.createRangeQuery(entityMetaData, segmentId, start, stop);
+		long windowWidth = (long) stop - start + 1;
+		if (windowWidth <= maxbins)
+		{
+			return dataService.findAll(dataSet, q.pageSize(maxbins));
+		}
 
-		String chromosomeAttribute = config.getAttributeNameForAttributeNameArray(GenomicDataSettings.Meta.ATTRS_CHROM,
-				dataService.getEntityMetaData(dataSet));
-		Query q = new QueryImpl().eq(chromosomeAttribute, segmentId);
-		q.pageSize(maxbins);
-		return dataService.findAll(dataSet, q);
+		String posAttrName = config.getAttributeNameForAttributeNameArray(GenomicDataSettings.Meta.ATTRS_POS,
+				entityMetaData);
+		List<Entity> entities = new ArrayList<>();
+		try (Stream<Entity> entityStream = dataService.findAll(dataSet, q.pageSize(MAX_BINNED_QUERY_SIZE)))
+		{
+			long nextBin = 0;
+			for (Iterator<Entity> it = entityStream.iterator(); it.hasNext() && nextBin < maxbins;)
+			{
+				Entity entity = it.next();
+				Integer pos = entity.getInt(posAttrName);
+				if (pos != null)
+				{
+					// the first bin includes entities that start before the window
+					long bin = ((long) Math.max(pos, start) - start) * maxbins / windowWidth;
+					if (bin >= nextBin)
+					{
+						entities.add(entity);
+						nextBin = bin + 1;
+					}
+				}
+			}
+		}
+		return entities.stream();
 	}
 
 	@Override
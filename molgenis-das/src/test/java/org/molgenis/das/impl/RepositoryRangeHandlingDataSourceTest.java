@@ -1,6 +1,11 @@
 package org.molgenis.das.impl;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_LABEL;
@@ -16,17 +21,16 @@ import static org.testng.AssertJUnit.assertEquals;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.mockito.Mockito;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
 import org.molgenis.data.DataService;
-import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Query;
 import org.molgenis.data.elasticsearch.util.Hit;
@@ -64,6 +68,8 @@ public class RepositoryRangeHandlingDataSourceTest
 	private ArrayList<Hit> resultList;
 	private ArrayList<DasFeature> featureList;
 	private GenomicDataSettings genomicDataSettings;
+	private EntityMetaData metaData;
+	private MapEntity entity;
 
 	@BeforeMethod
 	public void setUp() throws DataSourceException, MalformedURLException
@@ -76,9 +82,10 @@ public class RepositoryRangeHandlingDataSourceTest
 		when(ctx.getBean(GenomicDataSettings.class)).thenReturn(genomicDataSettings);
 		new ApplicationContextProvider().setApplicationContext(ctx);
 
-		EntityMetaData metaData = new DefaultEntityMetaData("dataset");
+		metaData = new DefaultEntityMetaData("dataset");
 		when(dataService.getEntityMetaData("dataset")).thenReturn(metaData);
 		when(genomicDataSettings.getAttributeNameForAttributeNameArray(ATTRS_CHROM, metaData)).thenReturn("CHROM");
+		when(genomicDataSettings.getAttributeNameForAttributeNameArray(ATTRS_POS, metaData)).thenReturn("POS");
 
 		DasType type = new DasType("0", "", "", "type");
 		DasMethod method = new DasMethod("not_recorded", "not_recorded", "ECO:0000037");
@@ -101,8 +108,9 @@ public class RepositoryRangeHandlingDataSourceTest
 				DasFeatureOrientation.ORIENTATION_NOT_APPLICABLE, DasPhase.PHASE_NOT_APPLICABLE, notes, linkout,
 				dasTarget, new ArrayList<String>(), null);
 
-		Query q = new QueryImpl().eq("CHROM", "1");
-		q.pageSize(100);
+		// window of 100000 positions in 100 bins of 1000 positions
+		when(genomicDataSettings.createRangeQuery(metaData, "1", 1, 100000))
+				.thenAnswer(invocation -> new QueryImpl().eq("CHROM", "1"));
 		SearchResult result = mock(SearchResult.class);
 		DefaultEntityMetaData emd = new DefaultEntityMetaData("DAS");
 		emd.addAttributeMetaData(new DefaultAttributeMetaData("STOP"));
@@ -113,7 +121,7 @@ public class RepositoryRangeHandlingDataSourceTest
 		emd.addAttributeMetaData(new DefaultAttributeMetaData("ID"), ROLE_ID);
 		emd.addAttributeMetaData(new DefaultAttributeMetaData("CHROM"));
 
-		MapEntity entity = new MapEntity(emd);
+		entity = new MapEntity(emd);
 
 		Map<String, Object> map = new HashMap<String, Object>();
 		map.put("STOP", 1000);
@@ -130,14 +138,8 @@ public class RepositoryRangeHandlingDataSourceTest
 		resultList.add(new Hit("", "", map));
 		featureList = new ArrayList<>();
 		featureList.add(dasFeature);
-		when(dataService.findAll("dataset", q)).thenAnswer(new Answer<Stream<Entity>>()
-		{
-			@Override
-			public Stream<Entity> answer(InvocationOnMock invocation) throws Throwable
-			{
-				return Stream.of(entity);
-			}
-		});
+		when(dataService.findAll("dataset", new QueryImpl().eq("CHROM", "1").pageSize(10000)))
+				.thenAnswer(invocation -> Stream.of(entity));
 		when(result.iterator()).thenReturn(resultList.iterator());
 
 		when(genomicDataSettings.getAttributeNameForAttributeNameArray(ATTRS_CHROM, entity.getEntityMetaData()))
@@ -177,6 +179,38 @@ public class RepositoryRangeHandlingDataSourceTest
 				source.getFeatures("1,dasdataset_dataset", 1, 100000, 100).getStopCoordinate());
 	}
 
+	@Test
+	public void queryDataSetFirstEntityPerBin()
+	{
+		when(dataService.findAll("dataset", new QueryImpl().eq("CHROM", "1").pageSize(10000)))
+				.thenAnswer(invocation -> Stream.of(createEntity(10), createEntity(500), createEntity(1001),
+						createEntity(2000), createEntity(2001), createEntity(99999)));
+
+		List<Object> positions = source.queryDataSet("1", "dataset", 1, 100000, 100)
+				.map(entity -> entity.get("POS")).collect(Collectors.toList());
+		assertEquals(Arrays.asList(10, 1001, 2001, 99999), positions);
+		verify(dataService, times(1)).findAll(anyString(), any(Query.class));
+		verify(dataService, never()).findOne(anyString(), any(Query.class));
+	}
+
+	@Test
+	public void getFeaturesNarrowRange() throws DataSourceException, BadReferenceObjectException
+	{
+		Query rangeQuery = new QueryImpl().eq("CHROM", "1");
+		when(genomicDataSettings.createRangeQuery(metaData, "1", 1, 50)).thenReturn(rangeQuery);
+		when(dataService.findAll("dataset", rangeQuery)).thenAnswer(invocation -> Stream.of(entity));
+
+		assertEquals(featureList, source.getFeatures("1,dasdataset_dataset", 1, 50, 100).getFeatures());
+		assertEquals(100, rangeQuery.getPageSize());
+	}
+
+	private MapEntity createEntity(int pos)
+	{
+		MapEntity posEntity = new MapEntity(entity, entity.getEntityMetaData());
+		posEntity.set("POS", pos);
+		return posEntity;
+	}
+
 	@Test
 	public void getTypes() throws UnimplementedFeatureException, DataSourceException, BadReferenceObjectException,
 			CoordinateErrorException
@@ -33,8 +33,11 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import net.sf.samtools.util.BlockCompressedInputStream;
 
@@ -54,9 +57,26 @@ public class TabixReader
 
 	public HashMap<String, Integer> mChr2tid;
 
-	private static int MAX_BIN = 37450;
+	// sweep state: chromosome, position, result and lookahead line of the previous sweep and the end of the region
+	// that is read by the sweep iterator
+	private int mSweepTid = -1;
+	private int mSweepPos;
+	private int mSweepEnd;
+	private List<String> mSweepLines;
+	private Iterator mSweepIterator;
+	private String mSweepLine;
+	private int mSweepLinePos;
+
 	private static int TAD_MIN_CHUNK_GAP = 32768;
 	private static int TAD_LIDX_SHIFT = 14;
+	/**
+	 * Maximum distance to the position of the previous sweep that is read sequentially instead of seeking
+	 */
+	private static int SWEEP_MAX_GAP = 1 << TAD_LIDX_SHIFT;
+	/**
+	 * Size of the region that is read ahead when a sweep continues past the region of the previous sweeps
+	 */
+	private static int SWEEP_WINDOW = 1 << 20;
 
 	private static boolean less64(final long u, final long v)
 	{ // unsigned 64-bit comparison
@@ -76,6 +96,42 @@ public class TabixReader
 		readIndex(filename);
 	}
 
+	/**
+	 * Creates a reader with its own input stream on the data file of the given reader that shares the index of the
+	 * given reader
+	 */
+	private TabixReader(TabixReader reader) throws IOException
+	{
+		this.filename = reader.filename;
+		this.blockCompressedInputStream = new BlockCompressedInputStream(new File(filename));
+		this.mPreset = reader.mPreset;
+		this.mSc = reader.mSc;
+		this.mBc = reader.mBc;
+		this.mEc = reader.mEc;
+		this.mMeta = reader.mMeta;
+		this.mSkip = reader.mSkip;
+		this.mSeq = reader.mSeq;
+		this.mIndex = reader.mIndex;
+		this.mChr2tid = reader.mChr2tid;
+	}
+
+	/**
+	 * Returns a new reader on the same data file with an independent input stream. The in-memory index is shared and
+	 * not read again, the readers can be queried concurrently.
+	 */
+	public TabixReader copy() throws IOException
+	{
+		return new TabixReader(this);
+	}
+
+	/**
+	 * Closes the input stream of the data file
+	 */
+	public void close() throws IOException
+	{
+		blockCompressedInputStream.close();
+	}
+
 	private class TPair64 implements Comparable<TPair64>
 	{
 		long u, v;
@@ -110,6 +166,19 @@ public class TabixReader
 		int internalChromosomeID, beginPosition, end;
 	};
 
+	/**
+	 * Returns the number of bins that {@link #reg2bins(int, int, int[])} returns for the region
+	 */
+	private static int nrBins(final int beginPosition, final int endPosition)
+	{
+		if (beginPosition >= endPosition) return 0;
+		int end = (endPosition >= 1 << 29 ? 1 << 29 : endPosition) - 1;
+		int n = 1;
+		for (int shift = 26; shift >= TAD_LIDX_SHIFT; shift -= 3)
+			n += (end >> shift) - (beginPosition >> shift) + 1;
+		return n;
+	}
+
 	private static int reg2bins(final int beginposition, final int endPosition, final int[] list)
 	{
 		int i = 0, k, end = endPosition;
@@ -407,7 +476,7 @@ public class TabixReader
 		TPair64[] off, chunks;
 		long min_off;
 		TIndex idx = mIndex[internalChromosomeID];
-		int[] bins = new int[MAX_BIN];
+		int[] bins = new int[nrBins(beginPosition, endPosition)];
 		int i, l, n_off, n_bins = reg2bins(beginPosition, endPosition, bins);
 		if (idx.l.length > 0) min_off = (beginPosition >> TAD_LIDX_SHIFT >= idx.l.length) ? idx.l[idx.l.length - 1] : idx.l[beginPosition >> TAD_LIDX_SHIFT];
 		else min_off = 0;
@@ -455,6 +524,75 @@ public class TabixReader
 		return new TabixReader.Iterator(internalChromosomeID, beginPosition, endPosition, ret);
 	}
 
+	/**
+	 * Returns the lines that start at the given position. Consecutive sweeps on the same chromosome with
+	 * non-decreasing, nearby positions continue reading the data file where the previous sweep stopped, so that sorted
+	 * positions are read with one forward pass through the file, the region that is read is extended in windows when
+	 * the sweep passes its end. Other sweeps seek using the index and only read the lines at the position.
+	 *
+	 * @param chr
+	 *            chromosome name
+	 * @param pos
+	 *            1-based position
+	 * @return lines that start at the position, empty if the chromosome is unknown
+	 */
+	public List<String> sweep(final String chr, final int pos) throws IOException
+	{
+		int tid = chr2tid(chr);
+		if (tid < 0) return Collections.emptyList();
+		if (tid == mSweepTid && pos == mSweepPos) return mSweepLines;
+
+		List<String> lines = new ArrayList<String>();
+		try
+		{
+			if (tid != mSweepTid || pos < mSweepPos || pos - mSweepPos > SWEEP_MAX_GAP)
+			{
+				// read the lines at the position, a following nearby sweep extends the region
+				mSweepTid = tid;
+				mSweepIterator = query(tid, pos - 1, pos);
+				mSweepEnd = pos;
+				mSweepLine = null;
+			}
+			mSweepPos = pos;
+
+			for (;;)
+			{
+				if (mSweepLine == null)
+				{
+					if (mSweepIterator == null)
+					{
+						// all lines that start before the end of the region were read
+						if (pos - 1 < mSweepEnd) break;
+						mSweepEnd = pos - 1 + SWEEP_WINDOW;
+						mSweepIterator = query(tid, pos - 1, mSweepEnd);
+						continue;
+					}
+					mSweepLine = mSweepIterator.next();
+					if (mSweepLine == null)
+					{
+						mSweepIterator = null; // end of the region
+						continue;
+					}
+					mSweepLinePos = getIntv(mSweepLine).beginPosition + 1;
+				}
+				if (mSweepLinePos < pos) mSweepLine = null; // overlaps but starts before the position
+				else if (mSweepLinePos == pos)
+				{
+					lines.add(mSweepLine);
+					mSweepLine = null;
+				}
+				else break; // keep the line for the next sweep
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			mSweepTid = -1; // seek on the next sweep
+			throw e;
+		}
+		mSweepLines = Collections.unmodifiableList(lines);
+		return mSweepLines;
+	}
+
 	public Iterator query(final String queryString)
 	{
 		int[] x = parseReg(queryString);
@@ -0,0 +1,120 @@
+package org.molgenis.data.annotator.tabix;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of {@link TabixReader}s on the same tabix file. Each reader has its own input stream and all readers share the
+ * index of the first reader, so that queries from different threads do not have to wait for each other. The pool
+ * grows to the maximum number of concurrent queries. A thread preferably acquires the reader that it released last, so
+ * that the sweep state of the reader is kept for the sorted positions of the thread.
+ */
+class TabixReaderPool implements Closeable
+{
+	private final TabixReader reader;
+	private final Queue<TabixReader> idleReaders;
+	private final Set<TabixReader> copies;
+	private final ThreadLocal<TabixReader> releasedReader;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a pool that contains the given reader, additional readers are copies of this reader
+	 */
+	TabixReaderPool(TabixReader reader)
+	{
+		this.reader = requireNonNull(reader);
+		this.idleReaders = new ConcurrentLinkedQueue<>();
+		this.idleReaders.add(reader);
+		this.copies = Collections.newSetFromMap(new ConcurrentHashMap<>());
+		this.releasedReader = new ThreadLocal<>();
+	}
+
+	/**
+	 * Takes a reader from the pool, the reader must be returned with {@link #release(TabixReader)}
+	 */
+	TabixReader acquire() throws IOException
+	{
+		TabixReader lastReader = releasedReader.get();
+		if (lastReader != null && idleReaders.remove(lastReader))
+		{
+			return lastReader;
+		}
+		TabixReader idleReader = idleReaders.poll();
+		if (idleReader != null)
+		{
+			return idleReader;
+		}
+		checkNotClosed();
+		return reader.copy();
+	}
+
+	/**
+	 * Returns a reader to the pool, the reader is closed if the pool was closed while it was acquired
+	 */
+	void release(TabixReader idleReader) throws IOException
+	{
+		releasedReader.set(idleReader);
+		idleReaders.add(idleReader);
+		if (closed)
+		{
+			// the pool was closed while the reader was acquired
+			close();
+		}
+	}
+
+	/**
+	 * Returns a new reader that is not part of the pool, for example to read the file sequentially. The reader must be
+	 * closed with {@link #closeCopy(TabixReader)}, copies that are still open are closed by {@link #close()}.
+	 */
+	TabixReader copy() throws IOException
+	{
+		checkNotClosed();
+		TabixReader copy = reader.copy();
+		copies.add(copy);
+		return copy;
+	}
+
+	/**
+	 * Closes a reader returned by {@link #copy()}
+	 */
+	void closeCopy(TabixReader copy) throws IOException
+	{
+		if (copies.remove(copy))
+		{
+			copy.close();
+		}
+	}
+
+	private void checkNotClosed() throws IOException
+	{
+		if (closed)
+		{
+			throw new IOException("Tabix reader pool is closed");
+		}
+	}
+
+	/**
+	 * Closes idle readers and copies, readers that are acquired are closed when they are released
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		closed = true;
+		TabixReader idleReader;
+		while ((idleReader = idleReaders.poll()) != null)
+		{
+			idleReader.close();
+		}
+		for (TabixReader copy : copies)
+		{
+			closeCopy(copy);
+		}
+	}
+}
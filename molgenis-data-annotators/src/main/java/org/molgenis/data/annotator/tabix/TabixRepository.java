@@ -6,6 +6,7 @@ import static org.molgenis.data.vcf.VcfRepository.POS;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -34,7 +35,7 @@ public class TabixRepository extends AbstractRepository
 {
 	private static final Logger LOG = LoggerFactory.getLogger(TabixRepository.class);
 
-	private TabixReader reader;
+	private final TabixReaderPool readerPool;
 	private EntityMetaData entityMetaData;
 	private final String chromosomeAttributeName;
 	private final String positionAttributeName;
@@ -58,7 +59,7 @@ public class TabixRepository extends AbstractRepository
 			String positionAttributeName) throws IOException
 	{
 		this.entityMetaData = entityMetaData;
-		this.reader = new TabixReader(file.getAbsolutePath());
+		this.readerPool = new TabixReaderPool(new TabixReader(file.getAbsolutePath()));
 		this.chromosomeAttributeName = requireNonNull(chromosomeAttributeName);
 		this.positionAttributeName = requireNonNull(positionAttributeName);
 	}
@@ -66,7 +67,7 @@ public class TabixRepository extends AbstractRepository
 	TabixRepository(TabixReader reader, EntityMetaData entityMetaData, String chromosomeAttributeName,
 			String positionAttributeName)
 	{
-		this.reader = requireNonNull(reader);
+		this.readerPool = new TabixReaderPool(reader);
 		this.entityMetaData = requireNonNull(entityMetaData);
 		this.chromosomeAttributeName = requireNonNull(chromosomeAttributeName);
 		this.positionAttributeName = requireNonNull(positionAttributeName);
@@ -107,7 +108,8 @@ public class TabixRepository extends AbstractRepository
 	}
 
 	/**
-	 * Queries the tabix reader.
+	 * Queries a tabix reader from the reader pool, concurrent queries use different readers. Queries with sorted
+	 * positions read the resource sequentially, see {@link TabixReader#sweep(String, int)}.
 	 * 
 	 * @param chrom
 	 *            name of the chromosome
@@ -115,34 +117,26 @@ public class TabixRepository extends AbstractRepository
 	 *            position
 	 * @return {@link ImmutableList} of entities found
 	 */
-	private synchronized ImmutableList<Entity> query(String chrom, long pos)
+	private ImmutableList<Entity> query(String chrom, long pos)
 	{
 		String queryString = String.format("%s:%s-%2$s", chrom, pos);
 		LOG.debug("query({})", queryString);
 		Builder<Entity> builder = ImmutableList.<Entity> builder();
+		TabixReader reader = null;
 		try
 		{
-			org.molgenis.data.annotator.tabix.TabixReader.Iterator iterator = reader.query(queryString);
-			if (iterator != null)
+			reader = readerPool.acquire();
+			for (String line : reader.sweep(chrom, (int) pos))
 			{
-				String line = iterator.next();
-				while (line != null)
+				Entity entity = toEntity(line);
+				if (entity.getLong(positionAttributeName) == pos)
 				{
-					Entity entity = toEntity(line);
-					if (entity.getLong(positionAttributeName) == pos)
-					{
-						builder.add(entity);
-					}
-					else
-					{
-						LOG.warn("TabixReader returns entity that does not match the query!");
-					}
-					line = iterator.next();
+					builder.add(entity);
+				}
+				else
+				{
+					LOG.warn("TabixReader returns entity that does not match the query!");
 				}
-			}
-			else
-			{
-				return ImmutableList.of(); // empty list
 			}
 		}
 		catch (IOException e)
@@ -161,6 +155,20 @@ public class TabixRepository extends AbstractRepository
 					+ " (Chromosome not present in resource file?)");
 			LOG.debug("", e);
 		}
+		finally
+		{
+			if (reader != null)
+			{
+				try
+				{
+					readerPool.release(reader);
+				}
+				catch (IOException e)
+				{
+					LOG.error("Error closing tabix reader", e);
+				}
+			}
+		}
 		return builder.build();
 	}
 
@@ -187,7 +195,14 @@ public class TabixRepository extends AbstractRepository
 
 	private class TabixRepositoryIterator implements Iterator<Entity>
 	{
+		private final TabixReader reader;
 		private String nextLine = null;
+		private boolean closed = false;
+
+		TabixRepositoryIterator(TabixReader reader)
+		{
+			this.reader = requireNonNull(reader);
+		}
 
 		@Override
 		public boolean hasNext()
@@ -196,15 +211,37 @@ public class TabixRepository extends AbstractRepository
 			{
 				return true;
 			}
+			if (closed)
+			{
+				return false;
+			}
 			try
 			{
 				nextLine = reader.readLine();
-				return nextLine != null;
 			}
 			catch (IOException e)
 			{
+				LOG.error("Error reading from tabix resource", e);
+			}
+			if (nextLine == null)
+			{
+				close();
 				return false;
 			}
+			return true;
+		}
+
+		private void close()
+		{
+			closed = true;
+			try
+			{
+				readerPool.closeCopy(reader);
+			}
+			catch (IOException e)
+			{
+				LOG.error("Error closing tabix reader", e);
+			}
 		}
 
 		@Override
@@ -232,6 +269,20 @@ public class TabixRepository extends AbstractRepository
 	@Override
 	public Iterator<Entity> iterator()
 	{
-		return new TabixRepositoryIterator();
+		try
+		{
+			// reads the file sequentially with a reader that is not shared with queries
+			return new TabixRepositoryIterator(readerPool.copy());
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		readerPool.close();
 	}
 }
\ No newline at end of file
@@ -31,18 +31,18 @@ import com.google.common.collect.ImmutableList.Builder;
 public class TabixVcfRepository extends VcfRepository
 {
 	private static final Logger LOG = LoggerFactory.getLogger(TabixVcfRepository.class);
-	private final TabixReader tabixReader;
+	private final TabixReaderPool tabixReaderPool;
 
 	public TabixVcfRepository(File file, String entityName) throws IOException
 	{
 		super(file, entityName);
-		tabixReader = new TabixReader(file.getCanonicalPath());
+		tabixReaderPool = new TabixReaderPool(new TabixReader(file.getCanonicalPath()));
 	}
 
 	TabixVcfRepository(VcfReaderFactory readerFactory, TabixReader tabixReader, String entityName)
 	{
 		super(readerFactory, entityName);
-		this.tabixReader = tabixReader;
+		this.tabixReaderPool = new TabixReaderPool(tabixReader);
 	}
 
 	@Override
@@ -86,7 +86,7 @@ public class TabixVcfRepository extends VcfRepository
 	}
 
 	/**
-	 * Queries the tabix reader.
+	 * Queries a tabix reader from the reader pool, concurrent queries use different readers.
 	 * 
 	 * @param chrom
 	 *            Name of chromosome
@@ -96,12 +96,16 @@ public class TabixVcfRepository extends VcfRepository
 	 *            position upper bound (inclusive)
 	 * @return {@link ImmutableList} of entities found
 	 */
-	public synchronized List<Entity> query(String chrom, long posFrom, long posTo)
+	public List<Entity> query(String chrom, long posFrom, long posTo)
 	{
 		String queryString = String.format("%s:%s-%s", checkNotNull(chrom), checkNotNull(posFrom), checkNotNull(posTo));
+		TabixReader tabixReader = null;
 		try
 		{
-			Collection<String> lines = getLines(tabixReader.query(queryString));
+			tabixReader = tabixReaderPool.acquire();
+			// single positions are swept, so that sorted positions read the resource sequentially
+			Collection<String> lines = posFrom == posTo ? tabixReader.sweep(chrom, (int) posFrom)
+					: getLines(tabixReader.query(queryString));
 			return lines.stream().map(line -> line.split("\t")).map(vcfToEntitySupplier.get()::toEntity)
 					.filter(entity -> positionMatches(entity, posFrom, posTo)).collect(Collectors.toList());
 		}
@@ -117,6 +121,17 @@ public class TabixVcfRepository extends VcfRepository
 					+ " (Chromosome not present in resource file?)");
 			LOG.debug("", e);
 		}
+		catch (IOException e)
+		{
+			LOG.error("Error creating tabix reader.", e);
+		}
+		finally
+		{
+			if (tabixReader != null)
+			{
+				tabixReaderPool.release(tabixReader);
+			}
+		}
 
 		return Collections.emptyList();
 	}
@@ -170,4 +185,16 @@ public class TabixVcfRepository extends VcfRepository
 		return builder.build();
 	}
 
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			tabixReaderPool.close();
+		}
+		finally
+		{
+			super.close();
+		}
+	}
 }
@@ -18,6 +18,7 @@ import static org.testng.Assert.assertEquals;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 import org.molgenis.data.Entity;
 import org.molgenis.data.Query;
@@ -65,6 +66,31 @@ public class TabixRepositoryTest
 						newEntity("1", 100, "C", "A", 2.102, 43.2)));
 	}
 
+	@Test
+	public void testQuerySortedAndUnsorted()
+	{
+		List<Entity> pos100 = Arrays.asList(newEntity("1", 100, "C", "T", -0.03, 2.003),
+				newEntity("1", 100, "C", "G", -0.4, 4.321), newEntity("1", 100, "C", "A", 2.102, 43.2));
+		List<Entity> pos200 = Arrays.asList(newEntity("2", 200, "A", "T", 2.0, 3.012),
+				newEntity("2", 200, "A", "G", -2.30, 20.2));
+
+		assertEquals(findAll("1", "99"), emptyList());
+		assertEquals(findAll("1", "100"), pos100);
+		assertEquals(findAll("1", "100"), pos100);
+		assertEquals(findAll("1", "101"), emptyList());
+		assertEquals(findAll("2", "200"), pos200);
+		assertEquals(findAll("3", "300").size(), 8);
+		// unsorted
+		assertEquals(findAll("1", "100"), pos100);
+		assertEquals(findAll("2", "200"), pos200);
+	}
+
+	private List<Entity> findAll(String chrom, String pos)
+	{
+		Query query = tabixRepository.query().eq(VcfRepository.CHROM, chrom).and().eq(VcfRepository.POS, pos);
+		return tabixRepository.findAll(query).collect(toList());
+	}
+
 	/**
 	 * If the chromosome send to the TabixIterator is unknown in the inputfile the TabixIterator throws an
 	 * IndexOutOfBoundsException We want to log this, but we don't want the annotationrun to fail The most frequent
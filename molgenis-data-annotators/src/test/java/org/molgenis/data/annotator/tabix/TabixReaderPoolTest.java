@@ -0,0 +1,125 @@
+package org.molgenis.data.annotator.tabix;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TabixReaderPoolTest
+{
+	private TabixReader tabixReader;
+	private TabixReader tabixReaderCopy;
+	private TabixReaderPool tabixReaderPool;
+
+	@BeforeMethod
+	public void beforeMethod() throws IOException
+	{
+		tabixReader = mock(TabixReader.class);
+		tabixReaderCopy = mock(TabixReader.class);
+		when(tabixReader.copy()).thenReturn(tabixReaderCopy);
+		tabixReaderPool = new TabixReaderPool(tabixReader);
+	}
+
+	@Test
+	public void acquireConcurrent() throws IOException
+	{
+		assertEquals(tabixReaderPool.acquire(), tabixReader);
+		assertEquals(tabixReaderPool.acquire(), tabixReaderCopy);
+	}
+
+	@Test
+	public void acquireReleased() throws IOException
+	{
+		TabixReader reader = tabixReaderPool.acquire();
+		tabixReaderPool.release(reader);
+		assertEquals(tabixReaderPool.acquire(), tabixReader);
+		verify(tabixReader, never()).copy();
+	}
+
+	@Test
+	public void acquireReleasedByThread() throws IOException
+	{
+		TabixReader reader = tabixReaderPool.acquire();
+		TabixReader otherReader = tabixReaderPool.acquire();
+		tabixReaderPool.release(otherReader);
+		tabixReaderPool.release(reader);
+		assertEquals(tabixReaderPool.acquire(), reader);
+	}
+
+	@Test
+	public void acquireReleasedByOtherThread() throws IOException, InterruptedException, ExecutionException
+	{
+		TabixReader reader = tabixReaderPool.acquire();
+		TabixReader otherReader = tabixReaderPool.acquire();
+		tabixReaderPool.release(reader);
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		try
+		{
+			assertEquals(executorService.submit(() -> {
+				tabixReaderPool.release(otherReader);
+				return tabixReaderPool.acquire();
+			}).get(), otherReader);
+			assertEquals(tabixReaderPool.acquire(), reader);
+		}
+		finally
+		{
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void close() throws IOException
+	{
+		TabixReader reader = tabixReaderPool.acquire();
+		TabixReader otherReader = tabixReaderPool.acquire();
+		tabixReaderPool.release(reader);
+		tabixReaderPool.release(otherReader);
+		tabixReaderPool.close();
+		verify(tabixReader).close();
+		verify(tabixReaderCopy).close();
+	}
+
+	@Test
+	public void closeAcquiredReader() throws IOException
+	{
+		TabixReader reader = tabixReaderPool.acquire();
+		tabixReaderPool.close();
+		verify(tabixReader, never()).close();
+		tabixReaderPool.release(reader);
+		verify(tabixReader).close();
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void acquireClosed() throws IOException
+	{
+		tabixReaderPool.close();
+		tabixReaderPool.acquire();
+	}
+
+	@Test
+	public void closeCopy() throws IOException
+	{
+		TabixReader copy = tabixReaderPool.copy();
+		tabixReaderPool.closeCopy(copy);
+		tabixReaderPool.close();
+		verify(tabixReaderCopy, times(1)).close();
+	}
+
+	@Test
+	public void closeOpenCopy() throws IOException
+	{
+		tabixReaderPool.copy();
+		tabixReaderPool.close();
+		verify(tabixReaderCopy).close();
+	}
+}
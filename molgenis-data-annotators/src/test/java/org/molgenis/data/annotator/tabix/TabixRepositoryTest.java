@@ -9,17 +9,19 @@ import static org.molgenis.data.vcf.VcfRepository.CHROM_META;
 import static org.molgenis.data.vcf.VcfRepository.POS;
 import static org.molgenis.data.vcf.VcfRepository.POS_META;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.stream.Stream;
 
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
-import org.molgenis.data.annotator.tabix.TabixReader.Iterator;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.MapEntity;
@@ -32,8 +34,6 @@ public class TabixRepositoryTest
 	private EntityMetaData entityMetaData;
 	@Mock
 	private TabixReader tabixReader;
-	@Mock
-	private Iterator iterator;
 
 	@BeforeTest
 	public void beforeTest()
@@ -49,9 +49,9 @@ public class TabixRepositoryTest
 	}
 
 	@Test
-	public void testReaderReturnsEmptyIteratorForNullValue()
+	public void testReaderReturnsEmptyIteratorForNullValue() throws IOException
 	{
-		Mockito.when(tabixReader.query("13:12-12")).thenReturn(null);
+		Mockito.when(tabixReader.sweep("13", 12)).thenReturn(Collections.emptyList());
 
 		Stream<Entity> actual = tabixRepository.findAll(tabixRepository.query().eq(CHROM, "13").and().eq(POS, 12));
 
@@ -61,9 +61,8 @@ public class TabixRepositoryTest
 	@Test
 	public void testReaderFiltersRows() throws IOException
 	{
-		Mockito.when(tabixReader.query("13:12-12")).thenReturn(iterator);
-		Mockito.when(iterator.next()).thenReturn("id1\t13\t11\tnope", "id2\t13\t12\tyup", "id3\t13\t12\tyup",
-				"id3\t13\t13\tnope", null);
+		Mockito.when(tabixReader.sweep("13", 12)).thenReturn(
+				Arrays.asList("id1\t13\t11\tnope", "id2\t13\t12\tyup", "id3\t13\t12\tyup", "id3\t13\t13\tnope"));
 
 		Stream<Entity> actual = tabixRepository.findAll(tabixRepository.query().eq(CHROM, "13").and().eq(POS, 12));
 
@@ -80,4 +79,20 @@ public class TabixRepositoryTest
 		e2.set("Description", "yup");
 		assertEquals(actual.collect(toList()), Arrays.asList(e1, e2));
 	}
+
+	@Test
+	public void iteratorClosesReaderCopy() throws IOException
+	{
+		TabixReader tabixReaderCopy = Mockito.mock(TabixReader.class);
+		Mockito.when(tabixReader.copy()).thenReturn(tabixReaderCopy);
+		Mockito.when(tabixReaderCopy.readLine()).thenReturn("id1\t13\t11\tyup", (String) null);
+
+		Iterator<Entity> it = tabixRepository.iterator();
+		assertTrue(it.hasNext());
+		assertEquals(it.next().getString("ID"), "id1");
+		Mockito.verify(tabixReaderCopy, Mockito.never()).close();
+		assertFalse(it.hasNext());
+		assertFalse(it.hasNext());
+		Mockito.verify(tabixReaderCopy, Mockito.times(1)).close();
+	}
 }
@@ -15,7 +15,6 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
-import org.molgenis.data.annotator.tabix.TabixReader.Iterator;
 import org.molgenis.data.support.MapEntity;
 import org.molgenis.data.vcf.VcfReaderFactory;
 import org.molgenis.vcf.VcfReader;
@@ -32,8 +31,6 @@ public class TabixVcfRepositoryTest
 	@Mock
 	private VcfReaderFactory vcfReaderFactory;
 	@Mock
-	private Iterator iterator;
-	@Mock
 	private VcfReader vcfReader;
 
 	@BeforeTest
@@ -48,9 +45,9 @@ public class TabixVcfRepositoryTest
 	}
 
 	@Test
-	public void testReaderReturnsEmptyIteratorForNullValue()
+	public void testReaderReturnsEmptyIteratorForNullValue() throws IOException
 	{
-		Mockito.when(tabixReader.query("13:12-12")).thenReturn(null);
+		Mockito.when(tabixReader.sweep("13", 12)).thenReturn(Collections.emptyList());
 
 		Stream<Entity> actual = tabixVcfRepository
 				.findAll(tabixVcfRepository.query().eq(CHROM, "13").and().eq(POS, 12));
@@ -61,9 +58,8 @@ public class TabixVcfRepositoryTest
 	@Test
 	public void testReaderFiltersRows() throws IOException
 	{
-		Mockito.when(tabixReader.query("13:12-12")).thenReturn(iterator);
-		Mockito.when(iterator.next()).thenReturn("13\t11\tid1\tA\tC\t12\t.\t.\t.", "13\t12\tid2\tA\tC\t12\t.\t.\t.",
-				"13\t12\tid3\tA\tG\t12\t.\t.\t.", "13\t13\tid4\tA\tC\t12\t.\t.\t.", null);
+		Mockito.when(tabixReader.sweep("13", 12)).thenReturn(Arrays.asList("13\t11\tid1\tA\tC\t12\t.\t.\t.",
+				"13\t12\tid2\tA\tC\t12\t.\t.\t.", "13\t12\tid3\tA\tG\t12\t.\t.\t.", "13\t13\tid4\tA\tC\t12\t.\t.\t."));
 
 		Stream<Entity> actual = tabixVcfRepository
 				.findAll(tabixVcfRepository.query().eq(CHROM, "13").and().eq(POS, 12));
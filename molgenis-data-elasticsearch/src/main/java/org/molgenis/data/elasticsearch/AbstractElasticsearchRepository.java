@@ -4,6 +4,7 @@ import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.INDEXABLE;
 import static org.molgenis.data.RepositoryCapability.MANAGABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
+import static org.molgenis.data.RepositoryCapability.TOTAL_COUNTABLE;
 import static org.molgenis.data.RepositoryCapability.WRITABLE;
 
 import java.io.IOException;
@@ -14,6 +15,7 @@ import java.util.stream.Stream;
 import org.elasticsearch.common.primitives.Ints;
 import org.molgenis.data.AggregateQuery;
 import org.molgenis.data.AggregateResult;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.EntityMetaData;
@@ -41,7 +43,7 @@ public abstract class AbstractElasticsearchRepository implements Repository
 	@Override
 	public Set<RepositoryCapability> getCapabilities()
 	{
-		return Sets.newHashSet(AGGREGATEABLE, QUERYABLE, WRITABLE, INDEXABLE, MANAGABLE);
+		return Sets.newHashSet(AGGREGATEABLE, QUERYABLE, WRITABLE, INDEXABLE, MANAGABLE, TOTAL_COUNTABLE);
 	}
 
 	@Override
@@ -71,6 +73,12 @@ public abstract class AbstractElasticsearchRepository implements Repository
 		return elasticSearchService.searchAsStream(q, getEntityMetaData());
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		return elasticSearchService.searchWithTotal(q, getEntityMetaData());
+	}
+
 	@Override
 	public Entity findOne(Query q)
 	{
@@ -10,6 +10,8 @@ import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.elasticsearch.index.EntityToSourceConverter;
 import org.molgenis.data.elasticsearch.index.SourceToEntityConverter;
+import org.molgenis.data.support.AttributeSlots;
+import org.molgenis.data.support.ExpressionEvaluator;
 import org.molgenis.data.support.PartialEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -57,6 +59,32 @@ public class ElasticsearchEntityFactory
 		}
 	}
 
+	/**
+	 * Creates an entity with the given attribute slots from the given Elasticsearch document source
+	 * 
+	 * @param entityMeta
+	 * @param source
+	 * @param fetch
+	 *            fetch (can be null)
+	 * @param attributeSlots
+	 *            attribute slots of the entity meta data
+	 * @return
+	 * @see #create(EntityMetaData, Map, Fetch)
+	 */
+	public Entity create(EntityMetaData entityMeta, Map<String, Object> source, Fetch fetch,
+			AttributeSlots attributeSlots)
+	{
+		Entity entity = sourceToEntityConverter.convert(source, entityMeta, attributeSlots);
+		if (fetch != null)
+		{
+			return entityManager.createEntityForPartialEntity(entity, fetch);
+		}
+		else
+		{
+			return entity;
+		}
+	}
+
 	/**
 	 * Create Elasticsearch document source from entity
 	 * 
@@ -69,6 +97,22 @@ public class ElasticsearchEntityFactory
 		return entityToSourceConverter.convert(entity, entityMeta);
 	}
 
+	/**
+	 * Create Elasticsearch document source from entity, entities of the same entity meta data can share the expression
+	 * evaluators
+	 * 
+	 * @param entityMeta
+	 * @param entity
+	 * @param expressionEvaluators
+	 *            expression evaluators of the computed attributes of the entity meta data
+	 * @return Elasticsearch document source
+	 */
+	public Map<String, Object> create(EntityMetaData entityMeta, Entity entity,
+			Map<String, ExpressionEvaluator> expressionEvaluators)
+	{
+		return entityToSourceConverter.convert(entity, entityMeta, expressionEvaluators);
+	}
+
 	EntityManager getEntityManager()
 	{
 		return entityManager;
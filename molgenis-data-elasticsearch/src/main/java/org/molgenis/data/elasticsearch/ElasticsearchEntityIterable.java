@@ -23,12 +23,15 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityCollection;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.EntityStream;
 import org.molgenis.data.Query;
 import org.molgenis.data.elasticsearch.ElasticsearchService.CrudType;
 import org.molgenis.data.elasticsearch.request.SearchRequestGenerator;
+import org.molgenis.data.support.AttributeSlots;
 import org.molgenis.data.support.BatchingQueryResult;
 import org.molgenis.data.support.EntityMetaDataUtils;
 import org.slf4j.Logger;
@@ -45,7 +48,7 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchEntityIterable.class);
 
-	private static final int BATCH_SIZE = 1000;
+	static final int BATCH_SIZE = 1000;
 
 	private final EntityMetaData entityMeta;
 	private final Client client;
@@ -71,6 +74,27 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 
 	@Override
 	protected List<Entity> getBatch(Query q)
+	{
+		return toEntities(search(q), q);
+	}
+
+	/**
+	 * Returns the entities of a query that fits in one batch together with the total number of hits of the query.
+	 * Only valid outside a transaction, otherwise the hits of the transaction index are counted as well.
+	 */
+	EntitiesWithTotal getBatchWithTotal(Query q)
+	{
+		SearchHits searchHits = search(q);
+		return new EntitiesWithTotal(new EntityStream(toEntities(searchHits, q).stream(), true),
+				searchHits.getTotalHits());
+	}
+
+	boolean isTransactional()
+	{
+		return indexNames.length > 1;
+	}
+
+	private SearchHits search(Query q)
 	{
 		if (LOG.isTraceEnabled())
 		{
@@ -84,7 +108,7 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 		// We are in a transaction, the first index is the status before the transaction started, the second
 		// index the status within the transaction. We don't want to return the deleted records and of the
 		// updated records we want the latest version (that of the transaction)
-		if (indexNames.length > 1)
+		if (isTransactional())
 		{
 			QueryBuilder findUpdatesQuery = indicesQuery(
 					termQuery(ElasticsearchService.CRUD_TYPE_FIELD_NAME, CrudType.UPDATE.name()), indexNames[1]);
@@ -119,17 +143,21 @@ class ElasticsearchEntityIterable extends BatchingQueryResult implements EntityC
 			LOG.debug("Searched Elasticsearch '" + type + "' docs using query [" + q + "] in "
 					+ searchResponse.getTookInMillis() + "ms");
 		}
-		SearchHits searchHits = searchResponse.getHits();
+		return searchResponse.getHits();
+	}
 
+	private List<Entity> toEntities(SearchHits searchHits, Query q)
+	{
 		List<Entity> entities;
 		if (searchHits.hits().length > 0)
 		{
 			if (ElasticsearchRepositoryCollection.NAME.equals(entityMeta.getBackend()))
 			{
 				// create entities from the source documents
-				entities = StreamSupport.stream(searchHits.spliterator(), false).map(
-						searchHit -> elasticsearchEntityFactory.create(entityMeta, searchHit.getSource(), q.getFetch()))
-						.collect(Collectors.toList());
+				AttributeSlots attributeSlots = AttributeSlots.of(entityMeta);
+				entities = StreamSupport.stream(searchHits.spliterator(), false)
+						.map(searchHit -> elasticsearchEntityFactory.create(entityMeta, searchHit.getSource(),
+								q.getFetch(), attributeSlots)).collect(Collectors.toList());
 			}
 			else
 			{
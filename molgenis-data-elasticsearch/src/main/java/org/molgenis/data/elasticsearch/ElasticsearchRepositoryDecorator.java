@@ -12,6 +12,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import org.elasticsearch.common.collect.Iterators;
+import org.molgenis.data.CursorStreamable;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
@@ -20,6 +22,7 @@ import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.util.DependencyResolver;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.google.common.collect.Sets;
@@ -196,6 +199,12 @@ public class ElasticsearchRepositoryDecorator extends AbstractElasticsearchRepos
 		return decoratedRepo.findAll(ids, fetch);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		return decoratedRepo.existingIds(ids);
+	}
+
 	@Override
 	public Stream<Entity> findAll(Query q)
 	{
@@ -221,6 +230,18 @@ public class ElasticsearchRepositoryDecorator extends AbstractElasticsearchRepos
 		return super.findAll(q);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		// entities of queries without query rules are retrieved via decorated repository, see findAll
+		List<QueryRule> queryRules = q.getRules();
+		if (queryRules != null && queryRules.isEmpty())
+		{
+			return new EntitiesWithTotal(findAll(q), count(q));
+		}
+		return super.findAllWithTotal(q);
+	}
+
 	// retrieve all entities via decorated repository
 	@Override
 	public Iterator<Entity> iterator()
@@ -237,7 +258,18 @@ public class ElasticsearchRepositoryDecorator extends AbstractElasticsearchRepos
 	@Override
 	public void rebuildIndex()
 	{
-		elasticSearchService.rebuildIndex(decoratedRepo, getEntityMetaData());
+		// entities are read once if there are no self references, read them from a single cursor
+		if (decoratedRepo instanceof CursorStreamable && !DependencyResolver.hasSelfReferences(getEntityMetaData()))
+		{
+			try (Stream<Entity> entities = ((CursorStreamable) decoratedRepo).cursorStream(null))
+			{
+				elasticSearchService.rebuildIndex(entities::iterator, getEntityMetaData());
+			}
+		}
+		else
+		{
+			elasticSearchService.rebuildIndex(decoratedRepo, getEntityMetaData());
+		}
 	}
 
 	@Override
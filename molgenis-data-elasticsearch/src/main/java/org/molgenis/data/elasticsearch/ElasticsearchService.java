@@ -6,6 +6,7 @@ import static org.molgenis.data.elasticsearch.request.SourceFilteringGenerator.t
 import static org.molgenis.data.elasticsearch.util.ElasticsearchEntityUtils.toElasticsearchId;
 import static org.molgenis.data.elasticsearch.util.ElasticsearchEntityUtils.toElasticsearchIds;
 import static org.molgenis.data.elasticsearch.util.MapperTypeSanitizer.sanitizeMapperType;
+import static org.molgenis.data.support.ExpressionEvaluatorRegistry.getExpressionEvaluators;
 import static org.molgenis.data.transaction.MolgenisTransactionManager.TRANSACTION_ID_RESOURCE_NAME;
 
 import java.io.IOException;
@@ -54,6 +55,7 @@ import org.molgenis.data.AggregateQuery;
 import org.molgenis.data.AggregateResult;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.EntityStream;
@@ -71,8 +73,10 @@ import org.molgenis.data.elasticsearch.util.SearchResult;
 import org.molgenis.data.meta.AttributeMetaDataMetaData;
 import org.molgenis.data.meta.EntityMetaDataMetaData;
 import org.molgenis.data.meta.PackageImpl;
+import org.molgenis.data.support.AttributeSlots;
 import org.molgenis.data.support.DefaultEntity;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.ExpressionEvaluator;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.support.UuidGenerator;
 import org.molgenis.data.transaction.MolgenisTransactionListener;
@@ -480,11 +484,13 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 				}
 			}
 
+			Map<String, ExpressionEvaluator> expressionEvaluators = getExpressionEvaluators(entityMetaData);
 			while (it.hasNext())
 			{
 				Entity entity = it.next();
 				String id = toElasticsearchId(entity, entityMetaData);
-				Map<String, Object> source = elasticsearchEntityFactory.create(entityMetaData, entity);
+				Map<String, Object> source = elasticsearchEntityFactory.create(entityMetaData, entity,
+						expressionEvaluators);
 				if (transactionId != null)
 				{
 					if (crudType == CrudType.UPDATE)
@@ -833,6 +839,7 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 		// If the document was not found in the molgenis index or transaction index a response is included that
 		// states that the item doesn't exist. Filter out these responses, since the document should be located
 		// in either of the indexes.
+		AttributeSlots attributeSlots = AttributeSlots.of(entityMetaData);
 		return stream(response.spliterator(), false).flatMap(itemResponse -> {
 			if (itemResponse.isFailed())
 			{
@@ -842,7 +849,7 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 			if (getResponse.isExists())
 			{
 				Map<String, Object> source = getResponse.getSource();
-				Entity entity = elasticsearchEntityFactory.create(entityMetaData, source, fetch);
+				Entity entity = elasticsearchEntityFactory.create(entityMetaData, source, fetch, attributeSlots);
 				return Stream.of(entity);
 			}
 			else
@@ -875,6 +882,19 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 		return new EntityStream(searchInternal.stream(), true);
 	}
 
+	@Override
+	public EntitiesWithTotal searchWithTotal(Query q, EntityMetaData entityMetaData)
+	{
+		ElasticsearchEntityIterable searchInternal = searchInternal(q, entityMetaData);
+		int pageSize = q.getPageSize();
+		if (!searchInternal.isTransactional() && pageSize > 0 && pageSize <= ElasticsearchEntityIterable.BATCH_SIZE)
+		{
+			// total hits of the page search equal the count of the query
+			return searchInternal.getBatchWithTotal(q);
+		}
+		return new EntitiesWithTotal(new EntityStream(searchInternal.stream(), true), count(q, entityMetaData));
+	}
+
 	private ElasticsearchEntityIterable searchInternal(Query q, EntityMetaData entityMetaData)
 	{
 		String[] indexNames = new String[]
@@ -1059,12 +1079,15 @@ public class ElasticsearchService implements SearchService, MolgenisTransactionL
 
 			// TODO discuss whether this is still required
 			// Don't use cached ref entities but make new ones
+			AttributeSlots attributeSlots = AttributeSlots.of(entityMetaData);
 			entities = Iterables.transform(entities, new Function<Entity, Entity>()
 			{
 				@Override
 				public Entity apply(Entity entity)
 				{
-					return new DefaultEntity(entityMetaData, dataService, entity);
+					DefaultEntity newEntity = new DefaultEntity(entityMetaData, dataService, attributeSlots);
+					newEntity.set(entity);
+					return newEntity;
 				}
 			});
 
@@ -4,6 +4,7 @@ import java.util.stream.Stream;
 
 import org.molgenis.data.AggregateQuery;
 import org.molgenis.data.AggregateResult;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
@@ -159,6 +160,16 @@ public interface SearchService
 	 */
 	Stream<Entity> searchAsStream(Query q, EntityMetaData entityMetaData);
 
+	/**
+	 * Returns the entities that match the query together with the total number of entities that match the query. A
+	 * query page that fits in one search request is retrieved together with its total in one request.
+	 * 
+	 * @param q
+	 * @param entityMetaData
+	 * @return entities and total
+	 */
+	EntitiesWithTotal searchWithTotal(Query q, EntityMetaData entityMetaData);
+
 	AggregateResult aggregate(AggregateQuery aggregateQuery, EntityMetaData entityMetaData);
 
 	/**
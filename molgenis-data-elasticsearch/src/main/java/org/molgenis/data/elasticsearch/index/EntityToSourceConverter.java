@@ -1,5 +1,7 @@
 package org.molgenis.data.elasticsearch.index;
 
+import static org.molgenis.data.support.ExpressionEvaluatorRegistry.getExpressionEvaluators;
+
 import java.sql.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -10,6 +12,8 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.support.EntityWithComputedAttributes;
+import org.molgenis.data.support.ExpressionEvaluator;
+import org.molgenis.data.support.ExpressionEvaluatorRegistry;
 import org.molgenis.util.MolgenisDateFormat;
 import org.springframework.stereotype.Component;
 
@@ -32,7 +36,24 @@ public class EntityToSourceConverter
 	 */
 	public Map<String, Object> convert(Entity entity, EntityMetaData entityMetaData)
 	{
-		return convert(entity, entityMetaData, true);
+		return convert(entity, entityMetaData, getExpressionEvaluators(entityMetaData));
+	}
+
+	/**
+	 * Converts entity to Elasticsearch document, entities of the same entity meta data can share the expression
+	 * evaluators
+	 * 
+	 * @param entity
+	 * @param entityMetaData
+	 * @param expressionEvaluators
+	 *            expression evaluators of the computed attributes of the entity meta data
+	 * @return
+	 * @see ExpressionEvaluatorRegistry#getExpressionEvaluators(EntityMetaData)
+	 */
+	public Map<String, Object> convert(Entity entity, EntityMetaData entityMetaData,
+			Map<String, ExpressionEvaluator> expressionEvaluators)
+	{
+		return convert(entity, entityMetaData, expressionEvaluators, true);
 	}
 
 	/**
@@ -42,8 +63,14 @@ public class EntityToSourceConverter
 	 * @param entityMetaData
 	 * @return
 	 */
-	private Map<String, Object> convert(Entity entity, EntityMetaData entityMetaData, boolean nestRefs)
+	private Map<String, Object> convert(Entity entity, EntityMetaData entityMetaData,
+			Map<String, ExpressionEvaluator> expressionEvaluators, boolean nestRefs)
 	{
+		if (!expressionEvaluators.isEmpty())
+		{
+			entity = new EntityWithComputedAttributes(entity, expressionEvaluators);
+		}
+
 		Map<String, Object> doc = new HashMap<String, Object>();
 
 		for (AttributeMetaData attributeMetaData : entityMetaData.getAtomicAttributes())
@@ -58,9 +85,9 @@ public class EntityToSourceConverter
 
 	public Object convertAttribute(Entity entity, AttributeMetaData attributeMetaData, final boolean nestRefs)
 	{
-		if (attributeMetaData.getExpression() != null)
+		if (attributeMetaData.getExpression() != null && !(entity instanceof EntityWithComputedAttributes))
 		{
-			entity = new EntityWithComputedAttributes(entity);
+			entity = new EntityWithComputedAttributes(entity, getExpressionEvaluators(entity.getEntityMetaData()));
 		}
 
 		Object value;
@@ -108,7 +135,8 @@ public class EntityToSourceConverter
 					EntityMetaData xrefEntityMetaData = attributeMetaData.getRefEntity();
 					if (nestRefs)
 					{
-						value = convert(xrefEntity, xrefEntityMetaData, false);
+						value = convert(xrefEntity, xrefEntityMetaData, getExpressionEvaluators(xrefEntityMetaData),
+								false);
 					}
 					else
 					{
@@ -128,6 +156,8 @@ public class EntityToSourceConverter
 				if (refEntities != null && !Iterables.isEmpty(refEntities))
 				{
 					final EntityMetaData refEntityMetaData = attributeMetaData.getRefEntity();
+					final Map<String, ExpressionEvaluator> refExpressionEvaluators = nestRefs ? getExpressionEvaluators(
+							refEntityMetaData) : null;
 					value = Lists.newArrayList(Iterables.transform(refEntities, new Function<Entity, Object>()
 					{
 						@Override
@@ -135,7 +165,7 @@ public class EntityToSourceConverter
 						{
 							if(refEntity != null) {
 								if (nestRefs) {
-									return convert(refEntity, refEntityMetaData, false);
+									return convert(refEntity, refEntityMetaData, refExpressionEvaluators, false);
 								} else {
 									return convertAttribute(refEntity, refEntityMetaData.getIdAttribute(), false);
 								}
@@ -195,7 +225,8 @@ public class EntityToSourceConverter
 					EntityMetaData xrefEntityMetaData = attributeMetaData.getRefEntity();
 					if (nestRefs)
 					{
-						value = convert(xrefEntity, xrefEntityMetaData, false);
+						value = convert(xrefEntity, xrefEntityMetaData, getExpressionEvaluators(xrefEntityMetaData),
+								false);
 					}
 					else
 					{
@@ -215,6 +246,8 @@ public class EntityToSourceConverter
 				if (refEntities != null && !Iterables.isEmpty(refEntities))
 				{
 					final EntityMetaData refEntityMetaData = attributeMetaData.getRefEntity();
+					final Map<String, ExpressionEvaluator> refExpressionEvaluators = nestRefs ? getExpressionEvaluators(
+							refEntityMetaData) : null;
 					value = Lists.newArrayList(Iterables.transform(refEntities, new Function<Entity, Object>()
 					{
 						@Override
@@ -222,7 +255,7 @@ public class EntityToSourceConverter
 						{
 							if (nestRefs)
 							{
-								return convert(refEntity, refEntityMetaData, false);
+								return convert(refEntity, refEntityMetaData, refExpressionEvaluators, false);
 							}
 							else
 							{
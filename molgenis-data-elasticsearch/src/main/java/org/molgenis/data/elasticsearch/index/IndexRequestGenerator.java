@@ -5,6 +5,7 @@ import static org.molgenis.MolgenisFieldTypes.FieldTypeEnum.CATEGORICAL;
 import static org.molgenis.MolgenisFieldTypes.FieldTypeEnum.CATEGORICAL_MREF;
 import static org.molgenis.MolgenisFieldTypes.FieldTypeEnum.MREF;
 import static org.molgenis.MolgenisFieldTypes.FieldTypeEnum.XREF;
+import static org.molgenis.data.support.ExpressionEvaluatorRegistry.getExpressionEvaluators;
 
 import java.util.HashSet;
 import java.util.Iterator;
@@ -21,6 +22,7 @@ import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Repository;
 import org.molgenis.data.elasticsearch.ElasticsearchEntityFactory;
 import org.molgenis.data.elasticsearch.util.MapperTypeSanitizer;
+import org.molgenis.data.support.ExpressionEvaluator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,6 +76,8 @@ public class IndexRequestGenerator
 			private static final int docsPerBulk = 1000;
 			private final Iterator<? extends Entity> it = repository.iterator();
 			private final EntityMetaData entityMetaData = repository.getEntityMetaData();
+			private final Map<String, ExpressionEvaluator> expressionEvaluators = getExpressionEvaluators(
+					entityMetaData);
 			private int row = 0;
 
 			@Override
@@ -92,7 +96,8 @@ public class IndexRequestGenerator
 				for (; row < maxRow; ++row)
 				{
 					Entity entity = it.next();
-					Map<String, Object> doc = elasticsearchEntityFactory.create(entityMetaData, entity);
+					Map<String, Object> doc = elasticsearchEntityFactory.create(entityMetaData, entity,
+							expressionEvaluators);
 					IndexRequestBuilder request = client.prepareIndex(indexName,
 							MapperTypeSanitizer.sanitizeMapperType(repository.getName()));
 
@@ -15,6 +15,7 @@ import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.UnknownAttributeException;
 import org.molgenis.data.elasticsearch.ElasticsearchService;
+import org.molgenis.data.support.AttributeSlots;
 import org.molgenis.data.support.DefaultEntity;
 import org.molgenis.util.MolgenisDateFormat;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,7 +36,15 @@ public class SourceToEntityConverter
 
 	public Entity convert(Map<String, Object> source, EntityMetaData entityMeta)
 	{
-		DefaultEntity entity = new DefaultEntity(entityMeta, dataService);
+		return convert(source, entityMeta, AttributeSlots.of(entityMeta));
+	}
+
+	/**
+	 * Converts an Elasticsearch document source to an entity with the given attribute slots
+	 */
+	public Entity convert(Map<String, Object> source, EntityMetaData entityMeta, AttributeSlots attributeSlots)
+	{
+		DefaultEntity entity = new DefaultEntity(entityMeta, dataService, attributeSlots);
 		source.entrySet().forEach(entry -> {
 			String attrName = entry.getKey();
 			if (attrName.equals(ElasticsearchService.CRUD_TYPE_FIELD_NAME))
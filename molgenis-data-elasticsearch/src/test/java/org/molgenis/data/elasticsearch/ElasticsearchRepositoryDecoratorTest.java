@@ -1,20 +1,25 @@
 package org.molgenis.data.elasticsearch;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -22,6 +27,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.molgenis.data.AggregateQuery;
 import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.CursorStreamable;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
@@ -308,6 +314,29 @@ public class ElasticsearchRepositoryDecoratorTest
 		verify(elasticSearchService).rebuildIndex(decoratedRepo, repositoryEntityMetaData);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void rebuildIndexCursorStreamable()
+	{
+		Repository cursorStreamableRepo = mock(Repository.class, withSettings().extraInterfaces(CursorStreamable.class));
+		when(cursorStreamableRepo.getEntityMetaData()).thenReturn(repositoryEntityMetaData);
+		when(repositoryEntityMetaData.getAtomicAttributes()).thenReturn(Collections.emptyList());
+		Entity entity0 = mock(Entity.class);
+		Entity entity1 = mock(Entity.class);
+		AtomicBoolean closed = new AtomicBoolean();
+		when(((CursorStreamable) cursorStreamableRepo).cursorStream(null))
+				.thenReturn(Stream.of(entity0, entity1).onClose(() -> closed.set(true)));
+		List<Entity> indexedEntities = new ArrayList<>();
+		doAnswer(invocation -> {
+			((Iterable<Entity>) invocation.getArguments()[0]).forEach(indexedEntities::add);
+			return null;
+		}).when(elasticSearchService).rebuildIndex(any(Iterable.class), eq(repositoryEntityMetaData));
+
+		new ElasticsearchRepositoryDecorator(cursorStreamableRepo, elasticSearchService).rebuildIndex();
+		assertEquals(indexedEntities, Arrays.asList(entity0, entity1));
+		assertTrue(closed.get());
+	}
+
 	@Test
 	public void findAllStream()
 	{
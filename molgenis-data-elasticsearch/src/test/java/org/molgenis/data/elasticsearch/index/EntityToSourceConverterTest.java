@@ -1,5 +1,6 @@
 package org.molgenis.data.elasticsearch.index;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
@@ -8,6 +9,7 @@ import static org.testng.Assert.assertEquals;
 
 import java.text.ParseException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -19,6 +21,7 @@ import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.ExpressionEvaluator;
 import org.molgenis.data.support.MapEntity;
 import org.molgenis.fieldtypes.EnumField;
 import org.molgenis.util.MolgenisDateFormat;
@@ -184,4 +187,29 @@ public class EntityToSourceConverterTest
 		Map<String, Object> source = new EntityToSourceConverter().convert(entity, entityMetaData);
 		assertEquals(source, expectedSource);
 	}
+
+	@Test
+	public void convertComputedAttributes()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.addAttribute("id", ROLE_ID);
+		entityMetaData.addAttribute("xint").setDataType(MolgenisFieldTypes.INT);
+		entityMetaData.addAttribute("xcomputed").setDataType(MolgenisFieldTypes.STRING).setExpression("xint");
+
+		Entity entity = new MapEntity(entityMetaData);
+		entity.set("id", "0");
+		entity.set("xint", 1);
+
+		ExpressionEvaluator expressionEvaluator = mock(ExpressionEvaluator.class);
+		when(expressionEvaluator.evaluate(any(Entity.class))).thenReturn("computed");
+		Map<String, ExpressionEvaluator> expressionEvaluators = Collections.singletonMap("xcomputed",
+				expressionEvaluator);
+
+		Map<String, Object> expectedSource = new HashMap<String, Object>();
+		expectedSource.put("id", "0");
+		expectedSource.put("xint", 1);
+		expectedSource.put("xcomputed", "computed");
+		assertEquals(new EntityToSourceConverter().convert(entity, entityMetaData, expressionEvaluators),
+				expectedSource);
+	}
 }
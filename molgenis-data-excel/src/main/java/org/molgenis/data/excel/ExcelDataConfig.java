@@ -7,6 +7,8 @@ import org.molgenis.data.support.GenericImporterExtensions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 
+import com.google.common.collect.ImmutableSet;
+
 @Configuration
 public class ExcelDataConfig
 {
@@ -22,6 +24,9 @@ public class ExcelDataConfig
 	{
 		fileRepositoryCollectionFactory.addFileRepositoryCollectionClass(ExcelRepositoryCollection.class,
 				GenericImporterExtensions.getExcel());
+		// stream xlsx files instead of loading the workbook in memory
+		fileRepositoryCollectionFactory.addFileRepositoryCollectionClass(XlsxRepositoryCollection.class,
+				ImmutableSet.of(GenericImporterExtensions.XLSX.toString()));
 	}
 
 }
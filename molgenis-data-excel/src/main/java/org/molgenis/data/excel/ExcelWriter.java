@@ -12,7 +12,7 @@ import java.util.stream.Collectors;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.WritableFactory;
@@ -21,10 +21,13 @@ import org.molgenis.data.support.AbstractWritable.AttributeWriteMode;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 
 /**
- * Creates new Excel sheets
+ * Creates new Excel sheets. XLSX sheets are written in streaming mode, only a window of rows is kept in memory.
  */
 public class ExcelWriter implements WritableFactory
 {
+	/** number of XLSX rows kept in memory, older rows are flushed to a temporary file */
+	private static final int XLSX_ROW_ACCESS_WINDOW_SIZE = 100;
+
 	private final Workbook workbook;
 	private final OutputStream os;
 	private List<CellProcessor> cellProcessors;
@@ -44,7 +47,8 @@ public class ExcelWriter implements WritableFactory
 		if (os == null) throw new IllegalArgumentException("output stream is null");
 		if (format == null) throw new IllegalArgumentException("format is null");
 		this.os = os;
-		this.workbook = format == FileFormat.XLS ? new HSSFWorkbook() : new XSSFWorkbook();
+		this.workbook = format == FileFormat.XLS ? new HSSFWorkbook() : new SXSSFWorkbook(
+				XLSX_ROW_ACCESS_WINDOW_SIZE);
 	}
 
 	public ExcelWriter(File file) throws FileNotFoundException
@@ -82,6 +86,14 @@ public class ExcelWriter implements WritableFactory
 		{
 			throw new MolgenisDataException("Exception writing to excel file", e);
 		}
+		finally
+		{
+			if (workbook instanceof SXSSFWorkbook)
+			{
+				// delete temporary files backing the streamed rows
+				((SXSSFWorkbook) workbook).dispose();
+			}
+		}
 		os.close();
 	}
 
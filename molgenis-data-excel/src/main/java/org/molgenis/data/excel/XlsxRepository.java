@@ -0,0 +1,251 @@
+package org.molgenis.data.excel;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
+import org.molgenis.data.EditableEntityMetaData;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.processor.AbstractCellProcessor;
+import org.molgenis.data.processor.CellProcessor;
+import org.molgenis.data.support.AbstractRepository;
+import org.molgenis.data.support.ArrayEntity;
+import org.molgenis.data.support.AttributeSlots;
+import org.molgenis.data.support.DefaultAttributeMetaData;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
+/**
+ * XLSX sheet {@link org.molgenis.data.Repository} implementation that streams the rows of the sheet instead of loading
+ * the workbook in memory.
+ *
+ * It is assumed that the first row of the sheet is the header row.
+ *
+ * All attributes will be of the string type. The cell values are converted to string.
+ */
+public class XlsxRepository extends AbstractRepository
+{
+	private final File file;
+	private final String sheetName;
+	private final String sheetEntryName;
+	private final List<String> sharedStrings;
+	private final BitSet dateStyles;
+	private final boolean date1904;
+	/** process cells after reading */
+	private final List<CellProcessor> cellProcessors;
+	/** readers of iterators that were not iterated to the end */
+	private final Set<XlsxSheetReader> openSheetReaders = Sets.newConcurrentHashSet();
+
+	/** column names index */
+	private Map<String, Integer> colNamesMap;
+	private EntityMetaData entityMetaData;
+
+	XlsxRepository(File file, String sheetName, String sheetEntryName, List<String> sharedStrings,
+			BitSet dateStyles, boolean date1904, List<CellProcessor> cellProcessors)
+	{
+		this.file = requireNonNull(file);
+		this.sheetName = requireNonNull(sheetName);
+		this.sheetEntryName = requireNonNull(sheetEntryName);
+		this.sharedStrings = requireNonNull(sharedStrings);
+		this.dateStyles = requireNonNull(dateStyles);
+		this.date1904 = date1904;
+		this.cellProcessors = cellProcessors;
+	}
+
+	@Override
+	public Iterator<Entity> iterator()
+	{
+		XlsxSheetReader sheetReader = openSheetReader();
+		List<String> headerRow = sheetReader.readRow();
+		if (headerRow == null)
+		{
+			closeSheetReader(sheetReader);
+			return Collections.<Entity> emptyList().iterator();
+		}
+
+		// create column header index once and reuse
+		if (colNamesMap == null)
+		{
+			colNamesMap = toColNamesMap(headerRow);
+		}
+		EntityMetaData entityMetaData = getEntityMetaData();
+		AttributeSlots attributeSlots = AttributeSlots.of(entityMetaData);
+
+		return new AbstractIterator<Entity>()
+		{
+			@Override
+			protected Entity computeNext()
+			{
+				// iterator skips empty lines.
+				List<String> row;
+				while ((row = sheetReader.readRow()) != null)
+				{
+					Entity entity = toEntity(row, entityMetaData, attributeSlots);
+					if (entity != null)
+					{
+						return entity;
+					}
+				}
+				closeSheetReader(sheetReader);
+				return endOfData();
+			}
+		};
+	}
+
+	/**
+	 * Returns the entity for a row or null if the row does not contain any value
+	 */
+	private Entity toEntity(List<String> row, EntityMetaData entityMetaData, AttributeSlots attributeSlots)
+	{
+		Entity entity = new ArrayEntity(entityMetaData, attributeSlots);
+		boolean empty = true;
+		for (Map.Entry<String, Integer> entry : colNamesMap.entrySet())
+		{
+			int col = entry.getValue();
+			if (col < row.size() && row.get(col) != null)
+			{
+				String value = AbstractCellProcessor.processCell(row.get(col), false, cellProcessors);
+				entity.set(entry.getKey(), value);
+				if (StringUtils.isNotEmpty(value)) empty = false;
+			}
+		}
+		return empty ? null : entity;
+	}
+
+	@Override
+	public EntityMetaData getEntityMetaData()
+	{
+		if (entityMetaData == null)
+		{
+			EditableEntityMetaData editableEntityMetaData = new DefaultEntityMetaData(sheetName);
+
+			if (colNamesMap == null)
+			{
+				XlsxSheetReader sheetReader = openSheetReader();
+				try
+				{
+					// First row contains the headers
+					List<String> headerRow = sheetReader.readRow();
+					if (headerRow != null)
+					{
+						colNamesMap = toColNamesMap(headerRow);
+					}
+				}
+				finally
+				{
+					closeSheetReader(sheetReader);
+				}
+			}
+
+			if (colNamesMap != null)
+			{
+				for (String colName : colNamesMap.keySet())
+				{
+					editableEntityMetaData
+							.addAttributeMetaData(new DefaultAttributeMetaData(colName, FieldTypeEnum.STRING));
+				}
+			}
+			entityMetaData = editableEntityMetaData;
+		}
+
+		return entityMetaData;
+	}
+
+	private Map<String, Integer> toColNamesMap(List<String> headerRow)
+	{
+		Map<String, Integer> columnIdx = new LinkedCaseInsensitiveMap<>();
+		for (int col = 0; col < headerRow.size(); ++col)
+		{
+			String header = AbstractCellProcessor.processCell(headerRow.get(col), true, cellProcessors);
+			if (null != header) columnIdx.put(header, col);
+		}
+		return columnIdx;
+	}
+
+	private XlsxSheetReader openSheetReader()
+	{
+		XlsxSheetReader sheetReader = new XlsxSheetReader(openSheetInputStream(), sharedStrings, dateStyles,
+				date1904);
+		openSheetReaders.add(sheetReader);
+		return sheetReader;
+	}
+
+	private void closeSheetReader(XlsxSheetReader sheetReader)
+	{
+		openSheetReaders.remove(sheetReader);
+		IOUtils.closeQuietly(sheetReader);
+	}
+
+	private InputStream openSheetInputStream()
+	{
+		try
+		{
+			ZipFile zipFile = new ZipFile(file);
+			ZipEntry sheetEntry = zipFile.getEntry(sheetEntryName);
+			if (sheetEntry == null)
+			{
+				zipFile.close();
+				throw new MolgenisDataException("Missing sheet [" + sheetName + "] in file [" + file.getName() + "]");
+			}
+			return new FilterInputStream(zipFile.getInputStream(sheetEntry))
+			{
+				@Override
+				public void close() throws IOException
+				{
+					try
+					{
+						super.close();
+					}
+					finally
+					{
+						zipFile.close();
+					}
+				}
+			};
+		}
+		catch (IOException e)
+		{
+			throw new MolgenisDataException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		openSheetReaders.forEach(IOUtils::closeQuietly);
+		openSheetReaders.clear();
+	}
+
+	@Override
+	public Set<RepositoryCapability> getCapabilities()
+	{
+		return Collections.emptySet();
+	}
+
+	@Override
+	public long count()
+	{
+		return Iterables.size(this);
+	}
+}
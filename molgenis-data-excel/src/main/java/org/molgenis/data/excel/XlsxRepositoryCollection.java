@@ -0,0 +1,203 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.MolgenisInvalidFormatException;
+import org.molgenis.data.Repository;
+import org.molgenis.data.processor.CellProcessor;
+import org.molgenis.data.processor.TrimProcessor;
+import org.molgenis.data.support.FileRepositoryCollection;
+import org.molgenis.data.support.GenericImporterExtensions;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.xml.sax.SAXException;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Read an XLSX file and iterate through the sheets without loading the workbook in memory. Only the shared strings
+ * table, the cell styles and the date system are read up front and sheets are scanned once for merged cells, sheet
+ * rows are streamed.
+ *
+ * A sheet is exposed as a {@link org.molgenis.data.Repository} with the sheetname as the Repository name
+ */
+public class XlsxRepositoryCollection extends FileRepositoryCollection
+{
+	public static final String NAME = "XLSX";
+
+	private final File file;
+	/** sheet name (case insensitive) --> name of the zip entry containing the sheet */
+	private final Map<String, String> sheetEntryNames;
+	private final List<String> sharedStrings;
+	/** indices of the cell styles that format numbers as dates */
+	private final BitSet dateStyles;
+	private final boolean date1904;
+	/** names of the sheets that contain merged cells */
+	private final Set<String> mergedCellsSheetNames;
+
+	public XlsxRepositoryCollection(File file) throws IOException, MolgenisInvalidFormatException
+	{
+		this(file, new TrimProcessor());
+	}
+
+	public XlsxRepositoryCollection(File file, CellProcessor... cellProcessors) throws IOException,
+			MolgenisInvalidFormatException
+	{
+		super(ImmutableSet.of(GenericImporterExtensions.XLSX.toString()), cellProcessors);
+		this.file = file;
+		this.sheetEntryNames = new LinkedCaseInsensitiveMap<>();
+		this.dateStyles = new BitSet();
+		this.mergedCellsSheetNames = new HashSet<>();
+
+		OPCPackage pkg;
+		try
+		{
+			pkg = OPCPackage.open(file.getPath(), PackageAccess.READ);
+		}
+		catch (OpenXML4JException e)
+		{
+			throw new MolgenisInvalidFormatException(e.getMessage());
+		}
+		try
+		{
+			XSSFReader xssfReader = new XSSFReader(pkg);
+			XSSFReader.SheetIterator sheetIterator = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+			while (sheetIterator.hasNext())
+			{
+				try (InputStream sheetInputStream = sheetIterator.next())
+				{
+					// zip entry names do not start with a slash
+					String partName = sheetIterator.getSheetPart().getPartName().getName();
+					sheetEntryNames.put(sheetIterator.getSheetName(), partName.substring(1));
+
+					// merged cells follow the rows of a sheet, detect them before any row is imported
+					if (XlsxSheetReader.hasMergedCells(sheetInputStream))
+					{
+						mergedCellsSheetNames.add(sheetIterator.getSheetName());
+					}
+				}
+			}
+
+			try (InputStream workbookInputStream = xssfReader.getWorkbookData())
+			{
+				this.date1904 = XlsxSheetReader.isDate1904(workbookInputStream);
+			}
+
+			List<String> items = new ReadOnlySharedStringsTable(pkg).getItems();
+			this.sharedStrings = items != null ? items : Collections.<String> emptyList();
+
+			StylesTable stylesTable = xssfReader.getStylesTable();
+			if (stylesTable != null)
+			{
+				for (int i = 0; i < stylesTable.getNumCellStyles(); ++i)
+				{
+					XSSFCellStyle style = stylesTable.getStyleAt(i);
+					if (style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString()))
+					{
+						dateStyles.set(i);
+					}
+				}
+			}
+		}
+		catch (OpenXML4JException | SAXException e)
+		{
+			throw new MolgenisInvalidFormatException(e.getMessage());
+		}
+		finally
+		{
+			// package is opened read-only, revert closes it without saving
+			pkg.revert();
+		}
+	}
+
+	@Override
+	public Iterable<String> getEntityNames()
+	{
+		return Collections.unmodifiableSet(sheetEntryNames.keySet());
+	}
+
+	@Override
+	public Repository getRepository(String name)
+	{
+		String sheetEntryName = sheetEntryNames.get(name);
+		if (sheetEntryName == null)
+		{
+			return null;
+		}
+
+		String sheetName = sheetEntryNames.keySet().stream().filter(name::equalsIgnoreCase).findFirst().get();
+		if (mergedCellsSheetNames.contains(sheetName))
+		{
+			throw new MolgenisDataException(
+					format("Sheet [%s] contains merged regions which is not supported", sheetName));
+		}
+		return new XlsxRepository(file, sheetName, sheetEntryName, sharedStrings, dateStyles, date1904,
+				cellProcessors);
+	}
+
+	public int getNumberOfSheets()
+	{
+		return sheetEntryNames.size();
+	}
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public Repository addEntityMeta(EntityMetaData entityMeta)
+	{
+		return getRepository(entityMeta.getName());
+	}
+
+	@Override
+	public Iterator<Repository> iterator()
+	{
+		return new Iterator<Repository>()
+		{
+			Iterator<String> it = getEntityNames().iterator();
+
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+
+			@Override
+			public Repository next()
+			{
+				return getRepository(it.next());
+			}
+
+		};
+	}
+
+	@Override
+	public boolean hasRepository(String name)
+	{
+		if (null == name) return false;
+		return sheetEntryNames.keySet().contains(name);
+	}
+}
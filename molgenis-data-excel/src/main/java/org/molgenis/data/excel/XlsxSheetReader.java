@@ -0,0 +1,263 @@
+package org.molgenis.data.excel;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.molgenis.data.DataConverter;
+import org.molgenis.data.MolgenisDataException;
+
+/**
+ * Pull parser for the XML of an XLSX sheet, reads the sheet row by row without building the sheet in memory. Cell
+ * values are converted to strings the same way as {@link ExcelUtils#toValue(org.apache.poi.ss.usermodel.Cell)}.
+ */
+class XlsxSheetReader implements Closeable
+{
+	private static final XMLInputFactory XML_INPUT_FACTORY;
+
+	static
+	{
+		// sheets are uploaded by users, do not process document type declarations and external entities
+		XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	private final InputStream sheetInputStream;
+	private final List<String> sharedStrings;
+	private final BitSet dateStyles;
+	private final boolean date1904;
+	private final XMLStreamReader xmlReader;
+
+	/**
+	 * @param sheetInputStream
+	 *            sheet XML
+	 * @param sharedStrings
+	 *            shared strings table of the workbook
+	 * @param dateStyles
+	 *            indices of the cell styles that format numbers as dates
+	 * @param date1904
+	 *            whether the workbook uses the 1904 date system
+	 */
+	XlsxSheetReader(InputStream sheetInputStream, List<String> sharedStrings, BitSet dateStyles, boolean date1904)
+	{
+		this.sheetInputStream = requireNonNull(sheetInputStream);
+		this.sharedStrings = requireNonNull(sharedStrings);
+		this.dateStyles = requireNonNull(dateStyles);
+		this.date1904 = date1904;
+		try
+		{
+			this.xmlReader = XML_INPUT_FACTORY.createXMLStreamReader(sheetInputStream);
+		}
+		catch (XMLStreamException e)
+		{
+			throw new MolgenisDataException(e);
+		}
+	}
+
+	/**
+	 * Returns the cell values of the next row indexed by column or null if there are no more rows
+	 */
+	List<String> readRow()
+	{
+		try
+		{
+			while (xmlReader.hasNext())
+			{
+				if (xmlReader.next() == XMLStreamConstants.START_ELEMENT && xmlReader.getLocalName().equals("row"))
+				{
+					return readCells();
+				}
+			}
+			return null;
+		}
+		catch (XMLStreamException e)
+		{
+			throw new MolgenisDataException(e);
+		}
+	}
+
+	private List<String> readCells() throws XMLStreamException
+	{
+		List<String> values = new ArrayList<>();
+		while (true)
+		{
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT && xmlReader.getLocalName().equals("c"))
+			{
+				String cellRef = xmlReader.getAttributeValue(null, "r");
+				int col = cellRef != null ? new CellReference(cellRef).getCol() : values.size();
+				String value = readCell(xmlReader.getAttributeValue(null, "t"), xmlReader.getAttributeValue(null, "s"));
+				while (values.size() <= col)
+				{
+					values.add(null);
+				}
+				values.set(col, value);
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT && xmlReader.getLocalName().equals("row"))
+			{
+				return values;
+			}
+		}
+	}
+
+	private String readCell(String type, String style) throws XMLStreamException
+	{
+		String rawValue = null;
+		StringBuilder inlineValue = null;
+		while (true)
+		{
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				String localName = xmlReader.getLocalName();
+				if (localName.equals("v"))
+				{
+					rawValue = xmlReader.getElementText();
+				}
+				else if (localName.equals("t"))
+				{
+					// text of an inline string, rich text strings consist of multiple runs
+					if (inlineValue == null) inlineValue = new StringBuilder();
+					inlineValue.append(xmlReader.getElementText());
+				}
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT && xmlReader.getLocalName().equals("c"))
+			{
+				break;
+			}
+		}
+
+		if (type == null || type.equals("n"))
+		{
+			return rawValue != null ? toNumericValue(Double.parseDouble(rawValue), style) : null;
+		}
+		switch (type)
+		{
+			case "s":
+				return rawValue != null ? sharedStrings.get(Integer.parseInt(rawValue)) : null;
+			case "inlineStr":
+				return inlineValue != null ? inlineValue.toString() : null;
+			case "str":
+				return rawValue;
+			case "b":
+				return rawValue != null ? String.valueOf(rawValue.equals("1")) : null;
+			default:
+				throw new MolgenisDataException("unsupported cell type: " + type);
+		}
+	}
+
+	private String toNumericValue(double x, String style)
+	{
+		if (style != null && dateStyles.get(Integer.parseInt(style)) && DateUtil.isValidExcelDate(x))
+		{
+			return DataConverter.toString(DateUtil.getJavaDate(x, date1904));
+		}
+		// excel stores integer values as double values
+		// read an integer if the double value equals the
+		// integer value
+		if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x)) return String.valueOf((int) x);
+		else return String.valueOf(x);
+	}
+
+	/**
+	 * Returns whether a sheet contains merged cells. The merged cells of a sheet are listed after its rows, so the
+	 * whole sheet XML is scanned.
+	 */
+	static boolean hasMergedCells(InputStream sheetInputStream)
+	{
+		try
+		{
+			XMLStreamReader xmlReader = XML_INPUT_FACTORY.createXMLStreamReader(sheetInputStream);
+			try
+			{
+				while (xmlReader.hasNext())
+				{
+					if (xmlReader.next() == XMLStreamConstants.START_ELEMENT
+							&& xmlReader.getLocalName().equals("mergeCell"))
+					{
+						return true;
+					}
+				}
+				return false;
+			}
+			finally
+			{
+				xmlReader.close();
+			}
+		}
+		catch (XMLStreamException e)
+		{
+			throw new MolgenisDataException(e);
+		}
+	}
+
+	/**
+	 * Returns whether a workbook uses the 1904 date system
+	 * 
+	 * @param workbookInputStream
+	 *            workbook XML
+	 */
+	static boolean isDate1904(InputStream workbookInputStream)
+	{
+		try
+		{
+			XMLStreamReader xmlReader = XML_INPUT_FACTORY.createXMLStreamReader(workbookInputStream);
+			try
+			{
+				while (xmlReader.hasNext())
+				{
+					int event = xmlReader.next();
+					if (event == XMLStreamConstants.START_ELEMENT && xmlReader.getLocalName().equals("workbookPr"))
+					{
+						String date1904 = xmlReader.getAttributeValue(null, "date1904");
+						return date1904 != null && (date1904.equals("1") || date1904.equals("true"));
+					}
+					else if (event == XMLStreamConstants.START_ELEMENT && xmlReader.getLocalName().equals("sheets"))
+					{
+						// workbook properties precede the sheets
+						return false;
+					}
+				}
+				return false;
+			}
+			finally
+			{
+				xmlReader.close();
+			}
+		}
+		catch (XMLStreamException e)
+		{
+			throw new MolgenisDataException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			xmlReader.close();
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+		finally
+		{
+			sheetInputStream.close();
+		}
+	}
+}
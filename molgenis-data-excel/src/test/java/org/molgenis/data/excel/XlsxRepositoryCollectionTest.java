@@ -0,0 +1,215 @@
+package org.molgenis.data.excel;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.molgenis.data.DataConverter;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.MolgenisInvalidFormatException;
+import org.molgenis.data.Repository;
+import org.molgenis.data.processor.TrimProcessor;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbook;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+public class XlsxRepositoryCollectionTest
+{
+	private File file;
+	private XlsxRepositoryCollection xlsxRepositoryCollection;
+
+	@BeforeClass
+	public void beforeClass() throws IOException, MolgenisInvalidFormatException
+	{
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		CellStyle dateStyle = workbook.createCellStyle();
+		dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+		Sheet sheet = workbook.createSheet("test");
+		Row headerRow = sheet.createRow(0);
+		headerRow.createCell(0).setCellValue("col1");
+		headerRow.createCell(1).setCellValue("col2");
+		headerRow.createCell(2).setCellValue(" col3 ");
+		headerRow.createCell(3).setCellValue("col4");
+		Row row = sheet.createRow(1);
+		row.createCell(0).setCellValue(" str1 ");
+		row.createCell(1).setCellValue(1);
+		row.createCell(2).setCellValue(1.5);
+		row.createCell(3).setCellValue(true);
+		sheet.createRow(2).createCell(0).setCellValue("");
+		row = sheet.createRow(4);
+		row.createCell(1).setCellValue(new Date(0));
+		row.getCell(1).setCellStyle(dateStyle);
+		row.createCell(3).setCellValue("str1");
+
+		workbook.createSheet("Blad2").createRow(0).createCell(0).setCellValue("a");
+
+		file = File.createTempFile("test", ".xlsx");
+		try (OutputStream os = new FileOutputStream(file))
+		{
+			workbook.write(os);
+		}
+		xlsxRepositoryCollection = new XlsxRepositoryCollection(file);
+	}
+
+	@AfterClass
+	public void afterClass()
+	{
+		file.delete();
+	}
+
+	@Test
+	public void getEntityNames()
+	{
+		assertEquals(Lists.newArrayList(xlsxRepositoryCollection.getEntityNames()), Arrays.asList("test", "Blad2"));
+		assertEquals(xlsxRepositoryCollection.getNumberOfSheets(), 2);
+	}
+
+	@Test
+	public void getRepository()
+	{
+		assertEquals(xlsxRepositoryCollection.getRepository("blad2").getName(), "Blad2");
+		assertNull(xlsxRepositoryCollection.getRepository("Blad3"));
+	}
+
+	@Test
+	public void hasRepository()
+	{
+		assertTrue(xlsxRepositoryCollection.hasRepository("Blad2"));
+		assertFalse(xlsxRepositoryCollection.hasRepository("Blad3"));
+	}
+
+	@Test
+	public void getEntityMetaData() throws IOException
+	{
+		try (Repository repo = xlsxRepositoryCollection.getRepository("test"))
+		{
+			List<String> attrNames = new ArrayList<>();
+			repo.getEntityMetaData().getAttributes().forEach(attr -> attrNames.add(attr.getName()));
+			assertEquals(attrNames, Arrays.asList("col1", "col2", "col3", "col4"));
+		}
+	}
+
+	@Test
+	public void iterator() throws IOException, InvalidFormatException
+	{
+		List<Entity> entities;
+		try (Repository repo = xlsxRepositoryCollection.getRepository("test"))
+		{
+			entities = Lists.newArrayList(repo);
+		}
+		assertEquals(entities.size(), 2);
+
+		// values are equal to the values read from the workbook in memory
+		Workbook workbook = WorkbookFactory.create(file);
+		List<Entity> expectedEntities = Lists.newArrayList(new ExcelRepository(file.getName(), workbook
+				.getSheet("test"), Arrays.asList(new TrimProcessor())));
+		assertEquals(expectedEntities.size(), 2);
+		for (int i = 0; i < entities.size(); ++i)
+		{
+			for (String attrName : Arrays.asList("col1", "col2", "col3", "col4"))
+			{
+				assertEquals(entities.get(i).get(attrName), expectedEntities.get(i).get(attrName));
+			}
+		}
+		assertEquals(entities.get(0).get("col1"), "str1");
+		assertEquals(entities.get(0).get("col2"), "1");
+		assertEquals(entities.get(0).get("col3"), "1.5");
+		assertEquals(entities.get(0).get("col4"), "true");
+		assertNull(entities.get(1).get("col1"));
+	}
+
+	@Test
+	public void getRepositoryMergedCells() throws IOException, MolgenisInvalidFormatException
+	{
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		Sheet sheet = workbook.createSheet("merged");
+		sheet.createRow(0).createCell(0).setCellValue("col1");
+		sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 1));
+		workbook.createSheet("notmerged").createRow(0).createCell(0).setCellValue("col1");
+
+		File mergedFile = writeWorkbook(workbook);
+		try
+		{
+			XlsxRepositoryCollection collection = new XlsxRepositoryCollection(mergedFile);
+			assertEquals(collection.getRepository("notmerged").getName(), "notmerged");
+			try
+			{
+				collection.getRepository("merged");
+				fail("expected MolgenisDataException");
+			}
+			catch (MolgenisDataException e)
+			{
+				assertEquals(e.getMessage(), "Sheet [merged] contains merged regions which is not supported");
+			}
+		}
+		finally
+		{
+			mergedFile.delete();
+		}
+	}
+
+	@Test
+	public void iteratorDate1904() throws IOException, MolgenisInvalidFormatException
+	{
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		CTWorkbook ctWorkbook = workbook.getCTWorkbook();
+		(ctWorkbook.isSetWorkbookPr() ? ctWorkbook.getWorkbookPr() : ctWorkbook.addNewWorkbookPr()).setDate1904(true);
+		CellStyle dateStyle = workbook.createCellStyle();
+		dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+		Date date = new GregorianCalendar(2015, Calendar.MARCH, 2).getTime();
+		Sheet sheet = workbook.createSheet("dates");
+		sheet.createRow(0).createCell(0).setCellValue("date");
+		Cell cell = sheet.createRow(1).createCell(0);
+		cell.setCellValue(date);
+		cell.setCellStyle(dateStyle);
+
+		File date1904File = writeWorkbook(workbook);
+		try (Repository repo = new XlsxRepositoryCollection(date1904File).getRepository("dates"))
+		{
+			assertEquals(Iterables.getOnlyElement(repo).get("date"), DataConverter.toString(date));
+		}
+		finally
+		{
+			date1904File.delete();
+		}
+	}
+
+	private static File writeWorkbook(Workbook workbook) throws IOException
+	{
+		File workbookFile = File.createTempFile("test", ".xlsx");
+		try (OutputStream os = new FileOutputStream(workbookFile))
+		{
+			workbook.write(os);
+		}
+		return workbookFile;
+	}
+}
@@ -0,0 +1,61 @@
+package org.molgenis.data.excel;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.molgenis.data.MolgenisDataException;
+import org.testng.annotations.Test;
+
+public class XlsxSheetReaderTest
+{
+	private static final String SHEET_NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+	@Test
+	public void readRow() throws IOException
+	{
+		String sheetXml = "<worksheet xmlns=\"" + SHEET_NAMESPACE + "\"><sheetData><row r=\"1\">"
+				+ "<c r=\"A1\" t=\"inlineStr\"><is><t>str1</t></is></c><c r=\"C1\"><v>1</v></c></row></sheetData>"
+				+ "</worksheet>";
+		try (XlsxSheetReader xlsxSheetReader = createSheetReader(sheetXml))
+		{
+			assertEquals(xlsxSheetReader.readRow(), Arrays.asList("str1", null, "1"));
+		}
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void readRowExternalEntity() throws IOException
+	{
+		File file = File.createTempFile("secret", ".txt");
+		try
+		{
+			FileUtils.write(file, "secret", StandardCharsets.UTF_8);
+			String sheetXml = "<?xml version=\"1.0\"?><!DOCTYPE worksheet [<!ENTITY xxe SYSTEM \""
+					+ file.toURI() + "\">]><worksheet xmlns=\"" + SHEET_NAMESPACE + "\"><sheetData><row r=\"1\">"
+					+ "<c r=\"A1\" t=\"inlineStr\"><is><t>&xxe;</t></is></c></row></sheetData></worksheet>";
+			try (XlsxSheetReader xlsxSheetReader = createSheetReader(sheetXml))
+			{
+				// the entity is not declared, because the document type declaration is not processed
+				xlsxSheetReader.readRow();
+			}
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+
+	private static XlsxSheetReader createSheetReader(String sheetXml)
+	{
+		InputStream sheetInputStream = new ByteArrayInputStream(sheetXml.getBytes(StandardCharsets.UTF_8));
+		return new XlsxSheetReader(sheetInputStream, Collections.emptyList(), new BitSet(), false);
+	}
+}
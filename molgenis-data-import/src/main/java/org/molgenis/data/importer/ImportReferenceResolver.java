@@ -0,0 +1,165 @@
+package org.molgenis.data.importer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.DataConverter;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.molgenis.fieldtypes.MrefField;
+import org.molgenis.fieldtypes.XrefField;
+import org.molgenis.util.Pair;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+
+/**
+ * Resolves the entities referenced by imported entities. The referenced ids of a block of imported entities are
+ * retrieved with one findAll per referenced entity, resolved entities are cached for the duration of an import job.
+ * Entities that do not exist are not cached, they might be imported later on in the same job.
+ */
+class ImportReferenceResolver
+{
+	static final int BATCH_SIZE = 1000;
+	private static final int CACHE_SIZE = 100000;
+
+	private final DataService dataService;
+	/**
+	 * referenced entity name and id --> referenced entity
+	 */
+	private final Cache<Pair<String, Object>, Entity> referenceCache;
+
+	ImportReferenceResolver(DataService dataService)
+	{
+		this.dataService = requireNonNull(dataService);
+		this.referenceCache = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+	}
+
+	/**
+	 * Returns the referenced entity with the given id or null if it does not exist.
+	 *
+	 * @param refEntityMeta
+	 *            referenced entity meta data
+	 * @param id
+	 *            referenced entity id
+	 * @return referenced entity or null
+	 */
+	Entity findOne(EntityMetaData refEntityMeta, Object id)
+	{
+		Object refId = toRefId(refEntityMeta, id);
+		Pair<String, Object> key = new Pair<>(refEntityMeta.getName(), refId);
+		Entity refEntity = referenceCache.getIfPresent(key);
+		if (refEntity == null)
+		{
+			refEntity = dataService.findOne(refEntityMeta.getName(), refId);
+			if (refEntity != null)
+			{
+				referenceCache.put(key, refEntity);
+			}
+		}
+		return refEntity;
+	}
+
+	/**
+	 * Returns entities that, block by block, retrieve the entities referenced by the entities of a block before the
+	 * block is iterated.
+	 *
+	 * @param entityMeta
+	 *            meta data of the imported entities
+	 * @param entities
+	 *            imported entities whose xref and mref values are ids
+	 * @return imported entities
+	 */
+	Iterable<Entity> prefetching(EntityMetaData entityMeta, Iterable<Entity> entities)
+	{
+		return () -> {
+			Iterator<List<Entity>> batches = Iterators.partition(entities.iterator(), BATCH_SIZE);
+			return Iterators.concat(Iterators.transform(batches, batch -> {
+				prefetch(entityMeta, batch);
+				return batch.iterator();
+			}));
+		};
+	}
+
+	private void prefetch(EntityMetaData entityMeta, List<Entity> entities)
+	{
+		// referenced entity name --> ids that are not cached
+		Map<String, Set<Object>> refIdsMap = new LinkedHashMap<>();
+		Map<String, EntityMetaData> refEntityMetaMap = new LinkedHashMap<>();
+		for (AttributeMetaData attr : entityMeta.getAtomicAttributes())
+		{
+			if (!(attr.getDataType() instanceof XrefField) && !(attr.getDataType() instanceof MrefField))
+			{
+				continue;
+			}
+			EntityMetaData refEntityMeta = attr.getRefEntity();
+			Set<Object> refIds = refIdsMap.computeIfAbsent(refEntityMeta.getName(), name -> new LinkedHashSet<>());
+			refEntityMetaMap.put(refEntityMeta.getName(), refEntityMeta);
+
+			for (Entity entity : entities)
+			{
+				for (Object value : getIdValues(entity.get(attr.getName()), attr))
+				{
+					Object refId = toRefId(refEntityMeta, value);
+					if (refId != null
+							&& referenceCache.getIfPresent(new Pair<>(refEntityMeta.getName(), refId)) == null)
+					{
+						refIds.add(refId);
+					}
+				}
+			}
+		}
+
+		refIdsMap.forEach((refEntityName, refIds) -> {
+			if (!refIds.isEmpty())
+			{
+				EntityMetaData refEntityMeta = refEntityMetaMap.get(refEntityName);
+				dataService.findAll(refEntityName, refIds.stream()).forEach(refEntity -> referenceCache
+						.put(new Pair<>(refEntityName, toRefId(refEntityMeta, refEntity.getIdValue())), refEntity));
+			}
+		});
+	}
+
+	/**
+	 * Returns the referenced ids of an imported xref or mref value, values that are already entities are skipped
+	 */
+	private static Iterable<?> getIdValues(Object value, AttributeMetaData attr)
+	{
+		if (value == null || value instanceof Entity || value instanceof Map)
+		{
+			return Collections.emptyList();
+		}
+		if (attr.getDataType() instanceof MrefField)
+		{
+			if (value instanceof String)
+			{
+				return DataConverter.toList(value);
+			}
+			else if (value instanceof Iterable<?>)
+			{
+				return Iterables.filter((Iterable<?>) value,
+						item -> item != null && !(item instanceof Entity) && !(item instanceof Map));
+			}
+		}
+		return Collections.singletonList(value);
+	}
+
+	/**
+	 * Converts a referenced id to the data type of the referenced entity id attribute
+	 */
+	private static Object toRefId(EntityMetaData refEntityMeta, Object id)
+	{
+		return refEntityMeta.getIdAttribute().getDataType().convert(id);
+	}
+}
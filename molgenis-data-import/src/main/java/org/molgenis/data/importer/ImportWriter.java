@@ -30,7 +30,6 @@ import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.MolgenisDataAccessException;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Package;
-import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.RepositoryCollection;
@@ -42,11 +41,11 @@ import org.molgenis.data.meta.TagMetaData;
 import org.molgenis.data.semantic.LabeledResource;
 import org.molgenis.data.semantic.Tag;
 import org.molgenis.data.semanticsearch.service.TagService;
+import org.molgenis.data.support.AttributeSlots;
 import org.molgenis.data.support.ConvertingIterable;
 import org.molgenis.data.support.DefaultEntity;
 import org.molgenis.data.support.EntityMetaDataUtils;
 import org.molgenis.data.support.LazyEntity;
-import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.fieldtypes.IntField;
@@ -111,29 +110,34 @@ public class ImportWriter
 	@Transactional(isolation = Isolation.SERIALIZABLE)
 	public EntityImportReport doImport(EmxImportJob job)
 	{
+		ImportReferenceResolver referenceResolver = new ImportReferenceResolver(dataService);
+
 		// languages first
-		importLanguages(job.report, job.parsedMetaData.getLanguages(), job.dbAction, job.metaDataChanges);
+		importLanguages(job.report, job.parsedMetaData.getLanguages(), job.dbAction, job.metaDataChanges,
+				referenceResolver);
 
 		runAsSystem(() -> importTags(job.source));
 		importPackages(job.parsedMetaData);
 		addEntityMetaData(job.parsedMetaData, job.report, job.metaDataChanges);
 		addEntityPermissions(job.metaDataChanges);
 		runAsSystem(() -> importEntityAndAttributeTags(job.parsedMetaData));
-		importData(job.report, job.parsedMetaData.getEntities(), job.source, job.dbAction, job.defaultPackage);
-		importI18nStrings(job.report, job.parsedMetaData.getI18nStrings(), job.dbAction);
+		importData(job.report, job.parsedMetaData.getEntities(), job.source, job.dbAction, job.defaultPackage,
+				referenceResolver);
+		importI18nStrings(job.report, job.parsedMetaData.getI18nStrings(), job.dbAction, referenceResolver);
 
 		return job.report;
 	}
 
 	private void importLanguages(EntityImportReport report, Map<String, Entity> languages, DatabaseAction dbAction,
-			MetaDataChanges metaDataChanges)
+			MetaDataChanges metaDataChanges, ImportReferenceResolver referenceResolver)
 	{
 		if (!languages.isEmpty())
 		{
 			Repository repo = dataService.getRepository(LanguageMetaData.ENTITY_NAME);
 
 			List<Entity> transformed = languages.values().stream()
-					.map(e -> new DefaultEntityImporter(repo.getEntityMetaData(), dataService, e, false))
+					.map(e -> new DefaultEntityImporter(repo.getEntityMetaData(), dataService, e, false,
+							referenceResolver))
 					.collect(toList());
 
 			// Find new ones
@@ -149,14 +153,16 @@ public class ImportWriter
 		}
 	}
 
-	private void importI18nStrings(EntityImportReport report, Map<String, Entity> i18nStrings, DatabaseAction dbAction)
+	private void importI18nStrings(EntityImportReport report, Map<String, Entity> i18nStrings, DatabaseAction dbAction,
+			ImportReferenceResolver referenceResolver)
 	{
 		if (!i18nStrings.isEmpty())
 		{
 			Repository repo = dataService.getRepository(I18nStringMetaData.ENTITY_NAME);
 
 			List<Entity> transformed = i18nStrings.values().stream()
-					.map(e -> new DefaultEntityImporter(I18nStringMetaData.INSTANCE, dataService, e, false))
+					.map(e -> new DefaultEntityImporter(I18nStringMetaData.INSTANCE, dataService, e, false,
+							referenceResolver))
 					.collect(toList());
 
 			int count = update(repo, transformed, dbAction);
@@ -185,7 +191,7 @@ public class ImportWriter
 	 * Imports entity data for all entities in {@link #resolved} from {@link #source}
 	 */
 	private void importData(EntityImportReport report, Iterable<EntityMetaData> resolved, RepositoryCollection source,
-			DatabaseAction dbAction, String defaultPackage)
+			DatabaseAction dbAction, String defaultPackage, ImportReferenceResolver referenceResolver)
 	{
 		for (final EntityMetaData entityMetaData : resolved)
 		{
@@ -211,13 +217,19 @@ public class ImportWriter
 				{
 					boolean selfReferencing = DependencyResolver.hasSelfReferences(entityMetaData);
 
+					// references of self-referencing entities are resolved while importing, retrieve them per block
+					Iterable<Entity> fileEntities = selfReferencing
+							? referenceResolver.prefetching(entityMetaData, fileEntityRepository)
+							: fileEntityRepository;
+
 					// transforms entities so that they match the entity meta data of the output repository
-					Iterable<Entity> entities = Iterables.transform(fileEntityRepository, new Function<Entity, Entity>()
+					Iterable<Entity> entities = Iterables.transform(fileEntities, new Function<Entity, Entity>()
 					{
 						@Override
 						public Entity apply(Entity entity)
 						{
-							return new DefaultEntityImporter(entityMetaData, dataService, entity, selfReferencing);
+							return new DefaultEntityImporter(entityMetaData, dataService, entity, selfReferencing,
+									referenceResolver);
 						}
 					});
 
@@ -482,28 +494,7 @@ public class ImportWriter
 				// Check if the ids already exist
 				if (repo.count() > 0)
 				{
-					int batchSize = 100;
-					Query q = new QueryImpl();
-					Iterator<Object> it = ids.iterator();
-					int batchCount = 0;
-					while (it.hasNext())
-					{
-						Object id = it.next();
-						q.eq(idAttributeName, id);
-						batchCount++;
-						if (batchCount == batchSize || !it.hasNext())
-						{
-							repo.findAll(q).forEach(existing -> {
-								existingIds.add(existing.getIdValue());
-							});
-							q = new QueryImpl();
-							batchCount = 0;
-						}
-						else
-						{
-							q.or();
-						}
-					}
+					repo.existingIds(ids.stream()).forEach(existingIds::add);
 				}
 			}
 
@@ -701,14 +692,16 @@ public class ImportWriter
 		private final DataService dataService;
 		private final Entity entity;
 		private final boolean selfReferencing;
+		private final ImportReferenceResolver referenceResolver;
 
 		public DefaultEntityImporter(EntityMetaData entityMetaData, DataService dataService, Entity entity,
-				boolean selfReferencing)
+				boolean selfReferencing, ImportReferenceResolver referenceResolver)
 		{
 			this.entityMetaData = requireNonNull(entityMetaData);
 			this.dataService = requireNonNull(dataService);
 			this.entity = requireNonNull(entity);
 			this.selfReferencing = selfReferencing;
+			this.referenceResolver = requireNonNull(referenceResolver);
 		}
 
 		@Override
@@ -936,7 +929,7 @@ public class ImportWriter
 			Entity refEntity;
 			if (selfReferencing)
 			{
-				refEntity = dataService.findOne(attribute.getRefEntity().getName(), value);
+				refEntity = referenceResolver.findOne(attribute.getRefEntity(), value);
 				if (refEntity == null) throw new UnknownEntityException(attribute.getRefEntity().getName() + " with "
 						+ attribute.getRefEntity().getIdAttribute().getName() + " [" + value + "] does not exist");
 			}
@@ -1006,14 +999,16 @@ public class ImportWriter
 
 			if (firstItem instanceof Map)
 			{
+				EntityMetaData refEntityMeta = attribute.getRefEntity();
+				AttributeSlots refAttributeSlots = AttributeSlots.of(refEntityMeta);
 				return stream(ids.spliterator(), false)
-						.map(id -> new DefaultEntity(attribute.getRefEntity(), dataService, (Map<String, Object>) id))
-						.collect(Collectors.toList());
+						.map(id -> new DefaultEntity(refEntityMeta, dataService, refAttributeSlots,
+								(Map<String, Object>) id)).collect(Collectors.toList());
 			}
 			if (selfReferencing)
 			{
-				return from(ids).transform(dataType::convert).transform(
-						convertedId -> (dataService.findOne(attribute.getRefEntity().getName(), convertedId)));
+				return from(ids).transform(dataType::convert)
+						.transform(convertedId -> (referenceResolver.findOne(attribute.getRefEntity(), convertedId)));
 			}
 			else
 			{
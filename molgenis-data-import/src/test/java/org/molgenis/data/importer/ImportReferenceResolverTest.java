@@ -0,0 +1,112 @@
+package org.molgenis.data.importer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.MolgenisFieldTypes.MREF;
+import static org.molgenis.MolgenisFieldTypes.STRING;
+import static org.molgenis.MolgenisFieldTypes.XREF;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.mockito.ArgumentCaptor;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class ImportReferenceResolverTest
+{
+	private DataService dataService;
+	private DefaultEntityMetaData refEntityMeta;
+	private DefaultEntityMetaData entityMeta;
+	private ImportReferenceResolver importReferenceResolver;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		dataService = mock(DataService.class);
+
+		refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID).setDataType(STRING);
+
+		entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID).setDataType(STRING);
+		entityMeta.addAttribute("xref").setDataType(XREF).setRefEntity(refEntityMeta);
+		entityMeta.addAttribute("mref").setDataType(MREF).setRefEntity(refEntityMeta);
+
+		importReferenceResolver = new ImportReferenceResolver(dataService);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void prefetching()
+	{
+		Entity refEntity0 = createRefEntity("ref0");
+		Entity refEntity1 = createRefEntity("ref1");
+		Entity refEntity2 = createRefEntity("ref2");
+		when(dataService.findAll(eq("refEntity"), any(Stream.class)))
+				.thenReturn(Stream.of(refEntity0, refEntity1, refEntity2));
+
+		Entity entity0 = new MapEntity("id");
+		entity0.set("id", "0");
+		entity0.set("xref", "ref0");
+		entity0.set("mref", "ref1,ref2");
+		Entity entity1 = new MapEntity("id");
+		entity1.set("id", "1");
+		entity1.set("xref", "ref1");
+		entity1.set("mref", Arrays.asList("ref0", "ref3"));
+
+		List<Entity> entities = Lists
+				.newArrayList(importReferenceResolver.prefetching(entityMeta, Arrays.asList(entity0, entity1)));
+		assertEquals(entities, Arrays.asList(entity0, entity1));
+
+		ArgumentCaptor<Stream> captor = ArgumentCaptor.forClass(Stream.class);
+		verify(dataService, times(1)).findAll(eq("refEntity"), captor.capture());
+		assertEquals(((Stream<Object>) captor.getValue()).collect(Collectors.toList()),
+				Arrays.asList("ref0", "ref1", "ref2", "ref3"));
+
+		assertEquals(importReferenceResolver.findOne(refEntityMeta, "ref1"), refEntity1);
+		verify(dataService, never()).findOne("refEntity", "ref1");
+	}
+
+	@Test
+	public void findOne()
+	{
+		Entity refEntity0 = createRefEntity("ref0");
+		when(dataService.findOne("refEntity", "ref0")).thenReturn(refEntity0);
+
+		assertEquals(importReferenceResolver.findOne(refEntityMeta, "ref0"), refEntity0);
+		assertEquals(importReferenceResolver.findOne(refEntityMeta, "ref0"), refEntity0);
+		verify(dataService, times(1)).findOne("refEntity", "ref0");
+	}
+
+	@Test
+	public void findOneUnknownNotCached()
+	{
+		assertNull(importReferenceResolver.findOne(refEntityMeta, "ref0"));
+		assertNull(importReferenceResolver.findOne(refEntityMeta, "ref0"));
+		verify(dataService, times(2)).findOne("refEntity", "ref0");
+	}
+
+	private Entity createRefEntity(String id)
+	{
+		Entity refEntity = new MapEntity("id");
+		refEntity.set("id", id);
+		return refEntity;
+	}
+}
@@ -2,6 +2,7 @@ package org.molgenis.data.mapper.service;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
@@ -34,6 +35,35 @@ public interface AlgorithmService
 	 */
 	Object apply(AttributeMapping attributeMapping, Entity sourceEntity, EntityMetaData sourceEntityMetaData);
 
+	/**
+	 * Applies all {@link AttributeMapping}s of an {@link EntityMapping} to a block of source {@link Entity}s. The
+	 * algorithms are evaluated in one script context and each source entity is wrapped for evaluation only once. The
+	 * values of reference attributes are the ids of the referenced entities, see
+	 * {@link #resolveReferences(EntityMapping, List)}.
+	 * 
+	 * @param entityMapping
+	 *            {@link EntityMapping} to apply
+	 * @param sourceEntities
+	 *            block of {@link Entity}s to apply the mapping to
+	 * @param sourceEntityMetaData
+	 *            {@link EntityMetaData} of the source entities
+	 * @return for each source entity the mapped values by target attribute name
+	 */
+	List<Map<String, Object>> applyAll(EntityMapping entityMapping, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData);
+
+	/**
+	 * Replaces the ids of referenced entities in the values returned by
+	 * {@link #applyAll(EntityMapping, List, EntityMetaData)} with the referenced entities. The entities of each
+	 * reference attribute are retrieved with one query.
+	 * 
+	 * @param entityMapping
+	 *            {@link EntityMapping} that was applied
+	 * @param mappedValues
+	 *            for each source entity the mapped values by target attribute name
+	 */
+	void resolveReferences(EntityMapping entityMapping, List<Map<String, Object>> mappedValues);
+
 	/**
 	 * Retrieves the names of the source attributes in an algorithm
 	 * 
@@ -1,14 +1,19 @@
 package org.molgenis.data.mapper.service.impl;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +45,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 
 public class AlgorithmServiceImpl implements AlgorithmService
@@ -156,6 +162,126 @@ public class AlgorithmServiceImpl implements AlgorithmService
 		return convert(value, attributeMapping.getTargetAttributeMetaData());
 	}
 
+	@Override
+	public List<Map<String, Object>> applyAll(EntityMapping entityMapping, List<Entity> sourceEntities,
+			EntityMetaData sourceEntityMetaData)
+	{
+		List<AttributeMapping> attributeMappings = Lists.newArrayList(entityMapping.getAttributeMappings());
+		List<AttributeMapping> algorithmMappings = attributeMappings.stream()
+				.filter(attributeMapping -> !StringUtils.isEmpty(attributeMapping.getAlgorithm())).collect(toList());
+		List<String> algorithms = algorithmMappings.stream().map(AttributeMapping::getAlgorithm).collect(toList());
+
+		Set<String> attributeNames = new LinkedHashSet<>();
+		algorithms.forEach(algorithm -> attributeNames.addAll(getSourceAttributeNames(algorithm)));
+		List<Entity> entities = sourceEntities.stream()
+				.map(sourceEntity -> createMapEntity(attributeNames, sourceEntity)).collect(toList());
+
+		List<List<Object>> results = ScriptEvaluator.evalAll(algorithms, entities, sourceEntityMetaData);
+
+		List<Map<String, Object>> mappedValues = Lists.newArrayListWithCapacity(results.size());
+		for (List<Object> entityResults : results)
+		{
+			Map<String, Object> values = new LinkedHashMap<>();
+			attributeMappings.forEach(attributeMapping -> values
+					.put(attributeMapping.getTargetAttributeMetaData().getName(), null));
+			for (int i = 0; i < algorithmMappings.size(); ++i)
+			{
+				Object value = entityResults.get(i);
+				if (value instanceof RuntimeException)
+				{
+					throw (RuntimeException) value;
+				}
+				AttributeMetaData targetAttr = algorithmMappings.get(i).getTargetAttributeMetaData();
+				values.put(targetAttr.getName(),
+						isReference(targetAttr) ? convertIds(value, targetAttr) : convert(value, targetAttr));
+			}
+			mappedValues.add(values);
+		}
+		return mappedValues;
+	}
+
+	@Override
+	public void resolveReferences(EntityMapping entityMapping, List<Map<String, Object>> mappedValues)
+	{
+		for (AttributeMapping attributeMapping : entityMapping.getAttributeMappings())
+		{
+			AttributeMetaData targetAttr = attributeMapping.getTargetAttributeMetaData();
+			if (!isReference(targetAttr))
+			{
+				continue;
+			}
+
+			String attrName = targetAttr.getName();
+			Set<Object> ids = new LinkedHashSet<>();
+			for (Map<String, Object> values : mappedValues)
+			{
+				Object value = values.get(attrName);
+				if (value instanceof List<?>) ids.addAll((List<?>) value);
+				else if (value != null) ids.add(value);
+			}
+			if (ids.isEmpty())
+			{
+				continue;
+			}
+
+			Map<String, Entity> refEntities = dataService.findAll(targetAttr.getRefEntity().getName(), ids.stream())
+					.collect(toMap(refEntity -> refEntity.getIdValue().toString(), identity()));
+			for (Map<String, Object> values : mappedValues)
+			{
+				Object value = values.get(attrName);
+				if (value instanceof List<?>)
+				{
+					values.put(attrName, ((List<?>) value).stream().map(refEntities::get).filter(Objects::nonNull)
+							.collect(toList()));
+				}
+				else if (value != null)
+				{
+					values.put(attrName, refEntities.get(value));
+				}
+			}
+		}
+	}
+
+	private static boolean isReference(AttributeMetaData attributeMetaData)
+	{
+		switch (attributeMetaData.getDataType().getEnumType())
+		{
+			case XREF:
+			case CATEGORICAL:
+			case MREF:
+			case CATEGORICAL_MREF:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Converts the value of a reference attribute to the id or list of ids of the referenced entities
+	 */
+	private static Object convertIds(Object value, AttributeMetaData attributeMetaData)
+	{
+		if (value == null)
+		{
+			return null;
+		}
+		FieldTypeEnum targetDataType = attributeMetaData.getDataType().getEnumType();
+		try
+		{
+			if (targetDataType == FieldTypeEnum.XREF || targetDataType == FieldTypeEnum.CATEGORICAL)
+			{
+				return Context.toString(value);
+			}
+			NativeArray mrefIds = (NativeArray) value;
+			return !mrefIds.isEmpty() ? mrefIds.stream().map(Context::toString).collect(toList()) : null;
+		}
+		catch (RuntimeException e)
+		{
+			throw new RuntimeException(
+					"Error converting value [" + value.toString() + "] to " + targetDataType.toString(), e);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private Object convert(Object value, AttributeMetaData attributeMetaData)
 	{
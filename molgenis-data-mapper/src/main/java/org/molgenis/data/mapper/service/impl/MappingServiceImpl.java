@@ -3,13 +3,21 @@ package org.molgenis.data.mapper.service.impl;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.mapper.meta.MappingProjectMetaData.NAME;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import org.elasticsearch.common.collect.Lists;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.auth.MolgenisUser;
@@ -21,7 +29,6 @@ import org.molgenis.data.IdGenerator;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.UnknownEntityException;
-import org.molgenis.data.mapper.mapping.model.AttributeMapping;
 import org.molgenis.data.mapper.mapping.model.EntityMapping;
 import org.molgenis.data.mapper.mapping.model.MappingProject;
 import org.molgenis.data.mapper.mapping.model.MappingTarget;
@@ -39,10 +46,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class MappingServiceImpl implements MappingService
 {
@@ -50,6 +60,14 @@ public class MappingServiceImpl implements MappingService
 
 	private static final int BATCH_SIZE = 1000;
 
+	/**
+	 * Maximum number of blocks of source entities that are mapped concurrently
+	 */
+	private static final int MAPPING_THREADS = Runtime.getRuntime().availableProcessors();
+
+	private final ExecutorService mappingExecutorService = Executors.newFixedThreadPool(MAPPING_THREADS,
+			new ThreadFactoryBuilder().setNameFormat("molgenis-mapping-%d").setDaemon(true).build());
+
 	private final DataService dataService;
 
 	private final AlgorithmService algorithmService;
@@ -71,6 +89,15 @@ public class MappingServiceImpl implements MappingService
 		this.permissionSystemService = requireNonNull(permissionSystemService);
 	}
 
+	/**
+	 * Stops the threads that map source entities
+	 */
+	@PreDestroy
+	public void shutdown()
+	{
+		mappingExecutorService.shutdownNow();
+	}
+
 	@Override
 	@RunAsSystem
 	public MappingProject addMappingProject(String projectName, MolgenisUser owner, String target)
@@ -251,7 +278,6 @@ public class MappingServiceImpl implements MappingService
 
 	private void applyMappingToRepo(EntityMapping sourceMapping, Repository targetRepo)
 	{
-		EntityMetaData targetMetaData = targetRepo.getEntityMetaData();
 		Repository sourceRepo = dataService.getRepository(sourceMapping.getName());
 
 		// delete all target entities from this source
@@ -259,32 +285,72 @@ public class MappingServiceImpl implements MappingService
 				.filter(Objects::nonNull).collect(Collectors.toList());
 		targetRepo.delete(deleteEntities.stream());
 
-		Iterator<Entity> sourceEntities = sourceRepo.iterator();
-		List<MapEntity> mappedEntities = Lists.newArrayList();
-		while (sourceEntities.hasNext())
+		// map blocks of source entities concurrently, the references of the mapped blocks are resolved and the mapped
+		// blocks are added to the target in source order on the calling thread
+		ExecutorService executorService = new DelegatingSecurityContextExecutorService(mappingExecutorService);
+		Queue<Future<List<Map<String, Object>>>> mappedBlocks = new ArrayDeque<>(MAPPING_THREADS);
+		try
 		{
-			Entity sourceEntity = sourceEntities.next();
-			MapEntity mappedEntity = applyMappingToEntity(sourceMapping, sourceEntity, targetMetaData,
-					sourceMapping.getSourceEntityMetaData(), targetRepo);
-			mappedEntities.add(mappedEntity);
-
-			if (mappedEntities.size() == BATCH_SIZE || !sourceEntities.hasNext())
+			Iterator<List<Entity>> sourceBlocks = Iterators.partition(sourceRepo.iterator(), BATCH_SIZE);
+			while (sourceBlocks.hasNext())
 			{
-				targetRepo.add(mappedEntities.stream());
-				mappedEntities = Lists.newArrayList();
+				List<Entity> sourceBlock = sourceBlocks.next();
+				mappedBlocks.add(executorService.submit(() -> algorithmService.applyAll(sourceMapping, sourceBlock,
+						sourceMapping.getSourceEntityMetaData())));
+
+				if (mappedBlocks.size() == MAPPING_THREADS)
+				{
+					addMappedEntities(sourceMapping, getMappedValues(mappedBlocks.remove()), targetRepo);
+				}
 			}
+			while (!mappedBlocks.isEmpty())
+			{
+				addMappedEntities(sourceMapping, getMappedValues(mappedBlocks.remove()), targetRepo);
+			}
+		}
+		finally
+		{
+			mappedBlocks.forEach(mappedBlock -> mappedBlock.cancel(true));
 		}
 	}
 
-	private MapEntity applyMappingToEntity(EntityMapping sourceMapping, Entity sourceEntity,
-			EntityMetaData targetMetaData, EntityMetaData sourceEntityMetaData, Repository targetRepository)
+	private void addMappedEntities(EntityMapping sourceMapping, List<Map<String, Object>> mappedValues,
+			Repository targetRepo)
 	{
-		MapEntity target = new MapEntity(targetMetaData);
-		target.set("source", sourceMapping.getName());
+		algorithmService.resolveReferences(sourceMapping, mappedValues);
 
-		sourceMapping.getAttributeMappings().forEach(attributeMapping -> applyMappingToAttribute(attributeMapping,
-				sourceEntity, target, sourceEntityMetaData));
-		return target;
+		EntityMetaData targetMetaData = targetRepo.getEntityMetaData();
+		List<MapEntity> targets = Lists.newArrayList();
+		for (Map<String, Object> values : mappedValues)
+		{
+			MapEntity target = new MapEntity(targetMetaData);
+			target.set("source", sourceMapping.getName());
+			values.forEach(target::set);
+			targets.add(target);
+		}
+		targetRepo.add(targets.stream());
+	}
+
+	private static List<Map<String, Object>> getMappedValues(Future<List<Map<String, Object>>> mappedBlock)
+	{
+		try
+		{
+			return mappedBlock.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			throw new MolgenisDataException(cause);
+		}
 	}
 
 	@Override
@@ -302,11 +368,4 @@ public class MappingServiceImpl implements MappingService
 		}
 		return id.toString();
 	}
-
-	private void applyMappingToAttribute(AttributeMapping attributeMapping, Entity sourceEntity, MapEntity target,
-			EntityMetaData entityMetaData)
-	{
-		target.set(attributeMapping.getTargetAttributeMetaData().getName(),
-				algorithmService.apply(attributeMapping, sourceEntity, entityMetaData));
-	}
 }
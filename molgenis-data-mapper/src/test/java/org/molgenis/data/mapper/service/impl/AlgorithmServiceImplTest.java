@@ -2,11 +2,16 @@ package org.molgenis.data.mapper.service.impl;
 
 import static java.util.Collections.emptyMap;
 import static java.util.stream.Collectors.toList;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.molgenis.MolgenisFieldTypes.DATE;
+import static org.molgenis.MolgenisFieldTypes.DECIMAL;
 import static org.molgenis.MolgenisFieldTypes.INT;
 import static org.molgenis.MolgenisFieldTypes.MREF;
 import static org.molgenis.MolgenisFieldTypes.STRING;
@@ -20,6 +25,8 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -119,6 +126,98 @@ public class AlgorithmServiceImplTest extends AbstractTestNGSpringContextTests
 		assertEquals(result.toString(), "Wed May 13 00:00:00 CEST 2015");
 	}
 
+	@Test
+	public void testApplyAll()
+	{
+		String idAttrName = "id";
+		DefaultEntityMetaData sourceEntityMetaData = new DefaultEntityMetaData("source");
+		sourceEntityMetaData.addAttribute(idAttrName, ROLE_ID).setDataType(INT);
+		sourceEntityMetaData.addAttribute("height").setDataType(INT);
+		sourceEntityMetaData.addAttribute("weight").setDataType(INT);
+
+		DefaultEntityMetaData targetEntityMetaData = new DefaultEntityMetaData("target");
+		targetEntityMetaData.addAttribute("heightInMeters").setDataType(DECIMAL);
+		targetEntityMetaData.addAttribute("weightInGrams").setDataType(INT);
+		targetEntityMetaData.addAttribute("unmapped").setDataType(STRING);
+
+		EntityMapping entityMapping = new EntityMapping(sourceEntityMetaData, targetEntityMetaData);
+		entityMapping.addAttributeMapping("heightInMeters").setAlgorithm("$('height').div(100).value()");
+		entityMapping.addAttributeMapping("weightInGrams").setAlgorithm("$('weight').times(1000).value()");
+		entityMapping.addAttributeMapping("unmapped");
+
+		Entity source0 = new MapEntity(sourceEntityMetaData);
+		source0.set(idAttrName, 0);
+		source0.set("height", 180);
+		source0.set("weight", 80);
+		Entity source1 = new MapEntity(sourceEntityMetaData);
+		source1.set(idAttrName, 1);
+		source1.set("height", 150);
+		source1.set("weight", 60);
+
+		List<Map<String, Object>> results = algorithmService.applyAll(entityMapping, Arrays.asList(source0, source1),
+				sourceEntityMetaData);
+		Map<String, Object> expected0 = new HashMap<>();
+		expected0.put("heightInMeters", 1.8);
+		expected0.put("weightInGrams", 80000L);
+		expected0.put("unmapped", null);
+		Map<String, Object> expected1 = new HashMap<>();
+		expected1.put("heightInMeters", 1.5);
+		expected1.put("weightInGrams", 60000L);
+		expected1.put("unmapped", null);
+		assertEquals(results, Arrays.asList(expected0, expected1));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testApplyAllResolveReferences()
+	{
+		String refEntityName = "applyAllRefEntity";
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData(refEntityName);
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		Entity refEntity0 = new MapEntity(refEntityMeta);
+		refEntity0.set("id", "id0");
+		Entity refEntity1 = new MapEntity(refEntityMeta);
+		refEntity1.set("id", "id1");
+
+		DefaultEntityMetaData sourceEntityMetaData = new DefaultEntityMetaData("source");
+		sourceEntityMetaData.addAttribute("id", ROLE_ID).setDataType(INT);
+		sourceEntityMetaData.addAttribute("xrefId").setDataType(STRING);
+		sourceEntityMetaData.addAttribute("mref").setDataType(MREF).setRefEntity(refEntityMeta);
+
+		DefaultEntityMetaData targetEntityMetaData = new DefaultEntityMetaData("target");
+		targetEntityMetaData.addAttribute("xref").setDataType(XREF).setRefEntity(refEntityMeta);
+		targetEntityMetaData.addAttribute("mref").setDataType(MREF).setRefEntity(refEntityMeta);
+
+		EntityMapping entityMapping = new EntityMapping(sourceEntityMetaData, targetEntityMetaData);
+		entityMapping.addAttributeMapping("xref").setAlgorithm("$('xrefId').value()");
+		entityMapping.addAttributeMapping("mref").setAlgorithm("$('mref').value()");
+
+		Entity source0 = new MapEntity(sourceEntityMetaData);
+		source0.set("id", 0);
+		source0.set("xrefId", "id0");
+		source0.set("mref", Arrays.asList(refEntity0, refEntity1));
+		Entity source1 = new MapEntity(sourceEntityMetaData);
+		source1.set("id", 1);
+		source1.set("xrefId", "id1");
+		source1.set("mref", Arrays.asList(refEntity1));
+
+		List<Map<String, Object>> results = algorithmService.applyAll(entityMapping, Arrays.asList(source0, source1),
+				sourceEntityMetaData);
+		assertEquals(results.get(0).get("xref"), "id0");
+		assertEquals(results.get(0).get("mref"), Arrays.asList("id0", "id1"));
+
+		when(dataService.findAll(eq(refEntityName), any(Stream.class)))
+				.thenAnswer(invocation -> Stream.of(refEntity0, refEntity1));
+		algorithmService.resolveReferences(entityMapping, results);
+
+		assertEquals(results.get(0).get("xref"), refEntity0);
+		assertEquals(results.get(0).get("mref"), Arrays.asList(refEntity0, refEntity1));
+		assertEquals(results.get(1).get("xref"), refEntity1);
+		assertEquals(results.get(1).get("mref"), Arrays.asList(refEntity1));
+		verify(dataService, times(2)).findAll(eq(refEntityName), any(Stream.class));
+		verify(dataService, never()).findOne(eq(refEntityName), any(Object.class));
+	}
+
 	@Test
 	public void testGetAgeScript() throws ParseException
 	{
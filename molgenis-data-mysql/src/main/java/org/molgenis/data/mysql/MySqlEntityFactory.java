@@ -1,29 +1,48 @@
 package org.molgenis.data.mysql;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
 
 import org.molgenis.data.AttributeMetaData;
-import org.molgenis.data.DataConverter;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.support.AttributeSlots;
 import org.molgenis.data.support.DefaultEntity;
-import org.molgenis.fieldtypes.IntField;
 import org.molgenis.fieldtypes.MrefField;
 import org.molgenis.fieldtypes.XrefField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
 @Component
 public class MySqlEntityFactory
 {
@@ -39,37 +58,310 @@ public class MySqlEntityFactory
 		this.dataService = requireNonNull(dataService);
 	}
 
-	public RowMapper<Entity> createRowMapper(EntityMetaData entityMeta, Fetch fetch, JdbcTemplate jdbcTemplate,
+	/**
+	 * Retrieves a batch of entities. The values of mref attributes are retrieved with one query per mref attribute for
+	 * the whole batch.
+	 *
+	 * @param entityMeta
+	 *            entity meta data
+	 * @param fetch
+	 *            fetch that defines which attributes to retrieve, can be null
+	 * @param jdbcTemplate
+	 *            template to execute queries with
+	 * @param tableName
+	 *            name of the table of the entity
+	 * @param sql
+	 *            select SQL that selects the id attribute and the non-mref attributes
+	 * @param parameters
+	 *            select SQL parameters
+	 * @return retrieved entities
+	 */
+	public List<Entity> findAll(EntityMetaData entityMeta, Fetch fetch, JdbcTemplate jdbcTemplate, String tableName,
+			String sql, Object[] parameters)
+	{
+		RowMapper<Entity> entityMapper = createRowMapper(entityMeta, fetch);
+		List<Entity> entities = jdbcTemplate.query(sql, parameters, entityMapper);
+		setMrefs(entities, entityMeta, fetch, jdbcTemplate, tableName);
+
+		if (fetch != null)
+		{
+			return entities.stream().map(entity -> entityManager.createEntityForPartialEntity(entity, fetch))
+					.collect(toList());
+		}
+		else
+		{
+			return entities;
+		}
+	}
+
+	/**
+	 * Retrieves entities using a single forward-only query whose rows are streamed from the database instead of being
+	 * read into memory at once. Rows are mapped in batches of the given size, the values of mref attributes are
+	 * retrieved per batch. The connection is released when the stream is exhausted or closed, callers that do not
+	 * consume the whole stream must close it.
+	 *
+	 * The mref queries and the queries of consumers of the stream must use another connection than the streaming
+	 * connection, so this method may not be used within a transaction.
+	 *
+	 * @param entityMeta
+	 *            entity meta data
+	 * @param fetch
+	 *            fetch that defines which attributes to retrieve, can be null
+	 * @param dataSource
+	 *            data source to obtain the streaming connection from
+	 * @param jdbcTemplate
+	 *            template to execute mref queries with
+	 * @param tableName
+	 *            name of the table of the entity
+	 * @param sql
+	 *            select SQL that selects the id attribute and the non-mref attributes
+	 * @param parameters
+	 *            select SQL parameters
+	 * @param batchSize
+	 *            number of rows to map before retrieving mref values
+	 * @return stream of retrieved entities
+	 */
+	public Stream<Entity> stream(EntityMetaData entityMeta, Fetch fetch, DataSource dataSource,
+			JdbcTemplate jdbcTemplate, String tableName, String sql, Object[] parameters, int batchSize)
+	{
+		StreamingResultSetIterator it = new StreamingResultSetIterator(dataSource, jdbcTemplate, sql, parameters);
+		RowMapper<Entity> entityMapper = createRowMapper(entityMeta, fetch);
+		Iterator<List<Entity>> batchIt = new Iterator<List<Entity>>()
+		{
+			private int rowNum = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+
+			@Override
+			public List<Entity> next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+
+				List<Entity> entities = new ArrayList<>(batchSize);
+				while (entities.size() < batchSize && it.hasNext())
+				{
+					entities.add(it.mapRow(entityMapper, rowNum++));
+				}
+				setMrefs(entities, entityMeta, fetch, jdbcTemplate, tableName);
+
+				if (fetch != null)
+				{
+					return entities.stream().map(entity -> entityManager.createEntityForPartialEntity(entity, fetch))
+							.collect(toList());
+				}
+				else
+				{
+					return entities;
+				}
+			}
+		};
+
+		Spliterator<List<Entity>> spliterator = Spliterators.spliteratorUnknownSize(batchIt, Spliterator.ORDERED);
+		return StreamSupport.stream(spliterator, false).flatMap(List::stream).onClose(it::close);
+	}
+
+	/**
+	 * Creates a row mapper that maps the id attribute and the non-mref attributes of an entity
+	 */
+	RowMapper<Entity> createRowMapper(EntityMetaData entityMeta, Fetch fetch)
+	{
+		return new EntityMapper(entityMeta, fetch);
+	}
+
+	/**
+	 * Sets the mref attribute values of a batch of entities. The values of each mref attribute are retrieved with a
+	 * single query on the mref table.
+	 */
+	private void setMrefs(List<Entity> entities, EntityMetaData entityMeta, Fetch fetch, JdbcTemplate jdbcTemplate,
 			String tableName)
 	{
-		return new EntityMapper(entityMeta, fetch, jdbcTemplate, tableName);
+		if (entities.isEmpty())
+		{
+			return;
+		}
+
+		AttributeMetaData idAttr = entityMeta.getIdAttribute();
+		Object[] ids = entities.stream().map(entity -> entity.get(idAttr.getName())).toArray();
+
+		for (AttributeMetaData attr : entityMeta.getAtomicAttributes())
+		{
+			if (attr.getDataType() instanceof MrefField && attr.getExpression() == null
+					&& (fetch == null || fetch.hasField(attr.getName())))
+			{
+				EntityMetaData refEntityMeta = attr.getRefEntity();
+				AttributeMetaData refIdAttr = refEntityMeta.getIdAttribute();
+
+				String mrefSelectSql = getMrefSelectSql(attr, idAttr, tableName, ids.length);
+				if (LOG.isTraceEnabled())
+				{
+					LOG.trace("sql: {}, parameters: {}", mrefSelectSql, ids);
+				}
+
+				// entity id --> referenced entity ids in mref order
+				SetMultimap<Object, Object> mrefIdsMap = LinkedHashMultimap.create(ids.length, 4);
+				jdbcTemplate.query(mrefSelectSql, ids, (RowCallbackHandler) resultSet -> {
+					Object id = idAttr.getDataType().convert(resultSet.getObject(1));
+					Object refId = refIdAttr.getDataType().convert(resultSet.getObject(2));
+					mrefIdsMap.put(id, refId);
+				});
+
+				for (Entity entity : entities)
+				{
+					Set<Object> mrefIds = mrefIdsMap.get(entity.get(idAttr.getName()));
+					if (!mrefIds.isEmpty())
+					{
+						// convert ids to (lazy) entities
+						List<Object> refIds = new ArrayList<>(mrefIds);
+						entity.set(attr.getName(), entityManager.getReferences(refEntityMeta, refIds));
+					}
+				}
+			}
+		}
+	}
+
+	private String getMrefSelectSql(AttributeMetaData attr, AttributeMetaData idAttr, String tableName, int nrIds)
+	{
+		StringBuilder sql = new StringBuilder("SELECT `").append(idAttr.getName()).append("`, `")
+				.append(attr.getName()).append("` FROM `").append(tableName).append('_').append(attr.getName())
+				.append("` WHERE `").append(idAttr.getName()).append("` IN (");
+		for (int i = 0; i < nrIds; ++i)
+		{
+			if (i > 0) sql.append(',');
+			sql.append('?');
+		}
+		return sql.append(") ORDER BY `").append(idAttr.getName()).append("`, `order`").toString();
+	}
+
+	/**
+	 * Iterates over the rows of a forward-only result set that is streamed row by row from the database. The result
+	 * set, statement and connection are closed when the last row has been read or when {@link #close()} is called.
+	 */
+	private static class StreamingResultSetIterator
+	{
+		private final JdbcTemplate jdbcTemplate;
+		private final String sql;
+		private Connection connection;
+		private PreparedStatement preparedStatement;
+		private ResultSet resultSet;
+		private Boolean hasNext;
+
+		StreamingResultSetIterator(DataSource dataSource, JdbcTemplate jdbcTemplate, String sql, Object[] parameters)
+		{
+			this.jdbcTemplate = requireNonNull(jdbcTemplate);
+			this.sql = requireNonNull(sql);
+			try
+			{
+				connection = dataSource.getConnection();
+				preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY);
+				// instructs the MySQL driver to stream the result set row by row
+				preparedStatement.setFetchSize(Integer.MIN_VALUE);
+				new ArgumentPreparedStatementSetter(parameters).setValues(preparedStatement);
+				resultSet = preparedStatement.executeQuery();
+			}
+			catch (SQLException e)
+			{
+				close();
+				throw translate(e);
+			}
+		}
+
+		boolean hasNext()
+		{
+			if (hasNext == null)
+			{
+				if (resultSet == null)
+				{
+					hasNext = false;
+				}
+				else
+				{
+					try
+					{
+						hasNext = resultSet.next();
+					}
+					catch (SQLException e)
+					{
+						close();
+						throw translate(e);
+					}
+					if (!hasNext)
+					{
+						close();
+					}
+				}
+			}
+			return hasNext;
+		}
+
+		<T> T mapRow(RowMapper<T> rowMapper, int rowNum)
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+			try
+			{
+				return rowMapper.mapRow(resultSet, rowNum);
+			}
+			catch (SQLException e)
+			{
+				close();
+				throw translate(e);
+			}
+			finally
+			{
+				hasNext = null;
+			}
+		}
+
+		void close()
+		{
+			JdbcUtils.closeResultSet(resultSet);
+			resultSet = null;
+			JdbcUtils.closeStatement(preparedStatement);
+			preparedStatement = null;
+			JdbcUtils.closeConnection(connection);
+			connection = null;
+		}
+
+		private DataAccessException translate(SQLException e)
+		{
+			return jdbcTemplate.getExceptionTranslator().translate("StreamingResultSetIterator", sql, e);
+		}
 	}
 
 	private class EntityMapper implements RowMapper<Entity>
 	{
-		private static final int GROUP_CONCAT_MAX_LEN = 1024;
 		private final EntityMetaData entityMetaData;
 		private final Fetch fetch;
-		private final JdbcTemplate jdbcTemplate;
-		private final String tableName;
+		private final AttributeSlots attributeSlots;
 
-		private EntityMapper(EntityMetaData entityMetaData, Fetch fetch, JdbcTemplate jdbcTemplate, String tableName)
+		private EntityMapper(EntityMetaData entityMetaData, Fetch fetch)
 		{
 			this.entityMetaData = requireNonNull(entityMetaData);
 			this.fetch = fetch; // can be null
-			this.jdbcTemplate = requireNonNull(jdbcTemplate);
-			this.tableName = requireNonNull(tableName);
+			this.attributeSlots = AttributeSlots.of(entityMetaData);
 		}
 
 		@Override
 		public Entity mapRow(ResultSet resultSet, int i) throws SQLException
 		{
-			Entity e = new DefaultEntity(entityMetaData, dataService);
+			Entity e = new DefaultEntity(entityMetaData, dataService, attributeSlots);
 
 			// TODO performance, iterate over fetch if available
+			AttributeMetaData idAttr = entityMetaData.getIdAttribute();
 			for (AttributeMetaData att : entityMetaData.getAtomicAttributes())
 			{
-				if (fetch == null || fetch.hasField(att.getName()))
+				// the id is always selected, it is required to retrieve mref values and partial entities
+				if (fetch == null || fetch.hasField(att.getName()) || att.equals(idAttr))
 				{
 					if (att.getExpression() != null)
 					{
@@ -78,60 +370,8 @@ public class MySqlEntityFactory
 
 					if (att.getDataType() instanceof MrefField)
 					{
-						EntityMetaData refEntityMeta = att.getRefEntity();
-						String mrefIds = resultSet.getString(att.getName());
-						if (mrefIds != null)
-						{
-							Iterable<Entity> mrefEntities;
-							if (refEntityMeta.getIdAttribute().getDataType() instanceof IntField)
-							{
-								List<Integer> mrefIntegerIds;
-								if (mrefIds.length() >= GROUP_CONCAT_MAX_LEN)
-								{
-									// this list is just as long as it's allowed to be so it probably got truncated.
-									// Retrieve the IDs explicitly in a separate query.
-									String mrefSelectSql = getMrefSelectSql(e, att);
-									if (LOG.isDebugEnabled())
-									{
-										LOG.debug("Fetching MySQL [{}] data for SQL [{}]", refEntityMeta.getName(),
-												mrefSelectSql);
-									}
-									mrefIntegerIds = jdbcTemplate.queryForList(mrefSelectSql, Integer.class);
-								}
-								else
-								{
-									mrefIntegerIds = DataConverter.toIntList(mrefIds);
-								}
-
-								// convert ids to (lazy) entities
-								mrefEntities = entityManager.getReferences(refEntityMeta, mrefIntegerIds);
-
-							}
-							else
-							{
-								List<Object> mrefObjectIds;
-								if (mrefIds.length() >= GROUP_CONCAT_MAX_LEN)
-								{
-									// this list is just as long as it's allowed to be so it probably got truncated.
-									// Retrieve the IDs explicitly in a separate query.
-									String mrefSelectSql = getMrefSelectSql(e, att);
-									if (LOG.isDebugEnabled())
-									{
-										LOG.debug("Fetching MySQL [{}] data for SQL [{}]", refEntityMeta.getName(),
-												mrefSelectSql);
-									}
-									mrefObjectIds = jdbcTemplate.queryForList(mrefSelectSql, Object.class);
-								}
-								else
-								{
-									mrefObjectIds = DataConverter.toObjectList(mrefIds);
-								}
-
-								// convert ids to (lazy) entities
-								mrefEntities = entityManager.getReferences(refEntityMeta, mrefObjectIds);
-							}
-							e.set(att.getName(), mrefEntities);
-						}
+						// mref values are retrieved for a batch of entities in a separate query
+						continue;
 					}
 					else if (att.getDataType() instanceof XrefField)
 					{
@@ -148,22 +388,7 @@ public class MySqlEntityFactory
 					}
 				}
 			}
-
-			if (fetch != null)
-			{
-				return entityManager.createEntityForPartialEntity(e, fetch);
-			}
-			else
-			{
-				return e;
-			}
-		}
-
-		private String getMrefSelectSql(Entity e, AttributeMetaData att)
-		{
-			return String.format("SELECT `%s` FROM `%s_%1$s` WHERE `%s` = '%s' ORDER BY `order`", att.getName(),
-					tableName, entityMetaData.getIdAttribute().getName().toLowerCase(),
-					e.get(entityMetaData.getIdAttribute().getName()));
+			return e;
 		}
 	}
 }
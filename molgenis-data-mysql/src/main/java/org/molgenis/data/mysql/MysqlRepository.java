@@ -20,6 +20,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -30,6 +32,7 @@ import org.elasticsearch.common.collect.Iterators;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.MolgenisFieldTypes.FieldTypeEnum;
 import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.CursorStreamable;
 import org.molgenis.data.DataConverter;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
@@ -39,12 +42,14 @@ import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.MolgenisReferencedEntityException;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
+import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.Sort;
 import org.molgenis.data.support.AbstractRepository;
 import org.molgenis.data.support.BatchingQueryResult;
 import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.KeysetBatchingQueryResult;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.fieldtypes.MrefField;
@@ -59,13 +64,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
-public class MysqlRepository extends AbstractRepository
+public class MysqlRepository extends AbstractRepository implements CursorStreamable
 {
 	private static final Logger LOG = LoggerFactory.getLogger(MysqlRepository.class);
 	public static final int BATCH_SIZE = 1000;
@@ -76,6 +83,12 @@ public class MysqlRepository extends AbstractRepository
 	private final MySqlEntityFactory mySqlEntityFactory;
 	private final DataSource dataSource;
 	private static final String VARCHAR = "VARCHAR(255)";
+	private static final int SQL_CACHE_SIZE = 1000;
+	/**
+	 * SQL statements for the current entity meta data keyed by statement type and query structure, replaced when the
+	 * entity meta data changes
+	 */
+	private volatile Cache<String, String> sqlCache = createSqlCache();
 
 	/**
 	 * Creates a new MysqlRepository.
@@ -99,6 +112,254 @@ public class MysqlRepository extends AbstractRepository
 	public void setMetaData(EntityMetaData metaData)
 	{
 		this.metaData = metaData;
+		this.sqlCache = createSqlCache();
+	}
+
+	private static Cache<String, String> createSqlCache()
+	{
+		return CacheBuilder.newBuilder().maximumSize(SQL_CACHE_SIZE).build();
+	}
+
+	/**
+	 * Returns cached SQL or creates and caches SQL if it does not exist.
+	 *
+	 * @param key
+	 *            SQL cache key
+	 * @param sqlSupplier
+	 *            creates the SQL
+	 * @return SQL
+	 */
+	private String getCachedSql(String key, Supplier<String> sqlSupplier)
+	{
+		// SQL created for previous entity meta data is added to the previous cache
+		Cache<String, String> currentSqlCache = sqlCache;
+		String sql = currentSqlCache.getIfPresent(key);
+		if (sql == null)
+		{
+			sql = sqlSupplier.get();
+			currentSqlCache.put(key, sql);
+		}
+		return sql;
+	}
+
+	/**
+	 * Returns cached query SQL or creates and caches query SQL. SQL is cached by query structure: operators, fields,
+	 * number of IN placeholders, sort, fetch and whether the query is paged. Page size and offset are bound as
+	 * parameters. Queries with search rules are not cached because the created SQL depends on data in referenced
+	 * entities.
+	 *
+	 * @param type
+	 *            SQL statement type
+	 * @param paged
+	 *            whether the created SQL binds page size and offset parameters
+	 * @param q
+	 *            query
+	 * @param parameters
+	 *            list to add the SQL parameters to
+	 * @param sqlCreator
+	 *            creates the SQL and adds the SQL parameters
+	 * @return SQL
+	 */
+	String getCachedQuerySql(String type, boolean paged, Query q, List<Object> parameters,
+			BiFunction<Query, List<Object>, String> sqlCreator)
+	{
+		q = copyWithInValueLists(q);
+		StringBuilder key = new StringBuilder(type).append(':');
+		if (!appendQueryRulesKey(q.getRules(), key))
+		{
+			return sqlCreator.apply(q, parameters);
+		}
+		key.append(':').append(q.getSort()).append(':').append(q.getFetch());
+		if (paged)
+		{
+			key.append(':').append(q.getPageSize() > 0).append(':').append(q.getOffset() > 0);
+		}
+
+		Cache<String, String> currentSqlCache = sqlCache;
+		String sql = currentSqlCache.getIfPresent(key.toString());
+		if (sql != null)
+		{
+			getWhereParameters(q.getRules(), parameters);
+			if (paged) addPagingParameters(q, parameters);
+		}
+		else
+		{
+			sql = sqlCreator.apply(q, parameters);
+			currentSqlCache.put(key.toString(), sql);
+		}
+		return sql;
+	}
+
+	private boolean appendQueryRulesKey(List<QueryRule> rules, StringBuilder key)
+	{
+		for (QueryRule r : rules)
+		{
+			switch (r.getOperator())
+			{
+				case SEARCH:
+					return false;
+				case NESTED:
+					key.append('(');
+					if (!appendQueryRulesKey(r.getNestedRules(), key))
+					{
+						return false;
+					}
+					key.append(')');
+					break;
+				case IN:
+					key.append(r.getField()).append(' ').append(r.getOperator()).append(' ')
+							.append(getNrInPlaceholders(getInValues(r).size()));
+					break;
+				default:
+					key.append(r.getField()).append(' ').append(r.getOperator());
+					break;
+			}
+			key.append(',');
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the parameters of the query rules to the given parameters in the same order as
+	 * {@link #getWhereSql(Query, List, int)}. Query rules may not contain search rules.
+	 */
+	private void getWhereParameters(List<QueryRule> rules, List<Object> parameters)
+	{
+		for (QueryRule r : rules)
+		{
+			switch (r.getOperator())
+			{
+				case AND:
+				case OR:
+					break;
+				case NESTED:
+					getWhereParameters(r.getNestedRules(), parameters);
+					break;
+				case SEARCH:
+					throw new IllegalArgumentException("Search query rule parameters depend on query results");
+				default:
+					addRuleParameters(r, getEntityMetaData().getAttribute(r.getField()), parameters);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Adds the parameters of a LIKE, IN or comparison query rule. Used by both {@link #getWhereSql(Query, List, int)}
+	 * and {@link #getWhereParameters(List, List)} so that cached SQL is always bound to the same parameters as newly
+	 * created SQL.
+	 */
+	private void addRuleParameters(QueryRule r, AttributeMetaData attr, List<Object> parameters)
+	{
+		switch (r.getOperator())
+		{
+			case LIKE:
+				parameters.add("%" + DataConverter.toString(r.getValue()) + "%");
+				break;
+			case IN:
+				List<Object> values = getInValues(r);
+				for (Object value : values)
+				{
+					parameters.add(attr.getDataType().convert(value));
+				}
+				// repeat the last value for the remaining placeholders
+				for (int i = values.size(); i < getNrInPlaceholders(values.size()); ++i)
+				{
+					parameters.add(attr.getDataType().convert(values.get(values.size() - 1)));
+				}
+				break;
+			default:
+				parameters.add(attr.getDataType().convert(r.getValue()));
+				break;
+		}
+	}
+
+	/**
+	 * Adds the page size and offset parameters in the same order as {@link #getSelectSql(Query, List)}
+	 */
+	private static void addPagingParameters(Query q, List<Object> parameters)
+	{
+		if (q.getPageSize() > 0) parameters.add(q.getPageSize());
+		if (q.getOffset() > 0) parameters.add(q.getOffset());
+	}
+
+	/**
+	 * Returns the number of placeholders for a number of IN values. The number of values is rounded up to a power of
+	 * two so that IN queries with a varying number of values share a limited number of cached SQL statements.
+	 */
+	static int getNrInPlaceholders(int nrValues)
+	{
+		return nrValues <= 1 ? nrValues : Integer.highestOneBit(nrValues - 1) << 1;
+	}
+
+	/**
+	 * Returns a copy of the query in which the values of IN rules are collected in lists, because the values are
+	 * iterated more than once and an iterable value could be iterable only once. Returns the query itself if the
+	 * values of all IN rules are lists already.
+	 */
+	static Query copyWithInValueLists(Query q)
+	{
+		if (!hasInValuesToCopy(q.getRules()))
+		{
+			return q;
+		}
+		QueryImpl copy = new QueryImpl(copyWithInValueLists(q.getRules()));
+		copy.setPageSize(q.getPageSize());
+		copy.setOffset(q.getOffset());
+		copy.setSort(q.getSort());
+		copy.setFetch(q.getFetch());
+		return copy;
+	}
+
+	private static boolean hasInValuesToCopy(List<QueryRule> rules)
+	{
+		for (QueryRule r : rules)
+		{
+			if (r.getOperator() == Operator.IN && isInValueToCopy(r.getValue()))
+			{
+				return true;
+			}
+			if (r.getOperator() == Operator.NESTED && hasInValuesToCopy(r.getNestedRules()))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isInValueToCopy(Object value)
+	{
+		return value instanceof Iterable<?> && !(value instanceof List<?>);
+	}
+
+	private static List<QueryRule> copyWithInValueLists(List<QueryRule> rules)
+	{
+		List<QueryRule> copy = new ArrayList<>(rules.size());
+		for (QueryRule r : rules)
+		{
+			switch (r.getOperator())
+			{
+				case NESTED:
+					copy.add(new QueryRule(copyWithInValueLists(r.getNestedRules())));
+					break;
+				case IN:
+					if (isInValueToCopy(r.getValue()))
+					{
+						List<Object> values = new ArrayList<>();
+						Iterables.addAll(values, (Iterable<?>) r.getValue());
+						copy.add(new QueryRule(r.getField(), Operator.IN, values));
+					}
+					else
+					{
+						copy.add(r);
+					}
+					break;
+				default:
+					copy.add(r);
+					break;
+			}
+		}
+		return copy;
 	}
 
 	@Override
@@ -579,7 +840,7 @@ public class MysqlRepository extends AbstractRepository
 		{
 			q.fetch(fetch);
 		}
-		return StreamSupport.stream(findAllBatching(q).spliterator(), false);
+		return findAll(q);
 	}
 
 	protected String getInsertSql()
@@ -699,35 +960,35 @@ public class MysqlRepository extends AbstractRepository
 	protected String getSelectSql(Query q, List<Object> parameters)
 	{
 		StringBuilder select = new StringBuilder("SELECT ");
-		StringBuilder group = new StringBuilder();
 		int count = 0;
 		AttributeMetaData idAttribute = getEntityMetaData().getIdAttribute();
 		for (AttributeMetaData att : getEntityMetaData().getAtomicAttributes())
 		{
-			if (q.getFetch() == null || q.getFetch().hasField(att.getName()))
+			if (att.getExpression() != null)
+			{
+				continue;
+			}
+
+			if (att.getDataType() instanceof MrefField)
 			{
-				if (att.getExpression() == null)
+				// mref values are retrieved per batch from the mref table, only select them when sorting on them
+				if (isSortAttribute(q, att))
 				{
 					if (count > 0) select.append(", ");
-
-					// TODO needed when autoids are used to join
-					if (att.getDataType() instanceof MrefField)
-					{
-						select.append(MessageFormat
-								.format("(SELECT GROUP_CONCAT(DISTINCT(`{0}`.`{0}`) ORDER BY `{0}`.`order`) "
-												+ "FROM `{1}_{0}` AS `{0}` "
-												+ "WHERE (this.`{2}` = `{0}`.`{2}`) ) AS `{0}`", att.getName(),
-										getTableName(), idAttribute.getName()));
-					}
-					else
-					{
-						select.append("this.").append('`').append(att.getName()).append('`');
-						if (group.length() > 0) group.append(", this.").append('`').append(att.getName()).append('`');
-						else group.append("this.").append('`').append(att.getName()).append('`');
-					}
+					select.append(MessageFormat.format(
+							"(SELECT GROUP_CONCAT(DISTINCT(`{0}`.`{0}`) ORDER BY `{0}`.`order`) "
+									+ "FROM `{1}_{0}` AS `{0}` " + "WHERE (this.`{2}` = `{0}`.`{2}`) ) AS `{0}`",
+							att.getName(), getTableName(), idAttribute.getName()));
 					count++;
 				}
 			}
+			else if (q.getFetch() == null || q.getFetch().hasField(att.getName()) || att.equals(idAttribute))
+			{
+				// the id is always selected, it is required to retrieve mref values and partial entities
+				if (count > 0) select.append(", ");
+				select.append("this.").append('`').append(att.getName()).append('`');
+				count++;
+			}
 		}
 
 		// from
@@ -735,48 +996,177 @@ public class MysqlRepository extends AbstractRepository
 		// where
 		String where = getWhereSql(q, parameters, 0);
 		if (where.length() > 0) result.append(" WHERE ").append(where);
-		// group by
-		if (select.indexOf("GROUP_CONCAT") != -1 && group.length() > 0) result.append(" GROUP BY ").append(group);
+		// group by, filtering on mrefs joins the mref tables which results in duplicate rows
+		List<String> mrefQueryFields = Lists.newArrayList();
+		getMrefQueryFields(q.getRules(), mrefQueryFields);
+		if (!mrefQueryFields.isEmpty())
+		{
+			result.append(" GROUP BY this.").append('`').append(idAttribute.getName()).append('`');
+		}
 		// order by
 		result.append(' ').append(getSortSql(q));
 		// limit
-		if (q.getPageSize() > 0) result.append(" LIMIT ").append(q.getPageSize());
-		if (q.getOffset() > 0) result.append(" OFFSET ").append(q.getOffset());
+		if (q.getPageSize() > 0) result.append(" LIMIT ?");
+		if (q.getOffset() > 0) result.append(" OFFSET ?");
+		addPagingParameters(q, parameters);
 
 		return result.toString().trim();
 	}
 
+	private boolean isSortAttribute(Query q, AttributeMetaData attr)
+	{
+		if (q.getSort() != null)
+		{
+			for (Sort.Order o : q.getSort())
+			{
+				if (o.getAttr().equals(attr.getName()))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public Stream<Entity> findAll(Query q)
 	{
-		return StreamSupport.stream(findAllBatching(q).spliterator(), false);
+		// the batch queries share the query rules
+		return StreamSupport.stream(findAllBatching(copyWithInValueLists(q)).spliterator(), false);
 	}
 
-	private BatchingQueryResult findAllBatching(Query q)
+	/**
+	 * Streams all entities from a single forward-only result set. Within a transaction the entities are retrieved in
+	 * batches instead, because the streaming connection cannot be used for other queries while the stream is open.
+	 */
+	@Override
+	public Stream<Entity> cursorStream(Fetch fetch)
 	{
-		BatchingQueryResult batchingQueryResult = new BatchingQueryResult(BATCH_SIZE, q)
+		Query q = new QueryImpl().fetch(fetch);
+		if (TransactionSynchronizationManager.isActualTransactionActive())
 		{
-			@Override
-			protected List<Entity> getBatch(Query batchQuery)
+			return findAll(q);
+		}
+		return findAllStreaming(q);
+	}
+
+	/**
+	 * Returns the given ids for which a row exists. Each batch of ids is checked with a single query that only selects
+	 * the id column.
+	 */
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		Iterator<List<Object>> batches = Iterators.partition(ids.iterator(), BATCH_SIZE);
+		Iterable<List<Object>> iterable = () -> batches;
+		return StreamSupport.stream(iterable.spliterator(), false).flatMap(batch -> existingIdsBatch(batch).stream());
+	}
+
+	private List<Object> existingIdsBatch(List<Object> ids)
+	{
+		AttributeMetaData idAttr = getEntityMetaData().getIdAttribute();
+		int nrPlaceholders = getNrInPlaceholders(ids.size());
+		String sql = getCachedSql("EXISTING_IDS:" + nrPlaceholders, () -> getExistingIdsSql(nrPlaceholders));
+		// repeat the last id for the remaining placeholders
+		Object[] parameters = new Object[nrPlaceholders];
+		for (int i = 0; i < nrPlaceholders; ++i)
+		{
+			parameters[i] = idAttr.getDataType().convert(ids.get(Math.min(i, ids.size() - 1)));
+		}
+		if (LOG.isTraceEnabled())
+		{
+			LOG.trace("sql: {}, parameters: {}", sql, parameters);
+		}
+		return jdbcTemplate.query(sql, parameters,
+				(resultSet, rowNum) -> idAttr.getDataType().convert(resultSet.getObject(1)));
+	}
+
+	protected String getExistingIdsSql(int nrIds)
+	{
+		StringBuilder sql = new StringBuilder("SELECT this.`").append(getEntityMetaData().getIdAttribute().getName())
+				.append("` FROM `").append(getTableName()).append("` AS this WHERE this.`")
+				.append(getEntityMetaData().getIdAttribute().getName()).append("` IN (");
+		for (int i = 0; i < nrIds; ++i)
+		{
+			if (i > 0) sql.append(',');
+			sql.append('?');
+		}
+		return sql.append(')').toString();
+	}
+
+	/**
+	 * Returns query results streamed from a single forward-only result set. The connection is released when the
+	 * stream is exhausted or closed.
+	 */
+	private Stream<Entity> findAllStreaming(Query q)
+	{
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Streaming MySQL [{}] data for query [{}]", getName(), q);
+		}
+
+		List<Object> parameters = Lists.newArrayList();
+		String sql = getCachedQuerySql("SELECT", true, q, parameters, this::getSelectSql);
+		if (LOG.isTraceEnabled())
+		{
+			LOG.trace("sql: {}, parameters: {}", sql, parameters);
+		}
+
+		return mySqlEntityFactory.stream(getEntityMetaData(), q.getFetch(), dataSource, jdbcTemplate, getTableName(),
+				sql, parameters.toArray(new Object[0]), BATCH_SIZE);
+	}
+
+	/**
+	 * Returns query results retrieved in batches. Queries without sort or sorted on the id attribute use keyset
+	 * pagination (each batch continues after the last id of the previous batch), other queries use offset pagination.
+	 *
+	 * @param q
+	 *            the query
+	 * @return batched query results
+	 */
+	private Iterable<Entity> findAllBatching(Query q)
+	{
+		String idAttrName = getEntityMetaData().getIdAttribute().getName();
+		if (KeysetBatchingQueryResult.isApplicable(q, idAttrName))
+		{
+			return new KeysetBatchingQueryResult(BATCH_SIZE, q, idAttrName)
 			{
-				if (LOG.isDebugEnabled())
+				@Override
+				protected List<Entity> getBatch(Query batchQuery)
 				{
-					LOG.debug("Fetching MySQL [{}] data for query [{}]", getName(), batchQuery);
+					return findAllBatch(batchQuery);
 				}
-
-				List<Object> parameters = Lists.newArrayList();
-				String sql = getSelectSql(batchQuery, parameters);
-				if (LOG.isTraceEnabled())
+			};
+		}
+		else
+		{
+			return new BatchingQueryResult(BATCH_SIZE, q)
+			{
+				@Override
+				protected List<Entity> getBatch(Query batchQuery)
 				{
-					LOG.trace("sql: {}, parameters: {}", sql, parameters);
+					return findAllBatch(batchQuery);
 				}
+			};
+		}
+	}
 
-				RowMapper<Entity> entityMapper = mySqlEntityFactory.createRowMapper(getEntityMetaData(),
-						batchQuery.getFetch(), jdbcTemplate, getTableName());
-				return jdbcTemplate.query(sql, parameters.toArray(new Object[0]), entityMapper);
-			}
-		};
-		return batchingQueryResult;
+	private List<Entity> findAllBatch(Query batchQuery)
+	{
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Fetching MySQL [{}] data for query [{}]", getName(), batchQuery);
+		}
+
+		List<Object> parameters = Lists.newArrayList();
+		String sql = getCachedQuerySql("SELECT", true, batchQuery, parameters, this::getSelectSql);
+		if (LOG.isTraceEnabled())
+		{
+			LOG.trace("sql: {}, parameters: {}", sql, parameters);
+		}
+
+		return mySqlEntityFactory.findAll(getEntityMetaData(), batchQuery.getFetch(), jdbcTemplate, getTableName(), sql,
+				parameters.toArray(new Object[0]));
 	}
 
 	protected String getWhereSql(Query q, List<Object> parameters, int mrefFilterIndex)
@@ -878,26 +1268,13 @@ public class MysqlRepository extends AbstractRepository
 						result.append(" CAST(this.").append('`').append(attr.getName()).append('`')
 								.append(" as CHAR) LIKE ?");
 					}
-					parameters.add("%" + DataConverter.toString(r.getValue()) + "%");
+					addRuleParameters(r, attr, parameters);
 					break;
 				case IN:
 					StringBuilder in = new StringBuilder();
-					List<Object> values = new ArrayList<Object>();
-					if (r.getValue() == null)
-					{
-						throw new MolgenisDataException("Missing value for IN query");
-					}
-					else if (!(r.getValue() instanceof Iterable<?>))
-					{
-						for (String str : r.getValue().toString().split(","))
-							values.add(str);
-					}
-					else
-					{
-						Iterables.addAll(values, (Iterable<?>) r.getValue());
-					}
+					int nrValues = getNrInPlaceholders(getInValues(r).size());
 
-					for (int i = 0; i < values.size(); i++)
+					for (int i = 0; i < nrValues; i++)
 					{
 						if (i > 0)
 						{
@@ -905,8 +1282,8 @@ public class MysqlRepository extends AbstractRepository
 						}
 
 						in.append("?");
-						parameters.add(attr.getDataType().convert(values.get(i)));
 					}
+					addRuleParameters(r, attr, parameters);
 
 					if (attr.getDataType() instanceof MrefField)
 						result.append(attr.getName()).append("_filter").append(mrefFilterIndex);
@@ -944,7 +1321,7 @@ public class MysqlRepository extends AbstractRepository
 							throw new MolgenisDataException("cannot solve query rule:  " + r);
 					}
 					predicate.append(" ? ");
-					parameters.add(attr.getDataType().convert(r.getValue()));
+					addRuleParameters(r, attr, parameters);
 
 					if (result.length() > 0 && !result.toString().endsWith(" OR ")
 							&& !result.toString().endsWith(" AND "))
@@ -956,6 +1333,30 @@ public class MysqlRepository extends AbstractRepository
 		return result.toString().trim();
 	}
 
+	@SuppressWarnings("unchecked")
+	private List<Object> getInValues(QueryRule r)
+	{
+		List<Object> values = new ArrayList<Object>();
+		if (r.getValue() == null)
+		{
+			throw new MolgenisDataException("Missing value for IN query");
+		}
+		else if (r.getValue() instanceof List<?>)
+		{
+			return (List<Object>) r.getValue();
+		}
+		else if (!(r.getValue() instanceof Iterable<?>))
+		{
+			for (String str : r.getValue().toString().split(","))
+				values.add(str);
+		}
+		else
+		{
+			Iterables.addAll(values, (Iterable<?>) r.getValue());
+		}
+		return values;
+	}
+
 	protected String getSortSql(Query q)
 	{
 		StringBuilder sortSql = new StringBuilder();
@@ -1076,7 +1477,7 @@ public class MysqlRepository extends AbstractRepository
 	{
 		final List<Object> idList = ids.collect(toList());
 
-		jdbcTemplate.batchUpdate(getDeleteSql(), new BatchPreparedStatementSetter()
+		jdbcTemplate.batchUpdate(getCachedSql("DELETE", this::getDeleteSql), new BatchPreparedStatementSetter()
 		{
 			@Override
 			public void setValues(PreparedStatement preparedStatement, int i) throws SQLException
@@ -1154,7 +1555,7 @@ public class MysqlRepository extends AbstractRepository
 				final AttributeMetaData idAttribute = getEntityMetaData().getIdAttribute();
 				final Map<String, List<Map<String, Object>>> mrefs = new HashMap<>();
 
-				jdbcTemplate.batchUpdate(getInsertSql(), new BatchPreparedStatementSetter()
+				jdbcTemplate.batchUpdate(getCachedSql("INSERT", this::getInsertSql), new BatchPreparedStatementSetter()
 				{
 					@Override
 					public void setValues(PreparedStatement preparedStatement, int rowIndex) throws SQLException
@@ -1273,7 +1674,7 @@ public class MysqlRepository extends AbstractRepository
 		final List<Object> ids = new ArrayList<Object>();
 		final Map<String, List<Map<String, Object>>> mrefs = new HashMap<>();
 
-		jdbcTemplate.batchUpdate(getUpdateSql(), new BatchPreparedStatementSetter()
+		jdbcTemplate.batchUpdate(getCachedSql("UPDATE", this::getUpdateSql), new BatchPreparedStatementSetter()
 		{
 			@Override
 			public void setValues(PreparedStatement preparedStatement, int rowIndex) throws SQLException
@@ -1487,7 +1888,7 @@ public class MysqlRepository extends AbstractRepository
 		}
 
 		List<Object> parameters = Lists.newArrayList();
-		String sql = getCountSql(q, parameters);
+		String sql = getCachedQuerySql("COUNT", false, q, parameters, this::getCountSql);
 
 		if (LOG.isTraceEnabled())
 		{
@@ -0,0 +1,133 @@
+package org.molgenis.data.mysql;
+
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.molgenis.MolgenisFieldTypes;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityManager;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.MapEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MySqlEntityFactoryTest
+{
+	private static final String SELECT_SQL = "SELECT `id` FROM `entity`";
+	private static final String MREF_SELECT_SQL = "SELECT `id`, `mref` FROM `entity_mref` WHERE `id` IN (?,?,?) "
+			+ "ORDER BY `id`, `order`";
+
+	private DefaultEntityMetaData refEntityMeta;
+	private DefaultEntityMetaData entityMeta;
+	private EntityManager entityManager;
+	private JdbcTemplate jdbcTemplate;
+	private MySqlEntityFactory mySqlEntityFactory;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("refId", ROLE_ID);
+		entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("mref").setDataType(MolgenisFieldTypes.MREF).setRefEntity(refEntityMeta);
+
+		entityManager = mock(EntityManager.class);
+		jdbcTemplate = mock(JdbcTemplate.class);
+		mySqlEntityFactory = new MySqlEntityFactory(entityManager, mock(DataService.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void findAllMrefs() throws SQLException
+	{
+		Entity entity0 = new MapEntity("id", "0");
+		Entity entity1 = new MapEntity("id", "1");
+		Entity entity2 = new MapEntity("id", "2");
+		when(jdbcTemplate.query(eq(SELECT_SQL), aryEq(new Object[0]), any(RowMapper.class))).thenReturn(
+				Arrays.asList(entity0, entity1, entity2));
+
+		// entity 0 references b and a in that order, entity 1 has no mref rows, entity 2 references c
+		doAnswer(invocation -> {
+			RowCallbackHandler rowCallbackHandler = (RowCallbackHandler) invocation.getArguments()[2];
+			rowCallbackHandler.processRow(createMrefRow("0", "b"));
+			rowCallbackHandler.processRow(createMrefRow("0", "a"));
+			rowCallbackHandler.processRow(createMrefRow("2", "c"));
+			return null;
+		}).when(jdbcTemplate).query(eq(MREF_SELECT_SQL), aryEq(new Object[]
+		{ "0", "1", "2" }), any(RowCallbackHandler.class));
+
+		List<Entity> refEntities0 = Arrays.asList(mock(Entity.class), mock(Entity.class));
+		when(entityManager.getReferences(refEntityMeta, Arrays.asList("b", "a"))).thenReturn(refEntities0);
+		List<Entity> refEntities2 = Arrays.asList(mock(Entity.class));
+		when(entityManager.getReferences(refEntityMeta, Arrays.asList("c"))).thenReturn(refEntities2);
+
+		List<Entity> entities = mySqlEntityFactory.findAll(entityMeta, null, jdbcTemplate, "entity", SELECT_SQL,
+				new Object[0]);
+		assertEquals(entities, Arrays.asList(entity0, entity1, entity2));
+		assertEquals(entity0.get("mref"), refEntities0);
+		assertNull(entity1.get("mref"));
+		assertEquals(entity2.get("mref"), refEntities2);
+		verify(jdbcTemplate, times(1)).query(anyString(), any(Object[].class), any(RowCallbackHandler.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void findAllFetchWithoutMrefs()
+	{
+		Entity entity0 = new MapEntity("id", "0");
+		when(jdbcTemplate.query(eq(SELECT_SQL), aryEq(new Object[0]), any(RowMapper.class))).thenReturn(
+				Arrays.asList(entity0));
+		Fetch fetch = new Fetch().field("id");
+		Entity partialEntity0 = mock(Entity.class);
+		when(entityManager.createEntityForPartialEntity(entity0, fetch)).thenReturn(partialEntity0);
+
+		List<Entity> entities = mySqlEntityFactory.findAll(entityMeta, fetch, jdbcTemplate, "entity", SELECT_SQL,
+				new Object[0]);
+		assertEquals(entities, Arrays.asList(partialEntity0));
+		verify(jdbcTemplate, never()).query(anyString(), any(Object[].class), any(RowCallbackHandler.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void findAllNoEntities()
+	{
+		when(jdbcTemplate.query(eq(SELECT_SQL), aryEq(new Object[0]), any(RowMapper.class))).thenReturn(
+				Collections.emptyList());
+
+		List<Entity> entities = mySqlEntityFactory.findAll(entityMeta, null, jdbcTemplate, "entity", SELECT_SQL,
+				new Object[0]);
+		assertEquals(entities, Collections.emptyList());
+		verify(jdbcTemplate, never()).query(anyString(), any(Object[].class), any(RowCallbackHandler.class));
+	}
+
+	private static ResultSet createMrefRow(Object id, Object refId) throws SQLException
+	{
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.getObject(1)).thenReturn(id);
+		when(resultSet.getObject(2)).thenReturn(refId);
+		return resultSet;
+	}
+}
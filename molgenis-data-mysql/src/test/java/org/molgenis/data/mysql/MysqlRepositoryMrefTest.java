@@ -127,16 +127,9 @@ public class MysqlRepositoryMrefTest extends MysqlRepositoryAbstractDatatypeTest
 
 		Assert.assertEquals(mrefRepo.count(), 2);
 
+		// mref values are retrieved per batch from the mref tables
 		Assert.assertEquals(mrefRepo.getSelectSql(new QueryImpl(), Lists.newArrayList()),
-				"SELECT this.`identifier`, "
-						+ "(SELECT GROUP_CONCAT(DISTINCT(`stringRef`.`stringRef`) ORDER BY `stringRef`.`order`) "
-						+ "FROM `MrefTest_stringRef` AS `stringRef` "
-						+ "WHERE (this.`identifier` = `stringRef`.`identifier`) ) AS `stringRef`, "
-						+ "(SELECT GROUP_CONCAT(DISTINCT(`intRef`.`intRef`) ORDER BY `intRef`.`order`) "
-						+ "FROM `MrefTest_intRef` AS `intRef` "
-						+ "WHERE (this.`identifier` = `intRef`.`identifier`) ) AS `intRef` "
-						+ "FROM `MrefTest` AS this "
-						+ "GROUP BY this.`identifier`");
+				"SELECT this.`identifier` FROM `MrefTest` AS this");
 
 		assertEquals(mrefRepo.query().eq("identifier", "one").count(), Long.valueOf(1));
 		for (Entity e : mrefRepo.findAll(new QueryImpl().eq("identifier", "one")).collect(toList()))
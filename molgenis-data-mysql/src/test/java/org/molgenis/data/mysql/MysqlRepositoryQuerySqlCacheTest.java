@@ -0,0 +1,260 @@
+package org.molgenis.data.mysql;
+
+import static org.mockito.Mockito.mock;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import javax.sql.DataSource;
+
+import org.molgenis.MolgenisFieldTypes;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.Sort;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.QueryImpl;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class MysqlRepositoryQuerySqlCacheTest
+{
+	private DefaultEntityMetaData entityMeta;
+	private MysqlRepository mysqlRepository;
+	private SqlCreator selectSqlCreator;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("refId", ROLE_ID).setDataType(MolgenisFieldTypes.INT);
+
+		entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("intAttr").setDataType(MolgenisFieldTypes.INT);
+		entityMeta.addAttribute("strAttr");
+		entityMeta.addAttribute("mrefAttr").setDataType(MolgenisFieldTypes.MREF).setRefEntity(refEntityMeta);
+
+		mysqlRepository = new MysqlRepository(mock(DataService.class), mock(MySqlEntityFactory.class),
+				mock(DataSource.class), mock(AsyncJdbcTemplate.class));
+		mysqlRepository.setMetaData(entityMeta);
+		selectSqlCreator = new SqlCreator(mysqlRepository::getSelectSql);
+	}
+
+	@DataProvider(name = "queries")
+	public static Object[][] queries()
+	{
+		return new Object[][]
+		{
+				{ new QueryImpl().eq("intAttr", "1"), new QueryImpl().eq("intAttr", "2"), Arrays.asList(1),
+						Arrays.asList(2) },
+				{ new QueryImpl().gt("intAttr", 1).and().lt("intAttr", 5),
+						new QueryImpl().gt("intAttr", 2).and().lt("intAttr", 6), Arrays.asList(1, 5),
+						Arrays.asList(2, 6) },
+				{ new QueryImpl().ge("intAttr", 1).or().le("intAttr", 5),
+						new QueryImpl().ge("intAttr", 2).or().le("intAttr", 6), Arrays.asList(1, 5),
+						Arrays.asList(2, 6) },
+				{ new QueryImpl().like("strAttr", "a"), new QueryImpl().like("strAttr", "b"), Arrays.asList("%a%"),
+						Arrays.asList("%b%") },
+				{ new QueryImpl().like("intAttr", "1"), new QueryImpl().like("intAttr", "2"), Arrays.asList("%1%"),
+						Arrays.asList("%2%") },
+				{ new QueryImpl().in("intAttr", Arrays.asList("1", "2")),
+						new QueryImpl().in("intAttr", Arrays.asList("3", "4")), Arrays.asList(1, 2),
+						Arrays.asList(3, 4) },
+				{ new QueryImpl().in("mrefAttr", Arrays.asList(1, 2)),
+						new QueryImpl().in("mrefAttr", Arrays.asList(3, 4)), Arrays.asList(1, 2),
+						Arrays.asList(3, 4) },
+				{ new QueryImpl().eq("mrefAttr", 1), new QueryImpl().eq("mrefAttr", 2), Arrays.asList(1),
+						Arrays.asList(2) },
+				{ new QueryImpl().eq("strAttr", "a").and().nest().eq("intAttr", 1).or().in("id", Arrays.asList("x"))
+						.unnest().and().like("strAttr", "b"),
+						new QueryImpl().eq("strAttr", "c").and().nest().eq("intAttr", 2).or()
+								.in("id", Arrays.asList("y")).unnest().and().like("strAttr", "d"),
+						Arrays.asList("a", 1, "x", "%b%"), Arrays.asList("c", 2, "y", "%d%") } };
+	}
+
+	@Test(dataProvider = "queries")
+	public void getCachedQuerySqlParameters(Query q, Query otherValuesQ, List<Object> expectedParameters,
+			List<Object> otherValuesExpectedParameters)
+	{
+		// uncached
+		List<Object> parameters = new ArrayList<>();
+		String sql = mysqlRepository.getCachedQuerySql("SELECT", true, q, parameters, selectSqlCreator);
+		assertEquals(parameters, expectedParameters);
+		assertEquals(selectSqlCreator.getNrInvocations(), 1);
+
+		// cached, same values
+		List<Object> cachedParameters = new ArrayList<>();
+		assertEquals(mysqlRepository.getCachedQuerySql("SELECT", true, q, cachedParameters, selectSqlCreator), sql);
+		assertEquals(cachedParameters, parameters);
+
+		// cached, other values
+		List<Object> otherValuesParameters = new ArrayList<>();
+		assertEquals(mysqlRepository.getCachedQuerySql("SELECT", true, otherValuesQ, otherValuesParameters,
+				selectSqlCreator), sql);
+		assertEquals(otherValuesParameters, otherValuesExpectedParameters);
+		assertEquals(selectSqlCreator.getNrInvocations(), 1);
+
+		// cached parameters equal newly created parameters
+		List<Object> uncachedParameters = new ArrayList<>();
+		assertEquals(mysqlRepository.getSelectSql(otherValuesQ, uncachedParameters), sql);
+		assertEquals(otherValuesParameters, uncachedParameters);
+	}
+
+	@Test
+	public void getCachedQuerySqlSearchNotCached()
+	{
+		Query q = new QueryImpl().search("a");
+		List<Object> parameters = new ArrayList<>();
+		String sql = mysqlRepository.getCachedQuerySql("SELECT", true, q, parameters, selectSqlCreator);
+		List<Object> otherParameters = new ArrayList<>();
+		assertEquals(mysqlRepository.getCachedQuerySql("SELECT", true, q, otherParameters, selectSqlCreator), sql);
+		assertEquals(otherParameters, parameters);
+		assertEquals(selectSqlCreator.getNrInvocations(), 2);
+	}
+
+	@Test
+	public void getCachedQuerySqlKeyFetch()
+	{
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).fetch(new Fetch().field("id")));
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).fetch(new Fetch().field("id")));
+		assertEquals(selectSqlCreator.getNrInvocations(), 1);
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).fetch(new Fetch().field("intAttr")));
+		assertEquals(selectSqlCreator.getNrInvocations(), 2);
+	}
+
+	@Test
+	public void getCachedQuerySqlKeySort()
+	{
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).sort(new Sort("intAttr")));
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).sort(new Sort("intAttr")));
+		assertEquals(selectSqlCreator.getNrInvocations(), 1);
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).sort(new Sort("intAttr", Sort.Direction.DESC)));
+		assertEquals(selectSqlCreator.getNrInvocations(), 2);
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).sort(new Sort("strAttr")));
+		assertEquals(selectSqlCreator.getNrInvocations(), 3);
+	}
+
+	@Test
+	public void getCachedQuerySqlKeyInSize()
+	{
+		getCachedQuerySql(new QueryImpl().in("intAttr", Arrays.asList(1, 2)));
+		getCachedQuerySql(new QueryImpl().in("intAttr", Arrays.asList(3, 4)));
+		assertEquals(selectSqlCreator.getNrInvocations(), 1);
+		List<Object> parameters = getCachedQuerySql(new QueryImpl().in("intAttr", Arrays.asList(1, 2, 3)));
+		assertEquals(selectSqlCreator.getNrInvocations(), 2);
+		assertEquals(parameters, Arrays.asList(1, 2, 3, 3));
+
+		// the number of values is rounded up to a power of two
+		parameters = getCachedQuerySql(new QueryImpl().in("intAttr", Arrays.asList(1, 2, 3, 4)));
+		assertEquals(selectSqlCreator.getNrInvocations(), 2);
+		assertEquals(parameters, Arrays.asList(1, 2, 3, 4));
+	}
+
+	@Test
+	public void getCachedQuerySqlInValuesIterableOnce()
+	{
+		getCachedQuerySql(new QueryImpl().in("intAttr", Arrays.asList(1, 2)));
+
+		// cached SQL
+		Iterable<Object> values = Arrays.<Object> asList(3, 4).stream()::iterator;
+		List<Object> parameters = getCachedQuerySql(new QueryImpl().in("intAttr", values));
+		assertEquals(parameters, Arrays.asList(3, 4));
+
+		// new SQL
+		Iterable<Object> otherValues = Arrays.<Object> asList(5, 6, 7).stream()::iterator;
+		parameters = getCachedQuerySql(new QueryImpl().in("intAttr", otherValues));
+		assertEquals(parameters, Arrays.asList(5, 6, 7, 7));
+	}
+
+	@Test
+	public void getNrInPlaceholders()
+	{
+		assertEquals(MysqlRepository.getNrInPlaceholders(0), 0);
+		assertEquals(MysqlRepository.getNrInPlaceholders(1), 1);
+		assertEquals(MysqlRepository.getNrInPlaceholders(2), 2);
+		assertEquals(MysqlRepository.getNrInPlaceholders(3), 4);
+		assertEquals(MysqlRepository.getNrInPlaceholders(100), 128);
+		assertEquals(MysqlRepository.getNrInPlaceholders(128), 128);
+	}
+
+	@Test
+	public void getCachedQuerySqlKeyPaging()
+	{
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).pageSize(10));
+		getCachedQuerySql(new QueryImpl().eq("intAttr", 1).pageSize(10).offset(10));
+		assertEquals(selectSqlCreator.getNrInvocations(), 2);
+
+		// page size and offset are parameters
+		List<Object> parameters = getCachedQuerySql(new QueryImpl().eq("intAttr", 1).pageSize(20).offset(40));
+		assertEquals(selectSqlCreator.getNrInvocations(), 2);
+		assertEquals(parameters, Arrays.asList(1, 20, 40));
+	}
+
+	@Test
+	public void getCachedQuerySqlKeyType()
+	{
+		SqlCreator countSqlCreator = new SqlCreator(mysqlRepository::getCountSql);
+		List<Object> parameters = new ArrayList<>();
+		String selectSql = mysqlRepository.getCachedQuerySql("SELECT", true, new QueryImpl().eq("intAttr", 1),
+				parameters, selectSqlCreator);
+		String countSql = mysqlRepository.getCachedQuerySql("COUNT", false, new QueryImpl().eq("intAttr", 1),
+				parameters, countSqlCreator);
+		assertEquals(selectSql, mysqlRepository.getSelectSql(new QueryImpl().eq("intAttr", 1), new ArrayList<>()));
+		assertEquals(countSql, mysqlRepository.getCountSql(new QueryImpl().eq("intAttr", 1), new ArrayList<>()));
+		assertEquals(selectSqlCreator.getNrInvocations(), 1);
+		assertEquals(countSqlCreator.getNrInvocations(), 1);
+	}
+
+	@Test
+	public void getCachedQuerySqlSetMetaDataInvalidates()
+	{
+		List<Object> parameters = new ArrayList<>();
+		String sql = mysqlRepository.getCachedQuerySql("SELECT", true, new QueryImpl().eq("intAttr", 1), parameters,
+				selectSqlCreator);
+
+		DefaultEntityMetaData updatedEntityMeta = new DefaultEntityMetaData(entityMeta);
+		updatedEntityMeta.addAttribute("newAttr");
+		mysqlRepository.setMetaData(updatedEntityMeta);
+
+		String updatedSql = mysqlRepository.getCachedQuerySql("SELECT", true, new QueryImpl().eq("intAttr", 1),
+				new ArrayList<>(), selectSqlCreator);
+		assertEquals(selectSqlCreator.getNrInvocations(), 2);
+		assertEquals(updatedSql, sql.replace("this.`strAttr`", "this.`strAttr`, this.`newAttr`"));
+	}
+
+	private List<Object> getCachedQuerySql(Query q)
+	{
+		List<Object> parameters = new ArrayList<>();
+		mysqlRepository.getCachedQuerySql("SELECT", true, q, parameters, selectSqlCreator);
+		return parameters;
+	}
+
+	private static class SqlCreator implements BiFunction<Query, List<Object>, String>
+	{
+		private final BiFunction<Query, List<Object>, String> sqlCreator;
+		private int nrInvocations;
+
+		SqlCreator(BiFunction<Query, List<Object>, String> sqlCreator)
+		{
+			this.sqlCreator = sqlCreator;
+		}
+
+		@Override
+		public String apply(Query q, List<Object> parameters)
+		{
+			++nrInvocations;
+			return sqlCreator.apply(q, parameters);
+		}
+
+		int getNrInvocations()
+		{
+			return nrInvocations;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package org.molgenis.data.mysql;
+
+import static java.util.stream.Collectors.toList;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityManager;
+import org.molgenis.data.support.DefaultEntityMetaData;
+import org.molgenis.data.support.QueryImpl;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MysqlRepositoryStreamTest
+{
+	private DataSource dataSource;
+	private Connection connection;
+	private PreparedStatement preparedStatement;
+	private ResultSet resultSet;
+	private MysqlRepository mysqlRepository;
+
+	@BeforeMethod
+	public void setUpBeforeMethod() throws SQLException
+	{
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+
+		resultSet = mock(ResultSet.class);
+		when(resultSet.next()).thenReturn(true, true, true, false);
+		when(resultSet.getObject("id")).thenReturn("0", "1", "2");
+		preparedStatement = mock(PreparedStatement.class);
+		when(preparedStatement.executeQuery()).thenReturn(resultSet);
+		connection = mock(Connection.class);
+		when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+		when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(preparedStatement);
+		dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+
+		DataService dataService = mock(DataService.class);
+		MySqlEntityFactory mySqlEntityFactory = new MySqlEntityFactory(mock(EntityManager.class), dataService);
+		mysqlRepository = new MysqlRepository(dataService, mySqlEntityFactory, dataSource,
+				mock(AsyncJdbcTemplate.class));
+		mysqlRepository.setMetaData(entityMeta);
+	}
+
+	@Test
+	public void findAllAbandonedReleasesConnection() throws SQLException
+	{
+		// a full batch, so more batches could follow
+		AtomicInteger rowCount = new AtomicInteger();
+		when(resultSet.next()).thenAnswer(invocation -> rowCount.incrementAndGet() <= MysqlRepository.BATCH_SIZE);
+		Iterator<Entity> it = mysqlRepository.findAll(new QueryImpl()).iterator();
+		assertEquals(it.next().getIdValue(), "0");
+
+		// the stream is neither read to the end nor closed
+		verify(dataSource, times(1)).getConnection();
+		verify(connection, times(1)).close();
+		verify(connection, never()).prepareStatement(anyString(), anyInt(), anyInt());
+	}
+
+	@Test
+	public void cursorStreamClosedReleasesConnection() throws SQLException
+	{
+		// more rows than fit in one batch, so reading the first entity leaves the cursor open
+		when(resultSet.next()).thenReturn(true);
+		Stream<Entity> entities = mysqlRepository.cursorStream(null);
+		assertEquals(entities.iterator().next().getIdValue(), "0");
+		verify(connection, never()).close();
+
+		entities.close();
+		verify(connection, times(1)).close();
+		verify(preparedStatement).setFetchSize(Integer.MIN_VALUE);
+	}
+
+	@Test
+	public void cursorStreamReadReleasesConnection() throws SQLException
+	{
+		List<Object> ids = mysqlRepository.cursorStream(null).map(Entity::getIdValue).collect(toList());
+		assertEquals(ids, Arrays.asList("0", "1", "2"));
+		verify(connection, times(1)).close();
+	}
+
+	@Test
+	public void cursorStreamInTransaction() throws SQLException
+	{
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try
+		{
+			List<Object> ids = mysqlRepository.cursorStream(null).map(Entity::getIdValue).collect(toList());
+			assertEquals(ids, Arrays.asList("0", "1", "2"));
+			verify(connection, never()).prepareStatement(anyString(), anyInt(), anyInt());
+		}
+		finally
+		{
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+	}
+}
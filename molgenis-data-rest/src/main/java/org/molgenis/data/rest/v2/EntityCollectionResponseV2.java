@@ -2,7 +2,7 @@ package org.molgenis.data.rest.v2;
 
 import static java.util.Objects.requireNonNull;
 
-import java.util.List;
+import java.util.Collection;
 import java.util.Map;
 
 import org.molgenis.data.DataService;
@@ -21,7 +21,7 @@ class EntityCollectionResponseV2
 	private final Long total;
 	private final String prevHref;
 	private final String nextHref;
-	private final List<Map<String, Object>> items;
+	private final Collection<Map<String, Object>> items;
 
 	public EntityCollectionResponseV2(String href)
 	{
@@ -35,7 +35,7 @@ class EntityCollectionResponseV2
 		this.items = null;
 	}
 
-	public EntityCollectionResponseV2(EntityPager entityPager, List<Map<String, Object>> items, Fetch fetch,
+	public EntityCollectionResponseV2(EntityPager entityPager, Collection<Map<String, Object>> items, Fetch fetch,
 			String href, EntityMetaData meta, MolgenisPermissionService permissionService, DataService dataService,
 			LanguageService languageService, String prevHref, String nextHref)
 	{
@@ -84,7 +84,7 @@ class EntityCollectionResponseV2
 		return nextHref;
 	}
 
-	public List<Map<String, Object>> getItems()
+	public Collection<Map<String, Object>> getItems()
 	{
 		return items;
 	}
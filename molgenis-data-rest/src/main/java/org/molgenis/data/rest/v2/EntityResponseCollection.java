@@ -0,0 +1,63 @@
+package org.molgenis.data.rest.v2;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.molgenis.data.Entity;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Collection of entity responses that creates the response of an entity when it is iterated. Serializing this
+ * collection writes each entity response while iterating the entities instead of materializing all responses up
+ * front.
+ *
+ * The first entity is retrieved on construction, so that a failing query results in an error response. An exception
+ * thrown while iterating the remaining entities occurs after the response has been committed and results in a
+ * truncated response body.
+ */
+class EntityResponseCollection extends AbstractCollection<Map<String, Object>>
+{
+	private final Iterator<Entity> entities;
+	private final int size;
+	private final Function<Entity, Map<String, Object>> entityResponseCreator;
+	private boolean iterated;
+
+	/**
+	 * @param entities
+	 *            entities that can only be iterated once
+	 * @param size
+	 *            number of entities
+	 * @param entityResponseCreator
+	 *            creates the response of an entity
+	 */
+	EntityResponseCollection(Iterator<Entity> entities, int size,
+			Function<Entity, Map<String, Object>> entityResponseCreator)
+	{
+		this.entities = requireNonNull(entities);
+		this.size = size;
+		this.entityResponseCreator = requireNonNull(entityResponseCreator);
+		entities.hasNext();
+	}
+
+	@Override
+	public Iterator<Map<String, Object>> iterator()
+	{
+		if (iterated)
+		{
+			throw new IllegalStateException("entity responses can only be iterated once");
+		}
+		iterated = true;
+		return Iterators.transform(entities, entityResponseCreator::apply);
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+}
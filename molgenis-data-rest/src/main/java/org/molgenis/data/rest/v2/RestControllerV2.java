@@ -19,9 +19,9 @@ import static org.springframework.web.bind.annotation.RequestMethod.PUT;
 import java.sql.Date;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +39,7 @@ import org.molgenis.data.AggregateResult;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.DuplicateEntityException;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
@@ -630,32 +631,19 @@ class RestControllerV2
 		}
 		else
 		{
-			Long count = dataService.count(entityName, q);
-			Iterable<Entity> it;
-			if (count > 0)
-			{
-				it = new Iterable<Entity>()
-				{
-					@Override
-					public Iterator<Entity> iterator()
-					{
-						return dataService.findAll(entityName, q).iterator();
-					}
-				};
-			}
-			else
-			{
-				it = Collections.emptyList();
-			}
+			// retrieve the total and the page of entities in one call
+			EntitiesWithTotal entitiesWithTotal = dataService.findAllWithTotal(entityName, q);
+			Long count = entitiesWithTotal.getTotal();
+			Iterable<Entity> it = entitiesWithTotal.getEntities()::iterator;
 			EntityPager pager = new EntityPager(request.getStart(), request.getNum(), count, it);
 
-			List<Map<String, Object>> entities = new ArrayList<>();
-			for (Entity entity : it)
-			{
+			// entity responses are created while the response is written instead of materializing all of them
+			int size = (int) Math.max(0, Math.min(request.getNum(), count - request.getStart()));
+			Collection<Map<String, Object>> entities = new EntityResponseCollection(it.iterator(), size, entity -> {
 				Map<String, Object> responseData = new LinkedHashMap<String, Object>();
 				createEntityValuesResponse(entity, fetch, responseData);
-				entities.add(responseData);
-			}
+				return responseData;
+			});
 
 			UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(getFullURL(httpRequest));
 
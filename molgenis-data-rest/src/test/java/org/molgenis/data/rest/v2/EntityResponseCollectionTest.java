@@ -0,0 +1,145 @@
+package org.molgenis.data.rest.v2;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.io.StringWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.support.MapEntity;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+public class EntityResponseCollectionTest
+{
+	private final Function<Entity, Map<String, Object>> entityResponseCreator = entity -> {
+		Map<String, Object> responseData = new LinkedHashMap<String, Object>();
+		responseData.put("_href", "/api/v2/entity/" + entity.getIdValue());
+		responseData.put("id", entity.getIdValue());
+		responseData.put("ref", Arrays.asList("a", "b"));
+		return responseData;
+	};
+
+	@Test
+	public void iterator()
+	{
+		List<Entity> entities = Arrays.asList(createEntity("id0"), createEntity("id1"));
+		List<Map<String, Object>> responses = new ArrayList<>();
+		new EntityResponseCollection(entities.iterator(), 2, entityResponseCreator).forEach(responses::add);
+		assertEquals(responses, Arrays.asList(entityResponseCreator.apply(entities.get(0)),
+				entityResponseCreator.apply(entities.get(1))));
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void iteratorTwice()
+	{
+		List<Entity> entities = Arrays.asList(createEntity("id0"), createEntity("id1"));
+		EntityResponseCollection entityResponses = new EntityResponseCollection(entities.iterator(), 2,
+				entityResponseCreator);
+		entityResponses.iterator();
+		entityResponses.iterator();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void size()
+	{
+		Iterator<Entity> entities = mock(Iterator.class);
+		assertEquals(new EntityResponseCollection(entities, 2, entityResponseCreator).size(), 2);
+		verify(entities, never()).next();
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void constructorFirstEntityFails()
+	{
+		new EntityResponseCollection(failingIterator(0), 2, entityResponseCreator);
+	}
+
+	@Test
+	public void toJsonEntityFails()
+	{
+		EntityResponseCollection entityResponses = new EntityResponseCollection(failingIterator(1), 2,
+				entityResponseCreator);
+		StringWriter writer = new StringWriter();
+		try
+		{
+			new Gson().toJson(new Items(entityResponses), writer);
+			fail("expected exception");
+		}
+		catch (MolgenisDataException e)
+		{
+			// the first entity response has been written, the response is truncated
+			assertEquals(writer.toString(), "{\"items\":[{\"_href\":\"/api/v2/entity/id0\",\"id\":\"id0\","
+					+ "\"ref\":[\"a\",\"b\"]}");
+		}
+	}
+
+	@Test
+	public void toJson()
+	{
+		List<Entity> entities = Arrays.asList(createEntity("id0"), createEntity("id1"));
+		List<Map<String, Object>> responses = new ArrayList<>();
+		entities.forEach(entity -> responses.add(entityResponseCreator.apply(entity)));
+
+		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		EntityResponseCollection entityResponses = new EntityResponseCollection(entities.iterator(), 2,
+				entityResponseCreator);
+		assertEquals(gson.toJson(new Items(entityResponses)),
+				gson.toJson(new Items(responses)));
+	}
+
+	/**
+	 * Returns an iterator that throws an exception when retrieving the entity at the given index
+	 */
+	private static Iterator<Entity> failingIterator(int failIndex)
+	{
+		return new AbstractIterator<Entity>()
+		{
+			private int index;
+
+			@Override
+			protected Entity computeNext()
+			{
+				if (index == failIndex)
+				{
+					throw new MolgenisDataException("error");
+				}
+				return createEntity("id" + index++);
+			}
+		};
+	}
+
+	private static Entity createEntity(String id)
+	{
+		Entity entity = new MapEntity("id");
+		entity.set("id", id);
+		return entity;
+	}
+
+	@SuppressWarnings("unused")
+	private static class Items
+	{
+		private final Collection<Map<String, Object>> items;
+
+		Items(Collection<Map<String, Object>> items)
+		{
+			this.items = items;
+		}
+	}
+}
@@ -49,6 +49,7 @@ import java.util.stream.Stream;
 
 import org.mockito.Matchers;
 import org.molgenis.data.DataService;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
@@ -351,8 +352,8 @@ public class RestControllerV2Test extends AbstractTestNGSpringContextTests
 		when(dataService.findOne(ENTITY_NAME, ENTITY_ID)).thenReturn(entity);
 		when(dataService.findOne(eq(ENTITY_NAME), eq(ENTITY_ID), any(Fetch.class))).thenReturn(entity);
 		when(dataService.findOne(eq(SELF_REF_ENTITY_NAME), eq("0"), any(Fetch.class))).thenReturn(selfRefEntity);
-		when(dataService.count(ENTITY_NAME, q)).thenReturn(2l);
-		when(dataService.findAll(ENTITY_NAME, q)).thenReturn(Stream.of(entity));
+		when(dataService.findAllWithTotal(ENTITY_NAME, q))
+				.thenAnswer(invocation -> new EntitiesWithTotal(Stream.of(entity), 2l));
 		when(dataService.findOne(REF_ENTITY_NAME, REF_ENTITY0_ID)).thenReturn(refEntity0);
 		when(dataService.findOne(REF_ENTITY_NAME, REF_ENTITY1_ID)).thenReturn(refEntity1);
 		when(dataService.findOne(REF_REF_ENTITY_NAME, REF_REF_ENTITY_ID)).thenReturn(refRefEntity);
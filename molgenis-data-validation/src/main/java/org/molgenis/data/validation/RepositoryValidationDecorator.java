@@ -29,6 +29,7 @@ import org.molgenis.data.AggregateResult;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.DataConverter;
 import org.molgenis.data.DataService;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.EntityMetaData;
@@ -181,6 +182,12 @@ public class RepositoryValidationDecorator implements Repository
 		return decoratedRepository.findAll(q);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		return decoratedRepository.findAllWithTotal(q);
+	}
+
 	@Override
 	public Entity findOne(Query q)
 	{
@@ -211,6 +218,12 @@ public class RepositoryValidationDecorator implements Repository
 		return decoratedRepository.findAll(ids, fetch);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		return decoratedRepository.existingIds(ids);
+	}
+
 	@Override
 	public void delete(Stream<? extends Entity> entities)
 	{
@@ -0,0 +1,105 @@
+package org.molgenis.data.vcf;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.vcf.format.VcfToEntity;
+
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * Spliterator over the entities of a VCF file. Data lines are read sequentially and split into tokens, splitting this
+ * spliterator hands off a batch of tokenized lines so that the lines of each batch are converted to entities in
+ * parallel.
+ */
+class VcfEntitySpliterator implements Spliterator<Entity>
+{
+	private final Spliterator<String[]> tokensSpliterator;
+	private final VcfToEntity vcfToEntity;
+
+	VcfEntitySpliterator(BufferedReader lineReader, VcfToEntity vcfToEntity)
+	{
+		this(Spliterators.spliteratorUnknownSize(createTokensIterator(lineReader), ORDERED | NONNULL), vcfToEntity);
+	}
+
+	private VcfEntitySpliterator(Spliterator<String[]> tokensSpliterator, VcfToEntity vcfToEntity)
+	{
+		this.tokensSpliterator = requireNonNull(tokensSpliterator);
+		this.vcfToEntity = requireNonNull(vcfToEntity);
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Entity> action)
+	{
+		return tokensSpliterator.tryAdvance(tokens -> action.accept(vcfToEntity.toEntity(tokens)));
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super Entity> action)
+	{
+		tokensSpliterator.forEachRemaining(tokens -> action.accept(vcfToEntity.toEntity(tokens)));
+	}
+
+	@Override
+	public Spliterator<Entity> trySplit()
+	{
+		Spliterator<String[]> splitTokensSpliterator = tokensSpliterator.trySplit();
+		return splitTokensSpliterator != null ? new VcfEntitySpliterator(splitTokensSpliterator, vcfToEntity) : null;
+	}
+
+	@Override
+	public long estimateSize()
+	{
+		return tokensSpliterator.estimateSize();
+	}
+
+	@Override
+	public int characteristics()
+	{
+		return tokensSpliterator.characteristics() & (ORDERED | NONNULL | SIZED | SUBSIZED);
+	}
+
+	/**
+	 * Returns an iterator over the tokens of the data lines of a VCF file, header lines are skipped. The line reader is
+	 * closed when the iterator reaches the end of the file.
+	 */
+	static Iterator<String[]> createTokensIterator(BufferedReader lineReader)
+	{
+		return new AbstractIterator<String[]>()
+		{
+			@Override
+			protected String[] computeNext()
+			{
+				String line;
+				try
+				{
+					do
+					{
+						line = lineReader.readLine();
+					}
+					while (line != null && (line.isEmpty() || line.startsWith("#")));
+				}
+				catch (IOException e)
+				{
+					throw new MolgenisDataException(e);
+				}
+				if (line == null)
+				{
+					IOUtils.closeQuietly(lineReader);
+					return endOfData();
+				}
+				return StringUtils.splitPreserveAllTokens(line, '\t');
+			}
+		};
+	}
+}
@@ -3,9 +3,18 @@ package org.molgenis.data.vcf;
 import com.google.common.base.Supplier;
 import org.molgenis.vcf.VcfReader;
 
+import java.io.BufferedReader;
 import java.io.Closeable;
 
 public interface VcfReaderFactory extends Supplier<VcfReader>, Closeable
 {
+	/**
+	 * Returns a reader for the lines of the VCF file, the reader is closed when this factory is closed
+	 */
+	BufferedReader getLineReader();
 
+	/**
+	 * Returns the size of the VCF file in bytes
+	 */
+	long getFileSize();
 }
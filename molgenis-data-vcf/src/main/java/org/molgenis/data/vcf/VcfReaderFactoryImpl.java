@@ -1,20 +1,24 @@
 package org.molgenis.data.vcf;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.vcf.VcfReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -26,7 +30,8 @@ public class VcfReaderFactoryImpl implements VcfReaderFactory
 	private static final Logger LOG = LoggerFactory.getLogger(VcfReaderFactoryImpl.class);
 
 	private File file;
-	private List<VcfReader> vcfReaderRegistry = Lists.newArrayList();
+	private Set<VcfReader> vcfReaderRegistry = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	private Set<BufferedReader> lineReaderRegistry = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
 	public VcfReaderFactoryImpl(File file)
 	{
@@ -36,6 +41,41 @@ public class VcfReaderFactoryImpl implements VcfReaderFactory
 
 	@Override
 	public VcfReader get()
+	{
+		VcfReader reader = new VcfReader(createReader());
+		// register reader so close() can close all readers
+		vcfReaderRegistry.add(reader);
+		return reader;
+	}
+
+	/**
+	 * Returns a reader for the lines of the VCF file, the reader is closed when this factory is closed unless it was
+	 * closed before
+	 */
+	@Override
+	public BufferedReader getLineReader()
+	{
+		BufferedReader reader = new BufferedReader(createReader())
+		{
+			@Override
+			public void close() throws IOException
+			{
+				lineReaderRegistry.remove(this);
+				super.close();
+			}
+		};
+		// register reader so close() can close all readers
+		lineReaderRegistry.add(reader);
+		return reader;
+	}
+
+	@Override
+	public long getFileSize()
+	{
+		return file.length();
+	}
+
+	private Reader createReader()
 	{
 		try
 		{
@@ -51,11 +91,7 @@ public class VcfReaderFactoryImpl implements VcfReaderFactory
 				   ZipEntry entry = (ZipEntry) e.nextElement(); // your only file
 				   inputStream = zipFile.getInputStream(entry);
 			}
-			VcfReader reader = new VcfReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
-			// register reader so close() can close all readers
-			vcfReaderRegistry.add(reader);
-			return reader;
-
+			return new InputStreamReader(inputStream, Charset.forName("UTF-8"));
 		}
 		catch (IOException e)
 		{
@@ -80,5 +116,6 @@ public class VcfReaderFactoryImpl implements VcfReaderFactory
 	public void close() throws IOException
 	{
 		vcfReaderRegistry.forEach(this::tryCloseVcfReader);
+		lineReaderRegistry.forEach(IOUtils::closeQuietly);
 	}
 }
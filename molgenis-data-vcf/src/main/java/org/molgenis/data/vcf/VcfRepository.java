@@ -2,29 +2,47 @@ package org.molgenis.data.vcf;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.support.AbstractRepository;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.vcf.format.VcfToEntity;
 import org.molgenis.vcf.VcfReader;
-import org.molgenis.vcf.VcfRecord;
 import org.molgenis.vcf.meta.VcfMeta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Repository implementation for vcf files.
@@ -47,6 +65,11 @@ public class VcfRepository extends AbstractRepository
 	public static final String INFO = "INFO";
 	public static final String FORMAT_GT = "GT";
 	public static final String SAMPLES = "SAMPLES_ENTITIES";
+	public static final String SAMPLES_DATA = "SAMPLES_DATA";
+	public static final String SAMPLE_DATA_FORMAT = "FORMAT";
+	public static final String SAMPLE_DATA_OFFSET = "OFFSET";
+	public static final String SAMPLE_DATA_VALUES = "SAMPLE_VALUES";
+	public static final String SAMPLE_NAME_INDEX = "SAMPLE_INDEX";
 	public static final String NAME = "NAME";
 	public static final String ORIGINAL_NAME = "ORIGINAL_NAME";
 	public static final String PREFIX = "##";
@@ -77,18 +100,45 @@ public class VcfRepository extends AbstractRepository
 			MolgenisFieldTypes.FieldTypeEnum.COMPOUND).setNillable(true);
 
 
+	private static final int BATCH_SIZE = 1000;
+	private static final int PARSE_THREADS = Runtime.getRuntime().availableProcessors();
+	/**
+	 * Minimum size in bytes of VCF files of which the data lines are converted to entities in parallel, smaller files
+	 * are converted on the calling thread
+	 */
+	static final long PARALLEL_PARSE_MIN_FILE_SIZE = 1 << 20;
+	private static final ExecutorService PARSE_EXECUTOR_SERVICE = Executors.newFixedThreadPool(PARSE_THREADS,
+			new ThreadFactoryBuilder().setNameFormat("molgenis-vcf-%d").setDaemon(true).build());
+
 	private final String entityName;
+	private final int columnarSamplesThreshold;
 	protected Supplier<VcfToEntity> vcfToEntitySupplier;
 	private VcfReaderFactory vcfReaderFactory;
 
 	public VcfRepository(File file, String entityName) throws IOException
 	{
-		this(new VcfReaderFactoryImpl(file), entityName);
+		this(file, entityName, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param columnarSamplesThreshold
+	 *            VCF files with more samples than this threshold store their sample values column wise in sample data
+	 *            entities referenced by the {@link #SAMPLES_DATA} attribute instead of creating sample entities
+	 */
+	public VcfRepository(File file, String entityName, int columnarSamplesThreshold) throws IOException
+	{
+		this(new VcfReaderFactoryImpl(file), entityName, columnarSamplesThreshold);
 	}
 
 	protected VcfRepository(VcfReaderFactory vcfReaderFactory, String entityName)
+	{
+		this(vcfReaderFactory, entityName, Integer.MAX_VALUE);
+	}
+
+	protected VcfRepository(VcfReaderFactory vcfReaderFactory, String entityName, int columnarSamplesThreshold)
 	{
 		this.entityName = requireNonNull(entityName);
+		this.columnarSamplesThreshold = columnarSamplesThreshold;
 		this.vcfReaderFactory = vcfReaderFactory;
 		this.vcfToEntitySupplier = Suppliers.<VcfToEntity> memoize(this::parseVcfMeta);
 	}
@@ -99,7 +149,8 @@ public class VcfRepository extends AbstractRepository
 		try
 		{
 			VcfMeta vcfMeta = reader.getVcfMeta();
-			return new VcfToEntity(entityName, vcfMeta);
+			boolean columnarSamples = Iterables.size(vcfMeta.getSampleNames()) > columnarSamplesThreshold;
+			return new VcfToEntity(entityName, vcfMeta, columnarSamples);
 		}
 		catch (Exception e)
 		{
@@ -120,18 +171,73 @@ public class VcfRepository extends AbstractRepository
 	}
 
 	/**
-	 * Returns an iterator for this repository.
-	 * 
-	 * Use with caution! Multiple iterators will all point to the same line in the VCF file, leading to unpredictable
-	 * behaviour. If you want to get the EntityMetaData of this repository and you can't access getEntityMetaData(),
-	 * convert the iterator to a PeekingIterator and peek the first Entity.
+	 * Returns an iterator for this repository. Data lines of large files are read in batches that are converted to
+	 * entities in parallel, the iterator returns the entities in file order.
 	 */
 	@Override
 	public Iterator<Entity> iterator()
 	{
-		Iterator<VcfRecord> vcfRecordIterator = Iterators.unmodifiableIterator(vcfReaderFactory.get().iterator());
 		VcfToEntity vcfToEntity = vcfToEntitySupplier.get();
-		return Iterators.transform(vcfRecordIterator, vcfToEntity::toEntity);
+		Iterator<String[]> tokensIterator = VcfEntitySpliterator
+				.createTokensIterator(vcfReaderFactory.getLineReader());
+		if (vcfReaderFactory.getFileSize() < PARALLEL_PARSE_MIN_FILE_SIZE)
+		{
+			return Iterators.transform(tokensIterator, vcfToEntity::toEntity);
+		}
+
+		Iterator<List<String[]>> batchIterator = Iterators.partition(tokensIterator, BATCH_SIZE);
+		Queue<Future<List<Entity>>> batchFutures = new ArrayDeque<>();
+		return Iterators.concat(new AbstractIterator<Iterator<Entity>>()
+		{
+			@Override
+			protected Iterator<Entity> computeNext()
+			{
+				while (batchFutures.size() < PARSE_THREADS && batchIterator.hasNext())
+				{
+					List<String[]> batch = batchIterator.next();
+					batchFutures.add(PARSE_EXECUTOR_SERVICE
+							.submit(() -> batch.stream().map(vcfToEntity::toEntity).collect(toList())));
+				}
+				return !batchFutures.isEmpty() ? getBatch(batchFutures.remove()).iterator() : endOfData();
+			}
+		});
+	}
+
+	private static List<Entity> getBatch(Future<List<Entity>> batchFuture)
+	{
+		try
+		{
+			return batchFuture.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			Throwables.propagateIfPossible(e.getCause());
+			throw new MolgenisDataException(e.getCause());
+		}
+	}
+
+	/**
+	 * Returns a spliterator for this repository that splits off batches of data lines, use with a parallel stream to
+	 * convert the lines of each batch to entities in parallel.
+	 */
+	@Override
+	public Spliterator<Entity> spliterator()
+	{
+		return new VcfEntitySpliterator(vcfReaderFactory.getLineReader(), vcfToEntitySupplier.get());
+	}
+
+	/**
+	 * Streams the entities in file order, see {@link #iterator()}
+	 */
+	@Override
+	public Stream<Entity> stream()
+	{
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), ORDERED | NONNULL), false);
 	}
 
 	@Override
@@ -140,6 +246,22 @@ public class VcfRepository extends AbstractRepository
 		return vcfToEntitySupplier.get().getEntityMetaData();
 	}
 
+	/**
+	 * Returns the entity meta data of the sample names or null if sample values are not stored column wise
+	 */
+	public EntityMetaData getSampleNameEntityMetaData()
+	{
+		return vcfToEntitySupplier.get().getSampleNameEntityMetaData();
+	}
+
+	/**
+	 * Returns the sample name entities or an empty list if sample values are not stored column wise
+	 */
+	public List<Entity> getSampleNameEntities()
+	{
+		return vcfToEntitySupplier.get().createSampleNameEntities();
+	}
+
 	@Override
 	public void close() throws IOException
 	{
@@ -152,10 +274,20 @@ public class VcfRepository extends AbstractRepository
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Counts the data lines without converting them to entities
+	 */
 	@Override
 	public long count()
 	{
-		return Iterables.size(this);
+		try (BufferedReader lineReader = vcfReaderFactory.getLineReader())
+		{
+			return lineReader.lines().filter(line -> !line.isEmpty() && !line.startsWith("#")).count();
+		}
+		catch (IOException e)
+		{
+			throw new MolgenisDataException(e);
+		}
 	}
 
 }
@@ -19,6 +19,14 @@ public class VcfRepositoryCollection extends FileRepositoryCollection
 	private static final String EXTENSION_VCF_GZ = "vcf.gz";
 	private static final String EXTENSION_VCF_ZIP = "vcf.zip";
 	static final Set<String> EXTENSIONS = ImmutableSet.of(EXTENSION_VCF, EXTENSION_VCF_GZ, EXTENSION_VCF_ZIP);
+	/**
+	 * VCF files with more samples store their sample values column wise instead of as sample entities
+	 */
+	public static final int DEFAULT_COLUMNAR_SAMPLES_THRESHOLD = 1000;
+	/**
+	 * System property that overrides {@link #DEFAULT_COLUMNAR_SAMPLES_THRESHOLD}
+	 */
+	public static final String COLUMNAR_SAMPLES_THRESHOLD_PROPERTY = "molgenis.vcf.columnarSamplesThreshold";
 
 	private final File file;
 	private final String entityName;
@@ -60,7 +68,7 @@ public class VcfRepositoryCollection extends FileRepositoryCollection
 		if (!entityName.equals(name)) throw new MolgenisDataException("Unknown entity name [" + name + "]");
 		try
 		{
-			return new VcfRepository(file, name);
+			return new VcfRepository(file, name, getColumnarSamplesThreshold());
 		}
 		catch (IOException e)
 		{
@@ -68,6 +76,14 @@ public class VcfRepositoryCollection extends FileRepositoryCollection
 		}
 	}
 
+	/**
+	 * Returns the number of samples above which VCF files store their sample values column wise
+	 */
+	static int getColumnarSamplesThreshold()
+	{
+		return Integer.getInteger(COLUMNAR_SAMPLES_THRESHOLD_PROPERTY, DEFAULT_COLUMNAR_SAMPLES_THRESHOLD);
+	}
+
 	@Override
 	public String getName()
 	{
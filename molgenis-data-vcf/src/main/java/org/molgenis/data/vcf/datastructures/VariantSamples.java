@@ -0,0 +1,279 @@
+package org.molgenis.data.vcf.datastructures;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.vcf.VcfRepository.ID;
+import static org.molgenis.data.vcf.VcfRepository.NAME;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLES_DATA;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_FORMAT;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_OFFSET;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_VALUES;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_NAME_INDEX;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.molgenis.MolgenisFieldTypes;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * FORMAT values of all samples of one variant stored column wise: one array of sample values per FORMAT field. The
+ * values are stored in sample data entities referenced by the {@link org.molgenis.data.vcf.VcfRepository#SAMPLES_DATA}
+ * attribute of the variant entity instead of one entity per sample per variant.
+ *
+ * Each sample data entity holds the tab separated values of a consecutive range of samples for one FORMAT field, so
+ * the number of samples of a variant is not limited by the maximum length of a text value. Sample values are in the
+ * order of the sample name entities, see {@link #getSampleNames(Iterable)}.
+ */
+public class VariantSamples
+{
+	private static final char VALUE_SEPARATOR = '\t';
+	/**
+	 * maximum number of characters of the values of one sample data entity, a quarter of the maximum text length so
+	 * that the values also fit when stored as multi-byte characters
+	 */
+	static final int MAX_VALUES_LENGTH = MolgenisFieldTypes.TEXT.getMaxLength().intValue() / 4;
+
+	private final List<String> format;
+	private final String[][] values;
+
+	/**
+	 * @param format
+	 *            FORMAT keys
+	 * @param values
+	 *            sample values per FORMAT key, missing values are null
+	 */
+	public VariantSamples(List<String> format, String[][] values)
+	{
+		this.format = requireNonNull(format);
+		this.values = requireNonNull(values);
+		if (format.size() != values.length)
+		{
+			throw new IllegalArgumentException("Number of FORMAT keys and value arrays differ");
+		}
+	}
+
+	public List<String> getFormat()
+	{
+		return Collections.unmodifiableList(format);
+	}
+
+	public int getNrSamples()
+	{
+		return values.length > 0 ? values[0].length : 0;
+	}
+
+	/**
+	 * Returns the value of a FORMAT field for one sample or null if the field or value does not exist
+	 */
+	public String getValue(int sampleIndex, String key)
+	{
+		int fieldIndex = format.indexOf(key);
+		return fieldIndex != -1 ? values[fieldIndex][sampleIndex] : null;
+	}
+
+	/**
+	 * Returns the values of a FORMAT field for all samples of this variant or null if the field does not exist
+	 */
+	public List<String> getValues(String key)
+	{
+		int fieldIndex = format.indexOf(key);
+		return fieldIndex != -1 ? Collections.unmodifiableList(Arrays.asList(values[fieldIndex])) : null;
+	}
+
+	/**
+	 * Returns the FORMAT values of one sample of this variant
+	 */
+	public Map<String, String> getSampleValues(int sampleIndex)
+	{
+		Map<String, String> sampleValues = new LinkedHashMap<>();
+		for (int i = 0; i < values.length; ++i)
+		{
+			sampleValues.put(format.get(i), values[i][sampleIndex]);
+		}
+		return sampleValues;
+	}
+
+	/**
+	 * Returns the sample data entities of these sample values
+	 * 
+	 * @param variantId
+	 *            id of the variant entity, used to create the ids of the sample data entities
+	 * @param sampleDataEntityFactory
+	 *            creates empty sample data entities
+	 */
+	public List<Entity> toEntities(String variantId, Supplier<Entity> sampleDataEntityFactory)
+	{
+		List<Entity> sampleDataEntities = new ArrayList<>();
+		for (int i = 0; i < values.length; ++i)
+		{
+			String[] fieldValues = values[i];
+			int offset = 0;
+			while (offset < fieldValues.length)
+			{
+				StringBuilder strBuilder = new StringBuilder();
+				int end = offset;
+				for (; end < fieldValues.length; ++end)
+				{
+					String value = fieldValues[end] != null ? fieldValues[end] : "";
+					int length = strBuilder.length() + (end > offset ? 1 : 0) + value.length();
+					if (length > MAX_VALUES_LENGTH)
+					{
+						if (end == offset)
+						{
+							throw new MolgenisDataException("Value of FORMAT field [" + format.get(i) + "] of sample ["
+									+ end + "] exceeds maximum length of " + MAX_VALUES_LENGTH);
+						}
+						break;
+					}
+					if (end > offset)
+					{
+						strBuilder.append(VALUE_SEPARATOR);
+					}
+					strBuilder.append(value);
+				}
+
+				Entity sampleDataEntity = sampleDataEntityFactory.get();
+				sampleDataEntity.set(ID, variantId + '_' + format.get(i) + '_' + offset);
+				sampleDataEntity.set(SAMPLE_DATA_FORMAT, format.get(i));
+				sampleDataEntity.set(SAMPLE_DATA_OFFSET, offset);
+				sampleDataEntity.set(SAMPLE_DATA_VALUES, strBuilder.toString());
+				sampleDataEntities.add(sampleDataEntity);
+				offset = end;
+			}
+		}
+		return sampleDataEntities;
+	}
+
+	/**
+	 * Creates sample values from the sample data entities of a variant
+	 */
+	public static VariantSamples fromEntities(Iterable<Entity> sampleDataEntities)
+	{
+		// FORMAT key --> sample offset --> tab separated sample values
+		Map<String, SortedMap<Integer, String>> fieldValuesMap = new LinkedHashMap<>();
+		for (Entity sampleDataEntity : sampleDataEntities)
+		{
+			fieldValuesMap.computeIfAbsent(sampleDataEntity.getString(SAMPLE_DATA_FORMAT), key -> new TreeMap<>())
+					.put(sampleDataEntity.getInt(SAMPLE_DATA_OFFSET), sampleDataEntity.getString(SAMPLE_DATA_VALUES));
+		}
+
+		List<String> format = new ArrayList<>(fieldValuesMap.keySet());
+		String[][] values = new String[format.size()][];
+		for (int i = 0; i < values.length; ++i)
+		{
+			List<String> fieldValues = new ArrayList<>();
+			for (Map.Entry<Integer, String> entry : fieldValuesMap.get(format.get(i)).entrySet())
+			{
+				if (entry.getKey() != fieldValues.size())
+				{
+					throw new MolgenisDataException("Missing values of FORMAT field [" + format.get(i)
+							+ "] for samples [" + fieldValues.size() + "-" + entry.getKey() + "]");
+				}
+				// a sample data entity always contains at least one value
+				String str = entry.getValue() != null ? entry.getValue() : "";
+				for (String value : str.isEmpty() ? new String[]
+				{ str } : StringUtils.splitPreserveAllTokens(str, VALUE_SEPARATOR))
+				{
+					fieldValues.add(value.isEmpty() ? null : value);
+				}
+			}
+			values[i] = fieldValues.toArray(new String[fieldValues.size()]);
+		}
+		return new VariantSamples(format, values);
+	}
+
+	/**
+	 * Returns the sample values of a variant entity or null if the variant has no sample values
+	 */
+	public static VariantSamples get(Entity variant)
+	{
+		Iterable<Entity> sampleDataEntities = variant.getEntities(SAMPLES_DATA);
+		return sampleDataEntities != null && !Iterables.isEmpty(sampleDataEntities)
+				? fromEntities(sampleDataEntities) : null;
+	}
+
+	/**
+	 * Returns the values of a FORMAT field of one sample for the given variants
+	 */
+	public static List<String> getValues(Iterable<Entity> variants, int sampleIndex, String key)
+	{
+		List<String> sampleValues = new ArrayList<>();
+		for (Entity variant : variants)
+		{
+			sampleValues.add(getValue(variant, sampleIndex, key));
+		}
+		return sampleValues;
+	}
+
+	/**
+	 * Returns the value of a FORMAT field of one sample of a variant entity. Only the values of the sample data entity
+	 * that contains the value are read, the other sample data entities of the variant are not decoded.
+	 */
+	private static String getValue(Entity variant, int sampleIndex, String key)
+	{
+		Iterable<Entity> sampleDataEntities = variant.getEntities(SAMPLES_DATA);
+		if (sampleDataEntities == null) return null;
+
+		// sample data entity of the FORMAT field with the largest offset that is not after the sample
+		Entity valuesEntity = null;
+		int valuesOffset = -1;
+		for (Entity sampleDataEntity : sampleDataEntities)
+		{
+			if (key.equals(sampleDataEntity.getString(SAMPLE_DATA_FORMAT)))
+			{
+				int offset = sampleDataEntity.getInt(SAMPLE_DATA_OFFSET);
+				if (offset <= sampleIndex && offset > valuesOffset)
+				{
+					valuesEntity = sampleDataEntity;
+					valuesOffset = offset;
+				}
+			}
+		}
+		if (valuesEntity == null) return null;
+
+		String str = valuesEntity.getString(SAMPLE_DATA_VALUES);
+		if (str == null) return null;
+		int begin = 0;
+		for (int i = valuesOffset; i < sampleIndex; ++i)
+		{
+			begin = str.indexOf(VALUE_SEPARATOR, begin);
+			if (begin == -1) return null;
+			++begin;
+		}
+		int end = str.indexOf(VALUE_SEPARATOR, begin);
+		String value = end != -1 ? str.substring(begin, end) : str.substring(begin);
+		return value.isEmpty() ? null : value;
+	}
+
+	/**
+	 * Returns the sample names in sample value order
+	 * 
+	 * @param sampleNameEntities
+	 *            sample name entities of the VCF file
+	 */
+	public static List<String> getSampleNames(Iterable<Entity> sampleNameEntities)
+	{
+		List<Entity> sortedSampleNameEntities = new ArrayList<>();
+		Iterables.addAll(sortedSampleNameEntities, sampleNameEntities);
+		sortedSampleNameEntities.sort(Comparator.comparing(entity -> entity.getInt(SAMPLE_NAME_INDEX)));
+
+		List<String> sampleNames = new ArrayList<>(sortedSampleNameEntities.size());
+		for (Entity sampleNameEntity : sortedSampleNameEntities)
+		{
+			sampleNames.add(sampleNameEntity.getString(NAME));
+		}
+		return sampleNames;
+	}
+}
@@ -8,10 +8,13 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.meta.MetaValidationUtils;
+import org.molgenis.data.support.ArrayEntity;
+import org.molgenis.data.support.AttributeSlots;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.MapEntity;
 import org.molgenis.data.vcf.VcfRepository;
+import org.molgenis.data.vcf.datastructures.VariantSamples;
 import org.molgenis.data.vcf.utils.VcfUtils;
 import org.molgenis.genotype.Allele;
 import org.molgenis.genotype.GenotypeDataException;
@@ -23,8 +26,11 @@ import org.molgenis.vcf.meta.VcfMetaFormat;
 import org.molgenis.vcf.meta.VcfMetaInfo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static org.elasticsearch.common.base.Preconditions.checkNotNull;
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
@@ -49,19 +55,66 @@ import static org.molgenis.data.vcf.VcfRepository.QUAL_META;
 import static org.molgenis.data.vcf.VcfRepository.REF;
 import static org.molgenis.data.vcf.VcfRepository.REF_META;
 import static org.molgenis.data.vcf.VcfRepository.SAMPLES;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLES_DATA;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_FORMAT;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_OFFSET;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_VALUES;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_NAME_INDEX;
 
 public class VcfToEntity
 {
 	private final EntityMetaData entityMetaData;
 	private final EntityMetaData sampleEntityMetaData;
+	private final EntityMetaData sampleDataEntityMetaData;
+	private final EntityMetaData sampleNameEntityMetaData;
+	private final AttributeSlots attributeSlots;
+	private final AttributeSlots sampleAttributeSlots;
+	private final AttributeSlots sampleDataAttributeSlots;
 	private final VcfMeta vcfMeta;
+	/**
+	 * names of the attributes of flag INFO fields, these attributes are false unless the flag is present
+	 */
+	private final List<String> infoFlagAttrNames;
+	/**
+	 * INFO field key --> name of the boolean attribute that is true if the INFO field is present without value, or null
+	 * if there is no such attribute
+	 */
+	private final Map<String, String> infoKeyToFlagAttrName;
 
 	public VcfToEntity(String entityName, VcfMeta vcfMeta)
+	{
+		this(entityName, vcfMeta, false);
+	}
+
+	/**
+	 * @param columnarSamples
+	 *            whether to store the sample values of a variant column wise in sample data entities referenced by the
+	 *            {@link VcfRepository#SAMPLES_DATA} attribute instead of creating an entity per sample
+	 */
+	public VcfToEntity(String entityName, VcfMeta vcfMeta, boolean columnarSamples)
 	{
 		this.vcfMeta = checkNotNull(vcfMeta);
-		sampleEntityMetaData = createSampleEntityMetaData(checkNotNull(entityName),
-				checkNotNull(vcfMeta.getFormatMeta()));
+		boolean columnar = columnarSamples && checkNotNull(vcfMeta.getFormatMeta()).iterator().hasNext();
+		sampleEntityMetaData = columnar ? null
+				: createSampleEntityMetaData(checkNotNull(entityName), checkNotNull(vcfMeta.getFormatMeta()));
+		sampleDataEntityMetaData = columnar ? createSampleDataEntityMetaData(entityName) : null;
+		sampleNameEntityMetaData = columnar ? createSampleNameEntityMetaData(entityName) : null;
 		entityMetaData = createEntityMetaData(entityName, vcfMeta);
+		attributeSlots = AttributeSlots.of(entityMetaData);
+		sampleAttributeSlots = sampleEntityMetaData != null ? AttributeSlots.of(sampleEntityMetaData) : null;
+		sampleDataAttributeSlots = sampleDataEntityMetaData != null ? AttributeSlots.of(sampleDataEntityMetaData)
+				: null;
+
+		infoFlagAttrNames = new ArrayList<>();
+		infoKeyToFlagAttrName = new HashMap<>();
+		for (VcfMetaInfo info : vcfMeta.getInfoMeta())
+		{
+			if (info.getType().equals(VcfMetaInfo.Type.FLAG))
+			{
+				infoFlagAttrNames.add(getInfoAttrName(info.getId()));
+			}
+			infoKeyToFlagAttrName.put(info.getId(), createInfoFlagAttrName(info.getId()));
+		}
 	}
 
 	private EntityMetaData createSampleEntityMetaData(String entityName, Iterable<VcfMetaFormat> formatMetaData)
@@ -96,6 +149,40 @@ public class VcfToEntity
 		return result;
 	}
 
+	/**
+	 * Creates the meta data of the entities that store the values of one FORMAT field for a range of samples of a
+	 * variant, see {@link VariantSamples}
+	 */
+	private static EntityMetaData createSampleDataEntityMetaData(String entityName)
+	{
+		DefaultEntityMetaData result = new DefaultEntityMetaData(entityName + "_SampleData");
+		DefaultAttributeMetaData idAttributeMetaData = new DefaultAttributeMetaData(ID,
+				MolgenisFieldTypes.FieldTypeEnum.STRING);
+		idAttributeMetaData.setVisible(false);
+		result.addAttributeMetaData(idAttributeMetaData, ROLE_ID);
+		result.addAttributeMetaData(new DefaultAttributeMetaData(SAMPLE_DATA_FORMAT,
+				MolgenisFieldTypes.FieldTypeEnum.STRING).setNillable(false).setAggregateable(true));
+		result.addAttributeMetaData(new DefaultAttributeMetaData(SAMPLE_DATA_OFFSET,
+				MolgenisFieldTypes.FieldTypeEnum.INT).setNillable(false)
+						.setDescription("Index of the sample of the first value"));
+		result.addAttributeMetaData(new DefaultAttributeMetaData(SAMPLE_DATA_VALUES,
+				MolgenisFieldTypes.FieldTypeEnum.TEXT).setDescription("Tab separated sample values"));
+		return result;
+	}
+
+	/**
+	 * Creates the meta data of the sample names in the order of the VCF header
+	 */
+	private static EntityMetaData createSampleNameEntityMetaData(String entityName)
+	{
+		DefaultEntityMetaData result = new DefaultEntityMetaData(entityName + "_SampleName");
+		result.addAttributeMetaData(new DefaultAttributeMetaData(NAME, MolgenisFieldTypes.FieldTypeEnum.STRING)
+				.setNillable(false), ROLE_ID, ROLE_LABEL, ROLE_LOOKUP);
+		result.addAttributeMetaData(new DefaultAttributeMetaData(SAMPLE_NAME_INDEX,
+				MolgenisFieldTypes.FieldTypeEnum.INT).setNillable(false).setDescription("Index of the sample values"));
+		return result;
+	}
+
 	private EntityMetaData createEntityMetaData(String entityName, VcfMeta vcfMeta)
 	{
 		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData(entityName);
@@ -144,6 +231,12 @@ public class VcfToEntity
 					MolgenisFieldTypes.FieldTypeEnum.MREF).setRefEntity(sampleEntityMetaData).setLabel("SAMPLES");
 			entityMetaData.addAttributeMetaData(samplesAttributeMeta);
 		}
+		else if (sampleDataEntityMetaData != null)
+		{
+			DefaultAttributeMetaData samplesDataAttributeMeta = new DefaultAttributeMetaData(SAMPLES_DATA,
+					MolgenisFieldTypes.FieldTypeEnum.MREF).setRefEntity(sampleDataEntityMetaData).setLabel("SAMPLES");
+			entityMetaData.addAttributeMetaData(samplesDataAttributeMeta);
+		}
 		return entityMetaData;
 	}
 
@@ -247,6 +340,11 @@ public class VcfToEntity
 		}
 	}
 
+	/**
+	 * Converts the tokens of a data line to an entity. {@link VcfRepository} calls this method concurrently from its
+	 * parse threads. That is safe because the {@link VcfMeta} is read completely from the header before this object is
+	 * created and this class and {@link VcfRecord} only read it afterwards.
+	 */
 	public Entity toEntity(String[] tokens)
 	{
 		return toEntity(new VcfRecord(vcfMeta, tokens));
@@ -254,7 +352,7 @@ public class VcfToEntity
 
 	public Entity toEntity(VcfRecord vcfRecord)
 	{
-		Entity entity = new MapEntity(entityMetaData);
+		Entity entity = new ArrayEntity(entityMetaData, attributeSlots);
 		entity.set(CHROM, vcfRecord.getChromosome());
 		entity.set(ALT, StringUtils.join(Lists.transform(vcfRecord.getAlternateAlleles(), Allele::toString), ','));
 		entity.set(POS, vcfRecord.getPosition());
@@ -272,9 +370,51 @@ public class VcfToEntity
 			List<Entity> samples = createSampleEntities(vcfRecord, entity.get(POS) + "_" + entity.get(ALT), id);
 			entity.set(SAMPLES, samples);
 		}
+		else if (sampleDataEntityMetaData != null)
+		{
+			entity.set(SAMPLES_DATA, createVariantSamples(vcfRecord).toEntities(id,
+					() -> new ArrayEntity(sampleDataEntityMetaData, sampleDataAttributeSlots)));
+		}
 		return entity;
 	}
 
+	protected VariantSamples createVariantSamples(VcfRecord vcfRecord)
+	{
+		String[] format = vcfRecord.getFormat();
+		int nrSamples = vcfRecord.getNrSamples();
+		String[][] values = new String[format.length][nrSamples];
+		Iterator<VcfSample> sampleIterator = vcfRecord.getSamples().iterator();
+		for (int j = 0; sampleIterator.hasNext(); ++j)
+		{
+			VcfSample sample = sampleIterator.next();
+			for (int i = 0; i < format.length; ++i)
+			{
+				values[i][j] = sample.getData(i);
+			}
+		}
+		return new VariantSamples(Arrays.asList(format), values);
+	}
+
+	/**
+	 * Returns one entity per sample name or an empty list if sample values are not stored column wise
+	 */
+	public List<Entity> createSampleNameEntities()
+	{
+		List<Entity> sampleNameEntities = new ArrayList<>();
+		if (sampleNameEntityMetaData != null)
+		{
+			Iterator<String> sampleNameIterator = vcfMeta.getSampleNames().iterator();
+			for (int i = 0; sampleNameIterator.hasNext(); ++i)
+			{
+				Entity sampleNameEntity = new MapEntity(sampleNameEntityMetaData);
+				sampleNameEntity.set(NAME, sampleNameIterator.next());
+				sampleNameEntity.set(SAMPLE_NAME_INDEX, i);
+				sampleNameEntities.add(sampleNameEntity);
+			}
+		}
+		return sampleNameEntities;
+	}
+
 	protected List<Entity> createSampleEntities(VcfRecord vcfRecord, String entityPosAlt, String entityId)
 	{
 		List<Entity> samples = new ArrayList<Entity>();
@@ -286,7 +426,7 @@ public class VcfToEntity
 			{
 				String[] format = vcfRecord.getFormat();
 				VcfSample sample = sampleIterator.next();
-				Entity sampleEntity = new MapEntity(sampleEntityMetaData);
+				Entity sampleEntity = new ArrayEntity(sampleEntityMetaData, sampleAttributeSlots);
 				for (int i = 0; i < format.length; i = i + 1)
 				{
 					sampleEntity.set(format[i], sample.getData(i));
@@ -307,36 +447,15 @@ public class VcfToEntity
 	protected void writeInfoFieldsToEntity(VcfRecord vcfRecord, Entity entity)
 	{
 		// set all flag fields default on false.
-		for (VcfMetaInfo info : vcfMeta.getInfoMeta())
+		for (String infoFlagAttrName : infoFlagAttrNames)
 		{
-			String postFix = "";
-			List<String> names = new ArrayList<>();
-			for (AttributeMetaData attributeMetaData : entityMetaData.getAttributes())
-			{
-				if (attributeMetaData.getName().equals(info.getId()))
-				{
-					names.add(attributeMetaData.getName());
-				}
-			}
-			if (names.contains(info.getId())) postFix = "_" + entity.getEntityMetaData().getName();
-			if (info.getType().equals(VcfMetaInfo.Type.FLAG))
-			{
-				entity.set(info.getId() + postFix, false);
-			}
+			entity.set(infoFlagAttrName, false);
 		}
 
 		for (VcfInfo vcfInfo : vcfRecord.getInformation())
 		{
-			String postFix = "";
-			List<String> names = new ArrayList<>();
-			for (AttributeMetaData attributeMetaData : entityMetaData.getAttributes())
-			{
-				if (attributeMetaData.getName().equals(vcfInfo.getKey()))
-				{
-					names.add(attributeMetaData.getName());
-				}
-			}
-			if (vcfInfo.getKey().equals("."))
+			String key = vcfInfo.getKey();
+			if (key.equals("."))
 			{
 				continue;
 			}
@@ -354,27 +473,64 @@ public class VcfToEntity
 
 			if (val == null)
 			{
-				if (names.contains(vcfInfo.getKey()))
+				String flagAttrName = infoKeyToFlagAttrName.containsKey(key) ? infoKeyToFlagAttrName.get(key)
+						: createInfoFlagAttrName(key);
+				if (flagAttrName != null)
 				{
-					postFix = "_" + entity.getEntityMetaData().getName();
-				}
-				if (!(vcfInfo.getKey() + postFix).equals(".")
-						&& entityMetaData.getAttribute(vcfInfo.getKey() + postFix) != null
-						&& entityMetaData.getAttribute(vcfInfo.getKey() + postFix).getDataType().getEnumType()
-								.equals(MolgenisFieldTypes.FieldTypeEnum.BOOL))
-				{
-					val = true;
+					entity.set(flagAttrName, true);
 				}
 			}
-			if (val != null)
+			else
 			{
-				entity.set(vcfInfo.getKey() + postFix, val);
+				entity.set(key, val);
 			}
 		}
 	}
 
+	/**
+	 * Returns the name of the attribute of an INFO field, INFO fields with the same name as a top level attribute are
+	 * postfixed with the entity name
+	 */
+	private String getInfoAttrName(String key)
+	{
+		for (AttributeMetaData attributeMetaData : entityMetaData.getAttributes())
+		{
+			if (attributeMetaData.getName().equals(key))
+			{
+				return key + "_" + entityMetaData.getName();
+			}
+		}
+		return key;
+	}
+
+	/**
+	 * Returns the name of the boolean attribute of an INFO field or null if there is no such attribute
+	 */
+	private String createInfoFlagAttrName(String key)
+	{
+		String attrName = getInfoAttrName(key);
+		if (attrName.equals("."))
+		{
+			return null;
+		}
+		AttributeMetaData attr = entityMetaData.getAttribute(attrName);
+		if (attr != null && attr.getDataType().getEnumType().equals(MolgenisFieldTypes.FieldTypeEnum.BOOL))
+		{
+			return attrName;
+		}
+		return null;
+	}
+
 	public EntityMetaData getEntityMetaData()
 	{
 		return entityMetaData;
 	}
+
+	/**
+	 * Returns the entity meta data of the sample names or null if sample values are not stored column wise
+	 */
+	public EntityMetaData getSampleNameEntityMetaData()
+	{
+		return sampleNameEntityMetaData;
+	}
 }
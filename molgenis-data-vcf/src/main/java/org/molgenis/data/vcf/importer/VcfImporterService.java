@@ -105,7 +105,8 @@ public class VcfImporterService implements ImportService
 		if (it.hasNext())
 		{
 			String entityName = it.next();
-			EntityMetaData emd = source.getRepository(entityName).getEntityMetaData();
+			Repository repository = source.getRepository(entityName);
+			EntityMetaData emd = repository.getEntityMetaData();
 
 			// Vcf entity
 			boolean entityExists = dataService.hasRepository(entityName);
@@ -120,26 +121,50 @@ public class VcfImporterService implements ImportService
 			report.getFieldsImportable().put(entityName, availableAttributeNames);
 
 			// Sample entity
-			AttributeMetaData sampleAttribute = emd.getAttribute(VcfRepository.SAMPLES);
+			AttributeMetaData sampleAttribute = getSampleAttribute(emd);
 			if (sampleAttribute != null)
 			{
-				String sampleEntityName = sampleAttribute.getRefEntity().getName();
-				boolean sampleEntityExists = dataService.hasRepository(sampleEntityName);
-				report.getSheetsImportable().put(sampleEntityName, !sampleEntityExists);
+				validateSampleEntity(sampleAttribute.getRefEntity(), report);
+			}
 
-				List<String> availableSampleAttributeNames = Lists.newArrayList();
-				for (AttributeMetaData attr : sampleAttribute.getRefEntity().getAtomicAttributes())
+			// Sample name entity
+			if (repository instanceof VcfRepository)
+			{
+				EntityMetaData sampleNameEntityMetaData = ((VcfRepository) repository).getSampleNameEntityMetaData();
+				if (sampleNameEntityMetaData != null)
 				{
-					availableSampleAttributeNames.add(attr.getName());
+					validateSampleEntity(sampleNameEntityMetaData, report);
 				}
-				report.getFieldsImportable().put(sampleEntityName, availableSampleAttributeNames);
 			}
-
 		}
 
 		return report;
 	}
 
+	private void validateSampleEntity(EntityMetaData sampleEntityMetaData, EntitiesValidationReport report)
+	{
+		String sampleEntityName = sampleEntityMetaData.getName();
+		boolean sampleEntityExists = dataService.hasRepository(sampleEntityName);
+		report.getSheetsImportable().put(sampleEntityName, !sampleEntityExists);
+
+		List<String> availableSampleAttributeNames = Lists.newArrayList();
+		for (AttributeMetaData attr : sampleEntityMetaData.getAtomicAttributes())
+		{
+			availableSampleAttributeNames.add(attr.getName());
+		}
+		report.getFieldsImportable().put(sampleEntityName, availableSampleAttributeNames);
+	}
+
+	/**
+	 * Returns the attribute that references the sample entities or sample data entities of a variant, or null if
+	 * variants have no samples
+	 */
+	private static AttributeMetaData getSampleAttribute(EntityMetaData entityMetaData)
+	{
+		AttributeMetaData sampleAttribute = entityMetaData.getAttribute(VcfRepository.SAMPLES);
+		return sampleAttribute != null ? sampleAttribute : entityMetaData.getAttribute(VcfRepository.SAMPLES_DATA);
+	}
+
 	@Override
 	public boolean canImport(File file, RepositoryCollection source)
 	{
@@ -168,15 +193,15 @@ public class VcfImporterService implements ImportService
 		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData(inRepository.getEntityMetaData());
 		entityMetaData.setBackend(BACKEND);
 
-		AttributeMetaData sampleAttribute = entityMetaData.getAttribute(VcfRepository.SAMPLES);
+		AttributeMetaData sampleAttribute = getSampleAttribute(entityMetaData);
 		if (sampleAttribute != null)
 		{
-			DefaultEntityMetaData samplesEntityMetaData = new DefaultEntityMetaData(sampleAttribute.getRefEntity());
-			samplesEntityMetaData.setBackend(BACKEND);
-			sampleRepository = dataService.getMeta().addEntityMeta(samplesEntityMetaData);
-			permissionSystemService.giveUserEntityPermissions(SecurityContextHolder.getContext(),
-					Collections.singletonList(samplesEntityMetaData.getName()));
-			addedEntities.add(sampleAttribute.getRefEntity());
+			sampleRepository = addSampleRepository(sampleAttribute.getRefEntity(), addedEntities);
+		}
+
+		if (inRepository instanceof VcfRepository)
+		{
+			importSampleNames((VcfRepository) inRepository, addedEntities, report);
 		}
 
 		Iterator<Entity> inIterator = inRepository.iterator();
@@ -195,7 +220,7 @@ public class VcfImporterService implements ImportService
 				{
 					Entity entity = inIterator.next();
 
-					Iterable<Entity> samples = entity.getEntities(VcfRepository.SAMPLES);
+					Iterable<Entity> samples = entity.getEntities(sampleAttribute.getName());
 					if (samples != null)
 					{
 						Iterator<Entity> sampleIterator = samples.iterator();
@@ -245,6 +270,39 @@ public class VcfImporterService implements ImportService
 		return report;
 	}
 
+	private Repository addSampleRepository(EntityMetaData sampleEntityMetaData, List<EntityMetaData> addedEntities)
+	{
+		DefaultEntityMetaData samplesEntityMetaData = new DefaultEntityMetaData(sampleEntityMetaData);
+		samplesEntityMetaData.setBackend(BACKEND);
+		Repository sampleRepository = dataService.getMeta().addEntityMeta(samplesEntityMetaData);
+		permissionSystemService.giveUserEntityPermissions(SecurityContextHolder.getContext(),
+				Collections.singletonList(samplesEntityMetaData.getName()));
+		addedEntities.add(sampleEntityMetaData);
+		return sampleRepository;
+	}
+
+	/**
+	 * Imports the sample names of a VCF file that stores its sample values column wise
+	 */
+	private void importSampleNames(VcfRepository inRepository, List<EntityMetaData> addedEntities,
+			EntityImportReport report)
+	{
+		EntityMetaData sampleNameEntityMetaData = inRepository.getSampleNameEntityMetaData();
+		if (sampleNameEntityMetaData != null)
+		{
+			Repository sampleNameRepository = addSampleRepository(sampleNameEntityMetaData, addedEntities);
+			List<Entity> sampleNameEntities = inRepository.getSampleNameEntities();
+			sampleNameRepository.add(sampleNameEntities.stream());
+			sampleNameRepository.flush();
+
+			report.addNewEntity(sampleNameRepository.getName());
+			if (!sampleNameEntities.isEmpty())
+			{
+				report.addEntityCount(sampleNameRepository.getName(), sampleNameEntities.size());
+			}
+		}
+	}
+
 	@Override
 	public int getOrder()
 	{
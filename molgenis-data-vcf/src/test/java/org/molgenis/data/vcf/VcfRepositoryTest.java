@@ -1,11 +1,13 @@
 package org.molgenis.data.vcf;
 
+import com.google.common.collect.Iterables;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.RepositoryCollection;
+import org.molgenis.data.vcf.datastructures.VariantSamples;
 import org.molgenis.fieldtypes.FieldType;
 import org.springframework.util.FileCopyUtils;
 import org.testng.annotations.BeforeClass;
@@ -16,10 +18,16 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 public class VcfRepositoryTest
@@ -139,6 +147,90 @@ public class VcfRepositoryTest
 		}
 	}
 
+	@Test
+	public void spliteratorParallel() throws IOException
+	{
+		RepositoryCollection collection = new VcfRepositoryCollection(testdata);
+		VcfRepository vcfRepository = (VcfRepository) collection.getRepository("testdata");
+		try
+		{
+			List<Object> positions = StreamSupport.stream(vcfRepository.spliterator(), true)
+					.map(entity -> entity.get(VcfRepository.POS)).collect(Collectors.toList());
+			assertEquals(positions,
+					Arrays.asList(565286, 2243618, 3171929, 3172062, 3172273, 6097450, 7569187));
+		}
+		finally
+		{
+			vcfRepository.close();
+		}
+	}
+
+	@Test
+	public void iteratorLargeFile() throws IOException
+	{
+		File largeFile = new File(FileUtils.getTempDirectory(), "testlargefile.vcf");
+		List<String> lines = FileUtils.readLines(testdata, "UTF-8");
+		String dataLine = lines.stream().filter(line -> !line.startsWith("#")).findFirst().get();
+		int nrDataLines = 0;
+		try (PrintWriter writer = new PrintWriter(largeFile, "UTF-8"))
+		{
+			lines.stream().filter(line -> line.startsWith("#")).forEach(writer::println);
+			while (largeFile.length() < VcfRepository.PARALLEL_PARSE_MIN_FILE_SIZE)
+			{
+				writer.println(dataLine.replace("565286", String.valueOf(++nrDataLines)));
+				writer.flush();
+			}
+		}
+
+		RepositoryCollection collection = new VcfRepositoryCollection(largeFile);
+		VcfRepository vcfRepository = (VcfRepository) collection.getRepository("testlargefile");
+		try
+		{
+			int pos = 0;
+			for (Entity entity : vcfRepository)
+			{
+				assertEquals(entity.get(VcfRepository.POS), ++pos);
+			}
+			assertEquals(pos, nrDataLines);
+			assertEquals(vcfRepository.count(), nrDataLines);
+		}
+		finally
+		{
+			vcfRepository.close();
+			largeFile.delete();
+		}
+	}
+
+	@Test
+	public void count() throws IOException
+	{
+		RepositoryCollection collection = new VcfRepositoryCollection(testdata);
+		VcfRepository vcfRepository = (VcfRepository) collection.getRepository("testdata");
+		try
+		{
+			assertEquals(vcfRepository.count(), 7);
+		}
+		finally
+		{
+			vcfRepository.close();
+		}
+	}
+
+	@Test
+	public void count_noValues() throws IOException
+	{
+		RepositoryCollection collection = new VcfRepositoryCollection(testnodata);
+		VcfRepository vcfRepository = (VcfRepository) collection.getRepository("testnodata");
+		try
+		{
+			assertEquals(vcfRepository.count(), 0);
+		}
+		finally
+		{
+			vcfRepository.close();
+		}
+	}
+
 	@Test
 	public void iterator_noValues() throws IOException
 	{
@@ -155,4 +247,94 @@ public class VcfRepositoryTest
 		}
 	}
 
+	@Test
+	public void columnarSamplesAboveThreshold() throws IOException
+	{
+		int nrSamples = VcfRepositoryCollection.getColumnarSamplesThreshold() + 1;
+		VcfRepository vcfRepository = createSamplesRepository("columnar", nrSamples);
+		try
+		{
+			assertNull(vcfRepository.getEntityMetaData().getAttribute(VcfRepository.SAMPLES));
+			assertEquals(vcfRepository.getSampleNameEntities().size(), nrSamples);
+
+			Entity entity = vcfRepository.iterator().next();
+			VariantSamples variantSamples = VariantSamples.get(entity);
+			assertEquals(variantSamples.getNrSamples(), nrSamples);
+			assertEquals(variantSamples.getValue(nrSamples - 1, "GT"), "1/1");
+			assertEquals(VariantSamples.getSampleNames(vcfRepository.getSampleNameEntities()).get(nrSamples - 1),
+					"S" + (nrSamples - 1));
+		}
+		finally
+		{
+			vcfRepository.close();
+		}
+	}
+
+	@Test
+	public void columnarSamplesAtThreshold() throws IOException
+	{
+		int nrSamples = VcfRepositoryCollection.getColumnarSamplesThreshold();
+		VcfRepository vcfRepository = createSamplesRepository("notcolumnar", nrSamples);
+		try
+		{
+			assertNull(vcfRepository.getEntityMetaData().getAttribute(VcfRepository.SAMPLES_DATA));
+			assertNull(vcfRepository.getSampleNameEntityMetaData());
+
+			Entity entity = vcfRepository.iterator().next();
+			assertEquals(Iterables.size(entity.getEntities(VcfRepository.SAMPLES)), nrSamples);
+		}
+		finally
+		{
+			vcfRepository.close();
+		}
+	}
+
+	@Test
+	public void columnarSamplesThresholdProperty() throws IOException
+	{
+		System.setProperty(VcfRepositoryCollection.COLUMNAR_SAMPLES_THRESHOLD_PROPERTY, "2");
+		VcfRepository vcfRepository;
+		try
+		{
+			vcfRepository = createSamplesRepository("columnarproperty", 3);
+		}
+		finally
+		{
+			System.clearProperty(VcfRepositoryCollection.COLUMNAR_SAMPLES_THRESHOLD_PROPERTY);
+		}
+		try
+		{
+			assertNull(vcfRepository.getEntityMetaData().getAttribute(VcfRepository.SAMPLES));
+			assertEquals(VariantSamples.get(vcfRepository.iterator().next()).getNrSamples(), 3);
+		}
+		finally
+		{
+			vcfRepository.close();
+		}
+	}
+
+	/**
+	 * Creates a repository for a VCF file with one variant with the given number of samples
+	 */
+	private static VcfRepository createSamplesRepository(String entityName, int nrSamples) throws IOException
+	{
+		StringBuilder strBuilder = new StringBuilder();
+		strBuilder.append("##fileformat=VCFv4.1\n");
+		strBuilder.append("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+		strBuilder.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT");
+		for (int i = 0; i < nrSamples; ++i)
+		{
+			strBuilder.append("\tS").append(i);
+		}
+		strBuilder.append("\n1\t565286\trs1578391\tC\tT\t.\tPASS\t.\tGT");
+		for (int i = 0; i < nrSamples; ++i)
+		{
+			strBuilder.append(i < nrSamples - 1 ? "\t0/1" : "\t1/1");
+		}
+		strBuilder.append('\n');
+
+		File file = new File(FileUtils.getTempDirectory(), entityName + ".vcf");
+		FileUtils.writeStringToFile(file, strBuilder.toString(), "UTF-8");
+		return (VcfRepository) new VcfRepositoryCollection(file).getRepository(entityName);
+	}
 }
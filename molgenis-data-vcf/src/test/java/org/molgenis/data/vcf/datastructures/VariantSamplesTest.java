@@ -0,0 +1,149 @@
+package org.molgenis.data.vcf.datastructures;
+
+import static java.util.Arrays.asList;
+import static org.molgenis.data.vcf.VcfRepository.ID;
+import static org.molgenis.data.vcf.VcfRepository.NAME;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLES_DATA;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_FORMAT;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_OFFSET;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_VALUES;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_NAME_INDEX;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.support.MapEntity;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class VariantSamplesTest
+{
+	private VariantSamples variantSamples;
+
+	@BeforeMethod
+	public void beforeMethod()
+	{
+		String[][] values = new String[][]
+		{
+				{ "0/1", "1/1", "0/0" },
+				{ "12", null, "7" } };
+		variantSamples = new VariantSamples(asList("GT", "DP"), values);
+	}
+
+	@Test
+	public void getValue()
+	{
+		assertEquals(variantSamples.getValue(1, "GT"), "1/1");
+		assertNull(variantSamples.getValue(1, "DP"));
+		assertNull(variantSamples.getValue(1, "GQ"));
+	}
+
+	@Test
+	public void getValues()
+	{
+		assertEquals(variantSamples.getValues("DP"), asList("12", null, "7"));
+		assertNull(variantSamples.getValues("GQ"));
+	}
+
+	@Test
+	public void getSampleValues()
+	{
+		Map<String, String> sampleValues = new LinkedHashMap<>();
+		sampleValues.put("GT", "0/0");
+		sampleValues.put("DP", "7");
+		assertEquals(variantSamples.getSampleValues(2), sampleValues);
+	}
+
+	@Test
+	public void toEntitiesFromEntities()
+	{
+		List<Entity> sampleDataEntities = variantSamples.toEntities("variant", MapEntity::new);
+		assertEquals(sampleDataEntities.size(), 2);
+		Entity sampleDataEntity = sampleDataEntities.get(1);
+		assertEquals(sampleDataEntity.getString(ID), "variant_DP_0");
+		assertEquals(sampleDataEntity.getString(SAMPLE_DATA_FORMAT), "DP");
+		assertEquals(sampleDataEntity.getInt(SAMPLE_DATA_OFFSET), Integer.valueOf(0));
+		assertEquals(sampleDataEntity.getString(SAMPLE_DATA_VALUES), "12\t\t7");
+
+		VariantSamples fromEntitiesVariantSamples = VariantSamples.fromEntities(sampleDataEntities);
+		assertEquals(fromEntitiesVariantSamples.getFormat(), asList("GT", "DP"));
+		assertEquals(fromEntitiesVariantSamples.getNrSamples(), 3);
+		assertEquals(fromEntitiesVariantSamples.getValues("GT"), asList("0/1", "1/1", "0/0"));
+		assertEquals(fromEntitiesVariantSamples.getValues("DP"), asList("12", null, "7"));
+	}
+
+	@Test
+	public void toEntitiesFromEntitiesManySamples()
+	{
+		// more samples than fit in the values of one sample data entity
+		int nrSamples = 50000;
+		String[] genotypes = new String[nrSamples];
+		Arrays.fill(genotypes, "0/1");
+		genotypes[nrSamples - 1] = null;
+		VariantSamples manyVariantSamples = new VariantSamples(asList("GT"), new String[][]
+		{ genotypes });
+
+		List<Entity> sampleDataEntities = manyVariantSamples.toEntities("variant", MapEntity::new);
+		assertTrue(sampleDataEntities.size() > 1);
+		for (Entity sampleDataEntity : sampleDataEntities)
+		{
+			assertTrue(sampleDataEntity.getString(SAMPLE_DATA_VALUES).length() <= VariantSamples.MAX_VALUES_LENGTH);
+		}
+
+		List<Entity> reversedSampleDataEntities = new ArrayList<>(sampleDataEntities);
+		Collections.reverse(reversedSampleDataEntities);
+		VariantSamples fromEntitiesVariantSamples = VariantSamples.fromEntities(reversedSampleDataEntities);
+		assertEquals(fromEntitiesVariantSamples.getValues("GT"), asList(genotypes));
+
+		Entity variant = new MapEntity();
+		variant.set(SAMPLES_DATA, reversedSampleDataEntities);
+		assertEquals(VariantSamples.getValues(asList(variant), 0, "GT"), asList("0/1"));
+		assertEquals(VariantSamples.getValues(asList(variant), nrSamples - 2, "GT"), asList("0/1"));
+		assertEquals(VariantSamples.getValues(asList(variant), nrSamples - 1, "GT"), asList((String) null));
+		assertEquals(VariantSamples.getValues(asList(variant), nrSamples, "GT"), asList((String) null));
+	}
+
+	@Test(expectedExceptions = MolgenisDataException.class)
+	public void toEntitiesValueTooLong()
+	{
+		String value = StringUtils.repeat('0', VariantSamples.MAX_VALUES_LENGTH + 1);
+		new VariantSamples(asList("GT"), new String[][]
+		{
+				{ value } }).toEntities("variant", MapEntity::new);
+	}
+
+	@Test
+	public void getValuesVariants()
+	{
+		Entity variant = new MapEntity();
+		variant.set(SAMPLES_DATA, variantSamples.toEntities("variant", MapEntity::new));
+		Entity otherVariant = new MapEntity();
+		otherVariant.set(SAMPLES_DATA, new VariantSamples(asList("GT"), new String[][]
+		{
+				{ "1/1", "0/0", "0/1" } }).toEntities("otherVariant", MapEntity::new));
+		assertEquals(VariantSamples.getValues(asList(variant, otherVariant, new MapEntity()), 2, "GT"),
+				asList("0/0", "0/1", null));
+	}
+
+	@Test
+	public void getSampleNames()
+	{
+		Entity sampleName0 = new MapEntity();
+		sampleName0.set(NAME, "sample0");
+		sampleName0.set(SAMPLE_NAME_INDEX, 0);
+		Entity sampleName1 = new MapEntity();
+		sampleName1.set(NAME, "sample1");
+		sampleName1.set(SAMPLE_NAME_INDEX, 1);
+		assertEquals(VariantSamples.getSampleNames(asList(sampleName1, sampleName0)), asList("sample0", "sample1"));
+	}
+}
@@ -1,5 +1,6 @@
 package org.molgenis.data.vcf.format;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.AttributeMetaData;
@@ -8,6 +9,7 @@ import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.support.DefaultAttributeMetaData;
 import org.molgenis.data.support.DefaultEntityMetaData;
 import org.molgenis.data.support.MapEntity;
+import org.molgenis.data.vcf.datastructures.VariantSamples;
 import org.molgenis.vcf.VcfReader;
 import org.molgenis.vcf.VcfRecord;
 import org.molgenis.vcf.meta.VcfMeta;
@@ -18,6 +20,10 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
 import static org.molgenis.data.vcf.VcfRepository.ALT_META;
@@ -29,10 +35,19 @@ import static org.molgenis.data.vcf.VcfRepository.INTERNAL_ID;
 import static org.molgenis.data.vcf.VcfRepository.POS_META;
 import static org.molgenis.data.vcf.VcfRepository.QUAL_META;
 import static org.molgenis.data.vcf.VcfRepository.REF_META;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLES;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLES_DATA;
+import static org.molgenis.data.vcf.VcfRepository.SAMPLE_DATA_VALUES;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 
 public class VcfToEntityTest
 {
+	private static final String HEADERS_SAMPLES = "##fileformat=VCFv4.1\n"
+			+ "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n"
+			+ "##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read depth\">\n"
+			+ "#CHROM	POS	ID	REF	ALT	QUAL	FILTER	INFO	FORMAT	S0	S1	S2\n";
+
 	private VcfToEntity vcfToEntitySmall;
 	private VcfMeta vcfMetaSmall;
 
@@ -110,7 +125,7 @@ public class VcfToEntityTest
 		expected.set("DF", true);
 		// Flag fields whose flag is not present are set to false
 		expected.set("DF2", false);
-		assertEquals(entity, expected);
+		assertEqualValues(entity, expected);
 	}
 
 	@Test
@@ -130,6 +145,77 @@ public class VcfToEntityTest
 		expected.set("INTERNAL_ID", entity.get("INTERNAL_ID"));
 		expected.set("DF", true);
 		expected.set("DF2", true);
-		assertEquals(entity, expected);
+		assertEqualValues(entity, expected);
+	}
+
+	@Test
+	public void testGetEntityMetaDataColumnarSamples() throws IOException
+	{
+		VcfToEntity vcfToEntity = new VcfToEntity("EntityName", parseHeaders(HEADERS_SAMPLES), true);
+		EntityMetaData entityMetaData = vcfToEntity.getEntityMetaData();
+		assertNull(entityMetaData.getAttribute(SAMPLES));
+		AttributeMetaData samplesDataAttr = entityMetaData.getAttribute(SAMPLES_DATA);
+		assertEquals(samplesDataAttr.getDataType(), MolgenisFieldTypes.MREF);
+		assertEquals(samplesDataAttr.getRefEntity().getName(), "EntityName_SampleData");
+		assertEquals(samplesDataAttr.getRefEntity().getAttribute(SAMPLE_DATA_VALUES).getDataType(),
+				MolgenisFieldTypes.TEXT);
+		assertEquals(vcfToEntity.getSampleNameEntityMetaData().getName(), "EntityName_SampleName");
+	}
+
+	@Test
+	public void testToEntityColumnarSamples() throws IOException
+	{
+		VcfMeta vcfMeta = parseHeaders(HEADERS_SAMPLES);
+		VcfToEntity vcfToEntity = new VcfToEntity("EntityName", vcfMeta, true);
+		VcfRecord record = new VcfRecord(vcfMeta, new String[]
+		{ "10", "12345", "id3", "A", "C", "7.9123", "pass", ".", "GT:DP", "0/1:12", "1/1:3", "0/0:7" });
+		Entity entity = vcfToEntity.toEntity(record);
+		assertNull(entity.get(SAMPLES));
+
+		VariantSamples variantSamples = VariantSamples.get(entity);
+		assertEquals(variantSamples.getFormat(), Arrays.asList("GT", "DP"));
+		assertEquals(variantSamples.getValues("GT"), Arrays.asList("0/1", "1/1", "0/0"));
+		assertEquals(variantSamples.getValues("DP"), Arrays.asList("12", "3", "7"));
+		for (Entity sampleDataEntity : entity.getEntities(SAMPLES_DATA))
+		{
+			assertEquals(sampleDataEntity.getEntityMetaData().getName(), "EntityName_SampleData");
+		}
+
+		List<Entity> sampleNameEntities = vcfToEntity.createSampleNameEntities();
+		assertEquals(VariantSamples.getSampleNames(sampleNameEntities), Arrays.asList("S0", "S1", "S2"));
+	}
+
+	@Test
+	public void testToEntityNotColumnarSamples() throws IOException
+	{
+		VcfMeta vcfMeta = parseHeaders(HEADERS_SAMPLES);
+		VcfToEntity vcfToEntity = new VcfToEntity("EntityName", vcfMeta, false);
+		assertNull(vcfToEntity.getEntityMetaData().getAttribute(SAMPLES_DATA));
+		assertNull(vcfToEntity.getSampleNameEntityMetaData());
+		assertEquals(vcfToEntity.createSampleNameEntities(), Collections.emptyList());
+
+		VcfRecord record = new VcfRecord(vcfMeta, new String[]
+		{ "10", "12345", "id3", "A", "C", "7.9123", "pass", ".", "GT:DP", "0/1:12", "1/1:3", "0/0:7" });
+		assertEquals(Iterables.size(vcfToEntity.toEntity(record).getEntities(SAMPLES)), 3);
+	}
+
+	/**
+	 * Compares the entity meta data and the attribute values of entities of different implementations
+	 */
+	private static void assertEqualValues(Entity entity, Entity expected)
+	{
+		assertEquals(entity.getEntityMetaData(), expected.getEntityMetaData());
+		assertEquals(getValues(entity), getValues(expected));
+	}
+
+	private static Map<String, Object> getValues(Entity entity)
+	{
+		Map<String, Object> values = new HashMap<>();
+		for (String attributeName : entity.getAttributeNames())
+		{
+			Object value = entity.get(attributeName);
+			if (value != null) values.put(attributeName, value);
+		}
+		return values;
 	}
 }
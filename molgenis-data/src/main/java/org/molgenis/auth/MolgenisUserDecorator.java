@@ -10,6 +10,7 @@ import java.util.stream.Stream;
 import org.molgenis.data.AggregateQuery;
 import org.molgenis.data.AggregateResult;
 import org.molgenis.data.DataService;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.EntityMetaData;
@@ -244,6 +245,12 @@ public class MolgenisUserDecorator implements Repository
 		return decoratedRepository.findAll(q);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		return decoratedRepository.findAllWithTotal(q);
+	}
+
 	@Override
 	public Entity findOne(Query q)
 	{
@@ -274,6 +281,12 @@ public class MolgenisUserDecorator implements Repository
 		return decoratedRepository.findAll(ids, fetch);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		return decoratedRepository.existingIds(ids);
+	}
+
 	@Override
 	public void delete(Entity entity)
 	{
@@ -122,6 +122,12 @@ public class AutoValueRepositoryDecorator implements Repository
 		return decoratedRepository.findAll(q);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		return decoratedRepository.findAllWithTotal(q);
+	}
+
 	@Override
 	public Entity findOne(Query q)
 	{
@@ -152,6 +158,12 @@ public class AutoValueRepositoryDecorator implements Repository
 		return decoratedRepository.findAll(ids, fetch);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		return decoratedRepository.existingIds(ids);
+	}
+
 	@Override
 	public AggregateResult aggregate(AggregateQuery aggregateQuery)
 	{
@@ -1,14 +1,17 @@
 package org.molgenis.data;
 
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.support.ExpressionEvaluatorRegistry.getExpressionEvaluators;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.molgenis.data.support.EntityWithComputedAttributes;
+import org.molgenis.data.support.ExpressionEvaluator;
 
 public class ComputedEntityValuesDecorator implements Repository
 {
@@ -63,6 +66,15 @@ public class ComputedEntityValuesDecorator implements Repository
 		return toComputedValuesEntities(entities);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		EntitiesWithTotal entitiesWithTotal = decoratedRepo.findAllWithTotal(q);
+		// compute values with attributes with expressions
+		return new EntitiesWithTotal(toComputedValuesEntities(entitiesWithTotal.getEntities()),
+				entitiesWithTotal.getTotal());
+	}
+
 	@Override
 	public void close() throws IOException
 	{
@@ -125,6 +137,12 @@ public class ComputedEntityValuesDecorator implements Repository
 		return toComputedValuesEntities(entities);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		return decoratedRepo.existingIds(ids);
+	}
+
 	@Override
 	public AggregateResult aggregate(AggregateQuery aggregateQuery)
 	{
@@ -229,9 +247,10 @@ public class ComputedEntityValuesDecorator implements Repository
 
 	private Entity toComputedValuesEntity(Entity entity)
 	{
-		if (getEntityMetaData().hasAttributeWithExpression())
+		EntityMetaData entityMeta = getEntityMetaData();
+		if (entityMeta.hasAttributeWithExpression())
 		{
-			return new EntityWithComputedAttributes(entity);
+			return new EntityWithComputedAttributes(entity, getExpressionEvaluators(entityMeta));
 		}
 		else
 		{
@@ -241,15 +260,18 @@ public class ComputedEntityValuesDecorator implements Repository
 
 	private Iterable<Entity> toComputedValuesEntities(Iterable<Entity> entities)
 	{
-		if (getEntityMetaData().hasAttributeWithExpression())
+		EntityMetaData entityMeta = getEntityMetaData();
+		if (entityMeta.hasAttributeWithExpression())
 		{
 			return new Iterable<Entity>()
 			{
 				@Override
 				public Iterator<Entity> iterator()
 				{
+					Map<String, ExpressionEvaluator> expressionEvaluators = getExpressionEvaluators(entityMeta);
 					return StreamSupport.stream(entities.spliterator(), false)
-							.map(entity -> (Entity) new EntityWithComputedAttributes(entity)).iterator();
+							.map(entity -> (Entity) new EntityWithComputedAttributes(entity, expressionEvaluators))
+							.iterator();
 				}
 			};
 		}
@@ -274,10 +296,13 @@ public class ComputedEntityValuesDecorator implements Repository
 
 	private Stream<Entity> toComputedValuesEntities(Stream<Entity> entities)
 	{
-		if (getEntityMetaData().hasAttributeWithExpression())
+		EntityMetaData entityMeta = getEntityMetaData();
+		if (entityMeta.hasAttributeWithExpression())
 		{
+			// evaluators are created once for all entities instead of for each entity
+			Map<String, ExpressionEvaluator> expressionEvaluators = getExpressionEvaluators(entityMeta);
 			return entities.map(entity -> {
-				return new EntityWithComputedAttributes(entity);
+				return new EntityWithComputedAttributes(entity, expressionEvaluators);
 			});
 		}
 		else
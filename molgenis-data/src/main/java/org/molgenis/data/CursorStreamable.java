@@ -0,0 +1,22 @@
+package org.molgenis.data;
+
+import java.util.stream.Stream;
+
+/**
+ * Repository that can read all entities from a single database cursor instead of in batches.
+ * 
+ * The returned stream holds on to a database connection until it is read to the end or closed. Only use it when the
+ * whole stream is consumed and closed, e.g. when rebuilding an index, and use {@link Repository#stream(Fetch)}
+ * otherwise.
+ */
+public interface CursorStreamable
+{
+	/**
+	 * Streams all entities from a single database cursor, the stream must be closed after use.
+	 * 
+	 * @param fetch
+	 *            fetch that defines which attributes to retrieve, can be null
+	 * @return stream of all entities
+	 */
+	Stream<Entity> cursorStream(Fetch fetch);
+}
@@ -140,6 +140,18 @@ public interface DataService extends Iterable<Repository>
 	 */
 	Stream<Entity> findAll(String entityName, Query q);
 
+	/**
+	 * Find entities that match a query together with the total number of entities that match the query regardless of
+	 * the query offset and page size.
+	 * 
+	 * @throws MolgenisDataAccessException
+	 * 
+	 * @param entityName
+	 *            entity name (case insensitive)
+	 * @return entities and total, never null
+	 */
+	EntitiesWithTotal findAllWithTotal(String entityName, Query q);
+
 	/**
 	 * Type-safe find entities that match a query
 	 * 
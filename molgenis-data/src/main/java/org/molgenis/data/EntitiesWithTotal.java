@@ -0,0 +1,34 @@
+package org.molgenis.data;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.stream.Stream;
+
+/**
+ * Entities that match a query together with the total number of entities that match the query regardless of the
+ * query offset and page size.
+ */
+public class EntitiesWithTotal
+{
+	private final Stream<Entity> entities;
+	private final long total;
+
+	public EntitiesWithTotal(Stream<Entity> entities, long total)
+	{
+		this.entities = requireNonNull(entities);
+		this.total = total;
+	}
+
+	/**
+	 * Returns the entities that match the query, the stream can only be consumed once
+	 */
+	public Stream<Entity> getEntities()
+	{
+		return entities;
+	}
+
+	public long getTotal()
+	{
+		return total;
+	}
+}
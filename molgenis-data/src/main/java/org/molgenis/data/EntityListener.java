@@ -1,7 +1,8 @@
 package org.molgenis.data;
 
 /**
- * Entity listeners can be added to repositories to listen to changes in entities with a given id.
+ * Entity listeners can be added to repositories to listen to changes in entities with a given id. Entity listeners
+ * with a null entity id listen to changes in all entities of the repository.
  */
 public interface EntityListener
 {
@@ -19,4 +20,24 @@ public interface EntityListener
 	 *            the updated entity
 	 */
 	public void postUpdate(Entity entity);
+
+	/**
+	 * Callback that is fired when an entity is added, only fired for listeners of all entities.
+	 * 
+	 * @param entity
+	 *            the added entity
+	 */
+	public default void postAdd(Entity entity)
+	{
+	}
+
+	/**
+	 * Callback that is fired when the entity with the given id is deleted.
+	 * 
+	 * @param entityId
+	 *            id of the deleted entity, null if all entities of the repository were deleted
+	 */
+	public default void postDelete(Object entityId)
+	{
+	}
 }
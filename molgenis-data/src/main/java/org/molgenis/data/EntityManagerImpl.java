@@ -3,15 +3,15 @@ package org.molgenis.data;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.StreamSupport.stream;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -25,6 +25,8 @@ import org.molgenis.util.BatchingIterable;
 import org.molgenis.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.SetMultimap;
@@ -35,6 +37,10 @@ import com.google.common.collect.SetMultimap;
 public class EntityManagerImpl implements EntityManager
 {
 	private static final int BATCH_SIZE = 100;
+	/**
+	 * Maximum number of referenced entities cached per referenced entity and fetch during one resolve call
+	 */
+	private static final int REFERENCE_CACHE_SIZE = 10000;
 
 	private final DataService dataService;
 
@@ -80,8 +86,8 @@ public class EntityManagerImpl implements EntityManager
 			};
 		}
 
-		// no fetch exists that described what to resolve
-		if (fetch == null)
+		// no fetch exists that described what to resolve or references are resolved by the caller
+		if (fetch == null || fetch instanceof CallerResolvedFetch)
 		{
 			return entities;
 		}
@@ -99,11 +105,13 @@ public class EntityManagerImpl implements EntityManager
 		return new BatchingIterable<Entity>(BATCH_SIZE)
 		{
 			private Iterator<List<Entity>> it;
+			private ReferenceCache referenceCache;
 
 			@Override
 			public Iterator<Entity> iterator()
 			{
 				it = Iterators.partition(batchingEntities.iterator(), BATCH_SIZE);
+				referenceCache = new ReferenceCache();
 				return super.iterator();
 			}
 
@@ -117,7 +125,7 @@ public class EntityManagerImpl implements EntityManager
 				}
 				else
 				{
-					return resolveReferences(resolvableAttrs, entities, fetch);
+					return resolveReferences(resolvableAttrs, entities, fetch, referenceCache);
 				}
 			}
 		};
@@ -133,8 +141,8 @@ public class EntityManagerImpl implements EntityManager
 			return dataService.findAll(entityMeta.getName(), entities.map(Entity::getIdValue), fetch);
 		}
 
-		// no fetch exists that described what to resolve
-		if (fetch == null)
+		// no fetch exists that described what to resolve or references are resolved by the caller
+		if (fetch == null || fetch instanceof CallerResolvedFetch)
 		{
 			return entities;
 		}
@@ -147,137 +155,216 @@ public class EntityManagerImpl implements EntityManager
 			return entities;
 		}
 
+		// referenced entities retrieved for one batch are reused by the following batches
+		ReferenceCache referenceCache = new ReferenceCache();
 		Iterable<List<Entity>> iterable = () -> Iterators.partition(entities.iterator(), BATCH_SIZE);
 		return stream(iterable.spliterator(), false).flatMap(batch -> {
-			List<Entity> batchWithReferences = resolveReferences(resolvableAttrs, batch, fetch);
+			List<Entity> batchWithReferences = resolveReferences(resolvableAttrs, batch, fetch, referenceCache);
 			return batchWithReferences.stream();
 		});
 	}
 
-	private List<Entity> resolveReferences(List<AttributeMetaData> resolvableAttrs, List<Entity> entities, Fetch fetch)
+	/**
+	 * Resolves the references of a batch of entities breadth-first: for each level of the fetch all referenced entity
+	 * ids are collected per referenced entity and retrieved with one query per referenced entity.
+	 */
+	private List<Entity> resolveReferences(List<AttributeMetaData> resolvableAttrs, List<Entity> entities, Fetch fetch,
+			ReferenceCache referenceCache)
+	{
+		List<ReferenceResolution> resolutions = Collections
+				.singletonList(new ReferenceResolution(resolvableAttrs, entities, fetch));
+		while (!resolutions.isEmpty())
+		{
+			resolutions = resolveReferencesLevel(resolutions, referenceCache);
+		}
+		return entities;
+	}
+
+	/**
+	 * Resolves one level of references and returns the resolutions for the next level
+	 */
+	private List<ReferenceResolution> resolveReferencesLevel(List<ReferenceResolution> resolutions,
+			ReferenceCache referenceCache)
 	{
 		// entity name --> entity ids
-		SetMultimap<String, Object> lazyRefEntityIdsMap = HashMultimap.<String, Object> create(resolvableAttrs.size(),
-				16);
-		// entity name --> attributes referring to this entity
-		SetMultimap<String, AttributeMetaData> refEntityAttrsMap = HashMultimap
-				.<String, AttributeMetaData> create(resolvableAttrs.size(), 2);
+		SetMultimap<String, Object> lazyRefEntityIdsMap = HashMultimap.<String, Object> create();
+		// entity name --> fetch for the referenced entity which is a union of the fetches defined by attributes
+		// referencing this entity
+		Map<String, Fetch> refEntityFetchMap = new HashMap<>();
+		// entity name --> entity meta data
+		Map<String, EntityMetaData> refEntityMetaMap = new HashMap<>();
 
 		// fill maps
-		for (AttributeMetaData attr : resolvableAttrs)
+		for (ReferenceResolution resolution : resolutions)
 		{
-			String refEntityName = attr.getRefEntity().getName();
-
-			FieldType attrType = attr.getDataType();
-			if (attrType instanceof XrefField)
+			for (AttributeMetaData attr : resolution.getAttrs())
 			{
-				for (Entity entity : entities)
+				String refEntityName = attr.getRefEntity().getName();
+
+				FieldType attrType = attr.getDataType();
+				if (attrType instanceof XrefField)
 				{
-					Entity lazyRefEntity = entity.getEntity(attr.getName());
-					if (lazyRefEntity != null)
+					for (Entity entity : resolution.getEntities())
 					{
-						lazyRefEntityIdsMap.put(refEntityName, lazyRefEntity.getIdValue());
+						Entity lazyRefEntity = entity.getEntity(attr.getName());
+						if (lazyRefEntity != null)
+						{
+							lazyRefEntityIdsMap.put(refEntityName, lazyRefEntity.getIdValue());
+						}
+					}
+
+				}
+				else if (attrType instanceof MrefField)
+				{
+					for (Entity entity : resolution.getEntities())
+					{
+						Iterable<Entity> lazyRefEntities = entity.getEntities(attr.getName());
+						for (Entity lazyRefEntity : lazyRefEntities)
+						{
+							lazyRefEntityIdsMap.put(refEntityName, lazyRefEntity.getIdValue());
+						}
 					}
 				}
 
-			}
-			else if (attrType instanceof MrefField)
-			{
-				for (Entity entity : entities)
+				Fetch attrSubFetch = resolution.getFetch().getFetch(attr.getName());
+				if (!refEntityFetchMap.containsKey(refEntityName))
 				{
-					Iterable<Entity> lazyRefEntities = entity.getEntities(attr.getName());
-					for (Entity lazyRefEntity : lazyRefEntities)
+					refEntityFetchMap.put(refEntityName, attrSubFetch != null ? copyFetch(attrSubFetch) : null);
+				}
+				else
+				{
+					Fetch subFetch = refEntityFetchMap.get(refEntityName);
+					if (subFetch != null)
 					{
-						lazyRefEntityIdsMap.put(refEntityName, lazyRefEntity.getIdValue());
+						if (attrSubFetch != null)
+						{
+							for (Entry<String, Fetch> entry : attrSubFetch)
+							{
+								mergeFetches(subFetch, entry.getKey(), entry.getValue());
+							}
+						}
+						else
+						{
+							// prefer null value (=fetch all attributes) above other values (=filter some attributes)
+							refEntityFetchMap.put(refEntityName, null);
+						}
 					}
 				}
+				refEntityMetaMap.put(refEntityName, attr.getRefEntity());
 			}
-
-			refEntityAttrsMap.put(refEntityName, attr);
 		}
 
 		// batch retrieve referred entities and replace entity references with actual entities
+		List<ReferenceResolution> nextResolutions = new ArrayList<>();
 		for (Entry<String, Collection<Object>> entry : lazyRefEntityIdsMap.asMap().entrySet())
 		{
 			String refEntityName = entry.getKey();
+			Fetch subFetch = refEntityFetchMap.get(refEntityName);
 
-			// create a fetch for the referenced entity which is a union of the fetches defined by attributes
-			// referencing this entity
-			Set<AttributeMetaData> attrs = refEntityAttrsMap.get(refEntityName);
-			Fetch subFetch = createSubFetch(fetch, attrs);
+			List<Entity> retrievedRefEntities = new ArrayList<>();
+			Map<Object, Entity> refEntitiesIdMap = findAllReferences(refEntityName, entry.getValue(), subFetch,
+					referenceCache, retrievedRefEntities);
 
-			// retrieve referenced entities
-			Stream<Entity> refEntities = dataService.findAll(refEntityName, entry.getValue().stream(), subFetch);
-
-			Map<Object, Entity> refEntitiesIdMap = refEntities
-					.collect(Collectors.toMap(Entity::getIdValue, Function.identity()));
-
-			for (AttributeMetaData attr : attrs)
+			for (ReferenceResolution resolution : resolutions)
 			{
-				FieldType attrType = attr.getDataType();
-				if (attrType instanceof XrefField)
+				for (AttributeMetaData attr : resolution.getAttrs())
 				{
-					String attrName = attr.getName();
-					for (Entity entity : entities)
+					if (attr.getRefEntity().getName().equals(refEntityName))
 					{
-						Entity lazyRefEntity = entity.getEntity(attrName);
-						if (lazyRefEntity != null)
-						{
-							// replace lazy entity with real entity
-							Object refEntityId = lazyRefEntity.getIdValue();
-							Entity refEntity = refEntitiesIdMap.get(refEntityId);
-							entity.set(attrName, refEntity);
-						}
+						replaceReferences(attr, resolution.getEntities(), refEntitiesIdMap);
 					}
 				}
-				else if (attrType instanceof MrefField)
+			}
+
+			// the references of retrieved entities are resolved at the next level, cached entities were resolved before
+			if (subFetch != null && !retrievedRefEntities.isEmpty())
+			{
+				List<AttributeMetaData> refResolvableAttrs = getResolvableAttrs(refEntityMetaMap.get(refEntityName),
+						subFetch);
+				if (!refResolvableAttrs.isEmpty())
 				{
-					String attrName = attr.getName();
-					for (Entity entity : entities)
-					{
-						// replace lazy entities with real entities
-						Iterable<Entity> lazyRefEntities = entity.getEntities(attrName);
-						List<Entity> mrefEntities = stream(lazyRefEntities.spliterator(), true).map(lazyRefEntity -> {
-							// replace lazy entity with real entity
-							Object refEntityId = lazyRefEntity.getIdValue();
-							Entity refEntity = refEntitiesIdMap.get(refEntityId);
-							return refEntity;
-						}).collect(Collectors.toList());
-						entity.set(attrName, mrefEntities);
-					}
+					nextResolutions.add(new ReferenceResolution(refResolvableAttrs, retrievedRefEntities, subFetch));
 				}
 			}
 		}
-		return entities;
+		return nextResolutions;
+	}
+
+	/**
+	 * Retrieves referenced entities that were not retrieved before and adds them to retrievedRefEntities. The
+	 * references of the retrieved entities are not resolved by the repository, this entity manager resolves them at the
+	 * next level.
+	 */
+	private Map<Object, Entity> findAllReferences(String refEntityName, Collection<Object> refEntityIds,
+			Fetch subFetch, ReferenceCache referenceCache, List<Entity> retrievedRefEntities)
+	{
+		Cache<Object, Entity> refEntityCache = referenceCache.get(refEntityName, subFetch);
+		Map<Object, Entity> refEntitiesIdMap = new HashMap<>(refEntityCache.getAllPresent(refEntityIds));
+		if (refEntitiesIdMap.size() < refEntityIds.size())
+		{
+			Stream<Object> ids = refEntityIds.stream().filter(id -> !refEntitiesIdMap.containsKey(id));
+			Fetch refFetch = subFetch != null ? new CallerResolvedFetch(subFetch) : null;
+			dataService.findAll(refEntityName, ids, refFetch).forEach(refEntity -> {
+				refEntitiesIdMap.put(refEntity.getIdValue(), refEntity);
+				refEntityCache.put(refEntity.getIdValue(), refEntity);
+				retrievedRefEntities.add(refEntity);
+			});
+		}
+		return refEntitiesIdMap;
 	}
 
-	private Fetch createSubFetch(Fetch fetch, Iterable<AttributeMetaData> attrs)
+	private void replaceReferences(AttributeMetaData attr, List<Entity> entities, Map<Object, Entity> refEntitiesIdMap)
 	{
-		Fetch subFetch = null;
-		for (AttributeMetaData attr : attrs)
+		FieldType attrType = attr.getDataType();
+		if (attrType instanceof XrefField)
 		{
-			Fetch attrSubFetch = fetch.getFetch(attr.getName());
-			if (attrSubFetch != null)
+			String attrName = attr.getName();
+			for (Entity entity : entities)
 			{
-				// lazy creation
-				if (subFetch == null)
-				{
-					subFetch = new Fetch();
-				}
-
-				for (Entry<String, Fetch> entry : attrSubFetch)
+				Entity lazyRefEntity = entity.getEntity(attrName);
+				if (lazyRefEntity != null)
 				{
-					mergeFetches(subFetch, entry.getKey(), entry.getValue());
+					// replace lazy entity with real entity
+					Object refEntityId = lazyRefEntity.getIdValue();
+					Entity refEntity = refEntitiesIdMap.get(refEntityId);
+					entity.set(attrName, refEntity);
 				}
 			}
-			else
+		}
+		else if (attrType instanceof MrefField)
+		{
+			String attrName = attr.getName();
+			for (Entity entity : entities)
 			{
-				// prefer null value (=fetch all attributes) above other values (=filter some attributes)
-				subFetch = null;
-				break;
+				// replace lazy entities with real entities
+				Iterable<Entity> lazyRefEntities = entity.getEntities(attrName);
+				List<Entity> mrefEntities = stream(lazyRefEntities.spliterator(), true).map(lazyRefEntity -> {
+					// replace lazy entity with real entity
+					Object refEntityId = lazyRefEntity.getIdValue();
+					Entity refEntity = refEntitiesIdMap.get(refEntityId);
+					return refEntity;
+				}).collect(Collectors.toList());
+				entity.set(attrName, mrefEntities);
 			}
 		}
-		return subFetch;
+	}
+
+	/**
+	 * Returns a deep copy of the fetch, so that merging fetches does not modify the fetches of the caller
+	 */
+	private static Fetch copyFetch(Fetch fetch)
+	{
+		return copyFetch(fetch, new Fetch());
+	}
+
+	private static Fetch copyFetch(Fetch fetch, Fetch copy)
+	{
+		for (Entry<String, Fetch> entry : fetch)
+		{
+			Fetch subFetch = entry.getValue();
+			copy.field(entry.getKey(), subFetch != null ? copyFetch(subFetch) : null);
+		}
+		return copy;
 	}
 
 	private void mergeFetches(Fetch fetch, String field, Fetch subFetch)
@@ -305,7 +392,7 @@ public class EntityManagerImpl implements EntityManager
 		else
 		{
 			// first value for this field
-			fetch.field(field, subFetch);
+			fetch.field(field, copyFetch(subFetch));
 		}
 	}
 
@@ -324,6 +411,66 @@ public class EntityManagerImpl implements EntityManager
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Bounded cache of referenced entities that lives for the duration of one resolve call, shared by all batches of
+	 * that call. Referenced entities are cached per referenced entity name and fetch.
+	 */
+	private static class ReferenceCache
+	{
+		private final Map<String, Map<Fetch, Cache<Object, Entity>>> caches = new HashMap<>();
+
+		public Cache<Object, Entity> get(String entityName, Fetch fetch)
+		{
+			// fetch can be null, HashMap supports null keys
+			return caches.computeIfAbsent(entityName, key -> new HashMap<>()).computeIfAbsent(fetch,
+					key -> CacheBuilder.newBuilder().maximumSize(REFERENCE_CACHE_SIZE).build());
+		}
+	}
+
+	/**
+	 * Fetch with which this entity manager retrieves referenced entities whose references it resolves itself at the
+	 * next level. Reference resolution of the repositories is skipped for this fetch.
+	 */
+	private static class CallerResolvedFetch extends Fetch
+	{
+		public CallerResolvedFetch(Fetch fetch)
+		{
+			copyFetch(fetch, this);
+		}
+	}
+
+	/**
+	 * Reference attributes to resolve for a list of entities based on a fetch
+	 */
+	private static class ReferenceResolution
+	{
+		private final List<AttributeMetaData> attrs;
+		private final List<Entity> entities;
+		private final Fetch fetch;
+
+		public ReferenceResolution(List<AttributeMetaData> attrs, List<Entity> entities, Fetch fetch)
+		{
+			this.attrs = requireNonNull(attrs);
+			this.entities = requireNonNull(entities);
+			this.fetch = requireNonNull(fetch);
+		}
+
+		public List<AttributeMetaData> getAttrs()
+		{
+			return attrs;
+		}
+
+		public List<Entity> getEntities()
+		{
+			return entities;
+		}
+
+		public Fetch getFetch()
+		{
+			return fetch;
+		}
+	}
+
 	private class LazyEntityIterable implements Iterable<Entity>
 	{
 		private final EntityMetaData entityMeta;
@@ -64,6 +64,14 @@ public class EntityReferenceResolverDecorator implements Repository
 		return resolveEntityReferences(entities, q.getFetch());
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		EntitiesWithTotal entitiesWithTotal = decoratedRepo.findAllWithTotal(q);
+		return new EntitiesWithTotal(resolveEntityReferences(entitiesWithTotal.getEntities(), q.getFetch()),
+				entitiesWithTotal.getTotal());
+	}
+
 	@Override
 	public void close() throws IOException
 	{
@@ -126,6 +134,12 @@ public class EntityReferenceResolverDecorator implements Repository
 		return resolveEntityReferences(entities, fetch);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		return decoratedRepo.existingIds(ids);
+	}
+
 	@Override
 	public AggregateResult aggregate(AggregateQuery aggregateQuery)
 	{
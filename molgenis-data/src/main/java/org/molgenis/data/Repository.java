@@ -49,6 +49,18 @@ public interface Repository extends Iterable<Entity>, Closeable
 	 */
 	Stream<Entity> findAll(Query q);
 
+	/**
+	 * Find entities that match a query together with the total number of entities that match the query regardless of
+	 * the query offset and page size. Repositories with the {@link RepositoryCapability#TOTAL_COUNTABLE} capability
+	 * override this method to retrieve both in one backend call.
+	 * 
+	 * @return entities and total, never null
+	 */
+	default EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		return new EntitiesWithTotal(findAll(q), count(q));
+	}
+
 	/**
 	 * Find an entity base on a query
 	 * 
@@ -98,6 +110,20 @@ public interface Repository extends Iterable<Entity>, Closeable
 	 */
 	Stream<Entity> findAll(Stream<Object> ids, Fetch fetch);
 
+	/**
+	 * Returns the given IDs for which an entity exists. Implementations can override this method to check existence
+	 * without retrieving entities.
+	 * 
+	 * @param ids
+	 *            entity ids
+	 * @return (empty) Stream of ids of existing entities in no particular order, never null
+	 */
+	default Stream<Object> existingIds(Stream<Object> ids)
+	{
+		Fetch idFetch = new Fetch().field(getEntityMetaData().getIdAttribute().getName());
+		return findAll(ids, idFetch).map(Entity::getIdValue);
+	}
+
 	/**
 	 * 
 	 * @param aggregateQuery
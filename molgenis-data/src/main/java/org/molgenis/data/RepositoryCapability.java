@@ -25,5 +25,10 @@ public enum RepositoryCapability
 	/**
 	 * Repository index can be rebuilt
 	 */
-	INDEXABLE
+	INDEXABLE,
+
+	/**
+	 * Repository returns the entities that match a query and the total number of matching entities in one backend call
+	 */
+	TOTAL_COUNTABLE
 }
@@ -79,6 +79,13 @@ public class RepositorySecurityDecorator implements Repository
 		return decoratedRepository.findAll(q);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		validatePermission(decoratedRepository.getName(), Permission.READ);
+		return decoratedRepository.findAllWithTotal(q);
+	}
+
 	@Override
 	public Entity findOne(Query q)
 	{
@@ -114,6 +121,13 @@ public class RepositorySecurityDecorator implements Repository
 		return decoratedRepository.findAll(ids, fetch);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		validatePermission(decoratedRepository.getName(), Permission.READ);
+		return decoratedRepository.existingIds(ids);
+	}
+
 	@Override
 	public long count()
 	{
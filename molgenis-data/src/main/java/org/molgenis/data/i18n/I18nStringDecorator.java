@@ -8,6 +8,7 @@ import java.util.stream.Stream;
 
 import org.molgenis.data.AggregateQuery;
 import org.molgenis.data.AggregateResult;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.EntityMetaData;
@@ -90,6 +91,12 @@ public class I18nStringDecorator implements Repository
 		return decorated.findAll(q);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(Query q)
+	{
+		return decorated.findAllWithTotal(q);
+	}
+
 	@Override
 	public Entity findOne(Query q)
 	{
@@ -120,6 +127,12 @@ public class I18nStringDecorator implements Repository
 		return decorated.findAll(ids, fetch);
 	}
 
+	@Override
+	public Stream<Object> existingIds(Stream<Object> ids)
+	{
+		return decorated.existingIds(ids);
+	}
+
 	@Override
 	public AggregateResult aggregate(AggregateQuery aggregateQuery)
 	{
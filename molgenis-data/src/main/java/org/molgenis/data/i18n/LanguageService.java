@@ -3,30 +3,60 @@ package org.molgenis.data.i18n;
 import static java.util.stream.Collectors.toList;
 import static org.molgenis.security.core.runas.RunAsSystemProxy.runAsSystem;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
 
+import org.molgenis.auth.MolgenisUserMetaData;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.settings.AppSettings;
+import org.molgenis.data.support.CacheInvalidatingEntityListener;
 import org.molgenis.security.core.runas.RunAsSystem;
 import org.molgenis.security.core.utils.SecurityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 @Service
 public class LanguageService
 {
 	public static final String FALLBACK_LANGUAGE = "en";
+
+	private static final int CACHE_MAX_SIZE = 1000;
+	private static final long CACHE_EXPIRE_MINUTES = 30;
+
+	/** entities that determine the language of a user */
+	private static final List<String> USER_LANGUAGE_ENTITY_NAMES = Arrays.asList(MolgenisUserMetaData.ENTITY_NAME,
+			LanguageMetaData.ENTITY_NAME);
+
 	private final DataService dataService;
 	private final AppSettings appSettings;
+	/** username --> language code of the user */
+	private final Cache<String, Optional<String>> userLanguageCodeCache;
+	/** language code --> whether a language with the code is registered */
+	private final Cache<String, Boolean> isLanguageCache;
+	/** invalidates the caches when users or languages change */
+	private final CacheInvalidatingEntityListener cacheInvalidator;
 
 	@Autowired
 	public LanguageService(DataService dataService, AppSettings appSettings)
 	{
 		this.dataService = dataService;
 		this.appSettings = appSettings;
+		this.userLanguageCodeCache = CacheBuilder.newBuilder().maximumSize(CACHE_MAX_SIZE)
+				.expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).build();
+		this.isLanguageCache = CacheBuilder.newBuilder().maximumSize(CACHE_MAX_SIZE)
+				.expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).build();
+		this.cacheInvalidator = new CacheInvalidatingEntityListener(dataService, USER_LANGUAGE_ENTITY_NAMES, () -> {
+			userLanguageCodeCache.invalidateAll();
+			isLanguageCache.invalidateAll();
+		});
 	}
 
 	/**
@@ -64,19 +94,17 @@ public class LanguageService
 		String currentUserName = SecurityUtils.getCurrentUsername();
 
 		return runAsSystem(() -> {
+			boolean useCache = cacheInvalidator.addEntityListeners();
+
 			String languageCode = null;
 
 			if (currentUserName != null)
 			{
-				Entity user = dataService.query("MolgenisUser").eq("username", currentUserName).findOne();
-				if (user != null)
+				languageCode = useCache ? getCachedUserLanguageCode(currentUserName) : getUserLanguageCode(
+						currentUserName);
+				if ((languageCode != null) && !isLanguage(languageCode, useCache))
 				{
-					languageCode = user.getString("languageCode");
-					if ((languageCode != null)
-							&& (dataService.findOne(LanguageMetaData.ENTITY_NAME, languageCode) == null))
-					{
-						languageCode = null;
-					}
+					languageCode = null;
 				}
 			}
 
@@ -84,7 +112,7 @@ public class LanguageService
 			{
 				// Use app default
 				languageCode = appSettings.getLanguageCode();
-				if ((languageCode == null) || (dataService.findOne(LanguageMetaData.ENTITY_NAME, languageCode) == null))
+				if ((languageCode == null) || !isLanguage(languageCode, useCache))
 				{
 					languageCode = FALLBACK_LANGUAGE;
 				}
@@ -93,4 +121,30 @@ public class LanguageService
 			return languageCode;
 		});
 	}
+
+	private String getCachedUserLanguageCode(String username)
+	{
+		return cacheInvalidator.getOrLoad(userLanguageCodeCache, username,
+				() -> Optional.ofNullable(getUserLanguageCode(username))).orElse(null);
+	}
+
+	private String getUserLanguageCode(String username)
+	{
+		Entity user = dataService.query("MolgenisUser").eq("username", username).findOne();
+		return user != null ? user.getString("languageCode") : null;
+	}
+
+	private boolean isLanguage(String languageCode, boolean useCache)
+	{
+		if (!useCache)
+		{
+			return isLanguage(languageCode);
+		}
+		return cacheInvalidator.getOrLoad(isLanguageCache, languageCode, () -> isLanguage(languageCode));
+	}
+
+	private boolean isLanguage(String languageCode)
+	{
+		return dataService.findOne(LanguageMetaData.ENTITY_NAME, languageCode) != null;
+	}
 }
@@ -0,0 +1,164 @@
+package org.molgenis.data.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityMetaData;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * Compact Entity implementation that stores values in an array with one slot per atomic attribute. Values of
+ * attributes without a slot are stored in a map that is created on demand.
+ */
+public class ArrayEntity extends AbstractEntity
+{
+	private static final long serialVersionUID = 1L;
+
+	private final EntityMetaData entityMetaData;
+	private final AttributeSlots attributeSlots;
+	private final Object[] values;
+	private Map<String, Object> otherValues;
+
+	public ArrayEntity(EntityMetaData entityMetaData)
+	{
+		this(entityMetaData, AttributeSlots.of(entityMetaData));
+	}
+
+	/**
+	 * @param entityMetaData
+	 *            entity meta data, can be null
+	 * @param attributeSlots
+	 *            attribute slots
+	 */
+	public ArrayEntity(EntityMetaData entityMetaData, AttributeSlots attributeSlots)
+	{
+		this.entityMetaData = entityMetaData;
+		this.attributeSlots = requireNonNull(attributeSlots);
+		this.values = new Object[attributeSlots.size()];
+	}
+
+	@Override
+	public EntityMetaData getEntityMetaData()
+	{
+		return entityMetaData;
+	}
+
+	/**
+	 * Returns the names of the attribute slots followed by the names of other attributes that have a value
+	 */
+	@Override
+	public Iterable<String> getAttributeNames()
+	{
+		if (otherValues == null)
+		{
+			return attributeSlots.getNames();
+		}
+		return Iterables.concat(attributeSlots.getNames(), otherValues.keySet());
+	}
+
+	@Override
+	public Object getIdValue()
+	{
+		if (entityMetaData == null || entityMetaData.getIdAttribute() == null)
+		{
+			return null;
+		}
+		return get(entityMetaData.getIdAttribute().getName());
+	}
+
+	@Override
+	public String getLabelValue()
+	{
+		if (entityMetaData == null || entityMetaData.getLabelAttribute() == null)
+		{
+			return null;
+		}
+		return super.getLabelValue();
+	}
+
+	@Override
+	public Object get(String attributeName)
+	{
+		int slot = attributeSlots.indexOf(attributeName);
+		if (slot != -1)
+		{
+			return values[slot];
+		}
+		return otherValues != null ? otherValues.get(attributeName) : null;
+	}
+
+	@Override
+	public void set(String attributeName, Object value)
+	{
+		int slot = attributeSlots.indexOf(attributeName);
+		if (slot != -1)
+		{
+			values[slot] = value;
+		}
+		else
+		{
+			if (otherValues == null)
+			{
+				otherValues = new LinkedCaseInsensitiveMap<>();
+			}
+			otherValues.put(attributeName, value);
+		}
+	}
+
+	@Override
+	public void set(Entity other)
+	{
+		for (String attributeName : other.getAttributeNames())
+		{
+			set(attributeName, other.get(attributeName));
+		}
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int result = (entityMetaData == null) ? 0 : entityMetaData.hashCode();
+		for (String attributeName : getAttributeNames())
+		{
+			Object value = get(attributeName);
+			if (value != null)
+			{
+				result += attributeName.toLowerCase(Locale.ROOT).hashCode() ^ value.hashCode();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Array entities are equal if they have equal entity meta data and equal attribute values, regardless of their
+	 * attribute slots.
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		ArrayEntity other = (ArrayEntity) obj;
+		if (entityMetaData == null)
+		{
+			if (other.entityMetaData != null) return false;
+		}
+		else if (!entityMetaData.equals(other.entityMetaData)) return false;
+		for (String attributeName : getAttributeNames())
+		{
+			if (!Objects.equals(get(attributeName), other.get(attributeName))) return false;
+		}
+		for (String attributeName : other.getAttributeNames())
+		{
+			if (!Objects.equals(get(attributeName), other.get(attributeName))) return false;
+		}
+		return true;
+	}
+}
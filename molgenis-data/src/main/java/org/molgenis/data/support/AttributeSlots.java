@@ -0,0 +1,156 @@
+package org.molgenis.data.support;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.EntityMetaData;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Table of attribute name to slot index used by {@link ArrayEntity}. Attribute names are case insensitive, lookups
+ * with the exact attribute name do not require lower casing the name. Tables for entity meta data are created once
+ * per version of the entity meta data and are shared by all entities of this entity meta data.
+ */
+public final class AttributeSlots implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	static final AttributeSlots EMPTY = new AttributeSlots(Collections.emptyList());
+
+	/**
+	 * entity meta data (identity) --> attribute slots
+	 */
+	private static final Cache<EntityMetaData, AttributeSlots> ATTRIBUTE_SLOTS = CacheBuilder.newBuilder().weakKeys()
+			.build();
+
+	private final List<String> names;
+	private final Map<String, Integer> slots;
+	private final Map<String, Integer> lowerCaseSlots;
+	/**
+	 * atomic attributes of the entity meta data this table was created for, can be null
+	 */
+	private transient final Iterable<AttributeMetaData> atomicAttrs;
+
+	private AttributeSlots(List<String> names)
+	{
+		this(names, null);
+	}
+
+	private AttributeSlots(List<String> names, Iterable<AttributeMetaData> atomicAttrs)
+	{
+		this.names = Collections.unmodifiableList(names);
+		this.slots = new HashMap<>();
+		this.lowerCaseSlots = new HashMap<>();
+		for (int i = 0; i < names.size(); ++i)
+		{
+			String name = names.get(i);
+			slots.put(name, i);
+			lowerCaseSlots.putIfAbsent(name.toLowerCase(Locale.ROOT), i);
+		}
+		this.atomicAttrs = atomicAttrs;
+	}
+
+	/**
+	 * Returns the attribute slots of the atomic attributes of the given entity meta data
+	 */
+	public static AttributeSlots of(EntityMetaData entityMeta)
+	{
+		AttributeSlots attributeSlots = ATTRIBUTE_SLOTS.getIfPresent(entityMeta);
+		if (attributeSlots == null || !attributeSlots.isCurrent(entityMeta))
+		{
+			// entity meta data is new or was changed since the table was created
+			Iterable<AttributeMetaData> atomicAttrs = entityMeta.getAtomicAttributes();
+			List<String> names = new ArrayList<>();
+			if (atomicAttrs != null)
+			{
+				atomicAttrs.forEach(attr -> names.add(attr.getName()));
+			}
+			attributeSlots = new AttributeSlots(names, atomicAttrs);
+			ATTRIBUTE_SLOTS.put(entityMeta, attributeSlots);
+		}
+		return attributeSlots;
+	}
+
+	/**
+	 * Returns attribute slots for the given attribute names, for entities without entity meta data
+	 */
+	public static AttributeSlots of(Iterable<String> names)
+	{
+		List<String> nameList = new ArrayList<>();
+		names.forEach(nameList::add);
+		return new AttributeSlots(nameList);
+	}
+
+	/**
+	 * Returns the slot index of the given attribute name or -1 if there is no slot for this attribute
+	 */
+	public int indexOf(String name)
+	{
+		if (name == null)
+		{
+			return -1;
+		}
+		Integer slot = slots.get(name);
+		if (slot == null)
+		{
+			slot = lowerCaseSlots.get(name.toLowerCase(Locale.ROOT));
+		}
+		return slot != null ? slot : -1;
+	}
+
+	public int size()
+	{
+		return names.size();
+	}
+
+	public List<String> getNames()
+	{
+		return names;
+	}
+
+	private boolean isCurrent(EntityMetaData entityMeta)
+	{
+		Iterable<AttributeMetaData> currentAtomicAttrs = entityMeta.getAtomicAttributes();
+		if (currentAtomicAttrs == atomicAttrs)
+		{
+			return true;
+		}
+		if (currentAtomicAttrs == null)
+		{
+			return names.isEmpty();
+		}
+
+		int index = 0;
+		for (AttributeMetaData attr : currentAtomicAttrs)
+		{
+			if (index >= names.size() || !names.get(index).equals(attr.getName()))
+			{
+				return false;
+			}
+			++index;
+		}
+		return index == names.size();
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return names.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj) return true;
+		if (!(obj instanceof AttributeSlots)) return false;
+		return names.equals(((AttributeSlots) obj).names);
+	}
+}
@@ -0,0 +1,156 @@
+package org.molgenis.data.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityListener;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+
+/**
+ * Entity listener that invalidates a cache when entities of the given entity types are added, updated or deleted. The
+ * cache is invalidated again after completion of the transaction, because it could be filled with uncommitted data in
+ * the meantime.
+ *
+ * Each invalidation increments a generation, callers that load data for the cache should only cache it if the
+ * generation did not change during loading, see {@link #getOrLoad(Cache, Object, Supplier)}.
+ */
+public class CacheInvalidatingEntityListener implements EntityListener
+{
+	private final DataService dataService;
+	private final List<String> entityNames;
+	private final Runnable invalidateCache;
+	private final AtomicLong generation = new AtomicLong();
+	private volatile boolean added;
+
+	public CacheInvalidatingEntityListener(DataService dataService, List<String> entityNames,
+			Runnable invalidateCache)
+	{
+		this.dataService = requireNonNull(dataService);
+		this.entityNames = requireNonNull(entityNames);
+		this.invalidateCache = requireNonNull(invalidateCache);
+	}
+
+	/**
+	 * Adds this listener to the repositories of the entities. Call on first use of the cache, because the repositories
+	 * usually do not exist yet when the cache is created.
+	 *
+	 * @return whether the cache can be used, false if a repository does not exist (yet)
+	 */
+	public boolean addEntityListeners()
+	{
+		if (!added)
+		{
+			synchronized (this)
+			{
+				if (!added)
+				{
+					if (!entityNames.stream().allMatch(dataService::hasRepository))
+					{
+						return false;
+					}
+					entityNames.forEach(entityName -> dataService.addEntityListener(entityName, this));
+					added = true;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the current generation, to be retrieved before loading data for the cache
+	 */
+	public long getGeneration()
+	{
+		return generation.get();
+	}
+
+	/**
+	 * Returns whether the cache was invalidated since the given generation
+	 */
+	public boolean isInvalidatedSince(long generation)
+	{
+		return this.generation.get() != generation;
+	}
+
+	/**
+	 * Returns the value for the key from the cache or loads it. A loaded value is only cached if the cache was not
+	 * invalidated while loading.
+	 */
+	public <K, V> V getOrLoad(Cache<K, V> cache, K key, Supplier<V> loader)
+	{
+		V value = cache.getIfPresent(key);
+		if (value == null)
+		{
+			long generation = getGeneration();
+			value = loader.get();
+			if (!isInvalidatedSince(generation))
+			{
+				cache.put(key, value);
+
+				// an invalidation between the check and the put could have missed the new entry
+				if (isInvalidatedSince(generation)) cache.invalidate(key);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Invalidates the cache now and, if a transaction is active, after its completion
+	 */
+	public void invalidate()
+	{
+		doInvalidate();
+
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+			{
+				@Override
+				public void afterCompletion(int status)
+				{
+					doInvalidate();
+				}
+			});
+		}
+	}
+
+	private void doInvalidate()
+	{
+		// increment before invalidating so that data loaded concurrently is not cached after the invalidation
+		generation.incrementAndGet();
+		invalidateCache.run();
+	}
+
+	@Override
+	public Object getEntityId()
+	{
+		// listen to changes in all entities
+		return null;
+	}
+
+	@Override
+	public void postUpdate(Entity entity)
+	{
+		invalidate();
+	}
+
+	@Override
+	public void postAdd(Entity entity)
+	{
+		invalidate();
+	}
+
+	@Override
+	public void postDelete(Object entityId)
+	{
+		invalidate();
+	}
+}
@@ -1,20 +1,30 @@
 package org.molgenis.data.support;
 
+import static java.util.stream.Collectors.toList;
 import static org.molgenis.security.core.utils.SecurityUtils.currentUserHasRole;
 import static org.molgenis.security.core.utils.SecurityUtils.getCurrentUsername;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.molgenis.data.AggregateQuery;
 import org.molgenis.data.AggregateResult;
 import org.molgenis.data.DataService;
+import org.molgenis.data.EntitiesWithTotal;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.EntityStream;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
@@ -26,10 +36,13 @@ import org.molgenis.data.meta.MetaDataService;
 import org.molgenis.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Implementation of the DataService interface
@@ -39,6 +52,16 @@ public class DataServiceImpl implements DataService
 {
 	private static final Logger LOG = LoggerFactory.getLogger(DataServiceImpl.class);
 
+	private static final int COUNT_THREADS = 2 * Runtime.getRuntime().availableProcessors();
+	/**
+	 * Counts entities concurrently with the retrieval of a page of entities, counts are executed by the calling thread
+	 * if all threads are busy
+	 */
+	private static final ExecutorService COUNT_EXECUTOR_SERVICE = new DelegatingSecurityContextExecutorService(
+			new ThreadPoolExecutor(0, COUNT_THREADS, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+					new ThreadFactoryBuilder().setNameFormat("molgenis-count-%d").setDaemon(true).build(),
+					new ThreadPoolExecutor.CallerRunsPolicy()));
+
 	private final ConcurrentMap<String, Repository> repositories;
 	private final Set<String> repositoryNames;
 	private MetaDataService metaDataService;
@@ -142,6 +165,42 @@ public class DataServiceImpl implements DataService
 		return getRepository(entityName).findAll(q);
 	}
 
+	@Override
+	public EntitiesWithTotal findAllWithTotal(String entityName, Query q)
+	{
+		Repository repository = getRepository(entityName);
+		// transactions are bound to the current thread, within a transaction both are retrieved by the current thread
+		if (repository.getCapabilities().contains(RepositoryCapability.TOTAL_COUNTABLE) || q.getPageSize() == 0
+				|| TransactionSynchronizationManager.isActualTransactionActive())
+		{
+			return repository.findAllWithTotal(q);
+		}
+
+		// count entities while retrieving the page of entities
+		Future<Long> countFuture = COUNT_EXECUTOR_SERVICE.submit(() -> repository.count(q));
+		Stream<Entity> entityStream = repository.findAll(q);
+		List<Entity> entities = entityStream.collect(toList());
+		boolean isLazy = entityStream instanceof EntityStream && ((EntityStream) entityStream).isLazy();
+		try
+		{
+			return new EntitiesWithTotal(new EntityStream(entities.stream(), isLazy), countFuture.get());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MolgenisDataException(e);
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			throw new MolgenisDataException(cause);
+		}
+	}
+
 	@Override
 	public Entity findOne(String entityName, Object id)
 	{
@@ -24,13 +24,12 @@ import org.molgenis.fieldtypes.FieldType;
 import org.molgenis.fieldtypes.MrefField;
 import org.molgenis.fieldtypes.XrefField;
 import org.molgenis.util.MolgenisDateFormat;
-import org.springframework.util.LinkedCaseInsensitiveMap;
 
 public class DefaultEntity implements Entity
 {
 	private static final long serialVersionUID = 1L;
 
-	private final Map<String, Object> values = new LinkedCaseInsensitiveMap<>();
+	private final ArrayEntity values;
 	private final EntityMetaData entityMetaData;
 	private transient final DataService dataService;
 
@@ -38,7 +37,18 @@ public class DefaultEntity implements Entity
 	public DefaultEntity(EntityMetaData entityMetaData, DataService dataService, Map<String, Object> values)
 	{
 		this(entityMetaData, dataService);
-		this.values.putAll(values);
+		values.forEach(this.values::set);
+	}
+
+	/**
+	 * Creates an entity with the given attribute slots and values
+	 */
+	// TODO remove dependency on DataService
+	public DefaultEntity(EntityMetaData entityMetaData, DataService dataService, AttributeSlots attributeSlots,
+			Map<String, Object> values)
+	{
+		this(entityMetaData, dataService, attributeSlots);
+		values.forEach(this.values::set);
 	}
 
 	// TODO remove dependency on DataService
@@ -50,9 +60,20 @@ public class DefaultEntity implements Entity
 
 	// TODO remove dependency on DataService
 	public DefaultEntity(EntityMetaData entityMetaData, DataService dataService)
+	{
+		this(entityMetaData, dataService,
+				entityMetaData != null ? AttributeSlots.of(entityMetaData) : AttributeSlots.EMPTY);
+	}
+
+	/**
+	 * Creates an entity with the given attribute slots
+	 */
+	// TODO remove dependency on DataService
+	public DefaultEntity(EntityMetaData entityMetaData, DataService dataService, AttributeSlots attributeSlots)
 	{
 		this.entityMetaData = entityMetaData;
 		this.dataService = dataService;
+		this.values = new ArrayEntity(entityMetaData, attributeSlots);
 	}
 
 	@Override
@@ -287,8 +308,10 @@ public class DefaultEntity implements Entity
 
 		if (firstItem instanceof Map)
 		{
-			return stream(ids.spliterator(), false)
-					.map(id -> new DefaultEntity(attribute.getRefEntity(), dataService, (Map<String, Object>) id))
+			EntityMetaData refEntityMeta = attribute.getRefEntity();
+			AttributeSlots refAttributeSlots = AttributeSlots.of(refEntityMeta);
+			return stream(ids.spliterator(), false).map(
+					id -> new DefaultEntity(refEntityMeta, dataService, refAttributeSlots, (Map<String, Object>) id))
 					.collect(Collectors.toList());
 		}
 		return from(ids).transform(dataType::convert)
@@ -305,7 +328,7 @@ public class DefaultEntity implements Entity
 	@Override
 	public void set(String attributeName, Object value)
 	{
-		values.put(attributeName, value);
+		values.set(attributeName, value);
 	}
 
 	@Override
@@ -1,9 +1,7 @@
 package org.molgenis.data.support;
 
-import java.util.HashMap;
 import java.util.Map;
 
-import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.MolgenisDataException;
@@ -15,19 +13,29 @@ public class EntityWithComputedAttributes extends AbstractEntity
 {
 	private static final long serialVersionUID = 1L;
 
-	private final Map<String, ExpressionEvaluator> expressionEvaluators = new HashMap<String, ExpressionEvaluator>();
+	private final Map<String, ExpressionEvaluator> expressionEvaluators;
 
+	/**
+	 * @param entity
+	 *            decorated entity
+	 * @see ExpressionEvaluatorRegistry#getExpressionEvaluators(EntityMetaData)
+	 */
 	public EntityWithComputedAttributes(Entity entity)
+	{
+		this(entity, ExpressionEvaluatorRegistry.getExpressionEvaluators(entity.getEntityMetaData()));
+	}
+
+	/**
+	 * @param entity
+	 *            decorated entity
+	 * @param expressionEvaluators
+	 *            expression evaluators of the computed attributes, shared by entities of the same entity meta data
+	 * @see ExpressionEvaluatorRegistry#getExpressionEvaluators(EntityMetaData)
+	 */
+	public EntityWithComputedAttributes(Entity entity, Map<String, ExpressionEvaluator> expressionEvaluators)
 	{
 		this.entity = entity;
-		EntityMetaData emd = entity.getEntityMetaData();
-		for (AttributeMetaData amd : emd.getAtomicAttributes())
-		{
-			if (amd.getExpression() != null)
-			{
-				expressionEvaluators.put(amd.getName(), ExpressionEvaluatorFactory.createExpressionEvaluator(amd, emd));
-			}
-		}
+		this.expressionEvaluators = expressionEvaluators;
 	}
 
 	private final Entity entity;
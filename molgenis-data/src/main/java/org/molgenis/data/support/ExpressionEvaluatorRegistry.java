@@ -0,0 +1,97 @@
+package org.molgenis.data.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.molgenis.data.AttributeMetaData;
+import org.molgenis.data.EntityMetaData;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Registry of the {@link ExpressionEvaluator}s of the computed attributes of an entity. The evaluators are created once
+ * per version of the entity meta data and are shared by all entities of this entity meta data.
+ */
+public class ExpressionEvaluatorRegistry
+{
+	/**
+	 * entity meta data (identity) --> expression evaluators
+	 */
+	private static final Cache<EntityMetaData, ExpressionEvaluators> EXPRESSION_EVALUATORS = CacheBuilder.newBuilder()
+			.weakKeys().build();
+
+	private ExpressionEvaluatorRegistry()
+	{
+	}
+
+	/**
+	 * Returns the expression evaluators of the computed attributes of the given entity meta data
+	 *
+	 * @param emd
+	 *            entity meta data
+	 * @return immutable map of attribute name to expression evaluator
+	 */
+	public static Map<String, ExpressionEvaluator> getExpressionEvaluators(EntityMetaData emd)
+	{
+		ExpressionEvaluators expressionEvaluators = EXPRESSION_EVALUATORS.getIfPresent(emd);
+		if (expressionEvaluators == null || !expressionEvaluators.isCurrent(emd))
+		{
+			// entity meta data is new or was changed since the evaluators were created
+			expressionEvaluators = new ExpressionEvaluators(emd);
+			EXPRESSION_EVALUATORS.put(emd, expressionEvaluators);
+		}
+		return expressionEvaluators.getEvaluators();
+	}
+
+	/**
+	 * Expression evaluators for a version of entity meta data, the version consists of the atomic attributes and their
+	 * expressions.
+	 */
+	private static class ExpressionEvaluators
+	{
+		private final List<AttributeMetaData> atomicAttrs;
+		private final List<String> expressions;
+		private final Map<String, ExpressionEvaluator> evaluators;
+
+		ExpressionEvaluators(EntityMetaData emd)
+		{
+			atomicAttrs = new ArrayList<>();
+			expressions = new ArrayList<>();
+			ImmutableMap.Builder<String, ExpressionEvaluator> builder = ImmutableMap.builder();
+			for (AttributeMetaData amd : emd.getAtomicAttributes())
+			{
+				atomicAttrs.add(amd);
+				expressions.add(amd.getExpression());
+				if (amd.getExpression() != null)
+				{
+					builder.put(amd.getName(), ExpressionEvaluatorFactory.createExpressionEvaluator(amd, emd));
+				}
+			}
+			evaluators = builder.build();
+		}
+
+		boolean isCurrent(EntityMetaData emd)
+		{
+			int index = 0;
+			for (AttributeMetaData amd : emd.getAtomicAttributes())
+			{
+				if (index >= atomicAttrs.size() || atomicAttrs.get(index) != amd
+						|| !Objects.equals(expressions.get(index), amd.getExpression()))
+				{
+					return false;
+				}
+				++index;
+			}
+			return index == atomicAttrs.size();
+		}
+
+		Map<String, ExpressionEvaluator> getEvaluators()
+		{
+			return evaluators;
+		}
+	}
+}
@@ -1,9 +1,13 @@
 package org.molgenis.data.support;
 
+import static org.molgenis.MolgenisFieldTypes.LONG;
+
 import java.util.Set;
 
 import org.molgenis.data.AttributeMetaData;
 import org.molgenis.data.EntityMetaData;
+import org.molgenis.data.Query;
+import org.molgenis.data.Sort;
 import org.molgenis.data.settings.DefaultSettingsEntity;
 import org.molgenis.data.settings.DefaultSettingsEntityMetaData;
 import org.springframework.stereotype.Component;
@@ -49,6 +53,30 @@ public class GenomicDataSettings extends DefaultSettingsEntity
 		return "";
 	}
 
+	/**
+	 * Returns a query for the entities on a chromosome of which the genomic interval overlaps with the interval from
+	 * start to stop (inclusive), sorted on start position. Entities without a stop position are matched on their start
+	 * position. Entities with a stop position must start at most the maximum feature length before start.
+	 */
+	public Query createRangeQuery(EntityMetaData metadata, String chromosome, long start, long stop)
+	{
+		String chromAttrName = getAttributeNameForAttributeNameArray(Meta.ATTRS_CHROM, metadata);
+		String posAttrName = getAttributeNameForAttributeNameArray(Meta.ATTRS_POS, metadata);
+		String stopAttrName = getAttributeNameForAttributeNameArray(Meta.ATTRS_STOP, metadata);
+
+		Query q = new QueryImpl().eq(chromAttrName, chromosome).and().le(posAttrName, stop).and();
+		if (stopAttrName.isEmpty())
+		{
+			q.ge(posAttrName, start);
+		}
+		else
+		{
+			q.ge(posAttrName, start - getMaxFeatureLength()).and().nest().ge(stopAttrName, start).or()
+					.ge(posAttrName, start).unnest();
+		}
+		return q.sort(new Sort(posAttrName));
+	}
+
 	@Component
 	public static class Meta extends DefaultSettingsEntityMetaData
 	{
@@ -62,6 +90,7 @@ public class GenomicDataSettings extends DefaultSettingsEntity
 		public static final String ATTRS_PATIENT_ID = "patient_id";
 		public static final String ATTRS_NAME = "name";
 		public static final String ATTRS_LINKOUT = "linkout";
+		public static final String MAX_FEATURE_LENGTH = "max_feature_length";
 
 		private static final String DEFAULT_ATTRS_POS = "POS,start_nucleotide";
 		private static final String DEFAULT_ATTRS_CHROM = "CHROM,#CHROM,chromosome";
@@ -71,6 +100,7 @@ public class GenomicDataSettings extends DefaultSettingsEntity
 		private static final String DEFAULT_ATTRS_STOP = "stop_pos,stop_nucleotide,end_nucleotide";
 		private static final String DEFAULT_ATTRS_DESCRIPTION = "INFO";
 		private static final String DEFAULT_ATTRS_PATIENT_ID = "patient_id";
+		private static final long DEFAULT_MAX_FEATURE_LENGTH = 10000000;
 
 		public Meta()
 		{
@@ -98,6 +128,10 @@ public class GenomicDataSettings extends DefaultSettingsEntity
 					.setDescription("Comma-separated attribute names");
 			addAttribute(ATTRS_LINKOUT).setNillable(true).setLabel("Link out")
 					.setDescription("Comma-separated attribute names");
+			addAttribute(MAX_FEATURE_LENGTH).setDataType(LONG).setNillable(false)
+					.setDefaultValue(Long.toString(DEFAULT_MAX_FEATURE_LENGTH)).setLabel("Maximum feature length")
+					.setDescription("Maximum number of nucleotides from start to end nucleotide, longer features that "
+							+ "start before a queried interval are not found");
 		}
 	}
 
@@ -200,4 +234,15 @@ public class GenomicDataSettings extends DefaultSettingsEntity
 	{
 		set(Meta.ATTRS_LINKOUT, attrsLinkout);
 	}
+
+	public long getMaxFeatureLength()
+	{
+		Long maxFeatureLength = getLong(Meta.MAX_FEATURE_LENGTH);
+		return maxFeatureLength != null ? maxFeatureLength : Meta.DEFAULT_MAX_FEATURE_LENGTH;
+	}
+
+	public void setMaxFeatureLength(long maxFeatureLength)
+	{
+		set(Meta.MAX_FEATURE_LENGTH, maxFeatureLength);
+	}
 }
@@ -0,0 +1,174 @@
+package org.molgenis.data.support;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.Sort;
+
+/**
+ * Iterable that batches a Query using keyset (seek) pagination.
+ *
+ * Instead of increasing the offset of each batch, each batch continues after the id of the last entity of the previous
+ * batch. Only applicable to queries that are not sorted or that are sorted on the id attribute only, see
+ * {@link #isApplicable(Query, String)}.
+ */
+public abstract class KeysetBatchingQueryResult implements Iterable<Entity>
+{
+	private final int batchSize;
+	private final Query query;
+	private final String idAttrName;
+	private final boolean descending;
+
+	public KeysetBatchingQueryResult(int batchSize, Query query, String idAttrName)
+	{
+		if (batchSize <= 0) throw new IllegalArgumentException("BatchSize must be greater than 0");
+		if (!isApplicable(query, idAttrName))
+		{
+			throw new IllegalArgumentException(
+					"Keyset pagination requires a query without sort or sorted on id attribute [" + idAttrName + "]");
+		}
+		this.batchSize = batchSize;
+		this.query = requireNonNull(query);
+		this.idAttrName = requireNonNull(idAttrName);
+		this.descending = isDescending(query.getSort());
+	}
+
+	/**
+	 * Returns whether keyset pagination can be applied to the given query
+	 *
+	 * @param q
+	 * @param idAttrName
+	 * @return true if the query is not sorted or only sorted on the id attribute
+	 */
+	public static boolean isApplicable(Query q, String idAttrName)
+	{
+		Sort sort = q.getSort();
+		if (sort == null)
+		{
+			return true;
+		}
+
+		Iterator<Sort.Order> it = sort.iterator();
+		if (!it.hasNext())
+		{
+			return true;
+		}
+		Sort.Order order = it.next();
+		return !it.hasNext() && order.getAttr().equals(idAttrName);
+	}
+
+	private static boolean isDescending(Sort sort)
+	{
+		if (sort == null) return false;
+		Iterator<Sort.Order> it = sort.iterator();
+		return it.hasNext() && it.next().getDirection() == Sort.Direction.DESC;
+	}
+
+	@Override
+	public Iterator<Entity> iterator()
+	{
+		return new Iterator<Entity>()
+		{
+			/**
+			 * Id of the last entity of the previous batch, null for the first batch
+			 */
+			private Object lastId;
+			/**
+			 * Number of entities retrieved so far
+			 */
+			private int count;
+			private boolean lastBatch;
+			private Iterator<Entity> it;
+
+			@Override
+			public boolean hasNext()
+			{
+				if (it == null || (!it.hasNext() && !lastBatch))
+				{
+					it = nextBatch();
+				}
+				return it.hasNext();
+			}
+
+			@Override
+			public Entity next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				return it.next();
+			}
+
+			private Iterator<Entity> nextBatch()
+			{
+				int limit = query.getPageSize();
+				int nextBatchSize = limit == 0 ? batchSize : Math.min(batchSize, limit - count);
+				if (nextBatchSize <= 0)
+				{
+					lastBatch = true;
+					return Collections.emptyIterator();
+				}
+
+				List<Entity> batch = getBatch(createBatchQuery(lastId, nextBatchSize));
+				if (batch.size() < nextBatchSize)
+				{
+					lastBatch = true;
+				}
+				if (!batch.isEmpty())
+				{
+					lastId = batch.get(batch.size() - 1).getIdValue();
+					count += batch.size();
+				}
+				return batch.iterator();
+			}
+		};
+	}
+
+	private Query createBatchQuery(Object lastId, int pageSize)
+	{
+		QueryImpl batchQuery = new QueryImpl();
+		if (lastId != null)
+		{
+			List<QueryRule> rules = query.getRules();
+			if (!rules.isEmpty())
+			{
+				batchQuery.addRule(new QueryRule(rules));
+				batchQuery.and();
+			}
+			if (descending) batchQuery.lt(idAttrName, lastId);
+			else batchQuery.gt(idAttrName, lastId);
+
+			// the offset only applies to the first batch
+			batchQuery.setOffset(0);
+		}
+		else
+		{
+			query.getRules().forEach(batchQuery::addRule);
+			batchQuery.setOffset(query.getOffset());
+		}
+		batchQuery.setPageSize(pageSize);
+		batchQuery.sort(new Sort(idAttrName, descending ? Sort.Direction.DESC : Sort.Direction.ASC));
+
+		Fetch fetch = query.getFetch();
+		if (fetch != null && !fetch.hasField(idAttrName))
+		{
+			// the id of the last entity in a batch is required to retrieve the next batch
+			Fetch idFetch = new Fetch();
+			fetch.forEach(entry -> idFetch.field(entry.getKey(), entry.getValue()));
+			fetch = idFetch.field(idAttrName);
+		}
+		batchQuery.fetch(fetch);
+		return batchQuery;
+	}
+
+	protected abstract List<Entity> getBatch(Query q);
+}
@@ -14,6 +14,7 @@ import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -279,6 +280,28 @@ public class DataServiceImplTest
 		assertEquals(entities.collect(Collectors.toList()), Arrays.asList(entity0));
 	}
 
+	@Test
+	public void findAllWithTotalTotalCountable()
+	{
+		Query query = new QueryImpl().pageSize(10);
+		EntitiesWithTotal entitiesWithTotal = new EntitiesWithTotal(Stream.empty(), 0l);
+		when(repo1.getCapabilities()).thenReturn(Collections.singleton(RepositoryCapability.TOTAL_COUNTABLE));
+		when(repo1.findAllWithTotal(query)).thenReturn(entitiesWithTotal);
+		assertEquals(dataService.findAllWithTotal("Entity1", query), entitiesWithTotal);
+	}
+
+	@Test
+	public void findAllWithTotal()
+	{
+		Entity entity0 = mock(Entity.class);
+		Query query = new QueryImpl().pageSize(1);
+		when(repo1.count(query)).thenReturn(3l);
+		when(repo1.findAll(query)).thenReturn(Stream.of(entity0));
+		EntitiesWithTotal entitiesWithTotal = dataService.findAllWithTotal("Entity1", query);
+		assertEquals(entitiesWithTotal.getTotal(), 3l);
+		assertEquals(entitiesWithTotal.getEntities().collect(toList()), Arrays.asList(entity0));
+	}
+
 	@Test
 	public void copyRepository()
 	{
@@ -1,20 +1,30 @@
 package org.molgenis.data;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.mockito.ArgumentCaptor;
+import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.support.DefaultEntity;
+import org.molgenis.data.support.DefaultEntityMetaData;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -124,4 +134,200 @@ public class EntityManagerImplTest
 		Stream<Entity> entities = entityManagerImpl.resolveReferences(entityMeta, Stream.of(entity0, entity1), fetch);
 		assertEquals(entities.collect(Collectors.toList()), Arrays.asList(entity0, entity1));
 	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveReferencesStreamCachesReferencesAcrossBatches()
+	{
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("xref").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refEntityMeta);
+
+		// first batch references 0 and 1, second batch references 0 and 2
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i < 150; ++i)
+		{
+			Entity entity = new DefaultEntity(entityMeta, dataService);
+			entity.set("id", String.valueOf(i));
+			String refId = i < 100 ? String.valueOf(i % 2) : String.valueOf(i % 2 * 2);
+			entity.set("xref", createRefEntity(refEntityMeta, refId));
+			entities.add(entity);
+		}
+
+		List<List<Object>> requestedIds = new ArrayList<>();
+		when(dataService.findAll(eq("refEntity"), any(Stream.class), isNull(Fetch.class))).thenAnswer(invocation -> {
+			List<Object> ids = ((Stream<Object>) invocation.getArguments()[1]).collect(Collectors.toList());
+			requestedIds.add(ids);
+			return ids.stream().map(id -> createRefEntity(refEntityMeta, id));
+		});
+
+		Fetch fetch = new Fetch().field("id").field("xref");
+		List<Entity> resolvedEntities = entityManagerImpl.resolveReferences(entityMeta, entities.stream(), fetch)
+				.collect(Collectors.toList());
+
+		assertEquals(resolvedEntities.size(), 150);
+		assertEquals(requestedIds.size(), 2);
+		assertEquals(new HashSet<>(requestedIds.get(0)), new HashSet<>(Arrays.asList("0", "1")));
+		assertEquals(requestedIds.get(1), Arrays.asList("2"));
+		assertEquals(resolvedEntities.get(100).getEntity("xref"), resolvedEntities.get(0).getEntity("xref"));
+		assertEquals(resolvedEntities.get(149).getEntity("xref").getIdValue(), "2");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveReferencesStreamBreadthFirst()
+	{
+		DefaultEntityMetaData refRefEntityMeta = new DefaultEntityMetaData("refRefEntity");
+		refRefEntityMeta.addAttribute("id", ROLE_ID);
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		refEntityMeta.addAttribute("xref").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refRefEntityMeta);
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("mref").setDataType(MolgenisFieldTypes.MREF).setRefEntity(refEntityMeta);
+
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i < 10; ++i)
+		{
+			Entity entity = new DefaultEntity(entityMeta, dataService);
+			entity.set("id", String.valueOf(i));
+			entity.set("mref", Arrays.asList(createRefEntity(refEntityMeta, String.valueOf(i)),
+					createRefEntity(refEntityMeta, String.valueOf(i + 1))));
+			entities.add(entity);
+		}
+
+		Fetch refRefFetch = new Fetch().field("id");
+		Fetch refFetch = new Fetch().field("id").field("xref", refRefFetch);
+		Fetch fetch = new Fetch().field("id").field("mref", refFetch);
+
+		List<List<Object>> requestedRefRefIds = new ArrayList<>();
+		when(dataService.findAll(eq("refEntity"), any(Stream.class), any(Fetch.class))).thenAnswer(invocation -> {
+			Stream<Object> ids = (Stream<Object>) invocation.getArguments()[1];
+			return ids.map(id -> {
+				Entity refEntity = createRefEntity(refEntityMeta, id);
+				refEntity.set("xref", createRefEntity(refRefEntityMeta, "refRef" + id));
+				return refEntity;
+			});
+		});
+		when(dataService.findAll(eq("refRefEntity"), any(Stream.class), any(Fetch.class))).thenAnswer(invocation -> {
+			List<Object> ids = ((Stream<Object>) invocation.getArguments()[1]).collect(Collectors.toList());
+			requestedRefRefIds.add(ids);
+			return ids.stream().map(id -> createRefEntity(refRefEntityMeta, id));
+		});
+
+		List<Entity> resolvedEntities = entityManagerImpl.resolveReferences(entityMeta, entities.stream(), fetch)
+				.collect(Collectors.toList());
+
+		ArgumentCaptor<Fetch> refFetchCaptor = ArgumentCaptor.forClass(Fetch.class);
+		verify(dataService, times(1)).findAll(eq("refEntity"), any(Stream.class), refFetchCaptor.capture());
+		ArgumentCaptor<Fetch> refRefFetchCaptor = ArgumentCaptor.forClass(Fetch.class);
+		verify(dataService, times(1)).findAll(eq("refRefEntity"), any(Stream.class), refRefFetchCaptor.capture());
+		assertEquals(refFetchCaptor.getValue().getFields(), refFetch.getFields());
+		assertEquals(refRefFetchCaptor.getValue().getFields(), refRefFetch.getFields());
+		assertEquals(requestedRefRefIds.get(0).size(), 11);
+		Entity refEntity = resolvedEntities.get(9).getEntities("mref").iterator().next();
+		assertEquals(refEntity.getIdValue(), "9");
+		assertEquals(refEntity.getEntity("xref").getIdValue(), "refRef9");
+
+		// references of entities retrieved with the fetch of the entity manager are resolved by the entity manager
+		Entity unresolvedRefEntity = createRefEntity(refEntityMeta, "0");
+		unresolvedRefEntity.set("xref", createRefEntity(refRefEntityMeta, "refRef0"));
+		entityManagerImpl.resolveReferences(refEntityMeta, Stream.of(unresolvedRefEntity), refFetchCaptor.getValue())
+				.collect(Collectors.toList());
+		verifyNoMoreInteractions(dataService);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveReferencesStreamCachedReferencesNotResolvedAgain()
+	{
+		DefaultEntityMetaData refRefEntityMeta = new DefaultEntityMetaData("refRefEntity");
+		refRefEntityMeta.addAttribute("id", ROLE_ID);
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		refEntityMeta.addAttribute("xref").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refRefEntityMeta);
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("xref").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refEntityMeta);
+
+		// both batches reference the same entity
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i < 150; ++i)
+		{
+			Entity entity = new DefaultEntity(entityMeta, dataService);
+			entity.set("id", String.valueOf(i));
+			entity.set("xref", createRefEntity(refEntityMeta, "0"));
+			entities.add(entity);
+		}
+
+		when(dataService.findAll(eq("refEntity"), any(Stream.class), any(Fetch.class))).thenAnswer(invocation -> {
+			Stream<Object> ids = (Stream<Object>) invocation.getArguments()[1];
+			return ids.map(id -> {
+				Entity refEntity = createRefEntity(refEntityMeta, id);
+				refEntity.set("xref", createRefEntity(refRefEntityMeta, "refRef" + id));
+				return refEntity;
+			});
+		});
+		when(dataService.findAll(eq("refRefEntity"), any(Stream.class), any(Fetch.class))).thenAnswer(invocation -> {
+			Stream<Object> ids = (Stream<Object>) invocation.getArguments()[1];
+			return ids.map(id -> createRefEntity(refRefEntityMeta, id));
+		});
+
+		Fetch fetch = new Fetch().field("id").field("xref", new Fetch().field("id").field("xref"));
+		List<Entity> resolvedEntities = entityManagerImpl.resolveReferences(entityMeta, entities.stream(), fetch)
+				.collect(Collectors.toList());
+
+		verify(dataService, times(1)).findAll(eq("refEntity"), any(Stream.class), any(Fetch.class));
+		verify(dataService, times(1)).findAll(eq("refRefEntity"), any(Stream.class), any(Fetch.class));
+		assertEquals(resolvedEntities.get(149).getEntity("xref").getEntity("xref").getIdValue(), "refRef0");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void resolveReferencesStreamMergedFetchesNotModified()
+	{
+		DefaultEntityMetaData refRefEntityMeta = new DefaultEntityMetaData("refRefEntity");
+		refRefEntityMeta.addAttribute("id", ROLE_ID);
+		refRefEntityMeta.addAttribute("label");
+		refRefEntityMeta.addAttribute("description");
+		DefaultEntityMetaData refEntityMeta = new DefaultEntityMetaData("refEntity");
+		refEntityMeta.addAttribute("id", ROLE_ID);
+		refEntityMeta.addAttribute("xref").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refRefEntityMeta);
+		DefaultEntityMetaData entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("xref0").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refEntityMeta);
+		entityMeta.addAttribute("xref1").setDataType(MolgenisFieldTypes.XREF).setRefEntity(refEntityMeta);
+
+		Entity entity = new DefaultEntity(entityMeta, dataService);
+		entity.set("id", "0");
+		entity.set("xref0", createRefEntity(refEntityMeta, "0"));
+		entity.set("xref1", createRefEntity(refEntityMeta, "1"));
+
+		when(dataService.findAll(eq("refEntity"), any(Stream.class), any(Fetch.class))).thenAnswer(invocation -> {
+			Stream<Object> ids = (Stream<Object>) invocation.getArguments()[1];
+			return ids.map(id -> createRefEntity(refEntityMeta, id));
+		});
+
+		Fetch refRefFetch0 = new Fetch().field("id").field("label");
+		Fetch refRefFetch1 = new Fetch().field("id").field("description");
+		Fetch fetch = new Fetch().field("id").field("xref0", new Fetch().field("xref", refRefFetch0))
+				.field("xref1", new Fetch().field("xref", refRefFetch1));
+		entityManagerImpl.resolveReferences(entityMeta, Stream.of(entity), fetch).collect(Collectors.toList());
+
+		ArgumentCaptor<Fetch> refFetchCaptor = ArgumentCaptor.forClass(Fetch.class);
+		verify(dataService).findAll(eq("refEntity"), any(Stream.class), refFetchCaptor.capture());
+		assertEquals(refFetchCaptor.getValue().getFetch("xref").getFields(),
+				new HashSet<>(Arrays.asList("id", "label", "description")));
+		assertEquals(refRefFetch0, new Fetch().field("id").field("label"));
+		assertEquals(refRefFetch1, new Fetch().field("id").field("description"));
+	}
+
+	private Entity createRefEntity(EntityMetaData refEntityMeta, Object id)
+	{
+		Entity refEntity = new DefaultEntity(refEntityMeta, dataService);
+		refEntity.set("id", id);
+		return refEntity;
+	}
 }
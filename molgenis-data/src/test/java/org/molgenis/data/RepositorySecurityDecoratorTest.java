@@ -237,6 +237,31 @@ public class RepositorySecurityDecoratorTest
 		repositorySecurityDecorator.findAll(entityIds, fetch);
 	}
 
+	@Test
+	public void existingIds()
+	{
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken("username", null,
+				"ROLE_ENTITY_READ_" + entityName.toUpperCase());
+		authentication.setAuthenticated(false);
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+
+		Object id0 = "id0";
+		Stream<Object> entityIds = Stream.of(id0, "id1");
+		when(decoratedRepository.existingIds(entityIds)).thenReturn(Stream.of(id0));
+		assertEquals(repositorySecurityDecorator.existingIds(entityIds).collect(Collectors.toList()),
+				Arrays.asList(id0));
+	}
+
+	@Test(expectedExceptions = MolgenisDataAccessException.class)
+	public void existingIdsNoPermission()
+	{
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken("username", null);
+		authentication.setAuthenticated(false);
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+
+		repositorySecurityDecorator.existingIds(Stream.of("id0", "id1"));
+	}
+
 	@Test(expectedExceptions = MolgenisDataAccessException.class)
 	public void findAllNoPermission()
 	{
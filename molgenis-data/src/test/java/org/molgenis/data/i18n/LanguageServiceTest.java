@@ -1,11 +1,18 @@
 package org.molgenis.data.i18n;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 
+import org.mockito.ArgumentCaptor;
+import org.molgenis.auth.MolgenisUserMetaData;
 import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityListener;
 import org.molgenis.data.Query;
 import org.molgenis.data.settings.AppSettings;
 import org.molgenis.data.support.MapEntity;
@@ -50,4 +57,25 @@ public class LanguageServiceTest
 		when(dataServiceMock.findOne(LanguageMetaData.ENTITY_NAME, "de")).thenReturn(new MapEntity("nl", "Nederlands"));
 		assertEquals(languageService.getCurrentUserLanguageCode(), "de");
 	}
+
+	@Test
+	public void getCurrentUserLanguageCodeCached()
+	{
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("test", "test"));
+		when(dataServiceMock.hasRepository(MolgenisUserMetaData.ENTITY_NAME)).thenReturn(true);
+		when(dataServiceMock.hasRepository(LanguageMetaData.ENTITY_NAME)).thenReturn(true);
+		when(queryMock.findOne()).thenReturn(new MapEntity("languageCode", "nl"));
+		when(dataServiceMock.findOne(LanguageMetaData.ENTITY_NAME, "nl")).thenReturn(new MapEntity("nl", "Nederlands"));
+		assertEquals(languageService.getCurrentUserLanguageCode(), "nl");
+		assertEquals(languageService.getCurrentUserLanguageCode(), "nl");
+		verify(queryMock, times(1)).findOne();
+		verify(dataServiceMock, times(1)).findOne(LanguageMetaData.ENTITY_NAME, "nl");
+
+		ArgumentCaptor<EntityListener> listenerCaptor = ArgumentCaptor.forClass(EntityListener.class);
+		verify(dataServiceMock).addEntityListener(eq(MolgenisUserMetaData.ENTITY_NAME), listenerCaptor.capture());
+		when(queryMock.findOne()).thenReturn(new MapEntity("languageCode", "de"));
+		when(dataServiceMock.findOne(LanguageMetaData.ENTITY_NAME, "de")).thenReturn(new MapEntity("de", "Deutsch"));
+		listenerCaptor.getValue().postUpdate(mock(Entity.class));
+		assertEquals(languageService.getCurrentUserLanguageCode(), "de");
+	}
 }
@@ -168,6 +168,34 @@ public class InMemoryRepositoryTest
 		}
 	}
 
+	@Test
+	public void existingIds() throws IOException
+	{
+		String idAttrName = "id";
+		EntityMetaData entityMeta = mock(EntityMetaData.class);
+		AttributeMetaData idAttr = when(mock(AttributeMetaData.class).getName()).thenReturn(idAttrName).getMock();
+		when(entityMeta.getIdAttribute()).thenReturn(idAttr);
+		InMemoryRepository inMemoryRepository = new InMemoryRepository(entityMeta);
+		try
+		{
+			Object id0 = Integer.valueOf(0);
+			Entity entity0 = when(mock(Entity.class).get(idAttrName)).thenReturn(id0).getMock();
+			when(entity0.getIdValue()).thenReturn(id0);
+			Object id1 = Integer.valueOf(1);
+			Entity entity1 = when(mock(Entity.class).get(idAttrName)).thenReturn(id1).getMock();
+			when(entity1.getIdValue()).thenReturn(id1);
+			inMemoryRepository.add(entity0);
+			inMemoryRepository.add(entity1);
+			List<Object> existingIds = inMemoryRepository.existingIds(Stream.of(id0, "bogus", id1))
+					.collect(Collectors.toList());
+			assertEquals(existingIds, Arrays.asList(id0, id1));
+		}
+		finally
+		{
+			inMemoryRepository.close();
+		}
+	}
+
 	@Test
 	public void findAllStreamFetch() throws IOException
 	{
@@ -0,0 +1,141 @@
+package org.molgenis.data.support;
+
+import static java.util.Arrays.asList;
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import org.molgenis.MolgenisFieldTypes;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class ArrayEntityTest
+{
+	private DefaultEntityMetaData entityMeta;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		entityMeta = new DefaultEntityMetaData("entity");
+		entityMeta.addAttribute("id", ROLE_ID);
+		entityMeta.addAttribute("value").setDataType(MolgenisFieldTypes.INT);
+	}
+
+	@Test
+	public void getSet()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "0");
+		entity.set("value", 1);
+		assertEquals(entity.get("id"), "0");
+		assertEquals(entity.getIdValue(), "0");
+		assertEquals(entity.get("value"), 1);
+		assertEquals(Lists.newArrayList(entity.getAttributeNames()), asList("id", "value"));
+	}
+
+	@Test
+	public void getSetCaseInsensitive()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("VALUE", 1);
+		assertEquals(entity.get("value"), 1);
+		assertEquals(entity.get("Value"), 1);
+	}
+
+	@Test
+	public void getSetUnknownAttribute()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		assertNull(entity.get("unknown"));
+		entity.set("unknown", "str");
+		assertEquals(entity.get("UNKNOWN"), "str");
+		assertEquals(Lists.newArrayList(entity.getAttributeNames()), asList("id", "value", "unknown"));
+	}
+
+	@Test
+	public void getAttributeNamesNoEntityMetaData()
+	{
+		ArrayEntity entity = new ArrayEntity(null, AttributeSlots.of(asList("col0", "col1")));
+		entity.set("col1", "a");
+		entity.set("col2", "b");
+		assertEquals(Lists.newArrayList(entity.getAttributeNames()), asList("col0", "col1", "col2"));
+		assertNull(entity.getIdValue());
+	}
+
+	@Test
+	public void equals()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "0");
+		ArrayEntity otherEntity = new ArrayEntity(entityMeta);
+		otherEntity.set("id", "0");
+		assertEquals(entity, otherEntity);
+		assertEquals(entity.hashCode(), otherEntity.hashCode());
+
+		otherEntity.set("value", 1);
+		assertNotEquals(entity, otherEntity);
+	}
+
+	@Test
+	public void equalsOtherAttributeSlots()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "0");
+		ArrayEntity otherEntity = new ArrayEntity(entityMeta, AttributeSlots.of(asList("id")));
+		otherEntity.set("id", "0");
+		assertEquals(entity, otherEntity);
+		assertEquals(entity.hashCode(), otherEntity.hashCode());
+
+		otherEntity.set("value", 1);
+		assertNotEquals(entity, otherEntity);
+		entity.set("value", 1);
+		assertEquals(entity, otherEntity);
+		assertEquals(entity.hashCode(), otherEntity.hashCode());
+	}
+
+	@Test
+	public void equalsMapEntity()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "0");
+		entity.set("value", 1);
+		MapEntity mapEntity = new MapEntity(entityMeta);
+		mapEntity.set("id", "0");
+		mapEntity.set("value", 1);
+		assertNotEquals(entity, mapEntity);
+		assertNotEquals(mapEntity, entity);
+	}
+
+	@Test
+	public void equalsOtherEntityMetaData()
+	{
+		ArrayEntity entity = new ArrayEntity(entityMeta);
+		entity.set("id", "0");
+		ArrayEntity otherEntity = new ArrayEntity(new DefaultEntityMetaData("otherEntity", entityMeta));
+		otherEntity.set("id", "0");
+		assertNotEquals(entity, otherEntity);
+	}
+
+	@Test
+	public void attributeSlotsShared()
+	{
+		assertSame(AttributeSlots.of(entityMeta), AttributeSlots.of(entityMeta));
+	}
+
+	@Test
+	public void attributeSlotsEntityMetaDataChanged()
+	{
+		AttributeSlots attributeSlots = AttributeSlots.of(entityMeta);
+		entityMeta.addAttribute("otherValue");
+		AttributeSlots changedAttributeSlots = AttributeSlots.of(entityMeta);
+		assertEquals(attributeSlots.size(), 2);
+		assertEquals(changedAttributeSlots.size(), 3);
+		assertEquals(changedAttributeSlots.indexOf("otherValue"), 2);
+		assertEquals(changedAttributeSlots.indexOf("OTHERVALUE"), 2);
+		assertEquals(changedAttributeSlots.indexOf("unknown"), -1);
+	}
+}
@@ -0,0 +1,121 @@
+package org.molgenis.data.support;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+public class CacheInvalidatingEntityListenerTest
+{
+	private DataService dataService;
+	private AtomicInteger nrInvalidations;
+	private CacheInvalidatingEntityListener cacheInvalidator;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		dataService = mock(DataService.class);
+		nrInvalidations = new AtomicInteger();
+		cacheInvalidator = new CacheInvalidatingEntityListener(dataService, Arrays.asList("entity0", "entity1"),
+				nrInvalidations::incrementAndGet);
+	}
+
+	@Test
+	public void addEntityListeners()
+	{
+		when(dataService.hasRepository(anyString())).thenReturn(true);
+		assertTrue(cacheInvalidator.addEntityListeners());
+		assertTrue(cacheInvalidator.addEntityListeners());
+		verify(dataService, times(1)).addEntityListener("entity0", cacheInvalidator);
+		verify(dataService, times(1)).addEntityListener("entity1", cacheInvalidator);
+		assertNull(cacheInvalidator.getEntityId());
+	}
+
+	@Test
+	public void addEntityListenersUnknownRepository()
+	{
+		when(dataService.hasRepository("entity0")).thenReturn(true);
+		assertFalse(cacheInvalidator.addEntityListeners());
+		verify(dataService, never()).addEntityListener(anyString(), any(EntityListener.class));
+
+		when(dataService.hasRepository("entity1")).thenReturn(true);
+		assertTrue(cacheInvalidator.addEntityListeners());
+	}
+
+	@Test
+	public void invalidate()
+	{
+		long generation = cacheInvalidator.getGeneration();
+		assertFalse(cacheInvalidator.isInvalidatedSince(generation));
+
+		cacheInvalidator.postAdd(mock(Entity.class));
+		cacheInvalidator.postUpdate(mock(Entity.class));
+		cacheInvalidator.postDelete("id");
+		assertEquals(nrInvalidations.get(), 3);
+		assertTrue(cacheInvalidator.isInvalidatedSince(generation));
+	}
+
+	@Test
+	public void getOrLoad()
+	{
+		Cache<String, String> cache = CacheBuilder.newBuilder().build();
+		assertEquals(cacheInvalidator.getOrLoad(cache, "key", () -> "value0"), "value0");
+		assertEquals(cacheInvalidator.getOrLoad(cache, "key", () -> "value1"), "value0");
+
+		cache.invalidateAll();
+		assertEquals(cacheInvalidator.getOrLoad(cache, "key", () -> "value1"), "value1");
+	}
+
+	@Test
+	public void getOrLoadInvalidatedWhileLoading()
+	{
+		Cache<String, String> cache = CacheBuilder.newBuilder().build();
+		assertEquals(cacheInvalidator.getOrLoad(cache, "key", () -> {
+			cacheInvalidator.invalidate();
+			return "value";
+		}), "value");
+		assertNull(cache.getIfPresent("key"));
+	}
+
+	@Test
+	public void invalidateAfterCompletion()
+	{
+		TransactionSynchronizationManager.initSynchronization();
+		try
+		{
+			cacheInvalidator.invalidate();
+			assertEquals(nrInvalidations.get(), 1);
+
+			long generation = cacheInvalidator.getGeneration();
+			TransactionSynchronizationManager.getSynchronizations().forEach(
+					synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+			assertEquals(nrInvalidations.get(), 2);
+			assertTrue(cacheInvalidator.isInvalidatedSince(generation));
+		}
+		finally
+		{
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+}
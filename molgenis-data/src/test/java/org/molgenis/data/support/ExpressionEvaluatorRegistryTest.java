@@ -0,0 +1,72 @@
+package org.molgenis.data.support;
+
+import static org.molgenis.data.EntityMetaData.AttributeRole.ROLE_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.molgenis.data.Entity;
+import org.molgenis.fieldtypes.IntField;
+import org.molgenis.fieldtypes.StringField;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ExpressionEvaluatorRegistryTest
+{
+	private DefaultEntityMetaData emd;
+	private DefaultAttributeMetaData computedAttr;
+
+	@BeforeMethod
+	public void setUpBeforeMethod()
+	{
+		emd = new DefaultEntityMetaData("Source");
+		emd.addAttributeMetaData(new DefaultAttributeMetaData("Identifier").setDataType(new IntField()), ROLE_ID);
+		emd.addAttributeMetaData(new DefaultAttributeMetaData("Int").setDataType(new IntField()));
+		computedAttr = new DefaultAttributeMetaData("Computed").setDataType(new StringField()).setExpression("Int");
+		emd.addAttributeMetaData(computedAttr);
+	}
+
+	@Test
+	public void getExpressionEvaluators()
+	{
+		Map<String, ExpressionEvaluator> evaluators = ExpressionEvaluatorRegistry.getExpressionEvaluators(emd);
+		assertEquals(evaluators.keySet().size(), 1);
+		assertTrue(evaluators.get("Computed") instanceof StringExpressionEvaluator);
+		assertSame(ExpressionEvaluatorRegistry.getExpressionEvaluators(emd), evaluators);
+	}
+
+	@Test
+	public void getExpressionEvaluatorsNoComputedAttributes()
+	{
+		DefaultEntityMetaData otherEmd = new DefaultEntityMetaData("Other");
+		otherEmd.addAttributeMetaData(new DefaultAttributeMetaData("Identifier").setDataType(new IntField()),
+				ROLE_ID);
+		assertTrue(ExpressionEvaluatorRegistry.getExpressionEvaluators(otherEmd).isEmpty());
+	}
+
+	@Test
+	public void getExpressionEvaluatorsEntityMetaDataChanged()
+	{
+		Map<String, ExpressionEvaluator> evaluators = ExpressionEvaluatorRegistry.getExpressionEvaluators(emd);
+		computedAttr.setExpression("Identifier");
+		Map<String, ExpressionEvaluator> changedEvaluators = ExpressionEvaluatorRegistry.getExpressionEvaluators(emd);
+		assertNotSame(changedEvaluators, evaluators);
+
+		Entity entity = new MapEntity(emd);
+		entity.set("Identifier", 1);
+		entity.set("Int", 2);
+		assertEquals(new EntityWithComputedAttributes(entity, changedEvaluators).get("Computed"), "1");
+	}
+
+	@Test
+	public void entityWithComputedAttributes()
+	{
+		Entity entity = new MapEntity(emd);
+		entity.set("Identifier", 1);
+		entity.set("Int", 2);
+		assertEquals(new EntityWithComputedAttributes(entity).get("Computed"), "2");
+	}
+}
@@ -3,12 +3,15 @@ package org.molgenis.data.support;
 import org.molgenis.MolgenisFieldTypes;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.Sort;
 import org.molgenis.data.settings.SettingsEntityMeta;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import static org.mockito.Mockito.mock;
@@ -26,20 +29,29 @@ public class GenomicDataSettingsTest extends AbstractTestNGSpringContextTests
 	@Autowired
 	DataService dataService;
 
-	// regressiontest for: #3542 genomebrowser does not show if the CHROM and/or POS field are inside a compound.
-	@Test
-	public void getAttributeMetadataForAttributeNameArray()
+	@BeforeClass
+	public void setUpBeforeClass()
 	{
 		DefaultEntityMetaData emd = new DefaultEntityMetaData("settings_genomicdata");
 		emd.addAttributeMetaData(new DefaultAttributeMetaData("start"));
 		emd.addAttributeMetaData(new DefaultAttributeMetaData("chromosome"));
+		emd.addAttributeMetaData(new DefaultAttributeMetaData("stop"));
+		emd.addAttributeMetaData(
+				new DefaultAttributeMetaData("max_feature_length", MolgenisFieldTypes.FieldTypeEnum.LONG));
 		Entity entity = new DefaultEntity(emd, dataService);
 		entity.set("start", "start,POS,startpos");
 		entity.set("chromosome", "chromosome,#CHROM,CHROM");
+		entity.set("stop", "stop_pos");
+		entity.set("max_feature_length", 500l);
 
 		when(dataService.getEntityMetaData("settings_genomicdata")).thenReturn(emd);
 		when(dataService.findOne("settings_genomicdata", "settings_genomicdata")).thenReturn(entity);
+	}
 
+	// regressiontest for: #3542 genomebrowser does not show if the CHROM and/or POS field are inside a compound.
+	@Test
+	public void getAttributeMetadataForAttributeNameArray()
+	{
 		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
 		DefaultAttributeMetaData posAttributeMetaData = new DefaultAttributeMetaData("POS");
 		DefaultAttributeMetaData chromAttributeMetaData = new DefaultAttributeMetaData("#CHROM");
@@ -54,6 +66,32 @@ public class GenomicDataSettingsTest extends AbstractTestNGSpringContextTests
 				chromAttributeMetaData);
 	}
 
+	@Test
+	public void createRangeQuery()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.addAttributeMetaData(new DefaultAttributeMetaData("#CHROM"));
+		entityMetaData.addAttributeMetaData(new DefaultAttributeMetaData("POS", MolgenisFieldTypes.FieldTypeEnum.INT));
+		entityMetaData
+				.addAttributeMetaData(new DefaultAttributeMetaData("stop_pos", MolgenisFieldTypes.FieldTypeEnum.INT));
+
+		Query expectedQuery = new QueryImpl().eq("#CHROM", "1").and().le("POS", 2000l).and().ge("POS", 500l).and()
+				.nest().ge("stop_pos", 1000l).or().ge("POS", 1000l).unnest().sort(new Sort("POS"));
+		assertEquals(settings.createRangeQuery(entityMetaData, "1", 1000, 2000), expectedQuery);
+	}
+
+	@Test
+	public void createRangeQueryWithoutStop()
+	{
+		DefaultEntityMetaData entityMetaData = new DefaultEntityMetaData("entity");
+		entityMetaData.addAttributeMetaData(new DefaultAttributeMetaData("#CHROM"));
+		entityMetaData.addAttributeMetaData(new DefaultAttributeMetaData("POS", MolgenisFieldTypes.FieldTypeEnum.INT));
+
+		Query expectedQuery = new QueryImpl().eq("#CHROM", "1").and().le("POS", 2000l).and().ge("POS", 1000l)
+				.sort(new Sort("POS"));
+		assertEquals(settings.createRangeQuery(entityMetaData, "1", 1000, 2000), expectedQuery);
+	}
+
 	@Configuration
 	public static class Config
 	{
@@ -0,0 +1,134 @@
+package org.molgenis.data.support;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.QueryRule.Operator;
+import org.molgenis.data.Sort;
+import org.molgenis.data.Sort.Direction;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+public class KeysetBatchingQueryResultTest
+{
+	@Test
+	public void isApplicable()
+	{
+		assertTrue(KeysetBatchingQueryResult.isApplicable(new QueryImpl(), "id"));
+		assertTrue(KeysetBatchingQueryResult.isApplicable(new QueryImpl().sort(new Sort("id", Direction.DESC)), "id"));
+		assertFalse(KeysetBatchingQueryResult.isApplicable(new QueryImpl().sort(new Sort("attr")), "id"));
+		assertFalse(KeysetBatchingQueryResult.isApplicable(new QueryImpl().sort(new Sort("id").on("attr")), "id"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void keysetBatchingQueryResultNotApplicable()
+	{
+		new KeysetBatchingQueryResult(2, new QueryImpl().sort(new Sort("attr")), "id")
+		{
+			@Override
+			protected List<Entity> getBatch(Query q)
+			{
+				return Lists.newArrayList();
+			}
+		};
+	}
+
+	@Test
+	public void getBatch()
+	{
+		final int batchSize = 2;
+		Query query = new QueryImpl().eq("attr", "val");
+		KeysetBatchingQueryResult result = new KeysetBatchingQueryResult(batchSize, query, "id")
+		{
+			int batchCount = 0;
+
+			@Override
+			protected List<Entity> getBatch(Query q)
+			{
+				assertEquals(q.getOffset(), 0);
+				assertEquals(q.getPageSize(), batchSize);
+				assertEquals(q.getSort(), new Sort("id", Direction.ASC));
+				switch (batchCount++)
+				{
+					case 0:
+						assertEquals(q.getRules(), query.getRules());
+						return Arrays.<Entity> asList(createEntity(1), createEntity(2));
+					case 1:
+						assertEquals(q.getRules(), Arrays.asList(new QueryRule(query.getRules()),
+								new QueryRule(Operator.AND), new QueryRule("id", Operator.GREATER, 2)));
+						return Arrays.<Entity> asList(createEntity(3), createEntity(4));
+					default:
+						return Lists.newArrayList();
+				}
+			}
+		};
+
+		assertEquals(Iterables.size(result), 4);
+	}
+
+	@Test
+	public void getBatchDescendingWithOffsetAndPageSize()
+	{
+		Query query = new QueryImpl().offset(5).pageSize(3).sort(new Sort("id", Direction.DESC));
+		KeysetBatchingQueryResult result = new KeysetBatchingQueryResult(2, query, "id")
+		{
+			int batchCount = 0;
+
+			@Override
+			protected List<Entity> getBatch(Query q)
+			{
+				assertEquals(q.getSort(), new Sort("id", Direction.DESC));
+				switch (batchCount++)
+				{
+					case 0:
+						assertEquals(q.getOffset(), 5);
+						assertEquals(q.getPageSize(), 2);
+						return Arrays.<Entity> asList(createEntity(10), createEntity(9));
+					case 1:
+						assertEquals(q.getOffset(), 0);
+						assertEquals(q.getPageSize(), 1);
+						assertEquals(q.getRules(), Arrays.asList(new QueryRule("id", Operator.LESS, 9)));
+						return Arrays.<Entity> asList(createEntity(8));
+					default:
+						throw new RuntimeException("page size exceeded");
+				}
+			}
+		};
+
+		assertEquals(Iterables.size(result), 3);
+	}
+
+	@Test
+	public void getBatchFetchWithoutId()
+	{
+		Query query = new QueryImpl().fetch(new Fetch().field("attr"));
+		KeysetBatchingQueryResult result = new KeysetBatchingQueryResult(2, query, "id")
+		{
+			@Override
+			protected List<Entity> getBatch(Query q)
+			{
+				assertEquals(q.getFetch(), new Fetch().field("attr").field("id"));
+				return Lists.newArrayList();
+			}
+		};
+
+		assertEquals(Iterables.size(result), 0);
+	}
+
+	private static Entity createEntity(Object id)
+	{
+		Entity entity = new MapEntity("id");
+		entity.set("id", id);
+		return entity;
+	}
+}
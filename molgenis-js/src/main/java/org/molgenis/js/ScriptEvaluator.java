@@ -15,13 +15,18 @@ import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextAction;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.EvaluatorException;
 import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.FileCopyUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
@@ -32,7 +37,15 @@ public class ScriptEvaluator
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ScriptEvaluator.class);
 
-	private static String JS_SCRIPT = null;
+	private static final int SCRIPT_CACHE_SIZE = 1000;
+
+	/**
+	 * algorithm source --> compiled script
+	 */
+	private static final Cache<String, Script> SCRIPT_CACHE = CacheBuilder.newBuilder().maximumSize(SCRIPT_CACHE_SIZE)
+			.build();
+
+	private static volatile ScriptableObject sharedScope = null;
 
 	/**
 	 * Evaluates a script for a single entity.
@@ -98,27 +111,13 @@ public class ScriptEvaluator
 	protected static List<Object> eval(final List<String> sources, final Iterable<Entity> entities,
 			final EntityMetaData entityMetaData)
 	{
-		if (JS_SCRIPT == null)
-		{
-			try
-			{
-				JS_SCRIPT = FileCopyUtils.copyToString(new InputStreamReader(ScriptEvaluator.class
-						.getResourceAsStream("/js/molgenis-script-evaluator.js"), "UTF-8"));
-			}
-			catch (IOException e)
-			{
-				throw new UncheckedIOException(e);
-			}
-		}
-
 		Object result = ContextFactory.getGlobal().call(new ContextAction()
 		{
 			@Override
 			public Object run(Context cx)
 			{
-				ScriptableObject scriptableObject = cx.initStandardObjects();
-				cx.evaluateString(scriptableObject, JS_SCRIPT, null, 1, null);
-				Function evalScript = (Function) scriptableObject.get("evalScript", scriptableObject);
+				ScriptableObject sharedScope = getSharedScope(cx);
+				List<Script> scripts = getScripts(sources, cx);
 
 				List<Object> result = Lists.newArrayList();
 
@@ -126,12 +125,10 @@ public class ScriptEvaluator
 				{
 					try
 					{
-						Scriptable scriptableEntity = mapEntity(entity, entityMetaData, cx, scriptableObject);
-
-						for (String source : sources)
+						Scriptable scriptableEntity = mapEntity(entity, entityMetaData, cx, sharedScope);
+						for (Script script : scripts)
 						{
-							result.add(evalScript.call(cx, scriptableObject, scriptableObject, new Object[]
-							{ source, scriptableEntity }));
+							result.add(script.exec(cx, createScope(scriptableEntity, cx, sharedScope)));
 						}
 					}
 					catch (EcmaError error)
@@ -152,25 +149,182 @@ public class ScriptEvaluator
 					}
 				}
 
-				scriptableObject.sealObject();
-
 				return result;
 			}
+		});
+		return (List<Object>) result;
+	}
 
-			protected Scriptable mapEntity(final Entity entity, final EntityMetaData entityMetaData, Context cx,
-					ScriptableObject scriptableObject)
+	/**
+	 * Evaluates multiple scripts on a batch of entities in one {@link Context}. Each entity is mapped to a scriptable
+	 * only once for all scripts.
+	 * 
+	 * @param sources
+	 *            the sources of the scripts to run
+	 * @param entities
+	 *            {@link Iterable} of {@link Entity}s to evaluate them for
+	 * @param entityMetaData
+	 *            {@link EntityMetaData} for the entities
+	 * @return for each entity a {@link List} that contains for each source the result of the evaluation, or the
+	 *         {@link RuntimeException} if one was thrown
+	 * @throws EcmaError
+	 *             if there's a syntax error in one of the scripts
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<List<Object>> evalAll(final List<String> sources, final Iterable<Entity> entities,
+			final EntityMetaData entityMetaData)
+	{
+		Object result = ContextFactory.getGlobal().call(new ContextAction()
+		{
+			@Override
+			public Object run(Context cx)
 			{
-				Scriptable scriptableEntity = cx.newObject(scriptableObject);
-				scriptableEntity.setPrototype(scriptableObject);
-				entityMetaData.getAtomicAttributes().forEach(
-						attr -> {
-							scriptableEntity.put(attr.getName(), scriptableEntity,
-									javaToJS(entity.get(attr.getName()), cx, scriptableObject));
-						});
-				return scriptableEntity;
+				ScriptableObject sharedScope = getSharedScope(cx);
+				List<Script> scripts = getScripts(sources, cx);
+
+				List<List<Object>> result = Lists.newArrayList();
+
+				for (Entity entity : entities)
+				{
+					List<Object> entityResult = Lists.newArrayListWithCapacity(scripts.size());
+					Scriptable scriptableEntity;
+					try
+					{
+						scriptableEntity = mapEntity(entity, entityMetaData, cx, sharedScope);
+					}
+					catch (RuntimeException ex)
+					{
+						scripts.forEach(script -> entityResult.add(ex));
+						result.add(entityResult);
+						continue;
+					}
+
+					for (Script script : scripts)
+					{
+						try
+						{
+							entityResult.add(script.exec(cx, createScope(scriptableEntity, cx, sharedScope)));
+						}
+						catch (EcmaError error)
+						{
+							if ("SyntaxError".equals(error.getName()))
+							{
+								throw error;
+							}
+							else
+							{
+								LOG.warn("EcmaError evaluating script, but it isn't a syntax error.", error);
+								entityResult.add(error);
+							}
+						}
+						catch (RuntimeException ex)
+						{
+							entityResult.add(ex);
+						}
+					}
+					result.add(entityResult);
+				}
+
+				return result;
 			}
 		});
-		return (List<Object>) result;
+		return (List<List<Object>>) result;
+	}
+
+	private static Scriptable mapEntity(Entity entity, EntityMetaData entityMetaData, Context cx,
+			ScriptableObject sharedScope)
+	{
+		Scriptable scriptableEntity = cx.newObject(sharedScope);
+		scriptableEntity.setPrototype(sharedScope);
+		entityMetaData.getAtomicAttributes().forEach(attr -> {
+			scriptableEntity.put(attr.getName(), scriptableEntity,
+					javaToJS(entity.get(attr.getName()), cx, sharedScope));
+		});
+		return scriptableEntity;
+	}
+
+	/**
+	 * Creates the lightweight scope in which a script is evaluated for an entity. Variables declared by the script end
+	 * up in this scope and not in the shared scope.
+	 */
+	private static Scriptable createScope(Scriptable scriptableEntity, Context cx, ScriptableObject sharedScope)
+	{
+		Scriptable scope = cx.newObject(sharedScope);
+		scope.setPrototype(sharedScope);
+		scope.setParentScope(null);
+		Function bindEntity = (Function) sharedScope.get("bindEntity", sharedScope);
+		bindEntity.call(cx, sharedScope, sharedScope, new Object[]
+		{ scope, scriptableEntity });
+		return scope;
+	}
+
+	/**
+	 * Returns the sealed scope with the standard objects and molgenis-script-evaluator.js, the scope is created once
+	 * and shared by all evaluations.
+	 */
+	private static ScriptableObject getSharedScope(Context cx)
+	{
+		ScriptableObject scope = sharedScope;
+		if (scope == null)
+		{
+			synchronized (ScriptEvaluator.class)
+			{
+				scope = sharedScope;
+				if (scope == null)
+				{
+					String jsScript;
+					try
+					{
+						jsScript = FileCopyUtils.copyToString(new InputStreamReader(ScriptEvaluator.class
+								.getResourceAsStream("/js/molgenis-script-evaluator.js"), "UTF-8"));
+					}
+					catch (IOException e)
+					{
+						throw new UncheckedIOException(e);
+					}
+
+					scope = cx.initStandardObjects(null, true);
+					cx.evaluateString(scope, jsScript, "molgenis-script-evaluator.js", 1, null);
+					scope.sealObject();
+					sharedScope = scope;
+				}
+			}
+		}
+		return scope;
+	}
+
+	private static List<Script> getScripts(List<String> sources, Context cx)
+	{
+		List<Script> scripts = Lists.newArrayListWithCapacity(sources.size());
+		for (String source : sources)
+		{
+			scripts.add(getScript(source, cx));
+		}
+		return scripts;
+	}
+
+	/**
+	 * Returns the compiled script for the given source, compiled scripts are cached.
+	 * 
+	 * @throws EcmaError
+	 *             if there's a syntax error in the script
+	 */
+	private static Script getScript(String source, Context cx)
+	{
+		Script script = SCRIPT_CACHE.getIfPresent(source);
+		if (script == null)
+		{
+			try
+			{
+				script = cx.compileString(source, "script", 1, null);
+			}
+			catch (EvaluatorException e)
+			{
+				throw ScriptRuntime.constructError("SyntaxError", e.details());
+			}
+			SCRIPT_CACHE.put(source, script);
+		}
+		return script;
 	}
 
 	private static Object javaToJS(Object value, Context cx, Scriptable scope)
@@ -1,13 +1,13 @@
 /**
- * Evaluates a script.
+ * Binds the script functions to an entity in the scope in which a compiled
+ * script is evaluated.
  * 
- * @param script
- *            the script
+ * @param scope
+ *            the script scope
  * @param entity
  *            the entity
- * @returns the evaluated script result
  */
-function evalScript(script, entity) {
+function bindEntity(scope, entity) {
 
 	function attribute(value){
 		
@@ -394,8 +394,8 @@ function evalScript(script, entity) {
 		return new attribute(value);
 	}
 
-	$ = $.bind(entity);
-	return eval(script);
+	scope.$ = $.bind(entity);
+	scope.newValue = newValue;
 }
 /**
  * math.js
@@ -474,6 +474,43 @@ public class MolgenisJsTest
 		assertEquals(bmi, Collections.nCopies(1000, 82.0 / (1.89 * 1.89)));
 	}
 
+	@Test
+	public void testScriptVariablesNotShared()
+	{
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("person");
+		emd.addAttribute("weight").setDataType(MolgenisFieldTypes.INT);
+
+		List<Object> results = ScriptEvaluator.eval("var x = $('weight').value(); y = x; x + y",
+				Arrays.asList(new MapEntity("weight", 1), new MapEntity("weight", 2)), emd);
+		assertEquals(results, Arrays.asList(2.0, 4.0));
+
+		Object result = ScriptEvaluator.eval("typeof x + typeof y", new MapEntity("weight", 3), emd);
+		assertEquals(result, "undefinedundefined");
+	}
+
+	@Test
+	public void testEvalAll()
+	{
+		DefaultEntityMetaData emd = new DefaultEntityMetaData("person");
+		emd.addAttribute("weight").setDataType(MolgenisFieldTypes.INT);
+		emd.addAttribute("height").setDataType(MolgenisFieldTypes.INT);
+
+		Entity person = new MapEntity();
+		person.set("weight", 82);
+		person.set("height", 189);
+
+		List<List<Object>> results = ScriptEvaluator.evalAll(
+				Arrays.asList("$('weight').value()", "$('height').div(100).value()", "$('weight').unknown()"),
+				Arrays.asList(person, person), emd);
+		assertEquals(results.size(), 2);
+		for (List<Object> result : results)
+		{
+			assertEquals(result.get(0), 82);
+			assertEquals(result.get(1), 1.89);
+			assertEquals(result.get(2).getClass(), EcmaError.class);
+		}
+	}
+
 	@Test
 	public void testBatchErrors()
 	{
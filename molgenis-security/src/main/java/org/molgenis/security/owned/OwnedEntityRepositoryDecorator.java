@@ -3,7 +3,9 @@ package org.molgenis.security.owned;
 import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -13,9 +15,13 @@ import org.molgenis.data.Entity;
 import org.molgenis.data.EntityListener;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.MolgenisDataAccessException;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.support.AggregateQueryImpl;
 import org.molgenis.data.support.OwnedEntityMetaData;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.security.core.runas.SystemSecurityToken;
@@ -49,16 +55,12 @@ public class OwnedEntityRepositoryDecorator implements Repository
 	@Override
 	public Stream<Entity> stream(Fetch fetch)
 	{
+		if (mustAddRowLevelSecurity()) return findAll(new QueryImpl().fetch(fetch));
 		if (fetch != null)
 		{
 			fetch.field(OwnedEntityMetaData.ATTR_OWNER_USERNAME);
 		}
-		Stream<Entity> entities = decoratedRepo.stream(fetch);
-		if (mustAddRowLevelSecurity())
-		{
-			entities = entities.filter(this::currentUserIsOwner);
-		}
-		return entities;
+		return decoratedRepo.stream(fetch);
 	}
 
 	@Override
@@ -101,24 +103,21 @@ public class OwnedEntityRepositoryDecorator implements Repository
 	@Override
 	public long count(Query q)
 	{
-		if (mustAddRowLevelSecurity()) addRowLevelSecurity(q);
+		if (mustAddRowLevelSecurity()) q = createRowLevelSecurityQuery(q);
 		return decoratedRepo.count(q);
 	}
 
 	@Override
 	public Stream<Entity> findAll(Query q)
 	{
-		if (mustAddRowLevelSecurity())
-		{
-			addRowLevelSecurity(q);
-		}
+		if (mustAddRowLevelSecurity()) q = createRowLevelSecurityQuery(q);
 		return decoratedRepo.findAll(q);
 	}
 
 	@Override
 	public Entity findOne(Query q)
 	{
-		if (mustAddRowLevelSecurity()) addRowLevelSecurity(q);
+		if (mustAddRowLevelSecurity()) q = createRowLevelSecurityQuery(q);
 		return decoratedRepo.findOne(q);
 	}
 
@@ -181,7 +180,11 @@ public class OwnedEntityRepositoryDecorator implements Repository
 	@Override
 	public AggregateResult aggregate(AggregateQuery aggregateQuery)
 	{
-		if (mustAddRowLevelSecurity()) addRowLevelSecurity(aggregateQuery.getQuery());
+		if (mustAddRowLevelSecurity())
+		{
+			aggregateQuery = new AggregateQueryImpl(aggregateQuery.getAttributeX(), aggregateQuery.getAttributeY(),
+					aggregateQuery.getAttributeDistinct(), createRowLevelSecurityQuery(aggregateQuery.getQuery()));
+		}
 		return decoratedRepo.aggregate(aggregateQuery);
 	}
 
@@ -261,7 +264,7 @@ public class OwnedEntityRepositoryDecorator implements Repository
 	{
 		if (mustAddRowLevelSecurity())
 		{
-			delete(decoratedRepo.stream());
+			decoratedRepo.delete(decoratedRepo.findAll(createRowLevelSecurityQuery(new QueryImpl())));
 		}
 		else
 		{
@@ -324,14 +327,47 @@ public class OwnedEntityRepositoryDecorator implements Repository
 		return EntityUtils.doesExtend(getEntityMetaData(), OwnedEntityMetaData.ENTITY_NAME);
 	}
 
-	private void addRowLevelSecurity(Query q)
+	/**
+	 * Returns a copy of the query that only matches entities owned by the current user so that the repository filters,
+	 * pages and counts on owned entities only. The given query is not modified.
+	 * 
+	 * @throws MolgenisDataAccessException
+	 *             if there is no current user
+	 */
+	private Query createRowLevelSecurityQuery(Query q)
 	{
 		String user = SecurityUtils.getCurrentUsername();
-		if (user != null)
+		if (user == null)
+		{
+			throw new MolgenisDataAccessException("No current user to determine owned entities of entity "
+					+ getEntityMetaData().getName());
+		}
+
+		QueryImpl rowLevelSecurityQuery = new QueryImpl();
+		List<QueryRule> rules = q != null ? q.getRules() : Collections.<QueryRule> emptyList();
+		if (!rules.isEmpty())
+		{
+			// nest rules that contain an 'or' so that the owner rule applies to all of them
+			if (rules.stream().anyMatch(rule -> rule.getOperator() == Operator.OR))
+			{
+				rowLevelSecurityQuery.addRule(new QueryRule(rules));
+			}
+			else
+			{
+				rules.forEach(rowLevelSecurityQuery::addRule);
+			}
+			rowLevelSecurityQuery.and();
+		}
+		rowLevelSecurityQuery.eq(OwnedEntityMetaData.ATTR_OWNER_USERNAME, user);
+
+		if (q != null)
 		{
-			if (!q.getRules().isEmpty()) q.and();
-			q.eq(OwnedEntityMetaData.ATTR_OWNER_USERNAME, user);
+			rowLevelSecurityQuery.setPageSize(q.getPageSize());
+			rowLevelSecurityQuery.setOffset(q.getOffset());
+			rowLevelSecurityQuery.setSort(q.getSort());
+			rowLevelSecurityQuery.setFetch(q.getFetch());
 		}
+		return rowLevelSecurityQuery;
 	}
 
 	private String getOwnerUserName(Entity questionnaire)
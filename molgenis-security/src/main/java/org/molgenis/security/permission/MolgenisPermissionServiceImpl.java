@@ -1,48 +1,41 @@
 package org.molgenis.security.permission;
 
-import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_ENTITY_PREFIX;
-import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_PLUGIN_PREFIX;
-import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_SU;
-
-import java.util.Collection;
-
 import org.molgenis.security.core.MolgenisPermissionService;
 import org.molgenis.security.core.Permission;
-import org.molgenis.security.core.runas.SystemSecurityToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 public class MolgenisPermissionServiceImpl implements MolgenisPermissionService
 {
+	/**
+	 * Permission index per authentication, the authorities of an authentication do not change. Weak keys compare by
+	 * identity and release the index together with the security context that holds the authentication.
+	 */
+	private final LoadingCache<Authentication, PermissionIndex> permissionIndices = CacheBuilder.newBuilder()
+			.weakKeys().build(CacheLoader.from(PermissionIndex::new));
+
 	@Override
 	public boolean hasPermissionOnPlugin(String pluginId, Permission permission)
 	{
-		return hasPermission(pluginId, permission, AUTHORITY_PLUGIN_PREFIX);
+		PermissionIndex permissionIndex = getPermissionIndex();
+		return permissionIndex != null && permissionIndex.hasPermissionOnPlugin(pluginId, permission);
 	}
 
 	@Override
 	public boolean hasPermissionOnEntity(String entityName, Permission permission)
 	{
-		return hasPermission(entityName, permission, AUTHORITY_ENTITY_PREFIX);
+		PermissionIndex permissionIndex = getPermissionIndex();
+		return permissionIndex != null && permissionIndex.hasPermissionOnEntity(entityName, permission);
 	}
 
-	private boolean hasPermission(String authorityId, Permission permission, String authorityPrefix)
+	private PermissionIndex getPermissionIndex()
 	{
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		if (authentication == null) return false;
-
-		String pluginAuthority = authorityPrefix + permission.toString() + '_' + authorityId.toUpperCase();
-		Collection<? extends GrantedAuthority> grantedAuthorities = authentication.getAuthorities();
-		if (grantedAuthorities != null)
-		{
-			for (GrantedAuthority grantedAuthority : grantedAuthorities)
-			{
-				String authority = grantedAuthority.getAuthority();
-				if (authority.equals(AUTHORITY_SU) || authority.equals(SystemSecurityToken.ROLE_SYSTEM)
-						|| authority.equals(pluginAuthority)) return true;
-			}
-		}
-		return false;
+		if (authentication == null) return null;
+		return permissionIndices.getUnchecked(authentication);
 	}
 }
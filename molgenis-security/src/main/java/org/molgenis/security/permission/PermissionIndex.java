@@ -0,0 +1,100 @@
+package org.molgenis.security.permission;
+
+import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_ENTITY_PREFIX;
+import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_PLUGIN_PREFIX;
+import static org.molgenis.security.core.utils.SecurityUtils.AUTHORITY_SU;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.molgenis.security.core.Permission;
+import org.molgenis.security.core.runas.SystemSecurityToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Immutable index of the entity and plugin permissions granted by the authorities of an {@link Authentication}. The
+ * index is built once so that a permission check is a hash lookup instead of a scan over all authorities.
+ */
+class PermissionIndex
+{
+	private static final Permission[] PERMISSIONS = Permission.values();
+
+	/** superuser or system, has all permissions */
+	private final boolean superuser;
+	/** upper case entity name --> permissions */
+	private final Map<String, Set<Permission>> entityPermissions;
+	/** upper case plugin id --> permissions */
+	private final Map<String, Set<Permission>> pluginPermissions;
+
+	PermissionIndex(Authentication authentication)
+	{
+		boolean superuser = false;
+		Map<String, Set<Permission>> entityPermissions = new HashMap<>();
+		Map<String, Set<Permission>> pluginPermissions = new HashMap<>();
+
+		Collection<? extends GrantedAuthority> grantedAuthorities = authentication.getAuthorities();
+		if (grantedAuthorities != null)
+		{
+			for (GrantedAuthority grantedAuthority : grantedAuthorities)
+			{
+				String authority = grantedAuthority.getAuthority();
+				if (authority.equals(AUTHORITY_SU) || authority.equals(SystemSecurityToken.ROLE_SYSTEM))
+				{
+					superuser = true;
+					break;
+				}
+				else if (authority.startsWith(AUTHORITY_ENTITY_PREFIX))
+				{
+					addPermission(authority, AUTHORITY_ENTITY_PREFIX.length(), entityPermissions);
+				}
+				else if (authority.startsWith(AUTHORITY_PLUGIN_PREFIX))
+				{
+					addPermission(authority, AUTHORITY_PLUGIN_PREFIX.length(), pluginPermissions);
+				}
+			}
+		}
+
+		this.superuser = superuser;
+		this.entityPermissions = superuser ? null : entityPermissions;
+		this.pluginPermissions = superuser ? null : pluginPermissions;
+	}
+
+	/**
+	 * Parses authorities of the form <prefix><permission>_<id>
+	 */
+	private static void addPermission(String authority, int offset, Map<String, Set<Permission>> permissionsMap)
+	{
+		for (Permission permission : PERMISSIONS)
+		{
+			String permissionName = permission.toString();
+			int idOffset = offset + permissionName.length() + 1;
+			if (authority.length() > idOffset && authority.startsWith(permissionName, offset)
+					&& authority.charAt(idOffset - 1) == '_')
+			{
+				permissionsMap.computeIfAbsent(authority.substring(idOffset), id -> EnumSet.noneOf(Permission.class))
+						.add(permission);
+			}
+		}
+	}
+
+	boolean hasPermissionOnEntity(String entityName, Permission permission)
+	{
+		return superuser || hasPermission(entityPermissions, entityName, permission);
+	}
+
+	boolean hasPermissionOnPlugin(String pluginId, Permission permission)
+	{
+		return superuser || hasPermission(pluginPermissions, pluginId, permission);
+	}
+
+	private static boolean hasPermission(Map<String, Set<Permission>> permissionsMap, String id, Permission permission)
+	{
+		// toUpperCase returns the same string for ids that are already upper case
+		Set<Permission> permissions = permissionsMap.get(id.toUpperCase());
+		return permissions != null && permissions.contains(permission);
+	}
+}
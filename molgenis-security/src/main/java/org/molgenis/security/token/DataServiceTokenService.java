@@ -1,11 +1,20 @@
 package org.molgenis.security.token;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.time.DateUtils;
+import org.molgenis.auth.GroupAuthorityMetaData;
+import org.molgenis.auth.MolgenisGroupMemberMetaData;
 import org.molgenis.auth.MolgenisToken;
+import org.molgenis.auth.MolgenisTokenMetaData;
 import org.molgenis.auth.MolgenisUser;
+import org.molgenis.auth.MolgenisUserMetaData;
+import org.molgenis.auth.UserAuthorityMetaData;
 import org.molgenis.data.DataService;
+import org.molgenis.data.support.CacheInvalidatingEntityListener;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.security.core.runas.RunAsSystem;
 import org.molgenis.security.core.token.TokenService;
@@ -14,14 +23,30 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * TokensService implementation that uses the DataService
  */
 public class DataServiceTokenService implements TokenService
 {
+	private static final int TOKEN_CACHE_MAX_SIZE = 1000;
+	private static final long TOKEN_CACHE_EXPIRE_MINUTES = 5;
+
+	/** entities that determine the user details of a token */
+	private static final List<String> TOKEN_USER_DETAILS_ENTITY_NAMES = Arrays.asList(
+			MolgenisTokenMetaData.ENTITY_NAME, MolgenisUserMetaData.ENTITY_NAME,
+			MolgenisGroupMemberMetaData.ENTITY_NAME, UserAuthorityMetaData.ENTITY_NAME,
+			GroupAuthorityMetaData.ENTITY_NAME);
+
 	private final TokenGenerator tokenGenerator;
 	private final DataService dataService;
 	private final UserDetailsService userDetailsService;
+	/** token --> user details of valid tokens */
+	private final Cache<String, TokenUserDetails> tokenUserDetailsCache;
+	/** invalidates the cache when tokens, users, group memberships or authorities change */
+	private final CacheInvalidatingEntityListener cacheInvalidator;
 
 	public DataServiceTokenService(TokenGenerator tokenGenerator, DataService dataService,
 			UserDetailsService userDetailsService)
@@ -29,6 +54,10 @@ public class DataServiceTokenService implements TokenService
 		this.tokenGenerator = tokenGenerator;
 		this.dataService = dataService;
 		this.userDetailsService = userDetailsService;
+		this.tokenUserDetailsCache = CacheBuilder.newBuilder().maximumSize(TOKEN_CACHE_MAX_SIZE)
+				.expireAfterWrite(TOKEN_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).build();
+		this.cacheInvalidator = new CacheInvalidatingEntityListener(dataService, TOKEN_USER_DETAILS_ENTITY_NAMES,
+				tokenUserDetailsCache::invalidateAll);
 	}
 
 	/**
@@ -41,9 +70,27 @@ public class DataServiceTokenService implements TokenService
 	@Transactional(readOnly = true)
 	@RunAsSystem
 	public UserDetails findUserByToken(String token) throws UnknownTokenException
+	{
+		if (!cacheInvalidator.addEntityListeners())
+		{
+			return loadTokenUserDetails(token).getUserDetails();
+		}
+
+		TokenUserDetails tokenUserDetails = cacheInvalidator.getOrLoad(tokenUserDetailsCache, token,
+				() -> loadTokenUserDetails(token));
+		if (tokenUserDetails.isExpired())
+		{
+			tokenUserDetailsCache.invalidate(token);
+			throw new UnknownTokenException("Invalid token");
+		}
+		return tokenUserDetails.getUserDetails();
+	}
+
+	private TokenUserDetails loadTokenUserDetails(String token) throws UnknownTokenException
 	{
 		MolgenisToken molgenisToken = getMolgenisToken(token);
-		return userDetailsService.loadUserByUsername(molgenisToken.getMolgenisUser().getUsername());
+		UserDetails userDetails = userDetailsService.loadUserByUsername(molgenisToken.getMolgenisUser().getUsername());
+		return new TokenUserDetails(userDetails, molgenisToken.getExpirationDate());
 	}
 
 	/**
@@ -84,6 +131,7 @@ public class DataServiceTokenService implements TokenService
 	{
 		MolgenisToken molgenisToken = getMolgenisToken(token);
 		dataService.delete(MolgenisToken.ENTITY_NAME, molgenisToken);
+		cacheInvalidator.invalidate();
 	}
 
 	private MolgenisToken getMolgenisToken(String token) throws UnknownTokenException
@@ -99,4 +147,26 @@ public class DataServiceTokenService implements TokenService
 
 		return molgenisToken;
 	}
+
+	private static class TokenUserDetails
+	{
+		private final UserDetails userDetails;
+		private final Date expirationDate;
+
+		TokenUserDetails(UserDetails userDetails, Date expirationDate)
+		{
+			this.userDetails = userDetails;
+			this.expirationDate = expirationDate;
+		}
+
+		UserDetails getUserDetails()
+		{
+			return userDetails;
+		}
+
+		boolean isExpired()
+		{
+			return expirationDate != null && new Date().after(expirationDate);
+		}
+	}
 }
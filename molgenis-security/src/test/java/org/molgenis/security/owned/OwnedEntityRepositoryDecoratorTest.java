@@ -2,7 +2,9 @@ package org.molgenis.security.owned;
 
 import static java.util.Collections.emptyList;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -19,9 +21,11 @@ import org.mockito.ArgumentCaptor;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityMetaData;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.MolgenisDataAccessException;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
 import org.molgenis.data.support.OwnedEntityMetaData;
+import org.molgenis.data.support.QueryImpl;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.testng.annotations.BeforeMethod;
@@ -308,11 +312,43 @@ public class OwnedEntityRepositoryDecoratorTest
 		when(entityMeta.getExtends()).thenReturn(new OwnedEntityMetaData());
 
 		Entity entity0 = when(mock(Entity.class).getString(ATTR_OWNER_USERNAME)).thenReturn("username").getMock();
-		Query query = mock(Query.class);
-		when(decoratedRepository.findAll(query)).thenReturn(Stream.of(entity0));
+		Query query = new QueryImpl().eq("attr", "value").pageSize(10).offset(20);
+		Query decoratedQuery = new QueryImpl().eq("attr", "value").and().eq(ATTR_OWNER_USERNAME, "username")
+				.pageSize(10).offset(20);
+		when(decoratedRepository.findAll(decoratedQuery)).thenReturn(Stream.of(entity0));
 		Stream<Entity> entities = ownedEntityRepositoryDecorator.findAll(query);
 		assertEquals(entities.collect(Collectors.toList()), Arrays.asList(entity0));
-		verify(query, times(1)).eq(OwnedEntityMetaData.ATTR_OWNER_USERNAME, "username");
+		assertEquals(query, new QueryImpl().eq("attr", "value").pageSize(10).offset(20));
+	}
+
+	@Test
+	public void findAllAsStreamExtendsOwnedOrQuery()
+	{
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken("username", null);
+		authentication.setAuthenticated(false);
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		when(entityMeta.getExtends()).thenReturn(new OwnedEntityMetaData());
+
+		Entity entity0 = when(mock(Entity.class).getString(ATTR_OWNER_USERNAME)).thenReturn("username").getMock();
+		Query query = new QueryImpl().eq("attr", "value0").or().eq("attr", "value1");
+		Query decoratedQuery = new QueryImpl().nest().eq("attr", "value0").or().eq("attr", "value1").unnest().and()
+				.eq(ATTR_OWNER_USERNAME, "username");
+		when(decoratedRepository.findAll(decoratedQuery)).thenReturn(Stream.of(entity0));
+		Stream<Entity> entities = ownedEntityRepositoryDecorator.findAll(query);
+		assertEquals(entities.collect(Collectors.toList()), Arrays.asList(entity0));
+	}
+
+	@Test
+	public void countQueryExtendsOwned()
+	{
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken("username", null);
+		authentication.setAuthenticated(false);
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		when(entityMeta.getExtends()).thenReturn(new OwnedEntityMetaData());
+
+		when(decoratedRepository.count(new QueryImpl().eq(ATTR_OWNER_USERNAME, "username"))).thenReturn(3L);
+		assertEquals(ownedEntityRepositoryDecorator.count(new QueryImpl()), 3L);
+		assertEquals(ownedEntityRepositoryDecorator.count(), 3L);
 	}
 
 	@Test
@@ -323,13 +359,14 @@ public class OwnedEntityRepositoryDecoratorTest
 		SecurityContextHolder.getContext().setAuthentication(authentication);
 		when(entityMeta.getExtends()).thenReturn(new OwnedEntityMetaData());
 
-		Fetch fetch = new Fetch();
+		Fetch fetch = new Fetch().field("attr");
 		Entity entity0 = when(mock(Entity.class).getString(ATTR_OWNER_USERNAME)).thenReturn("username").getMock();
 		Entity entity1 = when(mock(Entity.class).getString(ATTR_OWNER_USERNAME)).thenReturn("username").getMock();
-		Fetch decoratedFetch = new Fetch().field(ATTR_OWNER_USERNAME);
-		when(decoratedRepository.stream(decoratedFetch)).thenReturn(Stream.of(entity0, entity1));
+		Query decoratedQuery = new QueryImpl().eq(ATTR_OWNER_USERNAME, "username").fetch(fetch);
+		when(decoratedRepository.findAll(decoratedQuery)).thenReturn(Stream.of(entity0, entity1));
 		Stream<Entity> expectedEntities = ownedEntityRepositoryDecorator.stream(fetch);
 		assertEquals(expectedEntities.collect(Collectors.toList()), Arrays.asList(entity0, entity1));
+		verify(decoratedRepository, never()).stream(any(Fetch.class));
 	}
 
 	@Test
@@ -341,11 +378,27 @@ public class OwnedEntityRepositoryDecoratorTest
 		when(entityMeta.getExtends()).thenReturn(new OwnedEntityMetaData());
 
 		Fetch fetch = new Fetch();
-		Entity entity0 = when(mock(Entity.class).getString(ATTR_OWNER_USERNAME)).thenReturn("notme").getMock();
-		Entity entity1 = when(mock(Entity.class).getString(ATTR_OWNER_USERNAME)).thenReturn("notme").getMock();
-		Fetch decoratedFetch = new Fetch().field(ATTR_OWNER_USERNAME);
-		when(decoratedRepository.stream(decoratedFetch)).thenReturn(Stream.of(entity0, entity1));
+		Query decoratedQuery = new QueryImpl().eq(ATTR_OWNER_USERNAME, "username").fetch(fetch);
+		when(decoratedRepository.findAll(decoratedQuery)).thenReturn(Stream.empty());
 		Stream<Entity> expectedEntities = ownedEntityRepositoryDecorator.stream(fetch);
 		assertEquals(expectedEntities.collect(Collectors.toList()), emptyList());
 	}
+
+	@Test(expectedExceptions = MolgenisDataAccessException.class)
+	public void findAllQueryExtendsOwnedNoCurrentUser()
+	{
+		SecurityContextHolder.getContext().setAuthentication(null);
+		when(entityMeta.getExtends()).thenReturn(new OwnedEntityMetaData());
+
+		ownedEntityRepositoryDecorator.findAll(new QueryImpl());
+	}
+
+	@Test(expectedExceptions = MolgenisDataAccessException.class)
+	public void countQueryExtendsOwnedNoCurrentUser()
+	{
+		SecurityContextHolder.getContext().setAuthentication(null);
+		when(entityMeta.getExtends()).thenReturn(new OwnedEntityMetaData());
+
+		ownedEntityRepositoryDecorator.count(new QueryImpl());
+	}
 }
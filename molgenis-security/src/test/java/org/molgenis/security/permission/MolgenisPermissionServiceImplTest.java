@@ -1,6 +1,8 @@
 package org.molgenis.security.permission;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
@@ -20,6 +22,7 @@ import org.testng.annotations.Test;
 public class MolgenisPermissionServiceImplTest
 {
 	private static Authentication AUTHENTICATION;
+	private static Authentication AUTHENTICATION_USER;
 
 	@SuppressWarnings("unchecked")
 	@BeforeClass
@@ -45,6 +48,7 @@ public class MolgenisPermissionServiceImplTest
 						Arrays.<GrantedAuthority> asList(authority1, authority2, authority3, authority4, authority5,
 								authority6));
 		SecurityContextHolder.getContext().setAuthentication(authentication);
+		AUTHENTICATION_USER = authentication;
 	}
 
 	@AfterClass
@@ -86,4 +90,49 @@ public class MolgenisPermissionServiceImplTest
 		assertFalse(new MolgenisPermissionServiceImpl().hasPermissionOnPlugin("plugin-unknown", Permission.WRITE));
 		assertFalse(new MolgenisPermissionServiceImpl().hasPermissionOnPlugin("plugin-unknown", Permission.COUNT));
 	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void hasPermissionSuperuser()
+	{
+		Authentication authentication = mock(Authentication.class);
+		GrantedAuthority authority = when(mock(GrantedAuthority.class).getAuthority()).thenReturn(
+				SecurityUtils.AUTHORITY_SU).getMock();
+		when((Collection<GrantedAuthority>) (authentication.getAuthorities())).thenReturn(
+				Arrays.<GrantedAuthority> asList(authority));
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		try
+		{
+			assertTrue(new MolgenisPermissionServiceImpl().hasPermissionOnEntity("entity-unknown", Permission.WRITE));
+			assertTrue(new MolgenisPermissionServiceImpl().hasPermissionOnPlugin("plugin-unknown", Permission.READ));
+		}
+		finally
+		{
+			SecurityContextHolder.getContext().setAuthentication(AUTHENTICATION_USER);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void hasPermissionIndexedOncePerAuthentication()
+	{
+		Authentication authentication = mock(Authentication.class);
+		GrantedAuthority authority = when(mock(GrantedAuthority.class).getAuthority()).thenReturn(
+				SecurityUtils.AUTHORITY_ENTITY_PREFIX + Permission.WRITEMETA + "_ENTITY1").getMock();
+		when((Collection<GrantedAuthority>) (authentication.getAuthorities())).thenReturn(
+				Arrays.<GrantedAuthority> asList(authority));
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		try
+		{
+			MolgenisPermissionServiceImpl permissionService = new MolgenisPermissionServiceImpl();
+			assertTrue(permissionService.hasPermissionOnEntity("entity1", Permission.WRITEMETA));
+			assertFalse(permissionService.hasPermissionOnEntity("entity1", Permission.WRITE));
+			assertFalse(permissionService.hasPermissionOnPlugin("entity1", Permission.WRITEMETA));
+			verify(authentication, times(1)).getAuthorities();
+		}
+		finally
+		{
+			SecurityContextHolder.getContext().setAuthentication(AUTHENTICATION_USER);
+		}
+	}
 }
@@ -1,17 +1,25 @@
 package org.molgenis.security.token;
 
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 
 import java.util.Arrays;
 import java.util.Date;
 
 import org.apache.commons.lang3.time.DateUtils;
+import org.mockito.ArgumentCaptor;
 import org.molgenis.auth.MolgenisToken;
 import org.molgenis.auth.MolgenisUser;
+import org.molgenis.auth.UserAuthority;
+import org.molgenis.auth.UserAuthorityMetaData;
 import org.molgenis.data.DataService;
+import org.molgenis.data.EntityListener;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.security.core.token.UnknownTokenException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -33,6 +41,7 @@ public class DataServiceTokenServiceTest
 	{
 		tokenGenerator = mock(TokenGenerator.class);
 		dataService = mock(DataService.class);
+		when(dataService.hasRepository(anyString())).thenReturn(true);
 		userDetailsService = mock(UserDetailsService.class);
 		tokenService = new DataServiceTokenService(tokenGenerator, dataService, userDetailsService);
 	}
@@ -56,6 +65,80 @@ public class DataServiceTokenServiceTest
 		assertEquals(tokenService.findUserByToken("token"), userDetails);
 	}
 
+	@Test
+	public void findUserByTokenCached()
+	{
+		MolgenisToken molgenisToken = new MolgenisToken();
+		molgenisToken.setToken("token");
+		MolgenisUser user = new MolgenisUser();
+		user.setUsername("admin");
+		molgenisToken.setMolgenisUser(user);
+
+		when(dataService.findOne(MolgenisToken.ENTITY_NAME, new QueryImpl().eq(MolgenisToken.TOKEN, "token"),
+				MolgenisToken.class)).thenReturn(molgenisToken);
+
+		UserDetails userDetails = new User("admin", "admin", Arrays.asList(new SimpleGrantedAuthority("admin")));
+		when(userDetailsService.loadUserByUsername("admin")).thenReturn(userDetails);
+
+		assertEquals(tokenService.findUserByToken("token"), userDetails);
+		assertEquals(tokenService.findUserByToken("token"), userDetails);
+		verify(userDetailsService, times(1)).loadUserByUsername("admin");
+	}
+
+	@Test
+	public void findUserByTokenCacheInvalidated()
+	{
+		MolgenisToken molgenisToken = new MolgenisToken();
+		molgenisToken.setToken("token");
+		MolgenisUser user = new MolgenisUser();
+		user.setUsername("admin");
+		molgenisToken.setMolgenisUser(user);
+
+		when(dataService.findOne(MolgenisToken.ENTITY_NAME, new QueryImpl().eq(MolgenisToken.TOKEN, "token"),
+				MolgenisToken.class)).thenReturn(molgenisToken);
+
+		UserDetails userDetails = new User("admin", "admin", Arrays.asList(new SimpleGrantedAuthority("admin")));
+		when(userDetailsService.loadUserByUsername("admin")).thenReturn(userDetails);
+
+		assertEquals(tokenService.findUserByToken("token"), userDetails);
+
+		ArgumentCaptor<EntityListener> entityListenerCaptor = ArgumentCaptor.forClass(EntityListener.class);
+		verify(dataService).addEntityListener(eq(UserAuthorityMetaData.ENTITY_NAME), entityListenerCaptor.capture());
+		EntityListener entityListener = entityListenerCaptor.getValue();
+		assertNull(entityListener.getEntityId());
+		entityListener.postAdd(new UserAuthority());
+
+		assertEquals(tokenService.findUserByToken("token"), userDetails);
+		verify(userDetailsService, times(2)).loadUserByUsername("admin");
+	}
+
+	@Test
+	public void findUserByTokenCacheInvalidatedWhileLoading()
+	{
+		MolgenisToken molgenisToken = new MolgenisToken();
+		molgenisToken.setToken("token");
+		MolgenisUser user = new MolgenisUser();
+		user.setUsername("admin");
+		molgenisToken.setMolgenisUser(user);
+
+		when(dataService.findOne(MolgenisToken.ENTITY_NAME, new QueryImpl().eq(MolgenisToken.TOKEN, "token"),
+				MolgenisToken.class)).thenReturn(molgenisToken);
+
+		UserDetails userDetails = new User("admin", "admin", Arrays.asList(new SimpleGrantedAuthority("admin")));
+		when(userDetailsService.loadUserByUsername("admin")).thenAnswer(invocation -> {
+			// authorities change while the user details of the token are being loaded
+			ArgumentCaptor<EntityListener> entityListenerCaptor = ArgumentCaptor.forClass(EntityListener.class);
+			verify(dataService).addEntityListener(eq(UserAuthorityMetaData.ENTITY_NAME),
+					entityListenerCaptor.capture());
+			entityListenerCaptor.getValue().postAdd(new UserAuthority());
+			return userDetails;
+		});
+
+		assertEquals(tokenService.findUserByToken("token"), userDetails);
+		assertEquals(tokenService.findUserByToken("token"), userDetails);
+		verify(userDetailsService, times(2)).loadUserByUsername("admin");
+	}
+
 	@Test(expectedExceptions = UnknownTokenException.class)
 	public void findUserByTokenExpired()
 	{